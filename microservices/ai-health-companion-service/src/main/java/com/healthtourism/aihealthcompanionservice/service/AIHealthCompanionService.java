@@ -134,18 +134,17 @@ public class AIHealthCompanionService {
     
     /**
      * Retrieve relevant medical knowledge (RAG) - Enhanced with Vector Database
-     * Uses Milvus to search thousands of documents in seconds
+     * Uses the vector index to search thousands of documents in milliseconds
      */
     private String retrieveRelevantKnowledge(String question, Map<String, Object> medicalContext) {
         // Use Vector Database if available
         if (vectorDatabaseService != null) {
             try {
                 // Generate embedding for question
-                List<Float> queryEmbedding = vectorDatabaseService.generateEmbedding(question);
-                String embeddingStr = queryEmbedding.toString().replace("[", "").replace("]", "");
+                float[] queryEmbedding = vectorDatabaseService.embed(question);
                 
                 // Search top 5 most relevant documents
-                List<String> relevantDocs = vectorDatabaseService.searchRelevantDocuments(embeddingStr, 5);
+                List<String> relevantDocs = vectorDatabaseService.searchRelevantDocuments(queryEmbedding, 5);
                 
                 if (!relevantDocs.isEmpty()) {
                     StringBuilder context = new StringBuilder();
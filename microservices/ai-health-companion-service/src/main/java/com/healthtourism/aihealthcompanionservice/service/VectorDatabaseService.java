@@ -1,5 +1,7 @@
 package com.healthtourism.aihealthcompanionservice.service;
 
+import com.healthtourism.aihealthcompanionservice.vector.VectorSearchBackend;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -7,116 +9,94 @@ import java.util.*;
 import java.util.Random;
 
 /**
- * Vector Database Service using Milvus for RAG
- * Enables fast semantic search across thousands of medical documents
+ * Vector Database Service for RAG
+ * Semantic search across medical documents through a {@link VectorSearchBackend}.
+ * The embedded HNSW index is the only backend; startup fails if vector.backend
+ * selects one that does not exist, rather than running without RAG.
  */
 @Service
 public class VectorDatabaseService {
 
-    private static final String COLLECTION_NAME = "medical_knowledge_base";
-    private static final String VECTOR_FIELD = "embedding";
-    private static final String TEXT_FIELD = "text";
-    private static final int DIMENSION = 768; // Embedding dimension (BERT-based)
+    @Value("${vector.index.dimension:768}")
+    private int dimension; // Embedding dimension (BERT-based)
 
-    @Value("${milvus.host:localhost}")
-    private String milvusHost;
-
-    @Value("${milvus.port:19530}")
-    private int milvusPort;
-
-    public VectorDatabaseService() {
-        // Initialize collection (simplified - in production use actual Milvus client)
-        initializeCollection();
-    }
+    @Autowired
+    private VectorSearchBackend backend;
 
     /**
-     * Initialize collection if it doesn't exist
-     * In production, use actual Milvus client SDK
+     * Search for relevant medical documents using vector similarity
+     * Returns top-k most relevant documents, best first
      */
-    private void initializeCollection() {
-        try {
-            // In production, initialize Milvus client and create collection
-            // For now, just log initialization
-            System.out.println("Initializing Milvus collection: " + COLLECTION_NAME);
-            System.out.println("Milvus host: " + milvusHost + ":" + milvusPort);
-        } catch (Exception e) {
-            System.err.println("Failed to initialize Milvus collection: " + e.getMessage());
-        }
+    public List<String> searchRelevantDocuments(float[] queryEmbedding, int topK) {
+        return backend.search(queryEmbedding, topK);
     }
 
     /**
-     * Search for relevant medical documents using vector similarity
-     * Returns top-k most relevant documents in seconds
-     * In production, use actual Milvus client for vector search
+     * Search with a comma-separated embedding string
      */
     public List<String> searchRelevantDocuments(String queryEmbedding, int topK) {
-        try {
-            // In production, use Milvus client to perform vector search
-            // For now, return mock results
-            List<String> results = new ArrayList<>();
-            results.add("Sample medical knowledge document 1: Post-operative care guidelines...");
-            results.add("Sample medical knowledge document 2: Recovery best practices...");
-            return results;
-        } catch (Exception e) {
-            System.err.println("Vector search failed: " + e.getMessage());
-        }
-        
-        return Collections.emptyList();
+        return searchRelevantDocuments(parseEmbedding(queryEmbedding), topK);
     }
 
     /**
      * Insert medical document into vector database
      */
+    public void insertDocument(String text, float[] embedding) {
+        backend.insert(text, embedding);
+    }
+
     public void insertDocument(String text, List<Float> embedding) {
-        try {
-            List<Map<String, Object>> data = new ArrayList<>();
-            Map<String, Object> row = new HashMap<>();
-            row.put(TEXT_FIELD, text);
-            row.put(VECTOR_FIELD, embedding);
-            data.add(row);
+        insertDocument(text, toArray(embedding));
+    }
 
-            // In production, use proper insert API
-            // This is a simplified version
-            System.out.println("Document inserted: " + text.substring(0, Math.min(100, text.length())));
-        } catch (Exception e) {
-            System.err.println("Failed to insert document: " + e.getMessage());
-        }
+    public int documentCount() {
+        return backend.size();
     }
 
     /**
-     * Parse embedding string to float list
+     * Parse embedding string to float vector
      */
-    private List<Float> parseEmbedding(String embeddingStr) {
-        // In production, use actual embedding service (OpenAI, HuggingFace, etc.)
-        // This is a mock implementation
-        List<Float> embedding = new ArrayList<>();
+    private float[] parseEmbedding(String embeddingStr) {
+        // Pad or truncate to dimension
+        float[] embedding = new float[dimension];
         String[] values = embeddingStr.split(",");
-        for (String value : values) {
+        for (int i = 0; i < Math.min(values.length, dimension); i++) {
             try {
-                embedding.add(Float.parseFloat(value.trim()));
+                embedding[i] = Float.parseFloat(values[i].trim());
             } catch (NumberFormatException e) {
-                embedding.add(0.0f);
+                embedding[i] = 0.0f;
             }
         }
-        
-        // Pad or truncate to dimension
-        while (embedding.size() < DIMENSION) {
-            embedding.add(0.0f);
+        return embedding;
+    }
+
+    private static float[] toArray(List<Float> embedding) {
+        float[] values = new float[embedding.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = embedding.get(i);
         }
-        return embedding.subList(0, DIMENSION);
+        return values;
     }
 
     /**
      * Generate embedding for text (mock - in production use actual embedding model)
      */
-    public List<Float> generateEmbedding(String text) {
+    public float[] embed(String text) {
         // Mock embedding - in production use OpenAI, HuggingFace, or local model
-        List<Float> embedding = new ArrayList<>();
+        float[] embedding = new float[dimension];
         Random random = new Random(text.hashCode());
-        for (int i = 0; i < DIMENSION; i++) {
-            embedding.add(random.nextFloat());
+        for (int i = 0; i < dimension; i++) {
+            embedding[i] = random.nextFloat();
         }
         return embedding;
     }
-}
 
+    public List<Float> generateEmbedding(String text) {
+        float[] values = embed(text);
+        List<Float> embedding = new ArrayList<>(values.length);
+        for (float value : values) {
+            embedding.add(value);
+        }
+        return embedding;
+    }
+}
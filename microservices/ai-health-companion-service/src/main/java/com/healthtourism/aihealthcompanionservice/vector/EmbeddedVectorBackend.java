@@ -0,0 +1,210 @@
+package com.healthtourism.aihealthcompanionservice.vector;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process vector backend: an {@link HnswIndex} for the embeddings plus an
+ * append-only log of document texts, both under {@code vector.index.path}.
+ *
+ * Document i in the log is node i in the index. The log is forced before the
+ * index records a new durable size, so on restart it can only be ahead of the
+ * index, never behind; the extra tail is cut off.
+ */
+@Component
+@ConditionalOnProperty(name = "vector.backend", havingValue = "embedded", matchIfMissing = true)
+public class EmbeddedVectorBackend implements VectorSearchBackend, InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedVectorBackend.class);
+
+    @Value("${vector.index.path:data/vector-index}")
+    private String indexPath;
+
+    @Value("${vector.index.dimension:768}")
+    private int dimension;
+
+    @Value("${vector.index.metric:COSINE}")
+    private VectorMetric metric;
+
+    @Value("${vector.index.quantize-int8:false}")
+    private boolean quantizeInt8;
+
+    @Value("${vector.index.m:16}")
+    private int m;
+
+    @Value("${vector.index.ef-construction:200}")
+    private int efConstruction;
+
+    @Value("${vector.index.ef-search:64}")
+    private int efSearch;
+
+    @Value("${vector.index.flush-interval:30s}")
+    private Duration flushInterval;
+
+    private HnswIndex index;
+    private FileChannel documents;
+    private volatile long[] documentOffsets = new long[1024];
+    private long documentsEnd;
+    private ScheduledExecutorService flusher;
+
+    @Override
+    public void afterPropertiesSet() {
+        Path directory = Paths.get(indexPath);
+        index = HnswIndex.open(directory,
+                new HnswIndex.Options(dimension, metric, quantizeInt8, m, efConstruction));
+        try {
+            documents = FileChannel.open(directory.resolve("documents.bin"), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            recoverDocuments(index.size());
+        } catch (IOException e) {
+            index.close();
+            throw new UncheckedIOException("Cannot open document log in " + directory, e);
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "vector-index-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        logger.info("Embedded vector index opened at {} with {} documents ({}, int8={})",
+                directory.toAbsolutePath(), index.size(), metric, quantizeInt8);
+    }
+
+    private void recoverDocuments(int indexed) throws IOException {
+        long position = 0;
+        long fileSize = documents.size();
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        for (int i = 0; i < indexed; i++) {
+            length.clear();
+            if (position + Integer.BYTES > fileSize || documents.read(length, position) != Integer.BYTES) {
+                throw new IllegalStateException("Document log holds " + i + " documents, index expects " + indexed);
+            }
+            recordOffset(i, position);
+            position += Integer.BYTES + length.flip().getInt();
+        }
+        if (position > fileSize) {
+            throw new IllegalStateException("Document log is truncated at document " + (indexed - 1));
+        }
+        // Documents appended after the last index flush have no vectors; drop them
+        documents.truncate(position);
+        documentsEnd = position;
+    }
+
+    private void recordOffset(int id, long offset) {
+        long[] offsets = documentOffsets;
+        if (id >= offsets.length) {
+            offsets = Arrays.copyOf(offsets, Math.max(id + 1, offsets.length * 2));
+        }
+        offsets[id] = offset;
+        documentOffsets = offsets;
+    }
+
+    @Override
+    public synchronized void insert(String text, float[] embedding) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + bytes.length).putInt(bytes.length).put(bytes).flip();
+        long offset = documentsEnd;
+        try {
+            while (record.hasRemaining()) {
+                documents.write(record, offset + record.position());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to document log", e);
+        }
+        int id = index.size();
+        // The text must be readable before the node becomes visible to searches
+        recordOffset(id, offset);
+        int added = index.add(embedding);
+        if (added != id) {
+            throw new IllegalStateException("Index assigned id " + added + ", expected " + id);
+        }
+        documentsEnd = offset + record.limit();
+    }
+
+    @Override
+    public List<String> search(float[] queryEmbedding, int topK) {
+        List<HnswIndex.Hit> hits = index.search(queryEmbedding, topK, efSearch);
+        List<String> texts = new ArrayList<>(hits.size());
+        for (HnswIndex.Hit hit : hits) {
+            texts.add(readDocument(hit.id()));
+        }
+        return texts;
+    }
+
+    private String readDocument(int id) {
+        long offset = documentOffsets[id];
+        try {
+            ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+            documents.read(length, offset);
+            ByteBuffer text = ByteBuffer.allocate(length.flip().getInt());
+            while (text.hasRemaining()) {
+                if (documents.read(text, offset + Integer.BYTES + text.position()) < 0) {
+                    throw new IllegalStateException("Document " + id + " is truncated");
+                }
+            }
+            return new String(text.array(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read document " + id, e);
+        }
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Makes everything inserted so far durable.
+     */
+    public synchronized void flush() {
+        try {
+            documents.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot flush document log", e);
+        }
+        index.flush();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.warn("Vector index flush failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        synchronized (this) {
+            documents.force(false);
+            index.close();
+            documents.close();
+        }
+    }
+}
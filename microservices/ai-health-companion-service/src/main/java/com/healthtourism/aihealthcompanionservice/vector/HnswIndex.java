@@ -0,0 +1,681 @@
+package com.healthtourism.aihealthcompanionservice.vector;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Embedded HNSW (Hierarchical Navigable Small World) approximate nearest-neighbour index.
+ *
+ * Vectors live off-heap in a memory-mapped file, either as floats or as int8 with
+ * one scale per vector; level-0 links (where nearly all edges are) are mapped the
+ * same way. The sparse upper levels are kept on heap and written out by
+ * {@link #flush()}, together with the metadata that marks the durable size.
+ *
+ * One writer at a time inserts incrementally; searches never lock. A node becomes
+ * visible to searches only after its vector and links are written. Upper-level
+ * link lists are replaced as whole arrays; level-0 lists are rewritten in place
+ * under a seqlock (a version next to the count), and a search that overlaps a
+ * rewrite reads the list again. Either way a search running next to an insert
+ * sees either the old or the new neighbours, both valid. After a crash the index
+ * reopens at the last flush; later inserts are lost, the graph stays valid.
+ */
+public final class HnswIndex implements AutoCloseable {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int CHUNK_SHIFT = 16;
+    private static final int MAX_LEVEL = 16;
+    private static final VarHandle LINK_COUNT = ValueLayout.JAVA_INT.varHandle();
+    // Level-0 count word: count in the low bits, then a rewrite-in-progress flag, then a version
+    private static final int LINK_COUNT_MASK = 0xFFFF;
+    private static final int LINKS_REWRITING = 1 << 16;
+    private static final int LINKS_VERSION = 1 << 17;
+    private static final int MAX_M = LINK_COUNT_MASK / 2;
+
+    /**
+     * @param m              links per node on the upper levels; level 0 allows 2m
+     * @param efConstruction candidate list size while inserting; higher builds a better graph, slower
+     */
+    public record Options(int dimension, VectorMetric metric, boolean quantized, int m, int efConstruction) {
+        public Options {
+            if (dimension <= 0 || m < 2 || m > MAX_M || efConstruction < m) {
+                throw new IllegalArgumentException("Invalid HNSW options: dimension=" + dimension
+                        + ", m=" + m + ", efConstruction=" + efConstruction);
+            }
+        }
+    }
+
+    public record Hit(int id, float score) {
+    }
+
+    private record EntryPoint(int node, int level) {
+    }
+
+    private final Path directory;
+    private final Options options;
+    private final int dimension;
+    private final int m;
+    private final int m0;
+    private final double levelMultiplier;
+    private final MappedRecords vectors;
+    private final MappedRecords links0;
+    private final ConcurrentHashMap<Integer, AtomicReferenceArray<int[]>> upperLinks = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final SplittableRandom random = new SplittableRandom();
+    private final ThreadLocal<SearchContext> contexts;
+    private volatile int size;
+    private volatile EntryPoint entry;
+
+    private HnswIndex(Path directory, Options options) {
+        this.directory = directory;
+        this.options = options;
+        this.dimension = options.dimension();
+        this.m = options.m();
+        this.m0 = 2 * options.m();
+        this.levelMultiplier = 1 / Math.log(options.m());
+        int vectorBytes = options.quantized() ? Float.BYTES + ((dimension + 3) & ~3) : Float.BYTES * dimension;
+        this.vectors = new MappedRecords(directory.resolve("vectors.bin"), vectorBytes, CHUNK_SHIFT);
+        this.links0 = new MappedRecords(directory.resolve("links0.bin"), Integer.BYTES * (1 + m0), CHUNK_SHIFT);
+        this.contexts = ThreadLocal.withInitial(() -> new SearchContext(dimension, m0));
+    }
+
+    /**
+     * Opens the index in {@code directory}, creating it if empty. An existing
+     * index must have been built with the same dimension, metric, quantisation and m.
+     */
+    public static HnswIndex open(Path directory, Options options) {
+        try {
+            Files.createDirectories(directory);
+            Path metaFile = directory.resolve("meta.properties");
+            Properties meta = new Properties();
+            if (Files.exists(metaFile)) {
+                try (InputStream in = Files.newInputStream(metaFile)) {
+                    meta.load(in);
+                }
+                Options stored = new Options(Integer.parseInt(meta.getProperty("dimension")),
+                        VectorMetric.valueOf(meta.getProperty("metric")),
+                        Boolean.parseBoolean(meta.getProperty("quantized")),
+                        Integer.parseInt(meta.getProperty("m")),
+                        options.efConstruction());
+                if (!stored.equals(options)) {
+                    throw new IllegalStateException("Index at " + directory + " was built with " + stored
+                            + ", requested " + options);
+                }
+            }
+            HnswIndex index = new HnswIndex(directory, options);
+            if (!meta.isEmpty()) {
+                index.restore(meta);
+            }
+            return index;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open vector index at " + directory, e);
+        }
+    }
+
+    private void restore(Properties meta) throws IOException {
+        int storedSize = Integer.parseInt(meta.getProperty("size"));
+        Path upperFile = directory.resolve("upper.bin");
+        if (Files.exists(upperFile)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(upperFile)))) {
+                int nodes = in.readInt();
+                for (int i = 0; i < nodes; i++) {
+                    int node = in.readInt();
+                    int levels = in.readInt();
+                    AtomicReferenceArray<int[]> links = new AtomicReferenceArray<>(levels);
+                    for (int level = 0; level < levels; level++) {
+                        int[] ids = new int[in.readInt()];
+                        for (int j = 0; j < ids.length; j++) {
+                            ids[j] = in.readInt();
+                        }
+                        links.set(level, ids);
+                    }
+                    upperLinks.put(node, links);
+                }
+            }
+        }
+        if (storedSize > 0) {
+            entry = new EntryPoint(Integer.parseInt(meta.getProperty("entryPoint")),
+                    Integer.parseInt(meta.getProperty("maxLevel")));
+        }
+        size = storedSize;
+    }
+
+    public Options options() {
+        return options;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Inserts a vector and returns its id; ids are dense and assigned in insert order.
+     */
+    public int add(float[] vector) {
+        float[] v = prepare(vector);
+        writeLock.lock();
+        try {
+            int id = size;
+            vectors.ensureCapacity(id);
+            links0.ensureCapacity(id);
+            writeVector(id, v);
+            // The file may hold links from inserts lost after the last flush
+            LINK_COUNT.setRelease(links0.chunk(id), links0.offset(id), 0);
+
+            int level = randomLevel();
+            if (level > 0) {
+                AtomicReferenceArray<int[]> links = new AtomicReferenceArray<>(level);
+                for (int i = 0; i < level; i++) {
+                    links.set(i, new int[0]);
+                }
+                upperLinks.put(id, links);
+            }
+
+            EntryPoint ep = entry;
+            if (ep == null) {
+                size = id + 1;
+                entry = new EntryPoint(id, level);
+                return id;
+            }
+
+            SearchContext ctx = contexts.get();
+            ctx.greedyNode = ep.node();
+            ctx.greedyScore = score(v, ep.node());
+            for (int lc = ep.level(); lc > level; lc--) {
+                greedy(ctx, v, lc, id);
+            }
+            int[] entryNodes = {ctx.greedyNode};
+            for (int lc = Math.min(level, ep.level()); lc >= 0; lc--) {
+                ctx.reset(id);
+                ScoredHeap found = searchLayer(ctx, v, entryNodes, options.efConstruction(), lc, id);
+                int count = found.size();
+                int[] nodes = new int[count];
+                float[] scores = new float[count];
+                for (int i = count - 1; i >= 0; i--) {
+                    scores[i] = found.peekScore();
+                    nodes[i] = found.pop();
+                }
+                int[] selected = selectNeighbors(ctx, nodes, scores, count, m);
+                writeLinks(id, lc, selected, selected.length);
+                int maxLinks = lc == 0 ? m0 : m;
+                for (int neighbour : selected) {
+                    addLink(ctx, neighbour, lc, id, maxLinks);
+                }
+                entryNodes = nodes;
+            }
+
+            size = id + 1;
+            if (level > ep.level()) {
+                entry = new EntryPoint(id, level);
+            }
+            return id;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Approximate top-k by similarity, best first.
+     *
+     * @param ef candidate list size; larger trades latency for recall (at least k is used)
+     */
+    public List<Hit> search(float[] query, int k, int ef) {
+        EntryPoint ep = entry;
+        int limit = size;
+        if (ep == null || k <= 0) {
+            return List.of();
+        }
+        float[] q = prepare(query);
+        SearchContext ctx = contexts.get();
+        ctx.greedyNode = ep.node();
+        ctx.greedyScore = score(q, ep.node());
+        for (int lc = ep.level(); lc > 0; lc--) {
+            greedy(ctx, q, lc, limit);
+        }
+        ctx.reset(limit);
+        ScoredHeap found = searchLayer(ctx, q, new int[]{ctx.greedyNode}, Math.max(ef, k), 0, limit);
+        while (found.size() > k) {
+            found.pop();
+        }
+        Hit[] hits = new Hit[found.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            float score = found.peekScore();
+            hits[i] = new Hit(found.pop(), score);
+        }
+        return Arrays.asList(hits);
+    }
+
+    /**
+     * Exact top-k by scanning every vector; for recall checks and small indexes.
+     */
+    public List<Hit> exactSearch(float[] query, int k) {
+        float[] q = prepare(query);
+        int limit = size;
+        ScoredHeap best = new ScoredHeap(k + 1);
+        for (int node = 0; node < limit; node++) {
+            float score = score(q, node);
+            if (best.size() < k || score > best.peekScore()) {
+                best.push(score, node);
+                if (best.size() > k) {
+                    best.pop();
+                }
+            }
+        }
+        Hit[] hits = new Hit[best.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            float score = best.peekScore();
+            hits[i] = new Hit(best.pop(), score);
+        }
+        return Arrays.asList(hits);
+    }
+
+    private void greedy(SearchContext ctx, float[] q, int level, int limit) {
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int count = readLinks(ctx.greedyNode, level, ctx);
+            int[] neighbours = ctx.neighbours;
+            for (int i = 0; i < count; i++) {
+                int n = neighbours[i];
+                if (n >= limit) {
+                    continue;
+                }
+                float score = score(q, n);
+                if (score > ctx.greedyScore) {
+                    ctx.greedyScore = score;
+                    ctx.greedyNode = n;
+                    improved = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Best-first search of one level; returns up to ef results, worst on top.
+     */
+    private ScoredHeap searchLayer(SearchContext ctx, float[] q, int[] entryNodes, int ef, int level, int limit) {
+        ScoredHeap candidates = ctx.candidates;
+        ScoredHeap results = ctx.results;
+        candidates.clear();
+        results.clear();
+        for (int node : entryNodes) {
+            if (node < limit && ctx.visit(node)) {
+                float score = score(q, node);
+                candidates.push(-score, node);
+                results.push(score, node);
+                if (results.size() > ef) {
+                    results.pop();
+                }
+            }
+        }
+        while (!candidates.isEmpty()) {
+            float closest = -candidates.peekScore();
+            if (results.size() >= ef && closest < results.peekScore()) {
+                break;
+            }
+            int current = candidates.pop();
+            int count = readLinks(current, level, ctx);
+            int[] neighbours = ctx.neighbours;
+            for (int i = 0; i < count; i++) {
+                int n = neighbours[i];
+                if (n >= limit || !ctx.visit(n)) {
+                    continue;
+                }
+                float score = score(q, n);
+                if (results.size() < ef || score > results.peekScore()) {
+                    candidates.push(-score, n);
+                    results.push(score, n);
+                    if (results.size() > ef) {
+                        results.pop();
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * HNSW neighbour heuristic: take candidates best first, skipping any that is
+     * closer to an already selected neighbour than to the base node. This keeps
+     * links spread across clusters instead of all pointing into the nearest one.
+     *
+     * @param nodes candidates sorted by score against the base node, best first
+     */
+    private int[] selectNeighbors(SearchContext ctx, int[] nodes, float[] scores, int count, int max) {
+        int[] selected = new int[Math.min(max, count)];
+        int n = 0;
+        for (int i = 0; i < count && n < selected.length; i++) {
+            int candidate = nodes[i];
+            decode(candidate, ctx.decoded);
+            boolean diverse = true;
+            for (int j = 0; j < n; j++) {
+                if (score(ctx.decoded, selected[j]) > scores[i]) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected[n++] = candidate;
+            }
+        }
+        return n == selected.length ? selected : Arrays.copyOf(selected, n);
+    }
+
+    private void addLink(SearchContext ctx, int node, int level, int newNode, int maxLinks) {
+        int count = readLinks(node, level, ctx);
+        if (count < maxLinks) {
+            if (level == 0) {
+                // Appending leaves the slots a search may be reading untouched
+                MemorySegment chunk = links0.chunk(node);
+                long offset = links0.offset(node);
+                int word = (int) LINK_COUNT.getOpaque(chunk, offset);
+                chunk.set(ValueLayout.JAVA_INT, offset + Integer.BYTES * (1L + count), newNode);
+                LINK_COUNT.setRelease(chunk, offset, (word & ~LINK_COUNT_MASK) | (count + 1));
+            } else {
+                int[] grown = Arrays.copyOf(ctx.neighbours, count + 1);
+                grown[count] = newNode;
+                upperLinks.get(node).set(level - 1, grown);
+            }
+            return;
+        }
+
+        // Full: re-select among the current links plus the new node, scored from this node
+        int[] nodes = Arrays.copyOf(ctx.neighbours, count + 1);
+        nodes[count] = newNode;
+        float[] base = ctx.pivot;
+        decode(node, base);
+        float[] scores = new float[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            scores[i] = score(base, nodes[i]);
+        }
+        sortDescending(nodes, scores);
+        int[] selected = selectNeighbors(ctx, nodes, scores, nodes.length, maxLinks);
+        writeLinks(node, level, selected, selected.length);
+    }
+
+    private int readLinks(int node, int level, SearchContext ctx) {
+        if (level == 0) {
+            MemorySegment chunk = links0.chunk(node);
+            long offset = links0.offset(node);
+            int[] out = ctx.neighbours;
+            while (true) {
+                int word = (int) LINK_COUNT.getAcquire(chunk, offset);
+                if ((word & LINKS_REWRITING) != 0) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                int count = Math.min(word & LINK_COUNT_MASK, m0);
+                for (int i = 0; i < count; i++) {
+                    out[i] = chunk.get(ValueLayout.JAVA_INT, offset + Integer.BYTES * (1L + i));
+                }
+                VarHandle.loadLoadFence();
+                // Appends only change the count; a rewrite since the first read changes the version
+                int after = (int) LINK_COUNT.getOpaque(chunk, offset);
+                if ((after & ~LINK_COUNT_MASK) == (word & ~LINK_COUNT_MASK)) {
+                    return count;
+                }
+            }
+        }
+        AtomicReferenceArray<int[]> links = upperLinks.get(node);
+        if (links == null || links.length() < level) {
+            return 0;
+        }
+        int[] ids = links.get(level - 1);
+        System.arraycopy(ids, 0, ctx.neighbours, 0, ids.length);
+        return ids.length;
+    }
+
+    private void writeLinks(int node, int level, int[] ids, int count) {
+        if (level == 0) {
+            MemorySegment chunk = links0.chunk(node);
+            long offset = links0.offset(node);
+            int word = (int) LINK_COUNT.getOpaque(chunk, offset);
+            LINK_COUNT.setOpaque(chunk, offset, word | LINKS_REWRITING);
+            VarHandle.storeStoreFence();
+            for (int i = 0; i < count; i++) {
+                chunk.set(ValueLayout.JAVA_INT, offset + Integer.BYTES * (1L + i), ids[i]);
+            }
+            int version = (word & ~(LINK_COUNT_MASK | LINKS_REWRITING)) + LINKS_VERSION;
+            LINK_COUNT.setRelease(chunk, offset, version | count);
+        } else {
+            upperLinks.get(node).set(level - 1, Arrays.copyOf(ids, count));
+        }
+    }
+
+    private void writeVector(int id, float[] v) {
+        MemorySegment chunk = vectors.chunk(id);
+        long offset = vectors.offset(id);
+        if (!options.quantized()) {
+            MemorySegment.copy(v, 0, chunk, ValueLayout.JAVA_FLOAT, offset, dimension);
+            return;
+        }
+        float maxAbs = 0;
+        for (float x : v) {
+            maxAbs = Math.max(maxAbs, Math.abs(x));
+        }
+        float scale = maxAbs / 127f;
+        chunk.set(ValueLayout.JAVA_FLOAT, offset, scale);
+        for (int i = 0; i < dimension; i++) {
+            byte q = scale == 0 ? 0 : (byte) Math.round(v[i] / scale);
+            chunk.set(ValueLayout.JAVA_BYTE, offset + Float.BYTES + i, q);
+        }
+    }
+
+    private void decode(int node, float[] out) {
+        MemorySegment chunk = vectors.chunk(node);
+        long offset = vectors.offset(node);
+        if (!options.quantized()) {
+            MemorySegment.copy(chunk, ValueLayout.JAVA_FLOAT, offset, out, 0, dimension);
+            return;
+        }
+        float scale = chunk.get(ValueLayout.JAVA_FLOAT, offset);
+        for (int i = 0; i < dimension; i++) {
+            out[i] = chunk.get(ValueLayout.JAVA_BYTE, offset + Float.BYTES + i) * scale;
+        }
+    }
+
+    /**
+     * Inner product of a float query with a stored vector (int8 vectors are not
+     * decoded: the query stays float and the scale is applied once).
+     */
+    private float score(float[] q, int node) {
+        MemorySegment chunk = vectors.chunk(node);
+        long offset = vectors.offset(node);
+        int d = dimension;
+        int tail = d & ~3;
+        float s0 = 0;
+        float s1 = 0;
+        float s2 = 0;
+        float s3 = 0;
+        if (!options.quantized()) {
+            for (int i = 0; i < tail; i += 4) {
+                long at = offset + (long) i * Float.BYTES;
+                s0 += q[i] * chunk.get(ValueLayout.JAVA_FLOAT, at);
+                s1 += q[i + 1] * chunk.get(ValueLayout.JAVA_FLOAT, at + 4);
+                s2 += q[i + 2] * chunk.get(ValueLayout.JAVA_FLOAT, at + 8);
+                s3 += q[i + 3] * chunk.get(ValueLayout.JAVA_FLOAT, at + 12);
+            }
+            for (int i = tail; i < d; i++) {
+                s0 += q[i] * chunk.get(ValueLayout.JAVA_FLOAT, offset + (long) i * Float.BYTES);
+            }
+            return (s0 + s1) + (s2 + s3);
+        }
+        float scale = chunk.get(ValueLayout.JAVA_FLOAT, offset);
+        long base = offset + Float.BYTES;
+        for (int i = 0; i < tail; i += 4) {
+            s0 += q[i] * chunk.get(ValueLayout.JAVA_BYTE, base + i);
+            s1 += q[i + 1] * chunk.get(ValueLayout.JAVA_BYTE, base + i + 1);
+            s2 += q[i + 2] * chunk.get(ValueLayout.JAVA_BYTE, base + i + 2);
+            s3 += q[i + 3] * chunk.get(ValueLayout.JAVA_BYTE, base + i + 3);
+        }
+        for (int i = tail; i < d; i++) {
+            s0 += q[i] * chunk.get(ValueLayout.JAVA_BYTE, base + i);
+        }
+        return ((s0 + s1) + (s2 + s3)) * scale;
+    }
+
+    private float[] prepare(float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Expected " + dimension + " dimensions, got " + vector.length);
+        }
+        float[] v = vector.clone();
+        if (options.metric() == VectorMetric.COSINE) {
+            double norm = 0;
+            for (float x : v) {
+                norm += (double) x * x;
+            }
+            if (norm > 0) {
+                float inverse = (float) (1 / Math.sqrt(norm));
+                for (int i = 0; i < v.length; i++) {
+                    v[i] *= inverse;
+                }
+            }
+        }
+        return v;
+    }
+
+    private int randomLevel() {
+        double u = 1.0 - random.nextDouble();
+        return Math.min((int) (-Math.log(u) * levelMultiplier), MAX_LEVEL);
+    }
+
+    private static void sortDescending(int[] nodes, float[] scores) {
+        for (int i = 1; i < nodes.length; i++) {
+            float score = scores[i];
+            int node = nodes[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                scores[j + 1] = scores[j];
+                nodes[j + 1] = nodes[j];
+                j--;
+            }
+            scores[j + 1] = score;
+            nodes[j + 1] = node;
+        }
+    }
+
+    /**
+     * Forces vectors and links to disk and records the current size as durable.
+     */
+    public void flush() {
+        writeLock.lock();
+        try {
+            vectors.force();
+            links0.force();
+            int durableSize = size;
+            List<Integer> upperNodes = new ArrayList<>();
+            for (Integer node : upperLinks.keySet()) {
+                if (node < durableSize) {
+                    upperNodes.add(node);
+                }
+            }
+            Path upperTmp = directory.resolve("upper.bin.tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(upperTmp)))) {
+                out.writeInt(upperNodes.size());
+                for (int node : upperNodes) {
+                    AtomicReferenceArray<int[]> links = upperLinks.get(node);
+                    out.writeInt(node);
+                    out.writeInt(links.length());
+                    for (int level = 0; level < links.length(); level++) {
+                        int[] ids = links.get(level);
+                        out.writeInt(ids.length);
+                        for (int id : ids) {
+                            out.writeInt(id);
+                        }
+                    }
+                }
+            }
+            Files.move(upperTmp, directory.resolve("upper.bin"),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            Properties meta = new Properties();
+            meta.setProperty("formatVersion", String.valueOf(FORMAT_VERSION));
+            meta.setProperty("dimension", String.valueOf(dimension));
+            meta.setProperty("metric", options.metric().name());
+            meta.setProperty("quantized", String.valueOf(options.quantized()));
+            meta.setProperty("m", String.valueOf(m));
+            meta.setProperty("size", String.valueOf(durableSize));
+            EntryPoint ep = entry;
+            if (ep != null) {
+                meta.setProperty("entryPoint", String.valueOf(ep.node()));
+                meta.setProperty("maxLevel", String.valueOf(ep.level()));
+            }
+            Path metaTmp = directory.resolve("meta.properties.tmp");
+            try (OutputStream out = Files.newOutputStream(metaTmp)) {
+                meta.store(out, "HNSW vector index");
+            }
+            Files.move(metaTmp, directory.resolve("meta.properties"),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot flush vector index at " + directory, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        vectors.close();
+        links0.close();
+    }
+
+    /**
+     * Per-thread scratch space, so searches allocate next to nothing.
+     */
+    private static final class SearchContext {
+        private int[] visited = new int[0];
+        private int stamp;
+        private final ScoredHeap candidates = new ScoredHeap(64);
+        private final ScoredHeap results = new ScoredHeap(64);
+        private final int[] neighbours;
+        private final float[] decoded;
+        private final float[] pivot;
+        private int greedyNode;
+        private float greedyScore;
+
+        SearchContext(int dimension, int maxLinks) {
+            this.neighbours = new int[maxLinks + 1];
+            this.decoded = new float[dimension];
+            this.pivot = new float[dimension];
+        }
+
+        void reset(int limit) {
+            if (visited.length < limit) {
+                visited = new int[Math.max(limit, visited.length * 2)];
+                stamp = 0;
+            }
+            if (++stamp == 0) {
+                Arrays.fill(visited, 0);
+                stamp = 1;
+            }
+        }
+
+        boolean visit(int node) {
+            if (visited[node] == stamp) {
+                return false;
+            }
+            visited[node] = stamp;
+            return true;
+        }
+    }
+}
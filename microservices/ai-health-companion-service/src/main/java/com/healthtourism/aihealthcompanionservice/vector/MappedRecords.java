@@ -0,0 +1,105 @@
+package com.healthtourism.aihealthcompanionservice.vector;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Fixed-size records in a memory-mapped file, mapped in chunks of 2^n records.
+ *
+ * The file grows one chunk at a time and chunks are never remapped or unmapped
+ * before {@link #close()}, so readers can keep using a record while the writer
+ * appends. Records never straddle a chunk, which keeps addressing to a shift
+ * and a mask.
+ */
+final class MappedRecords implements AutoCloseable {
+
+    private final FileChannel channel;
+    private final Arena arena;
+    private final int recordBytes;
+    private final int chunkShift;
+    private final int chunkMask;
+    private volatile MemorySegment[] chunks = new MemorySegment[0];
+
+    MappedRecords(Path file, int recordBytes, int chunkShift) {
+        this.recordBytes = recordBytes;
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1 << chunkShift) - 1;
+        this.arena = Arena.ofShared();
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            long existing = channel.size();
+            long chunkBytes = chunkBytes();
+            int existingChunks = (int) ((existing + chunkBytes - 1) / chunkBytes);
+            for (int i = 0; i < existingChunks; i++) {
+                mapChunk();
+            }
+        } catch (IOException e) {
+            arena.close();
+            throw new UncheckedIOException("Cannot open " + file, e);
+        }
+    }
+
+    /**
+     * Makes sure the record exists; only the single writer calls this.
+     */
+    void ensureCapacity(int record) {
+        int chunk = record >>> chunkShift;
+        while (chunks.length <= chunk) {
+            mapChunk();
+        }
+    }
+
+    private void mapChunk() {
+        MemorySegment[] current = chunks;
+        try {
+            MemorySegment mapped = channel.map(FileChannel.MapMode.READ_WRITE,
+                    (long) current.length * chunkBytes(), chunkBytes(), arena);
+            MemorySegment[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = mapped;
+            chunks = grown;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot grow mapped file", e);
+        }
+    }
+
+    MemorySegment chunk(int record) {
+        return chunks[record >>> chunkShift];
+    }
+
+    long offset(int record) {
+        return (long) (record & chunkMask) * recordBytes;
+    }
+
+    int recordBytes() {
+        return recordBytes;
+    }
+
+    private long chunkBytes() {
+        return (long) recordBytes << chunkShift;
+    }
+
+    void force() {
+        for (MemorySegment chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            force();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            arena.close();
+        }
+    }
+}
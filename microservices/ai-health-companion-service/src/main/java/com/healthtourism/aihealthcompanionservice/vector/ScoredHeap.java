@@ -0,0 +1,87 @@
+package com.healthtourism.aihealthcompanionservice.vector;
+
+import java.util.Arrays;
+
+/**
+ * Binary heap of (score, node) pairs on primitive arrays, lowest score on top.
+ * A max-heap is the same heap fed negated scores.
+ */
+final class ScoredHeap {
+
+    private float[] scores;
+    private int[] nodes;
+    private int size;
+
+    ScoredHeap(int capacity) {
+        scores = new float[Math.max(capacity, 4)];
+        nodes = new int[scores.length];
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    float peekScore() {
+        return scores[0];
+    }
+
+    int peekNode() {
+        return nodes[0];
+    }
+
+    void push(float score, int node) {
+        if (size == scores.length) {
+            scores = Arrays.copyOf(scores, size * 2);
+            nodes = Arrays.copyOf(nodes, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (scores[parent] <= score) {
+                break;
+            }
+            scores[i] = scores[parent];
+            nodes[i] = nodes[parent];
+            i = parent;
+        }
+        scores[i] = score;
+        nodes[i] = node;
+    }
+
+    /**
+     * Removes the top entry and returns its node.
+     */
+    int pop() {
+        int top = nodes[0];
+        size--;
+        if (size > 0) {
+            float score = scores[size];
+            int node = nodes[size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && scores[child + 1] < scores[child]) {
+                    child++;
+                }
+                if (score <= scores[child]) {
+                    break;
+                }
+                scores[i] = scores[child];
+                nodes[i] = nodes[child];
+                i = child;
+            }
+            scores[i] = score;
+            nodes[i] = node;
+        }
+        return top;
+    }
+}
@@ -0,0 +1,11 @@
+package com.healthtourism.aihealthcompanionservice.vector;
+
+/**
+ * Similarity used by the vector index; higher scores are closer.
+ */
+public enum VectorMetric {
+    /** Vectors are normalised on insert and query, then compared by inner product. */
+    COSINE,
+    /** Raw inner product, for embeddings whose norm carries meaning. */
+    DOT
+}
@@ -0,0 +1,23 @@
+package com.healthtourism.aihealthcompanionservice.vector;
+
+import java.util.List;
+
+/**
+ * Storage and similarity search behind {@code VectorDatabaseService}.
+ * The embedded HNSW engine is the only implementation; another engine would
+ * implement the same contract and be selected with {@code vector.backend}.
+ */
+public interface VectorSearchBackend {
+
+    /**
+     * Stores a document with its embedding; it is searchable once this returns.
+     */
+    void insert(String text, float[] embedding);
+
+    /**
+     * Texts of the {@code topK} documents most similar to the query, best first.
+     */
+    List<String> search(float[] queryEmbedding, int topK);
+
+    int size();
+}
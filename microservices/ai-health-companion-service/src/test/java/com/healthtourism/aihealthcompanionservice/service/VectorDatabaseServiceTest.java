@@ -0,0 +1,59 @@
+package com.healthtourism.aihealthcompanionservice.service;
+
+import com.healthtourism.aihealthcompanionservice.vector.EmbeddedVectorBackend;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VectorDatabaseServiceTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            // Boot's converters, e.g. for vector.index.flush-interval=30s
+            .withInitializer(context -> context.getBeanFactory()
+                    .setConversionService(ApplicationConversionService.getSharedInstance()))
+            .withUserConfiguration(EmbeddedVectorBackend.class, VectorDatabaseService.class);
+
+    @TempDir
+    Path indexDir;
+
+    @Test
+    void testStartup_EmbeddedBackend_SearchesInsertedDocuments() {
+        contextRunner
+                .withPropertyValues("vector.index.path=" + indexDir, "vector.index.dimension=8")
+                .run(context -> {
+                    // Given
+                    VectorDatabaseService service = context.getBean(VectorDatabaseService.class);
+                    service.insertDocument("post-op care", service.embed("post-op care"));
+
+                    // When
+                    List<String> documents = service.searchRelevantDocuments(service.embed("post-op care"), 1);
+
+                    // Then
+                    assertEquals(List.of("post-op care"), documents);
+                    assertEquals(1, service.documentCount());
+                });
+    }
+
+    @Test
+    void testStartup_UnknownBackend_Fails() {
+        contextRunner
+                .withPropertyValues("vector.index.path=" + indexDir, "vector.backend=milvus")
+                .run(context -> {
+                    // Then - no silent fallback to empty search results
+                    Throwable failure = context.getStartupFailure();
+                    assertNotNull(failure);
+                    Throwable cause = failure;
+                    while (cause.getCause() != null) {
+                        cause = cause.getCause();
+                    }
+                    assertInstanceOf(NoSuchBeanDefinitionException.class, cause);
+                });
+    }
+}
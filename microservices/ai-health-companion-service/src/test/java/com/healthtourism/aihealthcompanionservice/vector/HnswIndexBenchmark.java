@@ -0,0 +1,160 @@
+package com.healthtourism.aihealthcompanionservice.vector;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recall@10 and query latency of the HNSW index, float and int8, at 100k and 1M
+ * vectors by default. Ground truth is an exact float scan.
+ *
+ * mvn test -Dtest=HnswIndexBenchmark -Dbenchmark=true [-Dvector.bench.sizes=100000,1000000]
+ *     [-Dvector.bench.dimension=768]
+ *
+ * The data is clustered (as text embeddings are), which is harder for a graph
+ * index than uniform noise. 1M x 768 floats is ~3 GB of mapped vectors.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class HnswIndexBenchmark {
+
+    private static final int QUERIES = 500;
+    private static final int K = 10;
+    private static final int[] EF_VALUES = {16, 32, 64, 128, 256};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void benchmarkRecallAndLatency() {
+        int dimension = Integer.getInteger("vector.bench.dimension", 768);
+        for (String size : System.getProperty("vector.bench.sizes", "100000,1000000").split(",")) {
+            int n = Integer.parseInt(size.trim());
+            Dataset data = new Dataset(dimension, Math.max(10, n / 1000), 42);
+            float[][] queries = new float[QUERIES][];
+            for (int q = 0; q < QUERIES; q++) {
+                queries[q] = data.next();
+            }
+
+            Set<Integer>[] truth = null;
+            for (boolean quantized : new boolean[]{false, true}) {
+                Path dir = directory.resolve(n + (quantized ? "-int8" : "-float"));
+                try (HnswIndex index = HnswIndex.open(dir,
+                        new HnswIndex.Options(dimension, VectorMetric.COSINE, quantized, 16, 200))) {
+                    Dataset replay = new Dataset(dimension, Math.max(10, n / 1000), 42);
+                    for (int q = 0; q < QUERIES; q++) {
+                        replay.next();
+                    }
+                    long start = System.nanoTime();
+                    for (int i = 0; i < n; i++) {
+                        index.add(replay.next());
+                    }
+                    double buildSeconds = (System.nanoTime() - start) / 1e9;
+                    System.out.printf("%n%,d x %d %s: built in %.1fs (%,.0f inserts/s)%n",
+                            n, dimension, quantized ? "int8" : "float", buildSeconds, n / buildSeconds);
+                    if (truth == null) {
+                        truth = groundTruth(index, queries);
+                    }
+                    for (int ef : EF_VALUES) {
+                        report(index, queries, truth, ef);
+                    }
+                    double recall = recall(index, queries, truth, 128);
+                    assertTrue(recall >= (quantized ? 0.85 : 0.9), "recall@10 at ef=128 was " + recall);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<Integer>[] groundTruth(HnswIndex floatIndex, float[][] queries) {
+        Set<Integer>[] truth = new Set[queries.length];
+        for (int q = 0; q < queries.length; q++) {
+            truth[q] = ids(floatIndex.exactSearch(queries[q], K));
+        }
+        return truth;
+    }
+
+    private static void report(HnswIndex index, float[][] queries, Set<Integer>[] truth, int ef) {
+        // Warm up so the JIT has compiled the search path
+        for (float[] query : queries) {
+            index.search(query, K, ef);
+        }
+        long[] latencies = new long[queries.length];
+        int found = 0;
+        for (int q = 0; q < queries.length; q++) {
+            long start = System.nanoTime();
+            List<HnswIndex.Hit> hits = index.search(queries[q], K, ef);
+            latencies[q] = System.nanoTime() - start;
+            for (HnswIndex.Hit hit : hits) {
+                if (truth[q].contains(hit.id())) {
+                    found++;
+                }
+            }
+        }
+        Arrays.sort(latencies);
+        System.out.printf("  ef=%-4d recall@%d=%.3f  p50=%6.0fus  p99=%6.0fus%n", ef, K,
+                found / (double) (queries.length * K),
+                latencies[latencies.length / 2] / 1e3, latencies[latencies.length * 99 / 100] / 1e3);
+    }
+
+    private static double recall(HnswIndex index, float[][] queries, Set<Integer>[] truth, int ef) {
+        int found = 0;
+        for (int q = 0; q < queries.length; q++) {
+            for (HnswIndex.Hit hit : index.search(queries[q], K, ef)) {
+                if (truth[q].contains(hit.id())) {
+                    found++;
+                }
+            }
+        }
+        return found / (double) (queries.length * K);
+    }
+
+    private static Set<Integer> ids(List<HnswIndex.Hit> hits) {
+        Set<Integer> ids = new HashSet<>();
+        for (HnswIndex.Hit hit : hits) {
+            ids.add(hit.id());
+        }
+        return ids;
+    }
+
+    /**
+     * Gaussian clusters around random centres; the same seed replays the same stream.
+     */
+    private static final class Dataset {
+        private final float[][] centres;
+        private final SplittableRandom random;
+
+        Dataset(int dimension, int clusters, long seed) {
+            random = new SplittableRandom(seed);
+            centres = new float[clusters][dimension];
+            for (float[] centre : centres) {
+                for (int i = 0; i < dimension; i++) {
+                    centre[i] = (float) gaussian();
+                }
+            }
+        }
+
+        float[] next() {
+            float[] centre = centres[random.nextInt(centres.length)];
+            float[] vector = new float[centre.length];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = centre[i] + 0.6f * (float) gaussian();
+            }
+            return vector;
+        }
+
+        private double gaussian() {
+            double u = 1.0 - random.nextDouble();
+            double v = random.nextDouble();
+            return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+        }
+    }
+}
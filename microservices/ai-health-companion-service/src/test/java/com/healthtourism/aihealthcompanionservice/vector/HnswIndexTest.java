@@ -0,0 +1,212 @@
+package com.healthtourism.aihealthcompanionservice.vector;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HnswIndexTest {
+
+    private static final int DIMENSION = 32;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testSearch_FindsExactNeighboursWithHighRecall() {
+        // Given
+        Random random = new Random(7);
+        try (HnswIndex index = HnswIndex.open(directory, options(false))) {
+            for (int i = 0; i < 2_000; i++) {
+                index.add(randomVector(random));
+            }
+
+            // When
+            double recall = recallAt10(index, random, 100);
+
+            // Then
+            assertTrue(recall >= 0.95, "recall@10 was " + recall);
+        }
+    }
+
+    @Test
+    void testSearch_ReturnsInsertedVectorFirstWithCosineScoreOne() {
+        // Given
+        Random random = new Random(11);
+        try (HnswIndex index = HnswIndex.open(directory, options(false))) {
+            float[] target = null;
+            for (int i = 0; i < 500; i++) {
+                float[] vector = randomVector(random);
+                index.add(vector);
+                if (i == 321) {
+                    target = vector;
+                }
+            }
+
+            // When
+            List<HnswIndex.Hit> hits = index.search(target, 3, 32);
+
+            // Then
+            assertEquals(3, hits.size());
+            assertEquals(321, hits.get(0).id());
+            assertEquals(1.0f, hits.get(0).score(), 1e-5f);
+            assertTrue(hits.get(0).score() >= hits.get(1).score());
+            assertTrue(hits.get(1).score() >= hits.get(2).score());
+        }
+    }
+
+    @Test
+    void testReopen_RestoresFlushedGraphAndAcceptsNewInserts() {
+        // Given
+        Random random = new Random(3);
+        float[] probe = randomVector(random);
+        List<HnswIndex.Hit> before;
+        try (HnswIndex index = HnswIndex.open(directory, options(false))) {
+            for (int i = 0; i < 1_000; i++) {
+                index.add(randomVector(random));
+            }
+            before = index.search(probe, 10, 64);
+        }
+
+        // When
+        try (HnswIndex reopened = HnswIndex.open(directory, options(false))) {
+            List<HnswIndex.Hit> after = reopened.search(probe, 10, 64);
+            int id = reopened.add(probe);
+
+            // Then
+            assertEquals(1_000, id);
+            assertEquals(before, after);
+            assertEquals(id, reopened.search(probe, 1, 64).get(0).id());
+        }
+    }
+
+    @Test
+    void testReopen_WithDifferentDimensionFails() {
+        // Given
+        try (HnswIndex index = HnswIndex.open(directory, options(false))) {
+            index.add(randomVector(new Random(1)));
+        }
+
+        // When / Then
+        assertThrows(IllegalStateException.class, () -> HnswIndex.open(directory,
+                new HnswIndex.Options(DIMENSION * 2, VectorMetric.COSINE, false, 16, 100)));
+    }
+
+    @Test
+    void testQuantizedIndex_KeepsRecallAgainstFloatGroundTruth() {
+        // Given
+        Random random = new Random(5);
+        try (HnswIndex exact = HnswIndex.open(directory.resolve("float"), options(false));
+             HnswIndex quantized = HnswIndex.open(directory.resolve("int8"), options(true))) {
+            for (int i = 0; i < 2_000; i++) {
+                float[] vector = randomVector(random);
+                exact.add(vector);
+                quantized.add(vector);
+            }
+
+            // When
+            int found = 0;
+            for (int q = 0; q < 100; q++) {
+                float[] query = randomVector(random);
+                Set<Integer> truth = ids(exact.exactSearch(query, 10));
+                for (HnswIndex.Hit hit : quantized.search(query, 10, 64)) {
+                    if (truth.contains(hit.id())) {
+                        found++;
+                    }
+                }
+            }
+
+            // Then
+            assertTrue(found / 1000.0 >= 0.85, "int8 recall@10 was " + found / 1000.0);
+        }
+    }
+
+    @Test
+    void testConcurrentSearches_DuringInsertsSeeConsistentGraph() throws Exception {
+        // Given
+        Random random = new Random(9);
+        HnswIndex index = HnswIndex.open(directory, options(false));
+        for (int i = 0; i < 200; i++) {
+            index.add(randomVector(random));
+        }
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+
+        // When
+        Future<?>[] searches = new Future<?>[4];
+        for (int r = 0; r < searches.length; r++) {
+            long seed = r;
+            searches[r] = readers.submit(() -> {
+                Random queries = new Random(seed);
+                while (writing.get()) {
+                    int visible = index.size();
+                    List<HnswIndex.Hit> hits = index.search(randomVector(queries), 10, 32);
+                    assertEquals(10, hits.size());
+                    for (HnswIndex.Hit hit : hits) {
+                        assertTrue(hit.id() >= 0 && hit.id() < index.size());
+                    }
+                    assertTrue(index.size() >= visible);
+                }
+                return null;
+            });
+        }
+        for (int i = 0; i < 3_000; i++) {
+            index.add(randomVector(random));
+        }
+        writing.set(false);
+        for (Future<?> search : searches) {
+            search.get(30, TimeUnit.SECONDS);
+        }
+        readers.shutdown();
+
+        // Then
+        assertEquals(3_200, index.size());
+        assertTrue(recallAt10(index, random, 50) >= 0.95);
+        index.close();
+    }
+
+    private static HnswIndex.Options options(boolean quantized) {
+        return new HnswIndex.Options(DIMENSION, VectorMetric.COSINE, quantized, 16, 100);
+    }
+
+    private static double recallAt10(HnswIndex index, Random random, int queries) {
+        int found = 0;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomVector(random);
+            Set<Integer> truth = ids(index.exactSearch(query, 10));
+            for (HnswIndex.Hit hit : index.search(query, 10, 64)) {
+                if (truth.contains(hit.id())) {
+                    found++;
+                }
+            }
+        }
+        return found / (queries * 10.0);
+    }
+
+    private static Set<Integer> ids(List<HnswIndex.Hit> hits) {
+        Set<Integer> ids = new HashSet<>();
+        for (HnswIndex.Hit hit : hits) {
+            ids.add(hit.id());
+        }
+        return ids;
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,115 @@
+package com.healthtourism.airecommendation.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthtourism.airecommendation.index.CandidateIndex;
+import com.healthtourism.airecommendation.index.DoctorEntry;
+import com.healthtourism.airecommendation.index.PackageEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the {@link CandidateIndex} current from doctor, package and hospital
+ * change events, on top of the snapshot {@link CatalogSnapshotLoader} loads at
+ * startup. Every instance needs every event, so each has its own consumer group
+ * (see {@link IndexConsumerGroup}).
+ */
+@Component
+public class CatalogEventConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogEventConsumer.class);
+
+    @Autowired
+    private CandidateIndex candidateIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @KafkaListener(topics = "${recommendation.topics.doctor-events:doctor-events}",
+            groupId = "#{@indexConsumerGroup.groupId}")
+    public void consumeDoctorEvent(String message) {
+        try {
+            Map<String, Object> event = objectMapper.readValue(message, Map.class);
+            String eventType = (String) event.get("eventType");
+            Long doctorId = toLong(event.get("id"));
+
+            if ("CREATED".equals(eventType) || "UPDATED".equals(eventType)) {
+                candidateIndex.upsertDoctor(new DoctorEntry(doctorId,
+                        (String) event.get("title"),
+                        (String) event.get("firstName"),
+                        (String) event.get("lastName"),
+                        (String) event.get("specialization"),
+                        toLong(event.get("hospitalId")),
+                        toDouble(event.get("rating")),
+                        toBigDecimal(event.get("consultationFee")),
+                        !Boolean.FALSE.equals(event.get("isAvailable"))));
+            } else if ("DELETED".equals(eventType)) {
+                candidateIndex.removeDoctor(doctorId);
+            }
+        } catch (Exception e) {
+            logger.error("Error processing doctor event: {}", e.getMessage());
+        }
+    }
+
+    @KafkaListener(topics = "${recommendation.topics.package-events:package-events}",
+            groupId = "#{@indexConsumerGroup.groupId}")
+    @SuppressWarnings("unchecked")
+    public void consumePackageEvent(String message) {
+        try {
+            Map<String, Object> event = objectMapper.readValue(message, Map.class);
+            String eventType = (String) event.get("eventType");
+            Long packageId = toLong(event.get("id"));
+
+            if ("CREATED".equals(eventType) || "UPDATED".equals(eventType)) {
+                candidateIndex.upsertPackage(new PackageEntry(packageId,
+                        (String) event.get("packageName"),
+                        (String) event.get("packageType"),
+                        toLong(event.get("hospitalId")),
+                        toDouble(event.get("rating")),
+                        toBigDecimal(event.get("finalPrice")),
+                        !Boolean.FALSE.equals(event.get("isActive")),
+                        (List<String>) event.get("includedServices")));
+            } else if ("DELETED".equals(eventType)) {
+                candidateIndex.removePackage(packageId);
+            }
+        } catch (Exception e) {
+            logger.error("Error processing package event: {}", e.getMessage());
+        }
+    }
+
+    @KafkaListener(topics = "${recommendation.topics.hospital-events:hospital-events}",
+            groupId = "#{@indexConsumerGroup.groupId}")
+    public void consumeHospitalEvent(String message) {
+        try {
+            Map<String, Object> event = objectMapper.readValue(message, Map.class);
+            String eventType = (String) event.get("eventType");
+            Long hospitalId = toLong(event.get("id"));
+
+            if ("CREATED".equals(eventType) || "UPDATED".equals(eventType)) {
+                candidateIndex.upsertHospital(hospitalId, (String) event.get("name"), (String) event.get("city"));
+            } else if ("DELETED".equals(eventType)) {
+                candidateIndex.removeHospital(hospitalId);
+            }
+        } catch (Exception e) {
+            logger.error("Error processing hospital event: {}", e.getMessage());
+        }
+    }
+
+    private static Long toLong(Object value) {
+        return value == null ? null : ((Number) value).longValue();
+    }
+
+    private static Double toDouble(Object value) {
+        return value == null ? null : ((Number) value).doubleValue();
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        return value == null ? null : new BigDecimal(value.toString());
+    }
+}
@@ -0,0 +1,150 @@
+package com.healthtourism.airecommendation.consumer;
+
+import com.healthtourism.airecommendation.index.CandidateIndex;
+import com.healthtourism.airecommendation.index.DoctorEntry;
+import com.healthtourism.airecommendation.index.PackageEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Seeds the {@link CandidateIndex} from the hospital, doctor and package
+ * services before the event listeners start, so a fresh instance can recommend
+ * straight away; {@link CatalogEventConsumer} applies the changes after that.
+ *
+ * A service that cannot be reached is logged and skipped; its candidates then
+ * arrive with their next change event.
+ */
+@Component
+public class CatalogSnapshotLoader implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshotLoader.class);
+
+    @Value("${hospital.service.url:http://localhost:8002}")
+    private String hospitalServiceUrl;
+
+    @Value("${doctor.service.url:http://localhost:8003}")
+    private String doctorServiceUrl;
+
+    @Value("${package.service.url:http://localhost:8006}")
+    private String packageServiceUrl;
+
+    @Value("${recommendation.index.load-on-startup:true}")
+    private boolean loadOnStartup;
+
+    @Autowired
+    private CandidateIndex candidateIndex;
+
+    private RestTemplate restTemplate = new RestTemplate();
+
+    /**
+     * Runs after all singletons exist but before the Kafka listener containers
+     * start, so every event is applied on top of the snapshot.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (loadOnStartup) {
+            load();
+        }
+    }
+
+    public void load() {
+        List<Long> hospitalIds = loadHospitals();
+        int doctorCount = 0;
+        for (Long hospitalId : hospitalIds) {
+            doctorCount += loadDoctors(hospitalId);
+        }
+        int packageCount = loadPackages();
+        logger.info("Loaded catalog snapshot: {} hospitals, {} doctors, {} packages",
+                hospitalIds.size(), doctorCount, packageCount);
+    }
+
+    private List<Long> loadHospitals() {
+        List<Long> hospitalIds = new ArrayList<>();
+        for (Map<String, Object> hospital : fetch(hospitalServiceUrl + "/api/hospitals")) {
+            Long hospitalId = toLong(hospital.get("id"));
+            if (hospitalId == null) {
+                continue;
+            }
+            candidateIndex.upsertHospital(hospitalId, (String) hospital.get("name"), (String) hospital.get("city"));
+            hospitalIds.add(hospitalId);
+        }
+        return hospitalIds;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int loadDoctors(Long hospitalId) {
+        int count = 0;
+        for (Map<String, Object> doctor : fetch(doctorServiceUrl + "/api/v1/doctors/hospital/" + hospitalId + "/all")) {
+            Long doctorId = toLong(doctor.get("id"));
+            if (doctorId == null) {
+                continue;
+            }
+            List<String> specializations = (List<String>) doctor.get("specializations");
+            candidateIndex.upsertDoctor(new DoctorEntry(doctorId,
+                    (String) doctor.get("title"),
+                    (String) doctor.get("firstName"),
+                    (String) doctor.get("lastName"),
+                    specializations == null || specializations.isEmpty() ? null : specializations.get(0),
+                    hospitalId,
+                    toDouble(doctor.get("rating")),
+                    toBigDecimal(doctor.get("consultationFee")),
+                    !Boolean.FALSE.equals(doctor.get("isAvailable"))));
+            count++;
+        }
+        return count;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int loadPackages() {
+        int count = 0;
+        for (Map<String, Object> travelPackage : fetch(packageServiceUrl + "/api/packages")) {
+            Long packageId = toLong(travelPackage.get("id"));
+            if (packageId == null) {
+                continue;
+            }
+            candidateIndex.upsertPackage(new PackageEntry(packageId,
+                    (String) travelPackage.get("packageName"),
+                    (String) travelPackage.get("packageType"),
+                    toLong(travelPackage.get("hospitalId")),
+                    toDouble(travelPackage.get("rating")),
+                    toBigDecimal(travelPackage.get("finalPrice")),
+                    !Boolean.FALSE.equals(travelPackage.get("isActive")),
+                    (List<String>) travelPackage.get("includedServices")));
+            count++;
+        }
+        return count;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> fetch(String url) {
+        try {
+            Map<String, Object>[] body = restTemplate.getForObject(url, Map[].class);
+            return body == null ? List.of() : List.of(body);
+        } catch (Exception e) {
+            logger.warn("Could not load catalog snapshot from {}: {}", url, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private static Long toLong(Object value) {
+        return value == null ? null : ((Number) value).longValue();
+    }
+
+    private static Double toDouble(Object value) {
+        return value == null ? null : ((Number) value).doubleValue();
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        return value == null ? null : new BigDecimal(value.toString());
+    }
+}
@@ -0,0 +1,56 @@
+package com.healthtourism.airecommendation.consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Consumer group of this instance's {@link CatalogEventConsumer}.
+ *
+ * Every instance keeps its own {@link com.healthtourism.airecommendation.index.CandidateIndex}
+ * and so needs every event: instances must never share a group, or they would split
+ * the partitions and each index would miss most changes. The group is
+ * {@code <prefix>-<instance id>}, where the instance id is
+ * {@code recommendation.index.instance-id} if set, otherwise the host name. It is
+ * stable across restarts, so a restarted instance resumes from its committed offsets.
+ * Startup fails if no usable instance id can be found.
+ */
+@Component("indexConsumerGroup")
+public class IndexConsumerGroup {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexConsumerGroup.class);
+
+    private final String groupId;
+
+    public IndexConsumerGroup(@Value("${recommendation.index.group-prefix:ai-recommendation-index}") String prefix,
+                              @Value("${recommendation.index.instance-id:}") String instanceId) {
+        this.groupId = prefix + "-" + resolveInstanceId(instanceId);
+        logger.info("Candidate index consumes catalog events as group {}", groupId);
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    private static String resolveInstanceId(String configured) {
+        if (configured != null && !configured.isBlank()) {
+            return configured.trim();
+        }
+        String hostName;
+        try {
+            hostName = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Cannot resolve the host name for the candidate index consumer group; "
+                    + "set recommendation.index.instance-id to a value unique to this instance", e);
+        }
+        if (hostName == null || hostName.isBlank() || "localhost".equalsIgnoreCase(hostName)) {
+            throw new IllegalStateException("Host name '" + hostName + "' does not identify this instance; "
+                    + "set recommendation.index.instance-id to a value unique to this instance");
+        }
+        return hostName;
+    }
+}
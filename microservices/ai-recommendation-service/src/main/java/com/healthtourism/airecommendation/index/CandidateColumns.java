@@ -0,0 +1,293 @@
+package com.healthtourism.airecommendation.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Recommendation candidates (doctors or packages) as parallel primitive arrays,
+ * one slot per candidate, updated in place as change events arrive.
+ *
+ * Scoring is one straight pass over the columns with no branches or objects, so
+ * the JIT can keep it in registers and vectorise most of it; top-K selection is a
+ * second pass with a bounded heap. Readers use an optimistic {@link StampedLock}
+ * read and retry under the read lock only if a write landed during the scan.
+ *
+ * @param <T> display details returned with each hit
+ */
+final class CandidateColumns<T> {
+
+    /** Score weights; they add up to the maximum score. */
+    record Weights(float base, float tag, float city, float rating, float budget) {
+    }
+
+    /**
+     * @param tags   bits of the wanted specialisations; 0 matches nothing
+     * @param cityId wanted city, or {@link TermDictionary#UNKNOWN} for none
+     * @param budget price the user can pay; 0 for no budget
+     */
+    record Query(long tags, int cityId, float budget) {
+    }
+
+    record Hit<T>(long id, T details, float score, boolean tagMatch, boolean cityMatch, boolean withinBudget,
+                  float price, float rating) {
+    }
+
+    private static final float MAX_RATING = 5f;
+    /** Prices up to this factor over budget still get partial budget points. */
+    private static final float BUDGET_TOLERANCE = 1.2f;
+
+    private final Weights weights;
+    private final StampedLock lock = new StampedLock();
+    private final Map<Long, Integer> slotById = new HashMap<>();
+
+    private long[] ids = new long[0];
+    private long[] tags = new long[0];
+    private int[] cityIds = new int[0];
+    private long[] hospitalIds = new long[0];
+    private float[] prices = new float[0];
+    private float[] ratings = new float[0];
+    private float[] active = new float[0];
+    private Object[] details = new Object[0];
+    private int size;
+
+    private final ThreadLocal<float[]> scratch = ThreadLocal.withInitial(() -> new float[0]);
+
+    CandidateColumns(Weights weights) {
+        this.weights = weights;
+    }
+
+    void upsert(long id, long tagBits, long hospitalId, int cityId, float price, float rating, boolean isActive,
+                T detail) {
+        long stamp = lock.writeLock();
+        try {
+            Integer slot = slotById.get(id);
+            int i;
+            if (slot == null) {
+                if (size == ids.length) {
+                    grow();
+                }
+                i = size++;
+                slotById.put(id, i);
+            } else {
+                i = slot;
+            }
+            ids[i] = id;
+            tags[i] = tagBits;
+            hospitalIds[i] = hospitalId;
+            cityIds[i] = cityId;
+            prices[i] = price;
+            ratings[i] = rating;
+            active[i] = isActive ? 1f : 0f;
+            details[i] = detail;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void remove(long id) {
+        long stamp = lock.writeLock();
+        try {
+            Integer slot = slotById.remove(id);
+            if (slot == null) {
+                return;
+            }
+            // Move the last candidate into the hole so the columns stay dense
+            int last = --size;
+            int i = slot;
+            if (i != last) {
+                ids[i] = ids[last];
+                tags[i] = tags[last];
+                hospitalIds[i] = hospitalIds[last];
+                cityIds[i] = cityIds[last];
+                prices[i] = prices[last];
+                ratings[i] = ratings[last];
+                active[i] = active[last];
+                details[i] = details[last];
+                slotById.put(ids[i], i);
+            }
+            details[last] = null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * A hospital moved city; its candidates follow.
+     */
+    void relocateHospital(long hospitalId, int cityId) {
+        long stamp = lock.writeLock();
+        try {
+            for (int i = 0; i < size; i++) {
+                if (hospitalIds[i] == hospitalId) {
+                    cityIds[i] = cityId;
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private void grow() {
+        int capacity = Math.max(1024, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacity);
+        tags = Arrays.copyOf(tags, capacity);
+        hospitalIds = Arrays.copyOf(hospitalIds, capacity);
+        cityIds = Arrays.copyOf(cityIds, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        ratings = Arrays.copyOf(ratings, capacity);
+        active = Arrays.copyOf(active, capacity);
+        details = Arrays.copyOf(details, capacity);
+    }
+
+    /**
+     * The {@code k} best active candidates, best first.
+     */
+    List<Hit<T>> topK(Query query, int k) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            List<Hit<T>> hits = scan(query, k);
+            if (lock.validate(stamp)) {
+                return hits;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return scan(query, k);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Hit<T>> scan(Query query, int k) {
+        // Read every field once; under an optimistic read they may change underneath
+        int n = size;
+        long[] idColumn = ids;
+        long[] tagColumn = tags;
+        int[] cityColumn = cityIds;
+        float[] priceColumn = prices;
+        float[] ratingColumn = ratings;
+        float[] activeColumn = active;
+        Object[] detailColumn = details;
+        n = Math.min(n, Math.min(Math.min(idColumn.length, tagColumn.length), Math.min(cityColumn.length,
+                Math.min(Math.min(priceColumn.length, ratingColumn.length),
+                        Math.min(activeColumn.length, detailColumn.length)))));
+        if (n == 0 || k <= 0) {
+            return List.of();
+        }
+
+        float[] scores = scratch.get();
+        if (scores.length < n) {
+            scores = new float[Math.max(n, scores.length * 2)];
+            scratch.set(scores);
+        }
+        scoreAll(query, n, tagColumn, cityColumn, priceColumn, ratingColumn, activeColumn, scores);
+
+        int[] heap = new int[Math.min(k, n)];
+        int heapSize = 0;
+        for (int i = 0; i < n; i++) {
+            float score = scores[i];
+            if (score < 0f) {
+                continue;
+            }
+            if (heapSize < heap.length) {
+                heap[heapSize] = i;
+                siftUp(heap, heapSize++, scores);
+            } else if (better(i, heap[0], scores)) {
+                heap[0] = i;
+                siftDown(heap, heapSize, scores);
+            }
+        }
+
+        Hit<T>[] hits = new Hit[heapSize];
+        float budgetCeiling = query.budget() * BUDGET_TOLERANCE;
+        for (int out = heapSize - 1; out >= 0; out--) {
+            int i = heap[0];
+            hits[out] = new Hit<>(idColumn[i], (T) detailColumn[i], scores[i],
+                    (tagColumn[i] & query.tags()) != 0, cityColumn[i] == query.cityId() && query.cityId() >= 0,
+                    query.budget() > 0 && priceColumn[i] <= budgetCeiling, priceColumn[i], ratingColumn[i]);
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, scores);
+        }
+        return new ArrayList<>(Arrays.asList(hits));
+    }
+
+    /**
+     * score = base + tag + city + rating/5 + budget fit, or negative when inactive.
+     * Budget fit is 1 up to the budget and falls linearly to 0 at 20% over it.
+     */
+    private void scoreAll(Query query, int n, long[] tagColumn, int[] cityColumn, float[] priceColumn,
+                          float[] ratingColumn, float[] activeColumn, float[] scores) {
+        long wantedTags = query.tags();
+        int wantedCity = query.cityId();
+        float base = weights.base();
+        float tagWeight = weights.tag();
+        float cityWeight = wantedCity >= 0 ? weights.city() : 0f;
+        float ratingWeight = weights.rating() / MAX_RATING;
+        float budgetWeight = query.budget() > 0 ? weights.budget() : 0f;
+        float budgetCeiling = query.budget() * BUDGET_TOLERANCE;
+        float budgetSlope = query.budget() > 0 ? 1f / (query.budget() * (BUDGET_TOLERANCE - 1f)) : 0f;
+        for (int i = 0; i < n; i++) {
+            long hit = tagColumn[i] & wantedTags;
+            float tagMatch = (float) ((hit | -hit) >>> 63);
+            float cityMatch = cityColumn[i] == wantedCity ? 1f : 0f;
+            float budgetFit = Math.min(1f, Math.max(0f, (budgetCeiling - priceColumn[i]) * budgetSlope));
+            float score = base + tagWeight * tagMatch + cityWeight * cityMatch
+                    + ratingWeight * ratingColumn[i] + budgetWeight * budgetFit;
+            // Exact for active candidates, about -1 for inactive ones
+            float off = 1f - activeColumn[i];
+            scores[i] = score - off * (score + 1f);
+        }
+    }
+
+    /** Higher score wins; ties go to the earlier slot so results are stable. */
+    private static boolean better(int a, int b, float[] scores) {
+        return scores[a] > scores[b] || (scores[a] == scores[b] && a < b);
+    }
+
+    private static void siftUp(int[] heap, int i, float[] scores) {
+        int node = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!better(heap[parent], node, scores)) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = node;
+    }
+
+    private static void siftDown(int[] heap, int size, float[] scores) {
+        if (size == 0) {
+            return;
+        }
+        int node = heap[0];
+        int i = 0;
+        while (2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && better(heap[child], heap[child + 1], scores)) {
+                child++;
+            }
+            if (!better(node, heap[child], scores)) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = node;
+    }
+}
@@ -0,0 +1,217 @@
+package com.healthtourism.airecommendation.index;
+
+import com.healthtourism.airecommendation.dto.RecommendationRequest;
+import com.healthtourism.airecommendation.dto.RecommendationResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of every doctor and travel package, loaded from the catalog
+ * services at startup and kept current from the doctor, package and hospital
+ * change events.
+ *
+ * Candidates live in {@link CandidateColumns}: the specialisation (or package
+ * type) as a bit in a long, the hospital's city as an int id, price and rating as
+ * floats. A request scores every candidate in one pass over those arrays and
+ * keeps the best with a bounded heap, so it never touches the other services.
+ */
+@Component
+public class CandidateIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CandidateIndex.class);
+
+    /** Specialisations and package types share bits so one treatment type matches both. */
+    private static final int MAX_TAGS = Long.SIZE;
+    private static final float HIGH_RATING = 4.5f;
+
+    private static final CandidateColumns.Weights DOCTOR_WEIGHTS =
+            new CandidateColumns.Weights(40f, 30f, 15f, 10f, 5f);
+    private static final CandidateColumns.Weights PACKAGE_WEIGHTS =
+            new CandidateColumns.Weights(40f, 30f, 5f, 10f, 15f);
+
+    private record Hospital(String name, int cityId) {
+    }
+
+    /**
+     * Held while a candidate's city is resolved and written, and while a hospital
+     * moves, so an upsert cannot stamp the city a concurrent relocation just replaced.
+     */
+    private final Object hospitalLock = new Object();
+    private final TermDictionary tags = new TermDictionary();
+    private final TermDictionary cities = new TermDictionary();
+    private final ConcurrentHashMap<Long, Hospital> hospitals = new ConcurrentHashMap<>();
+    private final CandidateColumns<DoctorEntry> doctors = new CandidateColumns<>(DOCTOR_WEIGHTS);
+    private final CandidateColumns<PackageEntry> packages = new CandidateColumns<>(PACKAGE_WEIGHTS);
+
+    public void upsertDoctor(DoctorEntry doctor) {
+        long tagBits = tagBit(doctor.specialization());
+        synchronized (hospitalLock) {
+            doctors.upsert(doctor.id(), tagBits, hospitalId(doctor.hospitalId()),
+                    cityOf(doctor.hospitalId()), price(doctor.consultationFee()), rating(doctor.rating()),
+                    doctor.available(), doctor);
+        }
+    }
+
+    public void removeDoctor(Long doctorId) {
+        doctors.remove(doctorId);
+    }
+
+    public void upsertPackage(PackageEntry travelPackage) {
+        long tagBits = tagBit(travelPackage.packageType());
+        synchronized (hospitalLock) {
+            packages.upsert(travelPackage.id(), tagBits,
+                    hospitalId(travelPackage.hospitalId()), cityOf(travelPackage.hospitalId()),
+                    price(travelPackage.finalPrice()), rating(travelPackage.rating()), travelPackage.active(),
+                    travelPackage);
+        }
+    }
+
+    public void removePackage(Long packageId) {
+        packages.remove(packageId);
+    }
+
+    /**
+     * Records a hospital's name and city; its doctors and packages move with it.
+     */
+    public void upsertHospital(Long hospitalId, String name, String city) {
+        int cityId = cities.idOf(city);
+        synchronized (hospitalLock) {
+            Hospital previous = hospitals.put(hospitalId, new Hospital(name, cityId));
+            if (previous == null || previous.cityId() != cityId) {
+                doctors.relocateHospital(hospitalId, cityId);
+                packages.relocateHospital(hospitalId, cityId);
+            }
+        }
+    }
+
+    public void removeHospital(Long hospitalId) {
+        synchronized (hospitalLock) {
+            if (hospitals.remove(hospitalId) != null) {
+                doctors.relocateHospital(hospitalId, TermDictionary.UNKNOWN);
+                packages.relocateHospital(hospitalId, TermDictionary.UNKNOWN);
+            }
+        }
+    }
+
+    public int doctorCount() {
+        return doctors.size();
+    }
+
+    public int packageCount() {
+        return packages.size();
+    }
+
+    public List<RecommendationResponse.DoctorRecommendation> topDoctors(RecommendationRequest request, int limit) {
+        List<CandidateColumns.Hit<DoctorEntry>> hits = doctors.topK(query(request), limit);
+        List<RecommendationResponse.DoctorRecommendation> recommendations = new ArrayList<>(hits.size());
+        for (CandidateColumns.Hit<DoctorEntry> hit : hits) {
+            DoctorEntry doctor = hit.details();
+            RecommendationResponse.DoctorRecommendation recommendation =
+                    new RecommendationResponse.DoctorRecommendation();
+            recommendation.setDoctorId(doctor.id());
+            recommendation.setDoctorName(doctor.displayName());
+            recommendation.setSpecialization(doctor.specialization());
+            recommendation.setHospitalName(hospitalName(doctor.hospitalId()));
+            recommendation.setMatchScore(roundScore(hit.score()));
+            recommendation.setMatchReason(matchReason(hit));
+            recommendation.setEstimatedPrice(doctor.consultationFee());
+            recommendations.add(recommendation);
+        }
+        return recommendations;
+    }
+
+    public List<RecommendationResponse.PackageRecommendation> topPackages(RecommendationRequest request, int limit) {
+        List<CandidateColumns.Hit<PackageEntry>> hits = packages.topK(query(request), limit);
+        List<RecommendationResponse.PackageRecommendation> recommendations = new ArrayList<>(hits.size());
+        for (CandidateColumns.Hit<PackageEntry> hit : hits) {
+            PackageEntry travelPackage = hit.details();
+            RecommendationResponse.PackageRecommendation recommendation =
+                    new RecommendationResponse.PackageRecommendation();
+            recommendation.setPackageId(travelPackage.id());
+            recommendation.setPackageName(travelPackage.packageName());
+            recommendation.setHospitalName(hospitalName(travelPackage.hospitalId()));
+            recommendation.setMatchScore(roundScore(hit.score()));
+            recommendation.setMatchReason(matchReason(hit));
+            recommendation.setPrice(travelPackage.finalPrice());
+            recommendation.setIncludedServices(travelPackage.includedServices() == null
+                    ? List.of() : travelPackage.includedServices());
+            recommendations.add(recommendation);
+        }
+        return recommendations;
+    }
+
+    private CandidateColumns.Query query(RecommendationRequest request) {
+        // Lookups only: an unknown treatment type or city matches nothing and is not registered
+        int tagId = tags.find(request.getTreatmentType());
+        long tagBits = tagId >= 0 && tagId < MAX_TAGS ? 1L << tagId : 0L;
+        int cityId = cities.find(request.getPreferredCity());
+        float budget = request.getBudgetRange() == null ? 0f : Math.max(0, request.getBudgetRange());
+        return new CandidateColumns.Query(tagBits, cityId, budget);
+    }
+
+    private long tagBit(String term) {
+        int id = tags.idOf(term);
+        if (id < 0) {
+            return 0L;
+        }
+        if (id >= MAX_TAGS) {
+            logger.warn("More than {} specialisations/package types; '{}' will not be matched", MAX_TAGS, term);
+            return 0L;
+        }
+        return 1L << id;
+    }
+
+    private int cityOf(Long hospitalId) {
+        Hospital hospital = hospitalId == null ? null : hospitals.get(hospitalId);
+        return hospital == null ? TermDictionary.UNKNOWN : hospital.cityId();
+    }
+
+    private String hospitalName(Long hospitalId) {
+        Hospital hospital = hospitalId == null ? null : hospitals.get(hospitalId);
+        return hospital == null ? null : hospital.name();
+    }
+
+    private static long hospitalId(Long hospitalId) {
+        return hospitalId == null ? -1L : hospitalId;
+    }
+
+    private static float price(BigDecimal price) {
+        // Unknown prices never fit a budget
+        return price == null ? Float.MAX_VALUE : price.floatValue();
+    }
+
+    private static float rating(Double rating) {
+        return rating == null ? 0f : (float) Math.max(0.0, Math.min(5.0, rating));
+    }
+
+    private static Double roundScore(float score) {
+        return Math.min(100.0, Math.round(score * 10.0) / 10.0);
+    }
+
+    private static String matchReason(CandidateColumns.Hit<?> hit) {
+        List<String> reasons = new ArrayList<>();
+        if (hit.tagMatch()) {
+            reasons.add("Uzmanlık alanı uyumu");
+        }
+        if (hit.cityMatch()) {
+            reasons.add("konum uyumu");
+        }
+        if (hit.withinBudget()) {
+            reasons.add("bütçe uyumu");
+        }
+        if (hit.rating() >= HIGH_RATING) {
+            reasons.add("yüksek hasta memnuniyeti");
+        }
+        if (reasons.isEmpty()) {
+            return "Genel uygunluk";
+        }
+        String reason = String.join(", ", reasons);
+        return Character.toUpperCase(reason.charAt(0)) + reason.substring(1);
+    }
+}
@@ -0,0 +1,24 @@
+package com.healthtourism.airecommendation.index;
+
+import java.math.BigDecimal;
+
+/**
+ * Doctor as published by doctor-service.
+ */
+public record DoctorEntry(Long id, String title, String firstName, String lastName, String specialization,
+                          Long hospitalId, Double rating, BigDecimal consultationFee, boolean available) {
+
+    String displayName() {
+        StringBuilder name = new StringBuilder();
+        if (title != null && !title.isBlank()) {
+            name.append(title.trim()).append(' ');
+        }
+        if (firstName != null) {
+            name.append(firstName.trim()).append(' ');
+        }
+        if (lastName != null) {
+            name.append(lastName.trim());
+        }
+        return name.toString().trim();
+    }
+}
@@ -0,0 +1,11 @@
+package com.healthtourism.airecommendation.index;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Travel package as published by package-service.
+ */
+public record PackageEntry(Long id, String packageName, String packageType, Long hospitalId, Double rating,
+                           BigDecimal finalPrice, boolean active, List<String> includedServices) {
+}
@@ -0,0 +1,41 @@
+package com.healthtourism.airecommendation.index;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Assigns dense ids to case-insensitive terms (cities, specialisations) so the
+ * candidate columns can compare ints and bits instead of strings.
+ */
+final class TermDictionary {
+
+    static final int UNKNOWN = -1;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * Id of the term, registering it if new; {@link #UNKNOWN} for blank input.
+     */
+    int idOf(String term) {
+        if (term == null || term.isBlank()) {
+            return UNKNOWN;
+        }
+        return ids.computeIfAbsent(normalise(term), key -> next.getAndIncrement());
+    }
+
+    /**
+     * Id of the term if it was ever registered, without registering it.
+     */
+    int find(String term) {
+        if (term == null || term.isBlank()) {
+            return UNKNOWN;
+        }
+        return ids.getOrDefault(normalise(term), UNKNOWN);
+    }
+
+    private static String normalise(String term) {
+        return term.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,113 @@
+package com.healthtourism.airecommendation.benchmark;
+
+import com.healthtourism.airecommendation.dto.RecommendationRequest;
+import com.healthtourism.airecommendation.index.CandidateIndex;
+import com.healthtourism.airecommendation.index.DoctorEntry;
+import com.healthtourism.airecommendation.index.SyntheticCatalog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of one doctor recommendation over a synthetic catalog: the columnar
+ * candidate index against scoring every doctor object and sorting, which is what
+ * the hard-coded path would become with real data.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.healthtourism.airecommendation.benchmark.CandidateIndexBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CandidateIndexBenchmark {
+
+    private static final int QUERIES = 64;
+
+    @Param({"50000"})
+    private int doctors;
+
+    @Param({"3"})
+    private int topK;
+
+    private CandidateIndex index;
+    private List<DoctorEntry> doctorList;
+    private Map<Long, String> cityByHospital;
+    private RecommendationRequest[] requests;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SyntheticCatalog catalog = SyntheticCatalog.generate(500, doctors, 0, 42);
+        index = catalog.load(new CandidateIndex());
+        doctorList = catalog.doctors;
+        cityByHospital = new HashMap<>();
+        for (int h = 0; h < catalog.hospitalCities.size(); h++) {
+            cityByHospital.put((long) h, catalog.hospitalCities.get(h));
+        }
+        Random random = new Random(7);
+        requests = new RecommendationRequest[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            requests[i] = SyntheticCatalog.randomRequest(random);
+        }
+    }
+
+    @Benchmark
+    public Object candidateIndex() {
+        return index.topDoctors(requests[next++ & (QUERIES - 1)], topK);
+    }
+
+    @Benchmark
+    public Object scoreObjectsAndSort() {
+        RecommendationRequest request = requests[next++ & (QUERIES - 1)];
+        List<Map.Entry<DoctorEntry, Double>> scored = new ArrayList<>();
+        for (DoctorEntry doctor : doctorList) {
+            if (!doctor.available()) {
+                continue;
+            }
+            double score = 40.0;
+            if (doctor.specialization().equalsIgnoreCase(request.getTreatmentType())) {
+                score += 30.0;
+            }
+            if (request.getPreferredCity() != null
+                    && request.getPreferredCity().equalsIgnoreCase(cityByHospital.get(doctor.hospitalId()))) {
+                score += 15.0;
+            }
+            score += 2.0 * doctor.rating();
+            if (request.getBudgetRange() != null
+                    && doctor.consultationFee().doubleValue() <= request.getBudgetRange()) {
+                score += 5.0;
+            }
+            scored.add(Map.entry(doctor, score));
+        }
+        scored.sort(Map.Entry.<DoctorEntry, Double>comparingByValue(Comparator.reverseOrder()));
+        return scored.subList(0, Math.min(topK, scored.size()));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CandidateIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
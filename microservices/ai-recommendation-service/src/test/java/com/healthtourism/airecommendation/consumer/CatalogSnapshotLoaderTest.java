@@ -0,0 +1,92 @@
+package com.healthtourism.airecommendation.consumer;
+
+import com.healthtourism.airecommendation.dto.RecommendationRequest;
+import com.healthtourism.airecommendation.dto.RecommendationResponse;
+import com.healthtourism.airecommendation.index.CandidateIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogSnapshotLoaderTest {
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Spy
+    private CandidateIndex candidateIndex = new CandidateIndex();
+
+    @InjectMocks
+    private CatalogSnapshotLoader catalogSnapshotLoader;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(catalogSnapshotLoader, "hospitalServiceUrl", "http://hospital");
+        ReflectionTestUtils.setField(catalogSnapshotLoader, "doctorServiceUrl", "http://doctor");
+        ReflectionTestUtils.setField(catalogSnapshotLoader, "packageServiceUrl", "http://package");
+        ReflectionTestUtils.setField(catalogSnapshotLoader, "restTemplate", restTemplate);
+    }
+
+    @Test
+    void testLoad_IndexesHospitalsDoctorsAndPackages() {
+        // Given
+        when(restTemplate.getForObject(eq("http://hospital/api/hospitals"), eq(Map[].class))).thenReturn(new Map[]{
+                Map.of("id", 10, "name", "Istanbul Health Center", "city", "Istanbul")});
+        when(restTemplate.getForObject(eq("http://doctor/api/v1/doctors/hospital/10/all"), eq(Map[].class)))
+                .thenReturn(new Map[]{Map.of("id", 1, "title", "Dr.", "firstName", "Ayşe", "lastName", "Demir",
+                        "specializations", List.of("DENTAL"), "rating", 4.8, "consultationFee", 500.0,
+                        "isAvailable", true)});
+        when(restTemplate.getForObject(eq("http://package/api/packages"), eq(Map[].class))).thenReturn(new Map[]{
+                Map.of("id", 7, "packageName", "Dental Care", "packageType", "DENTAL", "hospitalId", 10,
+                        "rating", 4.6, "finalPrice", 9000, "isActive", true)});
+
+        // When
+        catalogSnapshotLoader.load();
+
+        // Then
+        List<RecommendationResponse.DoctorRecommendation> doctors =
+                candidateIndex.topDoctors(request("DENTAL", "Istanbul"), 3);
+        assertEquals(1, doctors.size());
+        assertEquals("Dr. Ayşe Demir", doctors.get(0).getDoctorName());
+        assertEquals("Istanbul Health Center", doctors.get(0).getHospitalName());
+        assertTrue(doctors.get(0).getMatchReason().startsWith("Uzmanlık alanı uyumu, konum uyumu"));
+        assertEquals(1, candidateIndex.packageCount());
+    }
+
+    @Test
+    void testLoad_SkipsUnreachableService() {
+        // Given
+        when(restTemplate.getForObject(eq("http://hospital/api/hospitals"), eq(Map[].class)))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+        when(restTemplate.getForObject(eq("http://package/api/packages"), eq(Map[].class))).thenReturn(new Map[]{
+                Map.of("id", 7, "packageName", "Dental Care", "packageType", "DENTAL", "finalPrice", 9000)});
+
+        // When
+        catalogSnapshotLoader.load();
+
+        // Then
+        assertEquals(0, candidateIndex.doctorCount());
+        assertEquals(1, candidateIndex.packageCount());
+    }
+
+    private static RecommendationRequest request(String treatmentType, String city) {
+        RecommendationRequest request = new RecommendationRequest();
+        request.setTreatmentType(treatmentType);
+        request.setPreferredCity(city);
+        return request;
+    }
+}
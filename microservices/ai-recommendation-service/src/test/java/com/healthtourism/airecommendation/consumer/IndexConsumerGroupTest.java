@@ -0,0 +1,25 @@
+package com.healthtourism.airecommendation.consumer;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexConsumerGroupTest {
+
+    @Test
+    void testGroupId_UsesConfiguredInstanceId() {
+        IndexConsumerGroup group = new IndexConsumerGroup("ai-recommendation-index", " pod-7 ");
+
+        assertEquals("ai-recommendation-index-pod-7", group.getGroupId());
+    }
+
+    @Test
+    void testGroupId_FallsBackToHostName() throws Exception {
+        IndexConsumerGroup group = new IndexConsumerGroup("ai-recommendation-index", "");
+
+        assertEquals("ai-recommendation-index-" + InetAddress.getLocalHost().getHostName(), group.getGroupId());
+        assertNotEquals("ai-recommendation-index-local", group.getGroupId());
+    }
+}
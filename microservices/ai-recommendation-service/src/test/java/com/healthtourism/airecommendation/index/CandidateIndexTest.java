@@ -0,0 +1,160 @@
+package com.healthtourism.airecommendation.index;
+
+import com.healthtourism.airecommendation.dto.RecommendationRequest;
+import com.healthtourism.airecommendation.dto.RecommendationResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CandidateIndexTest {
+
+    private CandidateIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CandidateIndex();
+        index.upsertHospital(10L, "Istanbul Health Center", "Istanbul");
+        index.upsertHospital(20L, "Ankara Medical Center", "Ankara");
+        index.upsertDoctor(doctor(1L, "DENTAL", 10L, 4.8, true));
+        index.upsertDoctor(doctor(2L, "DENTAL", 20L, 4.9, true));
+        index.upsertDoctor(doctor(3L, "CARDIOLOGY", 10L, 5.0, true));
+    }
+
+    @Test
+    void testTopDoctors_RanksSpecializationThenCity() {
+        // When
+        List<RecommendationResponse.DoctorRecommendation> doctors = index.topDoctors(request("dental", "istanbul", null), 3);
+
+        // Then
+        assertEquals(List.of(1L, 2L, 3L), ids(doctors));
+        assertEquals("Istanbul Health Center", doctors.get(0).getHospitalName());
+        assertTrue(doctors.get(0).getMatchReason().startsWith("Uzmanlık alanı uyumu, konum uyumu"));
+        assertTrue(doctors.get(0).getMatchScore() > doctors.get(1).getMatchScore());
+        assertTrue(doctors.get(0).getMatchScore() <= 100.0);
+    }
+
+    @Test
+    void testTopDoctors_AppliesUpdatesAndDeletes() {
+        // When
+        index.upsertDoctor(doctor(1L, "DENTAL", 10L, 4.8, false));
+        index.removeDoctor(2L);
+        index.upsertDoctor(doctor(4L, "DENTAL", 20L, 3.0, true));
+
+        // Then
+        assertEquals(List.of(4L, 3L), ids(index.topDoctors(request("DENTAL", null, null), 5)));
+        assertEquals(3, index.doctorCount());
+    }
+
+    @Test
+    void testTopDoctors_FollowsHospitalCityChange() {
+        // When
+        index.upsertHospital(20L, "Ankara Medical Center", "Istanbul");
+
+        // Then
+        assertEquals(List.of(2L, 1L), ids(index.topDoctors(request("DENTAL", "Istanbul", null), 2)));
+    }
+
+    @Test
+    void testTopPackages_PrefersPackagesWithinBudget() {
+        // Given
+        index.upsertPackage(new PackageEntry(1L, "Premium Dental", "DENTAL", 10L, 4.0,
+                new BigDecimal("15000"), true, List.of("Treatment")));
+        index.upsertPackage(new PackageEntry(2L, "Dental", "DENTAL", 10L, 4.0,
+                new BigDecimal("9000"), true, List.of("Treatment")));
+        index.upsertPackage(new PackageEntry(3L, "Slightly Over", "DENTAL", 10L, 4.0,
+                new BigDecimal("11000"), true, List.of("Treatment")));
+
+        // When
+        List<RecommendationResponse.PackageRecommendation> packages =
+                index.topPackages(request("DENTAL", null, 10000), 3);
+
+        // Then
+        assertEquals(List.of(2L, 3L, 1L), packages.stream().map(RecommendationResponse.PackageRecommendation::getPackageId).toList());
+        assertTrue(packages.get(0).getMatchReason().contains("bütçe uyumu"));
+    }
+
+    @Test
+    void testTopDoctors_UnknownTermsMatchNothing() {
+        // When
+        List<RecommendationResponse.DoctorRecommendation> doctors = index.topDoctors(request("NEPHROLOGY", "Rize", null), 3);
+
+        // Then
+        assertEquals(List.of(3L, 2L, 1L), ids(doctors));
+        assertEquals("Yüksek hasta memnuniyeti", doctors.get(2).getMatchReason());
+    }
+
+    @Test
+    void testTopDoctors_MatchesBruteForceOnSyntheticCatalog() {
+        // Given
+        SyntheticCatalog catalog = SyntheticCatalog.generate(200, 50_000, 0, 42);
+        CandidateIndex synthetic = catalog.load(new CandidateIndex());
+        Random random = new Random(7);
+
+        for (int q = 0; q < 50; q++) {
+            RecommendationRequest request = SyntheticCatalog.randomRequest(random);
+
+            // When
+            List<RecommendationResponse.DoctorRecommendation> top = synthetic.topDoctors(request, 10);
+
+            // Then
+            List<Double> expected = bruteForceScores(catalog, request).subList(0, 10);
+            assertEquals(expected, top.stream().map(RecommendationResponse.DoctorRecommendation::getMatchScore).toList(),
+                    "scores differ for " + request);
+        }
+    }
+
+    private static List<Double> bruteForceScores(SyntheticCatalog catalog, RecommendationRequest request) {
+        Map<Long, String> cityByHospital = new java.util.HashMap<>();
+        for (int h = 0; h < catalog.hospitalCities.size(); h++) {
+            cityByHospital.put((long) h, catalog.hospitalCities.get(h));
+        }
+        List<Double> scores = new ArrayList<>();
+        for (DoctorEntry doctor : catalog.doctors) {
+            if (!doctor.available()) {
+                continue;
+            }
+            float score = 40f;
+            if (doctor.specialization().equalsIgnoreCase(request.getTreatmentType())) {
+                score += 30f;
+            }
+            if (request.getPreferredCity() != null
+                    && request.getPreferredCity().equalsIgnoreCase(cityByHospital.get(doctor.hospitalId()))) {
+                score += 15f;
+            }
+            score += 10f / 5f * doctor.rating().floatValue();
+            if (request.getBudgetRange() != null) {
+                float budget = request.getBudgetRange();
+                float fit = (budget * 1.2f - doctor.consultationFee().floatValue()) * (1f / (budget * (1.2f - 1f)));
+                score += 5f * Math.min(1f, Math.max(0f, fit));
+            }
+            scores.add(Math.min(100.0, Math.round(score * 10.0) / 10.0));
+        }
+        return scores.stream().sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+    }
+
+    private static DoctorEntry doctor(Long id, String specialization, Long hospitalId, double rating, boolean available) {
+        return new DoctorEntry(id, "Dr.", "Doktor", String.valueOf(id), specialization, hospitalId, rating,
+                new BigDecimal("5000"), available);
+    }
+
+    private static RecommendationRequest request(String treatmentType, String city, Integer budget) {
+        RecommendationRequest request = new RecommendationRequest();
+        request.setTreatmentType(treatmentType);
+        request.setPreferredCity(city);
+        request.setBudgetRange(budget);
+        return request;
+    }
+
+    private static List<Long> ids(List<RecommendationResponse.DoctorRecommendation> doctors) {
+        return doctors.stream().map(RecommendationResponse.DoctorRecommendation::getDoctorId).toList();
+    }
+}
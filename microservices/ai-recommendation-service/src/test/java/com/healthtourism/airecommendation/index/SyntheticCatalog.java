@@ -0,0 +1,75 @@
+package com.healthtourism.airecommendation.index;
+
+import com.healthtourism.airecommendation.dto.RecommendationRequest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic hospitals, doctors and packages for tests and benchmarks.
+ */
+public final class SyntheticCatalog {
+
+    public static final String[] CITIES = {
+            "Istanbul", "Ankara", "Izmir", "Antalya", "Bursa", "Adana", "Konya", "Gaziantep", "Mugla", "Trabzon"};
+    public static final String[] SPECIALIZATIONS = {
+            "DENTAL", "CARDIOLOGY", "ORTHOPEDICS", "OPHTHALMOLOGY", "DERMATOLOGY", "ONCOLOGY", "NEUROLOGY",
+            "PLASTIC_SURGERY", "BARIATRIC", "IVF", "UROLOGY", "GENERAL"};
+    private static final String[] FIRST_NAMES = {"Ahmet", "Ayşe", "Mehmet", "Elif", "Can", "Zeynep", "Emre", "Selin"};
+    private static final String[] LAST_NAMES = {"Yılmaz", "Demir", "Kaya", "Şahin", "Çelik", "Aydın", "Öztürk"};
+
+    public final List<DoctorEntry> doctors = new ArrayList<>();
+    public final List<PackageEntry> packages = new ArrayList<>();
+    public final List<String> hospitalCities = new ArrayList<>();
+
+    private SyntheticCatalog() {
+    }
+
+    public static SyntheticCatalog generate(int hospitals, int doctors, int packages, long seed) {
+        Random random = new Random(seed);
+        SyntheticCatalog catalog = new SyntheticCatalog();
+        for (int h = 0; h < hospitals; h++) {
+            catalog.hospitalCities.add(CITIES[random.nextInt(CITIES.length)]);
+        }
+        for (long id = 1; id <= doctors; id++) {
+            catalog.doctors.add(new DoctorEntry(id, "Dr.",
+                    FIRST_NAMES[random.nextInt(FIRST_NAMES.length)],
+                    LAST_NAMES[random.nextInt(LAST_NAMES.length)],
+                    SPECIALIZATIONS[random.nextInt(SPECIALIZATIONS.length)],
+                    (long) random.nextInt(hospitals),
+                    // Ratings go up in tenths, so many candidates tie
+                    random.nextInt(51) / 10.0,
+                    BigDecimal.valueOf(500 + random.nextInt(200) * 50L),
+                    random.nextInt(10) != 0));
+        }
+        for (long id = 1; id <= packages; id++) {
+            String type = SPECIALIZATIONS[random.nextInt(SPECIALIZATIONS.length)];
+            catalog.packages.add(new PackageEntry(id, type + " package " + id, type,
+                    (long) random.nextInt(hospitals),
+                    random.nextInt(51) / 10.0,
+                    BigDecimal.valueOf(2_000 + random.nextInt(100) * 500L),
+                    random.nextInt(10) != 0,
+                    List.of("Consultation", "Treatment", "Follow-up")));
+        }
+        return catalog;
+    }
+
+    public CandidateIndex load(CandidateIndex index) {
+        for (int h = 0; h < hospitalCities.size(); h++) {
+            index.upsertHospital((long) h, "Hospital " + h, hospitalCities.get(h));
+        }
+        doctors.forEach(index::upsertDoctor);
+        packages.forEach(index::upsertPackage);
+        return index;
+    }
+
+    public static RecommendationRequest randomRequest(Random random) {
+        RecommendationRequest request = new RecommendationRequest();
+        request.setTreatmentType(SPECIALIZATIONS[random.nextInt(SPECIALIZATIONS.length)]);
+        request.setPreferredCity(random.nextInt(4) == 0 ? null : CITIES[random.nextInt(CITIES.length)]);
+        request.setBudgetRange(random.nextInt(4) == 0 ? null : 2_000 + random.nextInt(50) * 1_000);
+        return request;
+    }
+}
@@ -2,10 +2,13 @@ package com.healthtourism.airecommendation.service;
 
 import com.healthtourism.airecommendation.dto.RecommendationRequest;
 import com.healthtourism.airecommendation.dto.RecommendationResponse;
+import com.healthtourism.airecommendation.index.CandidateIndex;
+import com.healthtourism.airecommendation.index.SyntheticCatalog;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
@@ -14,14 +17,15 @@ import static org.junit.jupiter.api.Assertions.*;
 @ExtendWith(MockitoExtension.class)
 class RecommendationServiceTest {
 
+    @Spy
+    private CandidateIndex candidateIndex = SyntheticCatalog.generate(5, 20, 20, 42).load(new CandidateIndex());
+
     @InjectMocks
     private RecommendationService recommendationService;
 
     @BeforeEach
     void setUp() {
-        ReflectionTestUtils.setField(recommendationService, "hospitalServiceUrl", "http://localhost:8002");
-        ReflectionTestUtils.setField(recommendationService, "doctorServiceUrl", "http://localhost:8003");
-        ReflectionTestUtils.setField(recommendationService, "packageServiceUrl", "http://localhost:8006");
+        ReflectionTestUtils.setField(recommendationService, "topK", 3);
     }
 
     @Test
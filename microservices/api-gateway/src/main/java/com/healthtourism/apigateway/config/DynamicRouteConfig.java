@@ -2,38 +2,90 @@ package com.healthtourism.apigateway.config;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.beans.factory.annotation.Autowired;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
-import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
 import org.springframework.cloud.gateway.route.RouteDefinition;
 import org.springframework.cloud.gateway.route.RouteDefinitionRepository;
-import org.springframework.cloud.gateway.route.RouteLocator;
-import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
 import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
 /**
  * Redis-based Dynamic Route Management
  * Routes can be updated at runtime without service restart
+ *
+ * All routes live in one Redis hash next to a version counter. Each gateway
+ * keeps an immutable in-memory {@link RouteSnapshot}; writers bump the version
+ * and publish the change, and every node applies it incrementally, so route
+ * lookups never touch Redis. A gap in versions triggers a full reload.
  */
 @Configuration
-public class DynamicRouteConfig implements RouteDefinitionRepository {
+public class DynamicRouteConfig implements RouteDefinitionRepository, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(DynamicRouteConfig.class);
+    private static final String OP_PUT = "PUT";
+    private static final String OP_DELETE = "DELETE";
+
+    /**
+     * KEYS[1] route hash, KEYS[2] version counter; ARGV[1] route id, ARGV[2] route json
+     * (empty to delete), ARGV[3] channel. Returns the new version.
+     */
+    private static final RedisScript<Long> WRITE_SCRIPT = RedisScript.of(
+            "local op = 'PUT'\n" +
+            "if ARGV[2] == '' then\n" +
+            "  redis.call('HDEL', KEYS[1], ARGV[1])\n" +
+            "  op = 'DELETE'\n" +
+            "else\n" +
+            "  redis.call('HSET', KEYS[1], ARGV[1], ARGV[2])\n" +
+            "end\n" +
+            "local v = redis.call('INCR', KEYS[2])\n" +
+            "redis.call('PUBLISH', ARGV[3], v .. ':' .. op .. ':' .. ARGV[1])\n" +
+            "return v\n",
+            Long.class);
+
+    /**
+     * KEYS[1] route hash, KEYS[2] version counter. Returns [version, id1, json1, id2, json2, ...].
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> LOAD_SCRIPT = RedisScript.of(
+            "local v = redis.call('GET', KEYS[2]) or '0'\n" +
+            "local result = { tostring(v) }\n" +
+            "local all = redis.call('HGETALL', KEYS[1])\n" +
+            "for i = 1, #all do result[#result + 1] = all[i] end\n" +
+            "return result\n",
+            List.class);
 
     private final ReactiveRedisTemplate<String, String> redisTemplate;
     private final ObjectMapper objectMapper;
     private final ApplicationEventPublisher publisher;
+    private final AtomicReference<RouteSnapshot> snapshot = new AtomicReference<>(RouteSnapshot.EMPTY);
+    private final Disposable.Composite subscriptions = Disposables.composite();
     
     @Value("${gateway.dynamic-routes.redis-key-prefix:gateway:routes:}")
     private String routePrefix;
 
+    @Value("${gateway.dynamic-routes.resync-interval-seconds:300}")
+    private long resyncIntervalSeconds;
+
     public DynamicRouteConfig(
             ReactiveRedisTemplate<String, String> redisTemplate,
             ObjectMapper objectMapper,
@@ -43,98 +95,198 @@ public class DynamicRouteConfig implements RouteDefinitionRepository {
         this.publisher = publisher;
     }
 
+    @PostConstruct
+    public void start() {
+        // Subscribe first so no change published during the initial load is missed.
+        // Redis may be down at startup: keep retrying, resync picks up whatever was missed.
+        subscriptions.add(Flux.defer(() -> redisTemplate.listenToChannel(channel()))
+                .concatMap(message -> onRouteChange(message.getMessage()))
+                .doOnError(e -> logger.warn("Route change subscription failed, retrying: {}", e.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe());
+        subscriptions.add(reload().subscribe());
+        // Pub/sub is fire-and-forget, so resync periodically in case a message was lost
+        subscriptions.add(Flux.interval(Duration.ofSeconds(resyncIntervalSeconds))
+                .concatMap(tick -> reload())
+                .subscribe());
+    }
+
+    @Override
+    public void destroy() {
+        subscriptions.dispose();
+    }
+
     @Override
     public Flux<RouteDefinition> getRouteDefinitions() {
-        return redisTemplate.keys(routePrefix + "*")
-                .flatMap(key -> redisTemplate.opsForValue().get(key))
-                .map(json -> {
-                    try {
-                        Map<String, Object> routeData = objectMapper.readValue(json, 
-                            new TypeReference<Map<String, Object>>() {});
-                        RouteDefinition definition = new RouteDefinition();
-                        definition.setId((String) routeData.get("id"));
-                        definition.setUri(java.net.URI.create((String) routeData.get("uri")));
-                        // Add predicates and filters from metadata
-                        return definition;
-                    } catch (Exception e) {
-                        throw new RuntimeException("Error parsing route definition", e);
-                    }
-                })
-                .onErrorResume(e -> {
-                    System.err.println("Error loading routes from Redis: " + e.getMessage());
-                    return Flux.empty();
-                });
+        return Flux.fromIterable(snapshot.get().getRoutes());
     }
 
     @Override
     public Mono<Void> save(Mono<RouteDefinition> route) {
-        return route.flatMap(rd -> {
-            Map<String, Object> routeData = new HashMap<>();
-            routeData.put("id", rd.getId());
-            routeData.put("uri", rd.getUri().toString());
-            routeData.put("predicates", rd.getPredicates());
-            routeData.put("filters", rd.getFilters());
-            
-            try {
-                String json = objectMapper.writeValueAsString(routeData);
-                return redisTemplate.opsForValue()
-                        .set(routePrefix + rd.getId(), json)
-                        .then();
-            } catch (Exception e) {
-                return Mono.error(new RuntimeException("Error saving route", e));
-            }
-        }).then();
+        return route.flatMap(this::write).then();
     }
 
     @Override
     public Mono<Void> delete(Mono<String> routeId) {
-        return routeId.flatMap(id -> redisTemplate.delete(routePrefix + id).then());
+        return routeId.flatMap(this::remove).then();
     }
 
     /**
      * Add or update a route dynamically
      */
     public Mono<Void> addOrUpdateRoute(String routeId, String path, String uri, Map<String, Object> metadata) {
-        Map<String, Object> routeData = new HashMap<>();
-        routeData.put("id", routeId);
-        routeData.put("path", path);
-        routeData.put("uri", uri);
-        routeData.put("metadata", metadata);
-        
-        try {
-            String json = objectMapper.writeValueAsString(routeData);
-            return redisTemplate.opsForValue()
-                    .set(routePrefix + routeId, json)
-                    .then(Mono.fromRunnable(() -> publisher.publishEvent(new RefreshRoutesEvent(this))))
-                    .then();
-        } catch (Exception e) {
-            return Mono.error(new RuntimeException("Error saving route", e));
-        }
+        RouteDefinition definition = new RouteDefinition();
+        definition.setId(routeId);
+        definition.setUri(java.net.URI.create(uri));
+        definition.setPredicates(List.of(new PredicateDefinition("Path=" + path)));
+        definition.setMetadata(new HashMap<>(metadata));
+        return write(definition).then();
     }
 
     /**
      * Remove a route dynamically
      */
     public Mono<Void> removeRoute(String routeId) {
-        return redisTemplate.delete(routePrefix + routeId)
-                .then(Mono.fromRunnable(() -> publisher.publishEvent(new RefreshRoutesEvent(this))))
-                .then();
+        return remove(routeId).then();
     }
 
     /**
      * Get all active routes
      */
     public Flux<Map<String, Object>> getAllRoutes() {
-        return redisTemplate.keys(routePrefix + "*")
-                .flatMap(key -> redisTemplate.opsForValue().get(key)
-                        .map(json -> {
-                            try {
-                                return objectMapper.readValue(json, 
-                                    new TypeReference<Map<String, Object>>() {});
-                            } catch (Exception e) {
-                                return new HashMap<String, Object>();
-                            }
-                        }));
+        return getRouteDefinitions()
+                .map(rd -> objectMapper.convertValue(rd, new TypeReference<Map<String, Object>>() {}));
+    }
+
+    /**
+     * Version of the route table this node is currently serving.
+     */
+    public long getRouteTableVersion() {
+        return snapshot.get().getVersion();
+    }
+
+    private Mono<Long> write(RouteDefinition definition) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(definition);
+        } catch (Exception e) {
+            return Mono.error(new RuntimeException("Error saving route", e));
+        }
+        return runWriteScript(definition.getId(), json)
+                .doOnNext(version -> applyChange(version, s -> s.withRoute(version, definition)));
+    }
+
+    private Mono<Long> remove(String routeId) {
+        return runWriteScript(routeId, "")
+                .doOnNext(version -> applyChange(version, s -> s.withoutRoute(version, routeId)));
     }
-}
 
+    private Mono<Long> runWriteScript(String routeId, String json) {
+        return redisTemplate.execute(WRITE_SCRIPT, List.of(hashKey(), versionKey()),
+                        List.of(routeId, json, channel()))
+                .next();
+    }
+
+    private Mono<Void> onRouteChange(String message) {
+        String[] parts = message.split(":", 3);
+        if (parts.length != 3) {
+            logger.warn("Ignoring malformed route change message: {}", message);
+            return Mono.empty();
+        }
+        long version = Long.parseLong(parts[0]);
+        String routeId = parts[2];
+        if (version <= snapshot.get().getVersion()) {
+            return Mono.empty(); // already applied (e.g. by this node as the writer)
+        }
+        if (OP_DELETE.equals(parts[1])) {
+            applyChange(version, s -> s.withoutRoute(version, routeId));
+            return Mono.empty();
+        }
+        return redisTemplate.<String, String>opsForHash().get(hashKey(), routeId)
+                .map(this::parse)
+                .doOnNext(rd -> applyChange(version, s -> s.withRoute(version, rd)))
+                .switchIfEmpty(Mono.fromRunnable(() -> applyChange(version, s -> s.withoutRoute(version, routeId))))
+                .then()
+                .onErrorResume(e -> {
+                    logger.error("Error applying route change {}: {}", message, e.getMessage());
+                    return reload();
+                });
+    }
+
+    /**
+     * Apply a single versioned change; fall back to a full reload if versions were skipped.
+     * Routes are only refreshed if the change actually altered a definition.
+     */
+    private void applyChange(long version, UnaryOperator<RouteSnapshot> change) {
+        RouteSnapshot current;
+        RouteSnapshot next;
+        do {
+            current = snapshot.get();
+            if (version <= current.getVersion()) {
+                return;
+            }
+            if (version != current.getVersion() + 1) {
+                reload().subscribe();
+                return;
+            }
+            next = change.apply(current);
+        } while (!snapshot.compareAndSet(current, next));
+        if (!next.hasSameRoutes(current)) {
+            publisher.publishEvent(new RefreshRoutesEvent(this));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Mono<Void> reload() {
+        return redisTemplate.execute(LOAD_SCRIPT, List.of(hashKey(), versionKey()), List.of())
+                .next()
+                .map(result -> {
+                    List<Object> values = (List<Object>) result;
+                    long version = Long.parseLong(String.valueOf(values.get(0)));
+                    Map<String, RouteDefinition> routes = new LinkedHashMap<>();
+                    for (int i = 1; i + 1 < values.size(); i += 2) {
+                        // One bad entry must not keep every other route from loading
+                        try {
+                            RouteDefinition rd = parse(String.valueOf(values.get(i + 1)));
+                            routes.put(rd.getId(), rd);
+                        } catch (RuntimeException e) {
+                            logger.error("Skipping unparsable route {}: {}", values.get(i), e.getMessage());
+                        }
+                    }
+                    return new RouteSnapshot(version, routes);
+                })
+                .doOnNext(loaded -> {
+                    RouteSnapshot previous = snapshot.getAndUpdate(
+                            current -> loaded.getVersion() >= current.getVersion() ? loaded : current);
+                    if (loaded.getVersion() > previous.getVersion() && !loaded.hasSameRoutes(previous)) {
+                        logger.info("Loaded {} dynamic routes at version {}", loaded.size(), loaded.getVersion());
+                        publisher.publishEvent(new RefreshRoutesEvent(this));
+                    }
+                })
+                .onErrorResume(e -> {
+                    logger.error("Error loading routes from Redis: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private RouteDefinition parse(String json) {
+        try {
+            return objectMapper.readValue(json, RouteDefinition.class);
+        } catch (Exception e) {
+            throw new RuntimeException("Error parsing route definition", e);
+        }
+    }
+
+    private String hashKey() {
+        return routePrefix + "table";
+    }
+
+    private String versionKey() {
+        return routePrefix + "version";
+    }
+
+    private String channel() {
+        return routePrefix + "changes";
+    }
+}
@@ -0,0 +1,60 @@
+package com.healthtourism.apigateway.config;
+
+import org.springframework.cloud.gateway.route.RouteDefinition;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable, versioned copy of the dynamic route table.
+ * Updates produce a new snapshot; readers never see a partially applied change.
+ */
+public final class RouteSnapshot {
+
+    public static final RouteSnapshot EMPTY = new RouteSnapshot(0L, Collections.emptyMap());
+
+    private final long version;
+    private final Map<String, RouteDefinition> routes;
+
+    public RouteSnapshot(long version, Map<String, RouteDefinition> routes) {
+        this.version = version;
+        this.routes = Collections.unmodifiableMap(new LinkedHashMap<>(routes));
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Collection<RouteDefinition> getRoutes() {
+        return routes.values();
+    }
+
+    public RouteDefinition getRoute(String id) {
+        return routes.get(id);
+    }
+
+    public int size() {
+        return routes.size();
+    }
+
+    /**
+     * Whether both snapshots hold equal route definitions, regardless of version.
+     */
+    public boolean hasSameRoutes(RouteSnapshot other) {
+        return routes.equals(other.routes);
+    }
+
+    public RouteSnapshot withRoute(long newVersion, RouteDefinition route) {
+        Map<String, RouteDefinition> copy = new LinkedHashMap<>(routes);
+        copy.put(route.getId(), route);
+        return new RouteSnapshot(newVersion, copy);
+    }
+
+    public RouteSnapshot withoutRoute(long newVersion, String id) {
+        Map<String, RouteDefinition> copy = new LinkedHashMap<>(routes);
+        copy.remove(id);
+        return new RouteSnapshot(newVersion, copy);
+    }
+}
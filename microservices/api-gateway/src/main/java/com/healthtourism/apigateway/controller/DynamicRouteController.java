@@ -53,6 +53,11 @@ public class DynamicRouteController {
     public Flux<Map<String, Object>> getAllRoutes() {
         return dynamicRouteConfig.getAllRoutes();
     }
+
+    @GetMapping("/version")
+    public Mono<Map<String, Long>> getRouteTableVersion() {
+        return Mono.just(Map.of("version", dynamicRouteConfig.getRouteTableVersion()));
+    }
 }
 
 
@@ -1,9 +1,11 @@
 package com.healthtourism.apigateway.filter;
 
+import com.healthtourism.apigateway.ratelimit.RateLimiterEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpResponse;
@@ -11,59 +13,82 @@ import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
 import java.nio.charset.StandardCharsets;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Arrays;
+import java.util.List;
 
 @Component
 public class RateLimitingFilter extends AbstractGatewayFilterFactory<RateLimitingFilter.Config> {
     
     private static final Logger logger = LoggerFactory.getLogger(RateLimitingFilter.class);
-    private final ConcurrentHashMap<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+    private static final byte[] TOO_MANY_REQUESTS_BODY =
+            "{\"error\":\"Too Many Requests\",\"message\":\"Rate limit exceeded. Please try again later.\"}"
+                    .getBytes(StandardCharsets.UTF_8);
     
-    public RateLimitingFilter() {
+    private final RateLimiterEngine engine;
+    
+    public RateLimitingFilter(RateLimiterEngine engine) {
         super(Config.class);
+        this.engine = engine;
+    }
+    
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return Arrays.asList("maxRequests", "windowSeconds");
     }
     
     @Override
     public GatewayFilter apply(Config config) {
+        // One limiter per route, reused when the route is refreshed with the same limits
+        String name = config.getName() != null ? config.getName()
+                : config.getRouteId() != null ? config.getRouteId()
+                : "max" + config.getMaxRequests() + "-per" + config.getWindowSeconds() + "s";
+        RateLimiterEngine.Limiter limiter = engine.limiterFor(name, config.getMaxRequests(), config.getWindowSeconds());
+        
         return (exchange, chain) -> {
             String clientId = exchange.getRequest().getRemoteAddress() != null 
                 ? exchange.getRequest().getRemoteAddress().getAddress().getHostAddress()
                 : "unknown";
             
-            AtomicInteger count = requestCounts.computeIfAbsent(clientId, k -> new AtomicInteger(0));
-            
-            if (count.incrementAndGet() > config.getMaxRequests()) {
+            if (!limiter.tryAcquire(clientId)) {
                 logger.warn("Rate limit exceeded for client: {}", clientId);
                 ServerHttpResponse response = exchange.getResponse();
                 response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
                 response.getHeaders().add("Content-Type", "application/json");
+                response.getHeaders().add("X-RateLimit-Limit", String.valueOf(limiter.getCapacity()));
+                response.getHeaders().add("Retry-After", String.valueOf(limiter.retryAfterSeconds(clientId)));
                 
-                String message = "{\"error\":\"Too Many Requests\",\"message\":\"Rate limit exceeded. Please try again later.\"}";
-                DataBuffer buffer = response.bufferFactory().wrap(message.getBytes(StandardCharsets.UTF_8));
+                DataBuffer buffer = response.bufferFactory().wrap(TOO_MANY_REQUESTS_BODY);
                 return response.writeWith(Mono.just(buffer));
             }
             
-            // Reset counter after window
-            if (count.get() == 1) {
-                new Thread(() -> {
-                    try {
-                        Thread.sleep(config.getWindowSeconds() * 1000L);
-                        requestCounts.remove(clientId);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                    }
-                }).start();
-            }
-            
             return chain.filter(exchange);
         };
     }
     
-    public static class Config {
+    public static class Config implements HasRouteId {
+        private String name;
+        private String routeId;
         private int maxRequests = 100;
         private int windowSeconds = 60;
         
+        public String getName() {
+            return name;
+        }
+        
+        public void setName(String name) {
+            this.name = name;
+        }
+        
+        @Override
+        public String getRouteId() {
+            return routeId;
+        }
+        
+        @Override
+        public void setRouteId(String routeId) {
+            this.routeId = routeId;
+        }
+        
         public int getMaxRequests() {
             return maxRequests;
         }
@@ -81,4 +106,3 @@ public class RateLimitingFilter extends AbstractGatewayFilterFactory<RateLimitin
         }
     }
 }
-
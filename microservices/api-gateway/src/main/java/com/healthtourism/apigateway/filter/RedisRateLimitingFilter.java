@@ -1,80 +1,332 @@
 package com.healthtourism.apigateway.filter;
 
-// Bucket4j temporarily disabled - version not available in Maven Central
-// import io.github.bucket4j.Bandwidth;
-// import io.github.bucket4j.Bucket;
-// import io.github.bucket4j.Refill;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
-import org.springframework.data.redis.core.script.DefaultReactiveScriptExecutor;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.nio.charset.StandardCharsets;
-import java.time.Duration;
+import java.security.Principal;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
+/**
+ * Distributed token-bucket rate limiter backed by Redis.
+ *
+ * The bucket lives in Redis and is updated by one atomic Lua script per
+ * check. To keep most requests inside the JVM, each node leases a batch of
+ * tokens at a time and serves them locally until the batch is used up or the
+ * lease expires; tokens left in an expired lease are handed back to Redis.
+ * A client that Redis refused is not asked about again until its next token
+ * is due.
+ *
+ * Clients are keyed by the authenticated principal when an upstream
+ * authentication layer has set one, otherwise by remote address. Request
+ * headers such as an unverified JWT are never used as the key.
+ */
 @Component
-public class RedisRateLimitingFilter extends AbstractGatewayFilterFactory<RedisRateLimitingFilter.Config> {
+public class RedisRateLimitingFilter extends AbstractGatewayFilterFactory<RedisRateLimitingFilter.Config>
+        implements DisposableBean {
     
     private static final Logger logger = LoggerFactory.getLogger(RedisRateLimitingFilter.class);
-    // private final Map<String, Bucket> cache = new ConcurrentHashMap<>(); // Temporarily disabled
+    private static final String KEY_PREFIX = "gateway:ratelimit:";
+    private static final int MAX_ACQUIRE_ATTEMPTS = 3;
+    private static final byte[] TOO_MANY_REQUESTS_BODY =
+            "{\"error\":\"Too Many Requests\",\"message\":\"Rate limit exceeded. Please try again later.\"}"
+                    .getBytes(StandardCharsets.UTF_8);
+    
+    /**
+     * KEYS[1] bucket key; ARGV[1] capacity, ARGV[2] millis per token, ARGV[3] tokens requested,
+     * ARGV[4] unused tokens handed back from an expired lease.
+     * Returns the number of tokens granted (1..requested), or when none could be granted,
+     * minus the millis until the next token refills. Uses the Redis clock so gateway
+     * nodes do not need synchronised time.
+     */
+    private static final RedisScript<Long> LEASE_SCRIPT = RedisScript.of(
+            "local capacity = tonumber(ARGV[1])\n" +
+            "local ms_per_token = tonumber(ARGV[2])\n" +
+            "local requested = tonumber(ARGV[3])\n" +
+            "local returned = tonumber(ARGV[4])\n" +
+            "local t = redis.call('TIME')\n" +
+            "local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000)\n" +
+            "local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts')\n" +
+            "local tokens = tonumber(state[1])\n" +
+            "local ts = tonumber(state[2])\n" +
+            "if tokens == nil then tokens = capacity ts = now end\n" +
+            "tokens = math.min(capacity, tokens + returned + math.max(0, now - ts) / ms_per_token)\n" +
+            "local granted = math.min(requested, math.floor(tokens))\n" +
+            "tokens = tokens - granted\n" +
+            "redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(now))\n" +
+            "redis.call('PEXPIRE', KEYS[1], math.ceil(capacity * ms_per_token) + 1000)\n" +
+            "if granted == 0 and tokens < 1 then\n" +
+            "  return -math.ceil((1 - tokens) * ms_per_token)\n" +
+            "end\n" +
+            "return granted\n",
+            Long.class);
+    
     private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final Map<String, LocalLease> leases = new ConcurrentHashMap<>();
+    private final Counter redisCalls;
+    private final Counter redisErrors;
+    private final Counter allowed;
+    private final Counter rejected;
+    private final Disposable sweeper;
     
-    public RedisRateLimitingFilter(ReactiveRedisTemplate<String, String> redisTemplate) {
+    public RedisRateLimitingFilter(ReactiveRedisTemplate<String, String> redisTemplate,
+                                   MeterRegistry meterRegistry) {
         super(Config.class);
         this.redisTemplate = redisTemplate;
+        this.redisCalls = Counter.builder("gateway.ratelimit.redis.calls")
+                .description("Lease requests sent to Redis").register(meterRegistry);
+        this.redisErrors = Counter.builder("gateway.ratelimit.redis.errors")
+                .description("Lease requests that failed and were let through").register(meterRegistry);
+        this.allowed = Counter.builder("gateway.ratelimit.requests")
+                .tag("limiter", "redis").tag("outcome", "allowed").register(meterRegistry);
+        this.rejected = Counter.builder("gateway.ratelimit.requests")
+                .tag("limiter", "redis").tag("outcome", "rejected").register(meterRegistry);
+        meterRegistry.gauge("gateway.ratelimit.redis.leases", leases, Map::size);
+        this.sweeper = Schedulers.parallel().schedulePeriodically(
+                this::evictIdleLeases, 30, 30, TimeUnit.SECONDS);
     }
     
     @Override
     public GatewayFilter apply(Config config) {
-        // Rate limiting temporarily disabled - Bucket4j not available
-        // Will be re-enabled when Bucket4j dependency is available
-        return (exchange, chain) -> {
-            // Allow all requests for now
-            return chain.filter(exchange);
-        };
+        return (exchange, chain) -> getClientId(exchange).flatMap(clientId -> {
+            String key = KEY_PREFIX + config.getCapacity() + ":" + config.getRefillPeriod() + ":" + clientId;
+            return tryAcquire(key, config, MAX_ACQUIRE_ATTEMPTS)
+                    .flatMap(ok -> {
+                        if (ok) {
+                            allowed.increment();
+                            return chain.filter(exchange);
+                        }
+                        rejected.increment();
+                        logger.warn("Distributed rate limit exceeded for client: {}", clientId);
+                        ServerHttpResponse response = exchange.getResponse();
+                        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+                        response.getHeaders().add("Content-Type", "application/json");
+                        response.getHeaders().add("X-RateLimit-Limit", String.valueOf(config.getCapacity()));
+                        response.getHeaders().add("Retry-After", String.valueOf(retryAfterSeconds(key, config)));
+                        DataBuffer buffer = response.bufferFactory().wrap(TOO_MANY_REQUESTS_BODY);
+                        return response.writeWith(Mono.just(buffer));
+                    });
+        });
     }
     
-    private String getClientId(org.springframework.web.server.ServerWebExchange exchange) {
-        String ip = exchange.getRequest().getRemoteAddress() != null 
-            ? exchange.getRequest().getRemoteAddress().getAddress().getHostAddress()
-            : "unknown";
-        
-        // Try to get user ID from JWT if available
-        String authHeader = exchange.getRequest().getHeaders().getFirst("Authorization");
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            // In production, decode JWT to get user ID
-            return ip; // For now, use IP
+    /**
+     * Seconds until the client may retry, rounded up: the refill time Redis reported
+     * when it last refused the client, else one token's worth of refill.
+     */
+    long retryAfterSeconds(String key, Config config) {
+        LocalLease lease = leases.get(key);
+        long now = System.currentTimeMillis();
+        long waitMillis = lease != null && lease.retryAt > now
+                ? lease.retryAt - now
+                : (long) Math.ceil(config.msPerToken());
+        return Math.max(1L, (waitMillis + 999) / 1000);
+    }
+    
+    private Mono<Boolean> tryAcquire(String key, Config config, int attemptsLeft) {
+        LocalLease lease = leases.computeIfAbsent(key, k -> new LocalLease(config));
+        long now = System.currentTimeMillis();
+        if (lease.tryTake(now)) {
+            return Mono.just(Boolean.TRUE);
         }
-        
-        return ip;
+        if (lease.isDenied(now)) {
+            return Mono.just(Boolean.FALSE);
+        }
+        return lease.refill(() -> leaseFromRedis(key, lease, config))
+                .flatMap(granted -> {
+                    if (lease.tryTake(System.currentTimeMillis())) {
+                        return Mono.just(Boolean.TRUE);
+                    }
+                    if (granted == 0 || attemptsLeft <= 1) {
+                        return Mono.just(Boolean.FALSE);
+                    }
+                    // Other waiters drained the batch first; lease another one
+                    return tryAcquire(key, config, attemptsLeft - 1);
+                });
+    }
+    
+    private Mono<Long> leaseFromRedis(String key, LocalLease lease, Config config) {
+        double msPerToken = config.msPerToken();
+        long batch = config.effectiveLeaseSize();
+        // Only reached once the lease is used up or expired; hand back whatever is left
+        long leftover = lease.drain();
+        return runLeaseScript(key, config.getCapacity(), msPerToken, batch, leftover)
+                .defaultIfEmpty(0L)
+                .map(result -> {
+                    long now = System.currentTimeMillis();
+                    if (result > 0) {
+                        lease.grant(result, now + config.getLeaseMillis());
+                        return result;
+                    }
+                    long waitMillis = Math.max(1L, -result);
+                    lease.deny(now + Math.min(waitMillis, config.getLeaseMillis()), now + waitMillis);
+                    return 0L;
+                })
+                .onErrorResume(e -> {
+                    // Fail open: an unavailable Redis must not take the gateway down with it
+                    redisErrors.increment();
+                    logger.error("Redis rate limit check failed for {}: {}", key, e.getMessage());
+                    // Not counted by Redis, so never handed back
+                    lease.grantUnbacked(batch, System.currentTimeMillis() + config.getLeaseMillis());
+                    return Mono.just(batch);
+                });
     }
     
-    // Temporarily disabled - Bucket4j not available
-    /*
-    private Mono<Bucket> getBucket(String key, Config config) {
-        // Use in-memory cache for now, can be enhanced with Redis
-        Bucket bucket = cache.computeIfAbsent(key, k -> {
-            Refill refill = Refill.intervally(config.getCapacity(), Duration.ofSeconds(config.getRefillPeriod()));
-            Bandwidth limit = Bandwidth.classic(config.getCapacity(), refill);
-            return Bucket.builder().addLimit(limit).build();
+    private Mono<Long> runLeaseScript(String key, int capacity, double msPerToken, long requested, long returned) {
+        redisCalls.increment();
+        return redisTemplate.execute(LEASE_SCRIPT, Collections.singletonList(key),
+                        List.of(String.valueOf(capacity), String.valueOf(msPerToken),
+                                String.valueOf(requested), String.valueOf(returned)))
+                .next();
+    }
+    
+    private void evictIdleLeases() {
+        long now = System.currentTimeMillis();
+        leases.forEach((key, lease) -> {
+            if (lease.isIdle(now) && leases.remove(key, lease)) {
+                long leftover = lease.drain();
+                if (leftover > 0) {
+                    runLeaseScript(key, lease.capacity, lease.msPerToken, 0, leftover)
+                            .subscribe(null, e -> logger.warn("Could not return {} tokens for {}: {}",
+                                    leftover, key, e.getMessage()));
+                }
+            }
         });
-        return Mono.just(bucket);
     }
-    */
+    
+    private Mono<String> getClientId(ServerWebExchange exchange) {
+        // Only a principal set by an authentication layer is trusted as a user key
+        return exchange.getPrincipal()
+                .map(Principal::getName)
+                .filter(name -> !name.isEmpty())
+                .map(name -> "user:" + name)
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    String ip = exchange.getRequest().getRemoteAddress() != null
+                        ? exchange.getRequest().getRemoteAddress().getAddress().getHostAddress()
+                        : "unknown";
+                    return "ip:" + ip;
+                }));
+    }
+    
+    @Override
+    public void destroy() {
+        sweeper.dispose();
+    }
+    
+    /**
+     * Tokens leased from Redis and served locally by this node.
+     */
+    static final class LocalLease {
+        
+        private final int capacity;
+        private final double msPerToken;
+        private final AtomicLong remaining = new AtomicLong();
+        private volatile boolean backedByRedis;
+        private volatile long expiresAt;
+        private volatile long deniedUntil;
+        private volatile long retryAt;
+        private volatile Mono<Long> pending;
+        
+        LocalLease(Config config) {
+            this.capacity = config.getCapacity();
+            this.msPerToken = config.msPerToken();
+        }
+        
+        boolean tryTake(long now) {
+            if (now >= expiresAt) {
+                return false;
+            }
+            long r;
+            do {
+                r = remaining.get();
+                if (r <= 0) {
+                    return false;
+                }
+            } while (!remaining.compareAndSet(r, r - 1));
+            return true;
+        }
+        
+        boolean isDenied(long now) {
+            return now < deniedUntil;
+        }
+        
+        boolean isIdle(long now) {
+            return now >= expiresAt && now >= deniedUntil && pending == null;
+        }
+        
+        void grant(long tokens, long until) {
+            backedByRedis = true;
+            remaining.set(tokens);
+            expiresAt = until;
+        }
+        
+        void grantUnbacked(long tokens, long until) {
+            backedByRedis = false;
+            remaining.set(tokens);
+            expiresAt = until;
+        }
+        
+        /**
+         * Takes every token left in the lease, returning how many Redis should get back.
+         */
+        long drain() {
+            long left = remaining.getAndSet(0);
+            return backedByRedis ? Math.max(0L, left) : 0L;
+        }
+        
+        /**
+         * Stop asking Redis until {@code until}; {@code nextToken} is when Redis expects
+         * the next token to be available.
+         */
+        void deny(long until, long nextToken) {
+            retryAt = nextToken;
+            deniedUntil = until;
+        }
+        
+        /**
+         * Coalesce concurrent refills so one Redis call serves every waiter.
+         */
+        Mono<Long> refill(Supplier<Mono<Long>> source) {
+            Mono<Long> current = pending;
+            if (current != null) {
+                return current;
+            }
+            synchronized (this) {
+                if (pending == null) {
+                    pending = source.get()
+                            .doFinally(signal -> pending = null)
+                            .cache();
+                }
+                return pending;
+            }
+        }
+    }
     
     public static class Config {
         private int capacity = 100;
         private int refillPeriod = 60;
+        private int leaseSize = 0;
+        private long leaseMillis = 1000;
         
         public int getCapacity() {
             return capacity;
@@ -91,6 +343,42 @@ public class RedisRateLimitingFilter extends AbstractGatewayFilterFactory<RedisR
         public void setRefillPeriod(int refillPeriod) {
             this.refillPeriod = refillPeriod;
         }
+        
+        public int getLeaseSize() {
+            return leaseSize;
+        }
+        
+        /**
+         * Tokens taken from Redis per round-trip; 0 means the tokens refilled
+         * during one lease, between capacity / 20 and capacity / 4.
+         */
+        public void setLeaseSize(int leaseSize) {
+            this.leaseSize = leaseSize;
+        }
+        
+        public long getLeaseMillis() {
+            return leaseMillis;
+        }
+        
+        /**
+         * How long a leased batch may be served locally before it is discarded.
+         */
+        public void setLeaseMillis(long leaseMillis) {
+            this.leaseMillis = leaseMillis;
+        }
+        
+        double msPerToken() {
+            return refillPeriod * 1000.0 / capacity;
+        }
+        
+        int effectiveLeaseSize() {
+            if (leaseSize > 0) {
+                return Math.min(leaseSize, capacity);
+            }
+            // One lease's worth of the sustained rate, but never more than a quarter
+            // of the bucket so a single node cannot hoard it
+            long perLease = Math.min(capacity / 4, Math.round(leaseMillis / msPerToken()));
+            return (int) Math.max(1, Math.max(capacity / 20, perLease));
+        }
     }
 }
-
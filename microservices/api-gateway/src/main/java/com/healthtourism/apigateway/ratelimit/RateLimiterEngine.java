@@ -0,0 +1,206 @@
+package com.healthtourism.apigateway.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process rate limiting engine for the gateway.
+ *
+ * Each route gets its own {@link Limiter} (capacity + refill period), which
+ * holds one lock-free {@link TokenBucket} per client. Limiters are cached by
+ * route and limits, so re-applying a route filter on refresh reuses the same
+ * buckets. Refill is lazy, and only the sweeper thread evicts idle (full)
+ * buckets, so memory stays bounded by the number of recently active clients
+ * and request threads never scan the table.
+ */
+@Component
+public class RateLimiterEngine implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiterEngine.class);
+
+    private final MeterRegistry meterRegistry;
+    private final int maxBuckets;
+    private final AtomicInteger bucketCount = new AtomicInteger();
+    private final Map<String, Limiter> limiters = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweepRequested = new AtomicBoolean();
+    private final ScheduledExecutorService sweeper;
+    // Requests served from overflow buckets, reported by the sweeper at most once per interval
+    private final AtomicLong overflowed = new AtomicLong();
+    private final long overflowLogIntervalNanos;
+    private long lastOverflowLogAt;
+
+    public RateLimiterEngine(
+            MeterRegistry meterRegistry,
+            @Value("${gateway.rate-limit.max-buckets:100000}") int maxBuckets,
+            @Value("${gateway.rate-limit.sweep-interval-seconds:30}") long sweepIntervalSeconds) {
+        this.meterRegistry = meterRegistry;
+        this.maxBuckets = maxBuckets;
+        this.overflowLogIntervalNanos = TimeUnit.SECONDS.toNanos(sweepIntervalSeconds);
+        this.lastOverflowLogAt = System.nanoTime() - overflowLogIntervalNanos;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rate-limit-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        this.sweeper.scheduleWithFixedDelay(this::evictIdleBuckets,
+                sweepIntervalSeconds, sweepIntervalSeconds, TimeUnit.SECONDS);
+        Gauge.builder("gateway.ratelimit.buckets", bucketCount, AtomicInteger::get)
+                .description("Number of live per-client token buckets")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Limiter for one route and limit configuration, created on first use.
+     */
+    public Limiter limiterFor(String name, long capacity, long refillPeriodSeconds) {
+        return limiters.computeIfAbsent(name + ':' + capacity + '/' + refillPeriodSeconds,
+                key -> new Limiter(name, capacity, TimeUnit.SECONDS.toNanos(refillPeriodSeconds)));
+    }
+
+    /**
+     * Drop every bucket that has fully refilled; those carry no state.
+     * Runs on the sweeper thread only.
+     */
+    void evictIdleBuckets() {
+        sweepRequested.set(false);
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (Limiter limiter : limiters.values()) {
+            evicted += limiter.evictFull(now);
+        }
+        if (evicted > 0) {
+            logger.debug("Evicted {} idle rate limit buckets, {} remaining", evicted, bucketCount.get());
+        }
+        long spilled = overflowed.get();
+        if (spilled > 0 && now - lastOverflowLogAt >= overflowLogIntervalNanos) {
+            overflowed.addAndGet(-spilled);
+            lastOverflowLogAt = now;
+            logger.warn("Rate limit bucket table full ({}): {} requests used overflow buckets", maxBuckets, spilled);
+        }
+    }
+
+    /**
+     * Ask the sweeper for an immediate sweep, at most one pending at a time.
+     */
+    private void requestSweep() {
+        if (sweepRequested.compareAndSet(false, true)) {
+            try {
+                sweeper.execute(this::evictIdleBuckets);
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+            }
+        }
+    }
+
+    int getBucketCount() {
+        return bucketCount.get();
+    }
+
+    int getLimiterCount() {
+        return limiters.size();
+    }
+
+    @Override
+    public void destroy() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * Buckets for a single limit configuration.
+     */
+    public final class Limiter {
+
+        private final String name;
+        private final long capacity;
+        private final long refillPeriodNanos;
+        private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+        private final TokenBucket overflow;
+        private final Counter allowed;
+        private final Counter rejected;
+
+        private Limiter(String name, long capacity, long refillPeriodNanos) {
+            this.name = name;
+            this.capacity = capacity;
+            this.refillPeriodNanos = refillPeriodNanos;
+            this.overflow = new TokenBucket(capacity, refillPeriodNanos, System.nanoTime());
+            this.allowed = Counter.builder("gateway.ratelimit.requests")
+                    .tag("limiter", name).tag("outcome", "allowed")
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("gateway.ratelimit.requests")
+                    .tag("limiter", name).tag("outcome", "rejected")
+                    .register(meterRegistry);
+        }
+
+        /**
+         * Try to take a token for the given client.
+         */
+        public boolean tryAcquire(String clientId) {
+            long now = System.nanoTime();
+            boolean ok = bucketFor(clientId, now).tryConsume(now);
+            (ok ? allowed : rejected).increment();
+            return ok;
+        }
+
+        /**
+         * Seconds until the client may retry, rounded up. A client without its own
+         * bucket was served from the overflow bucket, so that one decides.
+         */
+        public long retryAfterSeconds(String clientId) {
+            TokenBucket bucket = buckets.getOrDefault(clientId, overflow);
+            long nanos = bucket.nanosUntilNextToken(System.nanoTime());
+            return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+        }
+
+        public long getCapacity() {
+            return capacity;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        private TokenBucket bucketFor(String clientId, long now) {
+            TokenBucket bucket = buckets.get(clientId);
+            if (bucket != null) {
+                return bucket;
+            }
+            if (bucketCount.get() >= maxBuckets) {
+                // Table is full: share one bucket rather than grow until the sweeper frees space
+                requestSweep();
+                overflowed.incrementAndGet();
+                return overflow;
+            }
+            return buckets.computeIfAbsent(clientId, k -> {
+                bucketCount.incrementAndGet();
+                return new TokenBucket(capacity, refillPeriodNanos, now);
+            });
+        }
+
+        private int evictFull(long now) {
+            int evicted = 0;
+            for (Map.Entry<String, TokenBucket> entry : buckets.entrySet()) {
+                if (entry.getValue().isFull(now) && buckets.remove(entry.getKey(), entry.getValue())) {
+                    bucketCount.decrementAndGet();
+                    evicted++;
+                }
+            }
+            return evicted;
+        }
+    }
+}
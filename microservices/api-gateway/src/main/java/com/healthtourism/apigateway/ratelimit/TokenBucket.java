@@ -0,0 +1,69 @@
+package com.healthtourism.apigateway.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket.
+ *
+ * The bucket is stored as a single "theoretical arrival time" (GCRA): the
+ * instant at which the bucket would be full again. Consuming a token pushes
+ * it forward by one emission interval, refill happens lazily on access, so
+ * no timer or thread is needed per client. A bucket whose arrival time is in
+ * the past is full and can be dropped without changing limiting behaviour.
+ */
+public final class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(long capacity, long refillPeriodNanos, long nowNanos) {
+        if (capacity <= 0 || refillPeriodNanos <= 0) {
+            throw new IllegalArgumentException("capacity and refill period must be positive");
+        }
+        this.emissionIntervalNanos = Math.max(1L, refillPeriodNanos / capacity);
+        this.burstNanos = emissionIntervalNanos * capacity;
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Try to take one token.
+     *
+     * @return true if the request is allowed
+     */
+    public boolean tryConsume(long nowNanos) {
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long next = Math.max(tat, nowNanos) + emissionIntervalNanos;
+            if (next - nowNanos > burstNanos) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Tokens currently available (approximate under contention).
+     */
+    public long availableTokens(long nowNanos) {
+        long backlog = Math.max(0L, theoreticalArrival.get() - nowNanos);
+        return (burstNanos - backlog) / emissionIntervalNanos;
+    }
+
+    /**
+     * Nanoseconds until the next token becomes available, 0 if one is available now.
+     */
+    public long nanosUntilNextToken(long nowNanos) {
+        long wait = theoreticalArrival.get() + emissionIntervalNanos - nowNanos - burstNanos;
+        return Math.max(0L, wait);
+    }
+
+    /**
+     * A full bucket carries no state worth keeping.
+     */
+    public boolean isFull(long nowNanos) {
+        return theoreticalArrival.get() - nowNanos <= 0;
+    }
+}
@@ -4,7 +4,8 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 // @EnableEurekaClient is not needed in Spring Cloud 2023.0.0 - auto-discovery is enabled by default
 
-@SpringBootApplication
+// Filters, route config and controllers live in com.healthtourism.apigateway
+@SpringBootApplication(scanBasePackages = {"com.healthtourism.gateway", "com.healthtourism.apigateway"})
 // @EnableEurekaClient is not needed in Spring Cloud 2023.0.0 - auto-discovery is enabled by default
 public class ApiGatewayApplication {
     public static void main(String[] args) {
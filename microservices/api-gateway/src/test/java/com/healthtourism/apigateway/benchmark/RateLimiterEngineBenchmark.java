@@ -0,0 +1,75 @@
+package com.healthtourism.apigateway.benchmark;
+
+import com.healthtourism.apigateway.ratelimit.RateLimiterEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sustained rate limit checks per second on one gateway node: every request
+ * thread hits the shared engine for a random client out of {@code clients},
+ * as RateLimitingFilter does per request.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.healthtourism.apigateway.benchmark.RateLimiterEngineBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class RateLimiterEngineBenchmark {
+
+    @Param({"1000", "100000"})
+    private int clients;
+
+    private RateLimiterEngine engine;
+    private RateLimiterEngine.Limiter limiter;
+    private String[] clientIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = new RateLimiterEngine(new SimpleMeterRegistry(), 200_000, 30);
+        limiter = engine.limiterFor("benchmark", 100, 60);
+        clientIds = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            clientIds[i] = "10." + (i >> 16 & 0xff) + "." + (i >> 8 & 0xff) + "." + (i & 0xff);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.destroy();
+    }
+
+    @Benchmark
+    public boolean tryAcquire() {
+        return limiter.tryAcquire(clientIds[ThreadLocalRandom.current().nextInt(clients)]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RateLimiterEngineBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,125 @@
+package com.healthtourism.apigateway.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.healthtourism.apigateway.filter.RedisRateLimitingFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import redis.embedded.RedisServer;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The steady scenario of load-tests/k6/gateway-rate-limit-test.js run in-process
+ * against a real redis-server: requests arrive at a constant rate for the
+ * patient risk scoring route and the run reports admitted and rejected
+ * requests, Redis round-trips and filter latency.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.healthtourism.apigateway.benchmark.RedisRateLimitingLoadRun
+ * Options (system properties): rate (requests/s, 2000), seconds (30), clients (1),
+ * leaseSize (0 = filter default).
+ */
+public class RedisRateLimitingLoadRun {
+
+    public static void main(String[] args) throws Exception {
+        int rate = Integer.getInteger("rate", 2000);
+        int seconds = Integer.getInteger("seconds", 30);
+        int clients = Integer.getInteger("clients", 1);
+        int leaseSize = Integer.getInteger("leaseSize", 0);
+
+        // One WARN per rejected request would dominate the measurement
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(RedisRateLimitingFilter.class))
+                .setLevel(Level.ERROR);
+
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        RedisServer redisServer = new RedisServer(port);
+        redisServer.start();
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory("localhost", port);
+        connectionFactory.afterPropertiesSet();
+        ReactiveRedisTemplate<String, String> redisTemplate =
+                new ReactiveRedisTemplate<>(connectionFactory, RedisSerializationContext.string());
+        redisTemplate.hasKey("warm-up").block();
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RedisRateLimitingFilter factory = new RedisRateLimitingFilter(redisTemplate, registry);
+        RedisRateLimitingFilter.Config config = new RedisRateLimitingFilter.Config();
+        config.setCapacity(20);
+        config.setRefillPeriod(2);
+        config.setLeaseSize(leaseSize);
+        GatewayFilter filter = factory.apply(config);
+
+        AtomicLong forwarded = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        GatewayFilterChain chain = exchange -> {
+            forwarded.incrementAndGet();
+            return Mono.empty();
+        };
+
+        int total = rate * seconds;
+        long[] latencies = new long[total];
+        CountDownLatch done = new CountDownLatch(total);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            long due = start + i * intervalNanos;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            int slot = i;
+            MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest
+                    .get("/api/patient-risk-scoring/alerts")
+                    .remoteAddress(new InetSocketAddress("10.1.0." + (i % clients), 40000)));
+            long sent = System.nanoTime();
+            filter.filter(exchange, chain).subscribe(null,
+                    e -> done.countDown(),
+                    () -> {
+                        latencies[slot] = System.nanoTime() - sent;
+                        if (exchange.getResponse().getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+                            rejected.incrementAndGet();
+                        }
+                        done.countDown();
+                    });
+        }
+        done.await(30, TimeUnit.SECONDS);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        double redisCalls = registry.get("gateway.ratelimit.redis.calls").counter().count();
+        Arrays.sort(latencies);
+        System.out.printf("rate=%d/s seconds=%d clients=%d leaseSize=%s%n",
+                rate, seconds, clients, leaseSize > 0 ? leaseSize : "default");
+        System.out.printf("requests=%d forwarded=%d rejected=%d elapsed=%.1fs%n",
+                total, forwarded.get(), rejected.get(), elapsed);
+        System.out.printf("redis calls=%.0f (%.3f per request, %.3f per forwarded request)%n",
+                redisCalls, redisCalls / total, redisCalls / Math.max(1, forwarded.get()));
+        System.out.printf("filter latency p50=%dus p99=%dus p99.9=%dus max=%dus%n",
+                percentile(latencies, 0.50), percentile(latencies, 0.99),
+                percentile(latencies, 0.999), latencies[total - 1] / 1000);
+
+        factory.destroy();
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1000;
+    }
+}
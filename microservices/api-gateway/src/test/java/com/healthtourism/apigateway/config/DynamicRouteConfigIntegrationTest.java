@@ -0,0 +1,177 @@
+package com.healthtourism.apigateway.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs gateway nodes against a real redis-server, each with its own route
+ * snapshot, and checks how route changes reach them.
+ */
+class DynamicRouteConfigIntegrationTest {
+
+    private static final RedisScript<Long> SUBSCRIBERS = RedisScript.of(
+            "return redis.call('PUBSUB', 'NUMSUB', KEYS[1])[2]", Long.class);
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static ReactiveRedisTemplate<String, String> redisTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<DynamicRouteConfig> nodes = new ArrayList<>();
+    private final List<Object> refreshEvents = new CopyOnWriteArrayList<>();
+    // Fresh keys per test so nodes never see another test's routes
+    private final String prefix = "test:" + UUID.randomUUID() + ":";
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory("localhost", port);
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new ReactiveRedisTemplate<>(connectionFactory, RedisSerializationContext.string());
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(DynamicRouteConfig::destroy);
+    }
+
+    @Test
+    void testStart_LoadsVersionedSnapshot() throws Exception {
+        // Given
+        storeRoute("doctors", "http://doctors");
+        storeRoute("hotels", "http://hotels");
+        redisTemplate.opsForValue().set(prefix + "version", "2").block();
+
+        // When
+        DynamicRouteConfig node = startNode();
+
+        // Then
+        awaitTrue(() -> node.getRouteTableVersion() == 2);
+        assertEquals(List.of("doctors", "hotels"), routeIds(node));
+        assertEquals(1, refreshEvents.size());
+        assertInstanceOf(RefreshRoutesEvent.class, refreshEvents.get(0));
+    }
+
+    @Test
+    void testStart_SkipsUnparsableRoute() throws Exception {
+        // Given
+        storeRoute("doctors", "http://doctors");
+        redisTemplate.opsForHash().put(prefix + "table", "broken", "{not json").block();
+        storeRoute("hotels", "http://hotels");
+        redisTemplate.opsForValue().set(prefix + "version", "3").block();
+
+        // When
+        DynamicRouteConfig node = startNode();
+
+        // Then
+        awaitTrue(() -> node.getRouteTableVersion() == 3);
+        assertEquals(List.of("doctors", "hotels"), routeIds(node));
+    }
+
+    @Test
+    void testPubSub_AppliesChangesOnOtherNode() throws Exception {
+        // Given
+        DynamicRouteConfig writer = startNode();
+        DynamicRouteConfig reader = startNode();
+        awaitSubscribers(2);
+
+        // When
+        writer.addOrUpdateRoute("doctors", "/api/doctors/**", "http://doctors", Map.of()).block();
+        writer.addOrUpdateRoute("hotels", "/api/hotels/**", "http://hotels", Map.of()).block();
+        writer.removeRoute("doctors").block();
+
+        // Then
+        awaitTrue(() -> reader.getRouteTableVersion() == 3);
+        assertEquals(List.of("hotels"), routeIds(reader));
+        assertEquals(3, writer.getRouteTableVersion());
+        assertEquals(List.of("hotels"), routeIds(writer));
+    }
+
+    @Test
+    void testPubSub_VersionGapTriggersReload() throws Exception {
+        // Given - a node at version 1
+        DynamicRouteConfig writer = startNode();
+        DynamicRouteConfig reader = startNode();
+        awaitSubscribers(2);
+        writer.addOrUpdateRoute("doctors", "/api/doctors/**", "http://doctors", Map.of()).block();
+        awaitTrue(() -> reader.getRouteTableVersion() == 1);
+
+        // When - version 2 was written but its message was lost; version 3 arrives
+        storeRoute("hotels", "http://hotels");
+        redisTemplate.opsForValue().set(prefix + "version", "2").block();
+        writer.addOrUpdateRoute("clinics", "/api/clinics/**", "http://clinics", Map.of()).block();
+
+        // Then
+        awaitTrue(() -> reader.getRouteTableVersion() == 3);
+        assertEquals(List.of("clinics", "doctors", "hotels"), routeIds(reader));
+    }
+
+    private DynamicRouteConfig startNode() {
+        DynamicRouteConfig node = new DynamicRouteConfig(redisTemplate, objectMapper, refreshEvents::add);
+        ReflectionTestUtils.setField(node, "routePrefix", prefix);
+        ReflectionTestUtils.setField(node, "resyncIntervalSeconds", 300L);
+        node.start();
+        nodes.add(node);
+        return node;
+    }
+
+    private void storeRoute(String id, String uri) throws Exception {
+        RouteDefinition definition = new RouteDefinition();
+        definition.setId(id);
+        definition.setUri(URI.create(uri));
+        redisTemplate.opsForHash().put(prefix + "table", id, objectMapper.writeValueAsString(definition)).block();
+    }
+
+    private static List<String> routeIds(DynamicRouteConfig node) {
+        return node.getRouteDefinitions().map(RouteDefinition::getId).sort().collectList().block();
+    }
+
+    private void awaitSubscribers(long count) throws InterruptedException {
+        awaitTrue(() -> redisTemplate.execute(SUBSCRIBERS, List.of(prefix + "changes"), List.of())
+                .next().blockOptional().orElse(0L) >= count);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met within 5 s");
+            }
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.healthtourism.apigateway.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+
+import java.net.URI;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteSnapshotTest {
+
+    @Test
+    void testWithRoute_ReturnsNewVersionAndKeepsOriginal() {
+        // Given
+        RouteSnapshot original = new RouteSnapshot(3L, Map.of("a", route("a", "http://a")));
+
+        // When
+        RouteSnapshot updated = original.withRoute(4L, route("b", "http://b"));
+
+        // Then
+        assertEquals(4L, updated.getVersion());
+        assertEquals(2, updated.size());
+        assertEquals(3L, original.getVersion());
+        assertEquals(1, original.size());
+        assertNull(original.getRoute("b"));
+    }
+
+    @Test
+    void testWithoutRoute_RemovesOnlyThatRoute() {
+        // Given
+        RouteSnapshot original = RouteSnapshot.EMPTY
+                .withRoute(1L, route("a", "http://a"))
+                .withRoute(2L, route("b", "http://b"));
+
+        // When
+        RouteSnapshot updated = original.withoutRoute(3L, "a");
+
+        // Then
+        assertEquals(3L, updated.getVersion());
+        assertNull(updated.getRoute("a"));
+        assertNotNull(updated.getRoute("b"));
+        assertNotNull(original.getRoute("a"));
+    }
+
+    @Test
+    void testHasSameRoutes_IgnoresVersion() {
+        // Given
+        RouteSnapshot first = RouteSnapshot.EMPTY.withRoute(1L, route("a", "http://a"));
+        RouteSnapshot sameRoutes = new RouteSnapshot(7L, Map.of("a", route("a", "http://a")));
+        RouteSnapshot otherUri = first.withRoute(2L, route("a", "http://other"));
+
+        // When / Then
+        assertTrue(first.hasSameRoutes(sameRoutes));
+        assertFalse(first.hasSameRoutes(otherUri));
+    }
+
+    @Test
+    void testGetRoutes_IsUnmodifiable() {
+        // Given
+        RouteSnapshot snapshot = RouteSnapshot.EMPTY.withRoute(1L, route("a", "http://a"));
+
+        // When / Then
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getRoutes().clear());
+    }
+
+    private static RouteDefinition route(String id, String uri) {
+        RouteDefinition definition = new RouteDefinition();
+        definition.setId(id);
+        definition.setUri(URI.create(uri));
+        return definition;
+    }
+}
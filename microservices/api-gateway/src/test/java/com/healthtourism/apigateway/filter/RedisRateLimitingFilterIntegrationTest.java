@@ -0,0 +1,178 @@
+package com.healthtourism.apigateway.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the filter against a real redis-server with the settings of the
+ * patient risk scoring route.
+ */
+class RedisRateLimitingFilterIntegrationTest {
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static ReactiveRedisTemplate<String, String> redisTemplate;
+
+    private final List<RedisRateLimitingFilter> nodes = new ArrayList<>();
+    private final AtomicInteger forwarded = new AtomicInteger();
+    private final GatewayFilterChain chain = exchange -> {
+        forwarded.incrementAndGet();
+        return Mono.empty();
+    };
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory("localhost", port);
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new ReactiveRedisTemplate<>(connectionFactory, RedisSerializationContext.string());
+        // Connect up front so the first test's burst is not slowed down by it
+        redisTemplate.hasKey("warm-up").block();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(RedisRateLimitingFilter::destroy);
+    }
+
+    @Test
+    void testBurst_AdmitsCapacityWithBatchedRedisCalls() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GatewayFilter filter = node(registry).apply(routeConfig());
+
+        // When
+        long start = System.currentTimeMillis();
+        int tooMany = 0;
+        for (int i = 0; i < 100; i++) {
+            if (send(filter, "10.0.0.1") == HttpStatus.TOO_MANY_REQUESTS) {
+                tooMany++;
+            }
+        }
+
+        // Then - the full bucket plus whatever refilled during the burst
+        assertAdmittedWithinLimit(start);
+        assertEquals(100 - forwarded.get(), tooMany);
+        // Leases of 5 tokens: well under one round-trip per admitted request
+        double redisCalls = registry.get("gateway.ratelimit.redis.calls").counter().count();
+        assertTrue(redisCalls <= forwarded.get() / 2.0, "redis calls " + redisCalls);
+    }
+
+    @Test
+    void testTwoNodes_ShareOneBucket() {
+        // Given
+        GatewayFilter first = node(new SimpleMeterRegistry()).apply(routeConfig());
+        GatewayFilter second = node(new SimpleMeterRegistry()).apply(routeConfig());
+
+        // When
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 50; i++) {
+            send(first, "10.0.0.2");
+            send(second, "10.0.0.2");
+        }
+
+        // Then
+        assertAdmittedWithinLimit(start);
+    }
+
+    @Test
+    void testClients_HaveSeparateBuckets() {
+        // Given
+        GatewayFilter filter = node(new SimpleMeterRegistry()).apply(routeConfig());
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            send(filter, "10.0.0.3");
+            send(filter, "10.0.0.4");
+        }
+
+        // Then
+        assertEquals(40, forwarded.get());
+    }
+
+    @Test
+    void testRejection_RetryAfterFromRedisRefill() {
+        // Given - one token every 30 s
+        RedisRateLimitingFilter.Config config = routeConfig();
+        config.setCapacity(2);
+        config.setRefillPeriod(60);
+        GatewayFilter filter = node(new SimpleMeterRegistry()).apply(config);
+        send(filter, "10.0.0.5");
+        send(filter, "10.0.0.5");
+
+        // When
+        MockServerWebExchange rejected = exchange("10.0.0.5");
+        filter.filter(rejected, chain).block();
+
+        // Then - the bucket was just drained, so the next token is about 30 s away
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+        long retryAfter = Long.parseLong(rejected.getResponse().getHeaders().getFirst("Retry-After"));
+        assertTrue(retryAfter >= 28 && retryAfter <= 30, "retry after " + retryAfter);
+    }
+
+    private RedisRateLimitingFilter node(SimpleMeterRegistry registry) {
+        RedisRateLimitingFilter node = new RedisRateLimitingFilter(redisTemplate, registry);
+        nodes.add(node);
+        return node;
+    }
+
+    private static RedisRateLimitingFilter.Config routeConfig() {
+        RedisRateLimitingFilter.Config config = new RedisRateLimitingFilter.Config();
+        config.setCapacity(20);
+        config.setRefillPeriod(2);
+        return config;
+    }
+
+    private void assertAdmittedWithinLimit(long start) {
+        // One token every 100 ms on top of the full bucket
+        long limit = 20 + (System.currentTimeMillis() - start) / 100 + 1;
+        assertTrue(forwarded.get() >= 20 && forwarded.get() <= limit,
+                "forwarded " + forwarded.get() + ", limit " + limit);
+    }
+
+    private HttpStatus send(GatewayFilter filter, String clientIp) {
+        MockServerWebExchange exchange = exchange(clientIp);
+        filter.filter(exchange, chain).block();
+        HttpStatus status = (HttpStatus) exchange.getResponse().getStatusCode();
+        return status != null ? status : HttpStatus.OK;
+    }
+
+    private static MockServerWebExchange exchange(String clientIp) {
+        return MockServerWebExchange.from(MockServerHttpRequest
+                .get("/api/patient-risk-scoring/alerts")
+                .remoteAddress(new InetSocketAddress(clientIp, 40000)));
+    }
+}
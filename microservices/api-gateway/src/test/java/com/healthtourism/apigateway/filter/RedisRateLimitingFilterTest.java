@@ -0,0 +1,80 @@
+package com.healthtourism.apigateway.filter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisRateLimitingFilterTest {
+
+    private final RedisRateLimitingFilter.Config config = new RedisRateLimitingFilter.Config();
+
+    @Test
+    void testDrain_ReturnsLeftoverRedisTokens() {
+        // Given
+        RedisRateLimitingFilter.LocalLease lease = new RedisRateLimitingFilter.LocalLease(config);
+        lease.grant(5, 1_000L);
+        lease.tryTake(500L);
+        lease.tryTake(500L);
+
+        // When
+        long leftover = lease.drain();
+
+        // Then
+        assertEquals(3, leftover);
+        assertFalse(lease.tryTake(500L));
+        assertEquals(0, lease.drain());
+    }
+
+    @Test
+    void testDrain_KeepsFailOpenTokensLocal() {
+        // Given
+        RedisRateLimitingFilter.LocalLease lease = new RedisRateLimitingFilter.LocalLease(config);
+        lease.grantUnbacked(5, 1_000L);
+
+        // When
+        long leftover = lease.drain();
+
+        // Then
+        assertEquals(0, leftover);
+        assertFalse(lease.tryTake(500L));
+    }
+
+    @Test
+    void testEffectiveLeaseSize_DefaultCoversOneLeaseOfRefill() {
+        // Given - the patient risk scoring route: 20 tokens, one every 100 ms
+        config.setCapacity(20);
+        config.setRefillPeriod(2);
+
+        // When
+        int batch = config.effectiveLeaseSize();
+
+        // Then - 10 tokens refill per 1 s lease, capped at a quarter of the bucket
+        assertEquals(5, batch);
+    }
+
+    @Test
+    void testEffectiveLeaseSize_SlowRefillFallsBackToCapacityShare() {
+        // Given - 100 tokens a minute refills under 2 tokens per lease
+        config.setCapacity(100);
+        config.setRefillPeriod(60);
+
+        // When
+        int batch = config.effectiveLeaseSize();
+
+        // Then
+        assertEquals(5, batch);
+    }
+
+    @Test
+    void testEffectiveLeaseSize_ConfiguredSizeCappedAtCapacity() {
+        // Given
+        config.setCapacity(20);
+        config.setLeaseSize(50);
+
+        // When
+        int batch = config.effectiveLeaseSize();
+
+        // Then
+        assertEquals(20, batch);
+    }
+}
@@ -0,0 +1,100 @@
+package com.healthtourism.apigateway.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterEngineTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RateLimiterEngine engine = new RateLimiterEngine(meterRegistry, 100_000, 3600);
+
+    @AfterEach
+    void tearDown() {
+        engine.destroy();
+    }
+
+    @Test
+    void testLimiterFor_ReusesLimiterForSameRouteAndLimits() {
+        // Given
+        RateLimiterEngine.Limiter first = engine.limiterFor("auth-service", 30, 60);
+        first.tryAcquire("10.0.0.1");
+
+        // When
+        RateLimiterEngine.Limiter refreshed = engine.limiterFor("auth-service", 30, 60);
+        RateLimiterEngine.Limiter changed = engine.limiterFor("auth-service", 10, 60);
+
+        // Then
+        assertSame(first, refreshed);
+        assertNotSame(first, changed);
+        assertEquals(2, engine.getLimiterCount());
+        assertEquals(1, engine.getBucketCount());
+    }
+
+    @Test
+    void testTryAcquire_RejectsAfterCapacity() {
+        // Given
+        RateLimiterEngine.Limiter limiter = engine.limiterFor("payment-service", 3, 60);
+
+        // When
+        boolean first = limiter.tryAcquire("10.0.0.1");
+        boolean second = limiter.tryAcquire("10.0.0.1");
+        boolean third = limiter.tryAcquire("10.0.0.1");
+        boolean fourth = limiter.tryAcquire("10.0.0.1");
+        boolean otherClient = limiter.tryAcquire("10.0.0.2");
+
+        // Then
+        assertTrue(first && second && third);
+        assertFalse(fourth);
+        assertTrue(otherClient);
+        assertTrue(limiter.retryAfterSeconds("10.0.0.1") > 0);
+        assertEquals(4.0, meterRegistry.get("gateway.ratelimit.requests")
+                .tag("limiter", "payment-service").tag("outcome", "allowed").counter().count());
+        assertEquals(1.0, meterRegistry.get("gateway.ratelimit.requests")
+                .tag("limiter", "payment-service").tag("outcome", "rejected").counter().count());
+    }
+
+    @Test
+    void testTryAcquire_FullTableHandsEvictionToSweeper() throws Exception {
+        // Given
+        engine.destroy();
+        engine = new RateLimiterEngine(meterRegistry, 2, 3600);
+        RateLimiterEngine.Limiter limiter = engine.limiterFor("auth-service", 1000, 1);
+        limiter.tryAcquire("10.0.0.1");
+        limiter.tryAcquire("10.0.0.2");
+        Thread.sleep(20); // both buckets refill and become idle
+
+        // When
+        boolean allowed = limiter.tryAcquire("10.0.0.3");
+
+        // Then
+        assertTrue(allowed);
+        // Swept inline, the third client would have taken a freed slot and left one bucket
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (engine.getBucketCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, engine.getBucketCount());
+    }
+
+    @Test
+    void testRetryAfterSeconds_ClientOnOverflowBucket_UsesOverflowRefill() {
+        // Given - the table holds one bucket, so the second client shares the overflow bucket
+        engine.destroy();
+        engine = new RateLimiterEngine(meterRegistry, 1, 3600);
+        RateLimiterEngine.Limiter limiter = engine.limiterFor("auth-service", 2, 60);
+        limiter.tryAcquire("10.0.0.1");
+        limiter.tryAcquire("10.0.0.2");
+        limiter.tryAcquire("10.0.0.2");
+
+        // When
+        boolean allowed = limiter.tryAcquire("10.0.0.2");
+
+        // Then
+        assertFalse(allowed);
+        long retryAfter = limiter.retryAfterSeconds("10.0.0.2");
+        assertTrue(retryAfter > 0 && retryAfter <= 30, "Retry-After was " + retryAfter);
+    }
+}
@@ -0,0 +1,49 @@
+package com.healthtourism.audit.archive;
+
+import com.healthtourism.audit.entity.AuditLog;
+
+import java.time.LocalDateTime;
+
+/**
+ * Predicate evaluated directly against archived segments. Null fields match anything.
+ *
+ * @param start inclusive lower bound on timestamp
+ * @param end   exclusive upper bound on timestamp
+ * @param limit maximum number of rows returned
+ */
+public record AuditArchiveQuery(
+        LocalDateTime start,
+        LocalDateTime end,
+        Long userId,
+        AuditLog.ResourceType resourceType,
+        String resourceId,
+        AuditLog.Action action,
+        int limit) {
+
+    public AuditArchiveQuery {
+        if (start == null || end == null || !start.isBefore(end)) {
+            throw new IllegalArgumentException("Archive query needs start < end");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+    }
+
+    /**
+     * Whether a segment can contain matches, judged from its index alone.
+     */
+    boolean mayMatch(AuditSegmentIndex index) {
+        long from = AuditSegmentFormat.toEpochMillis(start);
+        long to = AuditSegmentFormat.toEpochMillis(end);
+        if (index.maxTimestamp() < from || index.minTimestamp() >= to) {
+            return false;
+        }
+        if (userId != null && (userId < index.minUserId() || userId > index.maxUserId())) {
+            return false;
+        }
+        if (resourceType != null && (index.resourceTypes() & (1 << resourceType.ordinal())) == 0) {
+            return false;
+        }
+        return action == null || (index.actions() & (1 << action.ordinal())) != 0;
+    }
+}
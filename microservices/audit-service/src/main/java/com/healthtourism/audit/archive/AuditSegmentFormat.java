@@ -0,0 +1,390 @@
+package com.healthtourism.audit.archive;
+
+import com.healthtourism.audit.entity.AuditLog;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Columnar, compressed segment file for archived audit logs.
+ *
+ * <pre>
+ * "AUSG" | version | index (row count, id/timestamp/userId min-max, resourceType/action bit sets)
+ *        | column count | per column: offset, length | deflated column blocks
+ * </pre>
+ * Each column is stored separately so a scan only inflates the columns its
+ * predicate needs, and the remaining columns only if some row matched.
+ * Ids and timestamps are delta-encoded; repetitive string columns compress well.
+ */
+final class AuditSegmentFormat {
+
+    private static final byte[] MAGIC = {'A', 'U', 'S', 'G'};
+    private static final byte VERSION = 1;
+
+    enum Column {
+        ID, EVENT_ID, USER_ID, USER_EMAIL, USER_ROLE, RESOURCE_TYPE, RESOURCE_ID, ACTION,
+        TIMESTAMP, IP_ADDRESS, USER_AGENT, DESCRIPTION, SUCCESS, ERROR_MESSAGE, SESSION_ID
+    }
+
+    private static final Column[] COLUMNS = Column.values();
+
+    private AuditSegmentFormat() {
+    }
+
+    static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    static LocalDateTime fromEpochMillis(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), (int) Math.floorMod(millis, 1000) * 1_000_000,
+                ZoneOffset.UTC);
+    }
+
+    /**
+     * Encode rows (sorted by id) into a segment file. The caller handles atomic placement.
+     */
+    static AuditSegmentIndex write(Path file, List<AuditLog> rows) throws IOException {
+        long minId = Long.MAX_VALUE, maxId = Long.MIN_VALUE;
+        long minTs = Long.MAX_VALUE, maxTs = Long.MIN_VALUE;
+        long minUser = Long.MAX_VALUE, maxUser = Long.MIN_VALUE;
+        int resourceTypes = 0, actions = 0;
+
+        Map<Column, ColumnWriter> writers = new EnumMap<>(Column.class);
+        for (Column column : COLUMNS) {
+            writers.put(column, new ColumnWriter());
+        }
+        long previousId = 0;
+        long previousTs = 0;
+        for (AuditLog row : rows) {
+            long id = row.getId();
+            long ts = toEpochMillis(row.getTimestamp());
+            minId = Math.min(minId, id);
+            maxId = Math.max(maxId, id);
+            minTs = Math.min(minTs, ts);
+            maxTs = Math.max(maxTs, ts);
+            if (row.getUserId() != null) {
+                minUser = Math.min(minUser, row.getUserId());
+                maxUser = Math.max(maxUser, row.getUserId());
+            }
+            if (row.getResourceType() != null) {
+                resourceTypes |= 1 << row.getResourceType().ordinal();
+            }
+            if (row.getAction() != null) {
+                actions |= 1 << row.getAction().ordinal();
+            }
+
+            writers.get(Column.ID).out.writeLong(id - previousId);
+            writers.get(Column.TIMESTAMP).out.writeLong(ts - previousTs);
+            previousId = id;
+            previousTs = ts;
+            writers.get(Column.EVENT_ID).writeString(row.getEventId());
+            writers.get(Column.USER_ID).writeNullableLong(row.getUserId());
+            writers.get(Column.USER_EMAIL).writeString(row.getUserEmail());
+            writers.get(Column.USER_ROLE).writeString(row.getUserRole());
+            writers.get(Column.RESOURCE_TYPE).out.writeByte(row.getResourceType() != null ? row.getResourceType().ordinal() : -1);
+            writers.get(Column.RESOURCE_ID).writeString(row.getResourceId());
+            writers.get(Column.ACTION).out.writeByte(row.getAction() != null ? row.getAction().ordinal() : -1);
+            writers.get(Column.IP_ADDRESS).writeString(row.getIpAddress());
+            writers.get(Column.USER_AGENT).writeString(row.getUserAgent());
+            writers.get(Column.DESCRIPTION).writeString(row.getDescription());
+            writers.get(Column.SUCCESS).out.writeBoolean(Boolean.TRUE.equals(row.getSuccess()));
+            writers.get(Column.ERROR_MESSAGE).writeString(row.getErrorMessage());
+            writers.get(Column.SESSION_ID).writeString(row.getSessionId());
+        }
+        AuditSegmentIndex index = new AuditSegmentIndex(rows.size(), minId, maxId, minTs, maxTs,
+                minUser, maxUser, resourceTypes, actions);
+
+        List<byte[]> blocks = new ArrayList<>(COLUMNS.length);
+        for (Column column : COLUMNS) {
+            blocks.add(writers.get(column).finish());
+        }
+
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream(256);
+        DataOutputStream header = new DataOutputStream(headerBytes);
+        header.write(MAGIC);
+        header.writeByte(VERSION);
+        header.writeInt(index.rowCount());
+        header.writeLong(index.minId());
+        header.writeLong(index.maxId());
+        header.writeLong(index.minTimestamp());
+        header.writeLong(index.maxTimestamp());
+        header.writeLong(index.minUserId());
+        header.writeLong(index.maxUserId());
+        header.writeInt(index.resourceTypes());
+        header.writeInt(index.actions());
+        header.writeInt(COLUMNS.length);
+        long offset = 0;
+        for (byte[] block : blocks) {
+            header.writeLong(offset);
+            header.writeInt(block.length);
+            offset += block.length;
+        }
+        header.flush();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(channel, ByteBuffer.wrap(headerBytes.toByteArray()));
+            for (byte[] block : blocks) {
+                writeFully(channel, ByteBuffer.wrap(block));
+            }
+            channel.force(true);
+        }
+        return index;
+    }
+
+    /**
+     * Open a segment and read only its header.
+     */
+    static Reader open(Path file) throws IOException {
+        return new Reader(FileChannel.open(file, StandardOpenOption.READ));
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    static final class Reader implements AutoCloseable {
+        private final FileChannel channel;
+        private final AuditSegmentIndex index;
+        private final long[] offsets = new long[COLUMNS.length];
+        private final int[] lengths = new int[COLUMNS.length];
+        private final long dataStart;
+
+        private Reader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            try {
+                ByteBuffer fixed = read(0, 4 + 1 + 4 + 6 * 8 + 3 * 4);
+                byte[] magic = new byte[4];
+                fixed.get(magic);
+                if (magic[0] != MAGIC[0] || magic[1] != MAGIC[1] || magic[2] != MAGIC[2] || magic[3] != MAGIC[3]
+                        || fixed.get() != VERSION) {
+                    throw new IOException("Not an audit segment");
+                }
+                index = new AuditSegmentIndex(fixed.getInt(), fixed.getLong(), fixed.getLong(), fixed.getLong(),
+                        fixed.getLong(), fixed.getLong(), fixed.getLong(), fixed.getInt(), fixed.getInt());
+                int columnCount = fixed.getInt();
+                if (columnCount != COLUMNS.length) {
+                    throw new IOException("Unexpected column count " + columnCount);
+                }
+                ByteBuffer directory = read(fixed.limit(), columnCount * 12);
+                for (int i = 0; i < columnCount; i++) {
+                    offsets[i] = directory.getLong();
+                    lengths[i] = directory.getInt();
+                }
+                dataStart = fixed.limit() + (long) columnCount * 12;
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        AuditSegmentIndex index() {
+            return index;
+        }
+
+        /**
+         * Evaluate the query column by column and materialise at most {@code limit} matching rows.
+         */
+        List<AuditLog> scan(AuditArchiveQuery query, int limit) throws IOException {
+            int rows = index.rowCount();
+            BitSet matches = new BitSet(rows);
+            matches.set(0, rows);
+
+            long from = toEpochMillis(query.start());
+            long to = toEpochMillis(query.end());
+            long[] timestamps = new long[rows];
+            try (DataInputStream in = column(Column.TIMESTAMP)) {
+                long previous = 0;
+                for (int i = 0; i < rows; i++) {
+                    previous += in.readLong();
+                    timestamps[i] = previous;
+                    if (previous < from || previous >= to) {
+                        matches.clear(i);
+                    }
+                }
+            }
+            if (query.userId() != null && !matches.isEmpty()) {
+                try (DataInputStream in = column(Column.USER_ID)) {
+                    for (int i = 0; i < rows; i++) {
+                        Long userId = readNullableLong(in);
+                        if (!query.userId().equals(userId)) {
+                            matches.clear(i);
+                        }
+                    }
+                }
+            }
+            if (query.resourceType() != null && !matches.isEmpty()) {
+                filterOrdinal(Column.RESOURCE_TYPE, query.resourceType().ordinal(), matches, rows);
+            }
+            if (query.action() != null && !matches.isEmpty()) {
+                filterOrdinal(Column.ACTION, query.action().ordinal(), matches, rows);
+            }
+            if (query.resourceId() != null && !matches.isEmpty()) {
+                try (DataInputStream in = column(Column.RESOURCE_ID)) {
+                    for (int i = 0; i < rows; i++) {
+                        if (!query.resourceId().equals(readString(in))) {
+                            matches.clear(i);
+                        }
+                    }
+                }
+            }
+            if (matches.isEmpty()) {
+                return List.of();
+            }
+            return materialise(matches, timestamps, limit);
+        }
+
+        private void filterOrdinal(Column column, int ordinal, BitSet matches, int rows) throws IOException {
+            try (DataInputStream in = column(column)) {
+                for (int i = 0; i < rows; i++) {
+                    if (in.readByte() != ordinal) {
+                        matches.clear(i);
+                    }
+                }
+            }
+        }
+
+        private List<AuditLog> materialise(BitSet matches, long[] timestamps, int limit) throws IOException {
+            int rows = index.rowCount();
+            List<AuditLog> result = new ArrayList<>(Math.min(limit, matches.cardinality()));
+            int[] selected = new int[Math.min(limit, matches.cardinality())];
+            int count = 0;
+            for (int i = matches.nextSetBit(0); i >= 0 && count < selected.length; i = matches.nextSetBit(i + 1)) {
+                selected[count++] = i;
+                AuditLog log = new AuditLog();
+                log.setTimestamp(fromEpochMillis(timestamps[i]));
+                result.add(log);
+            }
+            int last = selected[count - 1];
+
+            try (DataInputStream ids = column(Column.ID);
+                 DataInputStream eventIds = column(Column.EVENT_ID);
+                 DataInputStream userIds = column(Column.USER_ID);
+                 DataInputStream emails = column(Column.USER_EMAIL);
+                 DataInputStream roles = column(Column.USER_ROLE);
+                 DataInputStream resourceTypes = column(Column.RESOURCE_TYPE);
+                 DataInputStream resourceIds = column(Column.RESOURCE_ID);
+                 DataInputStream actions = column(Column.ACTION);
+                 DataInputStream ips = column(Column.IP_ADDRESS);
+                 DataInputStream agents = column(Column.USER_AGENT);
+                 DataInputStream descriptions = column(Column.DESCRIPTION);
+                 DataInputStream successes = column(Column.SUCCESS);
+                 DataInputStream errors = column(Column.ERROR_MESSAGE);
+                 DataInputStream sessions = column(Column.SESSION_ID)) {
+                long id = 0;
+                int next = 0;
+                for (int i = 0; i <= last && i < rows; i++) {
+                    id += ids.readLong();
+                    String eventId = readString(eventIds);
+                    Long userId = readNullableLong(userIds);
+                    String email = readString(emails);
+                    String role = readString(roles);
+                    byte resourceType = resourceTypes.readByte();
+                    String resourceId = readString(resourceIds);
+                    byte action = actions.readByte();
+                    String ip = readString(ips);
+                    String agent = readString(agents);
+                    String description = readString(descriptions);
+                    boolean success = successes.readBoolean();
+                    String error = readString(errors);
+                    String session = readString(sessions);
+                    if (next < count && selected[next] == i) {
+                        AuditLog log = result.get(next++);
+                        log.setId(id);
+                        log.setEventId(eventId);
+                        log.setUserId(userId);
+                        log.setUserEmail(email);
+                        log.setUserRole(role);
+                        log.setResourceType(resourceType >= 0 ? AuditLog.ResourceType.values()[resourceType] : null);
+                        log.setResourceId(resourceId);
+                        log.setAction(action >= 0 ? AuditLog.Action.values()[action] : null);
+                        log.setIpAddress(ip);
+                        log.setUserAgent(agent);
+                        log.setDescription(description);
+                        log.setSuccess(success);
+                        log.setErrorMessage(error);
+                        log.setSessionId(session);
+                    }
+                }
+            }
+            return result;
+        }
+
+        private DataInputStream column(Column column) throws IOException {
+            int i = column.ordinal();
+            ByteBuffer block = read(dataStart + offsets[i], lengths[i]);
+            return new DataInputStream(new BufferedInputStream(new InflaterInputStream(
+                    new ByteArrayInputStream(block.array(), 0, block.limit())), 8192));
+        }
+
+        private ByteBuffer read(long position, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new EOFException("Truncated audit segment");
+                }
+            }
+            return buffer.flip();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static Long readNullableLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static final class ColumnWriter {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        private final DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater, 8192));
+
+        void writeString(String value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) {
+                out.writeUTF(value);
+            }
+        }
+
+        void writeNullableLong(Long value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) {
+                out.writeLong(value);
+            }
+        }
+
+        byte[] finish() throws IOException {
+            out.close();
+            deflater.end();
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.healthtourism.audit.archive;
+
+/**
+ * Per-segment statistics stored in the segment header, used to skip segments
+ * without decompressing any column.
+ *
+ * @param resourceTypes bit set of {@code AuditLog.ResourceType} ordinals present
+ * @param actions       bit set of {@code AuditLog.Action} ordinals present
+ */
+public record AuditSegmentIndex(
+        int rowCount,
+        long minId,
+        long maxId,
+        long minTimestamp,
+        long maxTimestamp,
+        long minUserId,
+        long maxUserId,
+        int resourceTypes,
+        int actions) {
+}
@@ -0,0 +1,98 @@
+package com.healthtourism.audit.archive;
+
+import com.healthtourism.audit.entity.AuditLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Time-partitioned store of archived audit segments: {@code <root>/yyyy/MM/dd/segment-<minId>-<maxId>.aus}.
+ *
+ * Queries prune by partition directory first, then by each segment's header
+ * index, and only then inflate columns. Nothing is loaded back into the database.
+ */
+@Component
+public class AuditSegmentStore {
+
+    private static final String SUFFIX = ".aus";
+
+    private final Path root;
+
+    public AuditSegmentStore(@Value("${audit.archive.local.dir:./data/audit-archive}") String root) {
+        this.root = Paths.get(root);
+    }
+
+    /**
+     * Write one segment for a day. The file is fsync'd and atomically moved into
+     * place, so once this returns the rows may be deleted from the database.
+     * Re-archiving the same id range (after a crash before delete) replaces it.
+     */
+    public AuditSegmentIndex writeSegment(LocalDate day, List<AuditLog> rows) throws IOException {
+        Path directory = partition(day);
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "segment-", ".tmp");
+        try {
+            AuditSegmentIndex index = AuditSegmentFormat.write(temp, rows);
+            // Zero-padded so that name order is id order
+            Path target = directory.resolve(String.format("segment-%019d-%019d%s", index.minId(), index.maxId(), SUFFIX));
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return index;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Rows matching the query, ordered by day and id. Rows that appear in more than
+     * one segment (an id range archived twice) are returned once.
+     */
+    public List<AuditLog> query(AuditArchiveQuery query) throws IOException {
+        Map<Long, AuditLog> result = new LinkedHashMap<>();
+        LocalDate last = query.end().minusNanos(1).toLocalDate();
+        for (LocalDate day = query.start().toLocalDate(); !day.isAfter(last); day = day.plusDays(1)) {
+            for (Path segment : segments(day)) {
+                try (AuditSegmentFormat.Reader reader = AuditSegmentFormat.open(segment)) {
+                    if (!query.mayMatch(reader.index())) {
+                        continue;
+                    }
+                    for (AuditLog log : reader.scan(query, query.limit() - result.size())) {
+                        result.putIfAbsent(log.getId(), log);
+                    }
+                }
+                if (result.size() >= query.limit()) {
+                    return new ArrayList<>(result.values());
+                }
+            }
+        }
+        return new ArrayList<>(result.values());
+    }
+
+    public boolean hasPartition(LocalDate day) {
+        return Files.isDirectory(partition(day));
+    }
+
+    private List<Path> segments(LocalDate day) throws IOException {
+        Path directory = partition(day);
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+    }
+
+    private Path partition(LocalDate day) {
+        return root.resolve(String.format("%04d/%02d/%02d", day.getYear(), day.getMonthValue(), day.getDayOfMonth()));
+    }
+}
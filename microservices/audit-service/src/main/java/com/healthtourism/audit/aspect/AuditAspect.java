@@ -3,6 +3,7 @@ package com.healthtourism.audit.aspect;
 import com.healthtourism.audit.annotation.Auditable;
 import com.healthtourism.audit.entity.AuditLog;
 import com.healthtourism.audit.service.AuditService;
+import com.healthtourism.audit.writer.AuditLogWriter;
 import jakarta.servlet.http.HttpServletRequest;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
@@ -14,6 +15,8 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 
 /**
  * AOP Aspect for automatic audit logging
+ * Records are handed to the asynchronous {@link AuditLogWriter}, so audited
+ * methods do not wait for a database insert.
  */
 @Aspect
 @Component
@@ -22,6 +25,9 @@ public class AuditAspect {
     @Autowired
     private AuditService auditService;
     
+    @Autowired
+    private AuditLogWriter auditLogWriter;
+    
     @Around("@annotation(auditable)")
     public Object audit(ProceedingJoinPoint joinPoint, Auditable auditable) throws Throwable {
         HttpServletRequest request = null;
@@ -46,7 +52,7 @@ public class AuditAspect {
             success = true;
             
             // Log successful access
-            auditService.logAccess(
+            auditLogWriter.enqueue(auditService.buildAuditLog(
                 userId,
                 userEmail,
                 userRole,
@@ -57,12 +63,12 @@ public class AuditAspect {
                 auditable.description(),
                 success,
                 null
-            );
+            ));
             
             return result;
         } catch (Exception e) {
             errorMessage = e.getMessage();
-            auditService.logAccess(
+            auditLogWriter.enqueue(auditService.buildAuditLog(
                 userId,
                 userEmail,
                 userRole,
@@ -73,7 +79,7 @@ public class AuditAspect {
                 auditable.description(),
                 success,
                 errorMessage
-            );
+            ));
             throw e;
         }
     }
@@ -1,12 +1,16 @@
 package com.healthtourism.audit.controller;
 
+import com.healthtourism.audit.archive.AuditArchiveQuery;
+import com.healthtourism.audit.entity.AuditLog;
 import com.healthtourism.audit.service.ArchiveRetrievalService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -30,6 +34,29 @@ public class ArchiveRetrievalController {
         return ResponseEntity.ok(Map.of("jobId", jobId, "message", "Retrieval job created"));
     }
     
+    /**
+     * Query archived audit logs directly from cold-store segments
+     */
+    @GetMapping("/query")
+    public ResponseEntity<List<AuditLog>> queryArchive(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) AuditLog.ResourceType resourceType,
+            @RequestParam(required = false) String resourceId,
+            @RequestParam(required = false) AuditLog.Action action,
+            @RequestParam(defaultValue = "1000") int limit) {
+        try {
+            AuditArchiveQuery query = new AuditArchiveQuery(startDate, endDate, userId, resourceType,
+                    resourceId, action, limit);
+            return ResponseEntity.ok(retrievalService.queryArchive(query));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
     /**
      * Get retrieval status
      */
@@ -1,6 +1,7 @@
 package com.healthtourism.audit.controller;
 
 import com.healthtourism.audit.entity.AuditLog;
+import com.healthtourism.audit.service.AuditMerkleService;
 import com.healthtourism.audit.service.AuditService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -9,6 +10,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/audit")
@@ -18,6 +20,9 @@ public class AuditController {
     @Autowired
     private AuditService auditService;
     
+    @Autowired
+    private AuditMerkleService auditMerkleService;
+    
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<AuditLog>> getAccessHistoryByUser(@PathVariable Long userId) {
         return ResponseEntity.ok(auditService.getAccessHistoryByUser(userId));
@@ -51,4 +56,16 @@ public class AuditController {
             @PathVariable String resourceId) {
         return ResponseEntity.ok(auditService.getAccessCountByResource(resourceType, resourceId));
     }
+    
+    @GetMapping("/merkle/proof/{auditLogId}")
+    public ResponseEntity<Map<String, Object>> getInclusionProof(@PathVariable Long auditLogId) {
+        return auditMerkleService.getInclusionProof(auditLogId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    @GetMapping("/merkle/verify/{auditLogId}")
+    public ResponseEntity<Boolean> verifyAuditLog(@PathVariable Long auditLogId) {
+        return ResponseEntity.ok(auditMerkleService.verifyAuditLog(auditLogId));
+    }
 }
@@ -26,6 +26,9 @@ public class AuditLog {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    @Column(unique = true, length = 36)
+    private String eventId; // Client-generated id; makes async/replayed inserts idempotent
+    
     @Column(nullable = false)
     private Long userId; // Who accessed
     
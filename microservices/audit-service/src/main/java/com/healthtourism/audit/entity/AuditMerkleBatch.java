@@ -0,0 +1,58 @@
+package com.healthtourism.audit.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One anchoring period of the audit Merkle accumulator.
+ * The open batch also carries the tail cursor (last audit log id appended).
+ */
+@Entity
+@Table(name = "audit_merkle_batches", indexes = {
+    @Index(name = "idx_merkle_batch_status", columnList = "status")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditMerkleBatch {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Status status;
+    
+    @Column(nullable = false)
+    private Long leafCount;
+    
+    private Long firstAuditLogId;
+    
+    private Long lastAuditLogId;
+    
+    @Column(length = 64)
+    private String rootHash; // Hex SHA-256, set when the batch is closed
+    
+    @Column(nullable = false)
+    private LocalDateTime openedAt;
+    
+    private LocalDateTime closedAt;
+    
+    private LocalDateTime anchoredAt;
+    
+    private String blockHash; // Block that anchors rootHash in blockchain-service
+    
+    public String getBatchId() {
+        return "AUDIT-MERKLE-" + id;
+    }
+    
+    public enum Status {
+        OPEN,
+        CLOSED,
+        ANCHORED
+    }
+}
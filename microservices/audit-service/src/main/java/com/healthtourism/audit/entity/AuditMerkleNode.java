@@ -0,0 +1,39 @@
+package com.healthtourism.audit.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Node of a perfect subtree in an audit Merkle batch. Level 0 rows are leaves
+ * and carry the audit log id they commit to. Rows are written through
+ * {@link com.healthtourism.audit.repository.AuditMerkleStore}; the entity
+ * exists for schema generation.
+ */
+@Entity
+@Table(name = "audit_merkle_nodes",
+    uniqueConstraints = @UniqueConstraint(name = "uk_merkle_node", columnNames = {"batchId", "level", "nodeIndex"}),
+    indexes = @Index(name = "idx_merkle_node_audit_log", columnList = "auditLogId"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditMerkleNode {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private Long batchId;
+    
+    @Column(nullable = false)
+    private Integer level;
+    
+    @Column(nullable = false)
+    private Long nodeIndex;
+    
+    @Column(nullable = false, length = 32)
+    private byte[] hash;
+    
+    private Long auditLogId;
+}
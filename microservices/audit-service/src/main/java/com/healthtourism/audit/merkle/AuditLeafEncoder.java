@@ -0,0 +1,66 @@
+package com.healthtourism.audit.merkle;
+
+import com.healthtourism.audit.entity.AuditLog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Canonical byte encoding of an audit log row for Merkle leaves.
+ *
+ * Every field is written with a presence flag and a length prefix, so two
+ * different rows can never encode to the same bytes (plain concatenation of
+ * "12" + "3" and "1" + "23" would collide).
+ */
+public final class AuditLeafEncoder {
+
+    private AuditLeafEncoder() {
+    }
+
+    public static byte[] encode(AuditLog log) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeLong(out, log.getId());
+            writeString(out, log.getEventId());
+            writeLong(out, log.getUserId());
+            writeString(out, log.getUserEmail());
+            writeString(out, log.getUserRole());
+            writeString(out, log.getResourceType() != null ? log.getResourceType().name() : null);
+            writeString(out, log.getResourceId());
+            writeString(out, log.getAction() != null ? log.getAction().name() : null);
+            writeString(out, log.getTimestamp() != null ? log.getTimestamp().toString() : null);
+            writeString(out, log.getIpAddress());
+            writeString(out, log.getUserAgent());
+            writeString(out, log.getDescription());
+            out.writeBoolean(Boolean.TRUE.equals(log.getSuccess()));
+            writeString(out, log.getErrorMessage());
+            writeString(out, log.getSessionId());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static byte[] leafHash(AuditLog log) {
+        return MerkleFrontier.leafHash(encode(log));
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(utf8.length);
+            out.write(utf8);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.healthtourism.audit.merkle;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only Merkle accumulator that keeps only the roots of its perfect
+ * subtrees (the "peaks"), one per set bit of the leaf count.
+ *
+ * Appending a leaf works like a binary counter increment: equal-height peaks
+ * are merged, and every internal node created on the way is reported so it can
+ * be persisted for later inclusion proofs. The overall root bags the peaks from
+ * right to left: root = H(p0, H(p1, ... H(pm-1, pm))) with p0 the largest peak.
+ *
+ * Leaf and interior hashes are domain separated (0x00 / 0x01 prefix) so an
+ * interior node can never be passed off as a leaf.
+ */
+public final class MerkleFrontier {
+
+    public static final int HASH_LENGTH = 32;
+
+    /** peaks[level] is the root of a perfect subtree of 2^level leaves, or null */
+    private final List<byte[]> peaks = new ArrayList<>();
+    private long leafCount;
+
+    public MerkleFrontier() {
+    }
+
+    /**
+     * Restore from persisted state.
+     *
+     * @param peaksByLevel peak hash per level (null where the bit of leafCount is 0)
+     */
+    public MerkleFrontier(long leafCount, List<byte[]> peaksByLevel) {
+        this.leafCount = leafCount;
+        this.peaks.addAll(peaksByLevel);
+        for (int level = 0; level < 63; level++) {
+            boolean expected = ((leafCount >>> level) & 1) == 1;
+            boolean present = level < peaks.size() && peaks.get(level) != null;
+            if (expected != present) {
+                throw new IllegalArgumentException("Peaks do not match leaf count " + leafCount + " at level " + level);
+            }
+        }
+    }
+
+    public long leafCount() {
+        return leafCount;
+    }
+
+    /**
+     * Append a leaf hash; {@code sink} receives the leaf node and every interior node completed by it.
+     */
+    public void append(byte[] leafHash, NodeSink sink) {
+        long index = leafCount;
+        sink.node(0, index, leafHash);
+        byte[] carry = leafHash;
+        int level = 0;
+        while (level < peaks.size() && peaks.get(level) != null) {
+            carry = interiorHash(peaks.get(level), carry);
+            peaks.set(level, null);
+            level++;
+            sink.node(level, index >>> level, carry);
+        }
+        while (peaks.size() <= level) {
+            peaks.add(null);
+        }
+        peaks.set(level, carry);
+        leafCount++;
+    }
+
+    public byte[] root() {
+        byte[] accumulator = null;
+        for (byte[] peak : peaks) { // lowest level (right-most peak) first
+            if (peak != null) {
+                accumulator = accumulator == null ? peak : interiorHash(peak, accumulator);
+            }
+        }
+        return accumulator;
+    }
+
+    public static byte[] leafHash(byte[] canonicalEntry) {
+        MessageDigest digest = sha256();
+        digest.update((byte) 0x00);
+        return digest.digest(canonicalEntry);
+    }
+
+    public static byte[] interiorHash(byte[] left, byte[] right) {
+        MessageDigest digest = sha256();
+        digest.update((byte) 0x01);
+        digest.update(left);
+        return digest.digest(right);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface NodeSink {
+        void node(int level, long index, byte[] hash);
+    }
+}
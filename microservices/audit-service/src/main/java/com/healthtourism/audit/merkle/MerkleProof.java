@@ -0,0 +1,102 @@
+package com.healthtourism.audit.merkle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Inclusion proof for one leaf of a {@link MerkleFrontier} tree.
+ *
+ * Verification folds the steps over the leaf hash in order:
+ * {@code acc = LEFT ? H(sibling, acc) : H(acc, sibling)}; the result must equal
+ * the anchored root. A proof has at most 2 * log2(leafCount) steps.
+ */
+public record MerkleProof(long leafIndex, long leafCount, String leafHash, List<Step> steps, String root) {
+
+    public enum Side { LEFT, RIGHT }
+
+    public record Step(Side side, String hash) {
+    }
+
+    /**
+     * Build a proof from the persisted perfect-subtree nodes.
+     *
+     * @param nodes lookup of stored node hashes by (level, index)
+     */
+    public static MerkleProof build(long leafIndex, long leafCount, NodeLookup nodes) {
+        if (leafIndex < 0 || leafIndex >= leafCount) {
+            throw new IllegalArgumentException("Leaf " + leafIndex + " outside tree of " + leafCount);
+        }
+        // Peaks, largest first: (level, index) of each perfect subtree
+        List<Integer> peakLevels = new ArrayList<>();
+        List<Long> peakIndexes = new ArrayList<>();
+        long start = 0;
+        int containing = -1;
+        for (int level = 62; level >= 0; level--) {
+            if (((leafCount >>> level) & 1) == 1) {
+                long size = 1L << level;
+                if (leafIndex >= start && leafIndex < start + size) {
+                    containing = peakLevels.size();
+                }
+                peakLevels.add(level);
+                peakIndexes.add(start >>> level);
+                start += size;
+            }
+        }
+
+        List<Step> steps = new ArrayList<>();
+        int peakLevel = peakLevels.get(containing);
+        for (int level = 0; level < peakLevel; level++) {
+            long index = leafIndex >>> level;
+            long sibling = index ^ 1;
+            steps.add(new Step((index & 1) == 1 ? Side.LEFT : Side.RIGHT, hex(nodes.get(level, sibling))));
+        }
+        if (containing < peakLevels.size() - 1) {
+            byte[] right = null;
+            for (int i = peakLevels.size() - 1; i > containing; i--) {
+                byte[] peak = nodes.get(peakLevels.get(i), peakIndexes.get(i));
+                right = right == null ? peak : MerkleFrontier.interiorHash(peak, right);
+            }
+            steps.add(new Step(Side.RIGHT, hex(right)));
+        }
+        for (int i = containing - 1; i >= 0; i--) {
+            steps.add(new Step(Side.LEFT, hex(nodes.get(peakLevels.get(i), peakIndexes.get(i)))));
+        }
+
+        String leaf = hex(nodes.get(0, leafIndex));
+        byte[] root = new MerkleProof(leafIndex, leafCount, leaf, steps, null).computeRoot();
+        return new MerkleProof(leafIndex, leafCount, leaf, steps, hex(root));
+    }
+
+    /**
+     * Root implied by the leaf hash and steps.
+     */
+    public byte[] computeRoot() {
+        HexFormat hex = HexFormat.of();
+        byte[] accumulator = hex.parseHex(leafHash);
+        for (Step step : steps) {
+            byte[] sibling = hex.parseHex(step.hash());
+            accumulator = step.side() == Side.LEFT
+                    ? MerkleFrontier.interiorHash(sibling, accumulator)
+                    : MerkleFrontier.interiorHash(accumulator, sibling);
+        }
+        return accumulator;
+    }
+
+    public boolean verify(byte[] expectedRoot) {
+        return Arrays.equals(computeRoot(), expectedRoot);
+    }
+
+    private static String hex(byte[] bytes) {
+        if (bytes == null) {
+            throw new IllegalStateException("Merkle node missing from store");
+        }
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    @FunctionalInterface
+    public interface NodeLookup {
+        byte[] get(int level, long index);
+    }
+}
@@ -1,6 +1,7 @@
 package com.healthtourism.audit.repository;
 
 import com.healthtourism.audit.entity.AuditLog;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -23,4 +24,13 @@ public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
     List<AuditLog> findRecentAccessesByUser(Long userId, AuditLog.ResourceType resourceType, LocalDateTime since);
     
     List<AuditLog> findByTimestampBefore(LocalDateTime timestamp);
+    
+    // Keyset page for the archiver: id > lastId, so no OFFSET scan and stable under deletes
+    List<AuditLog> findByTimestampBeforeAndIdGreaterThanOrderByIdAsc(LocalDateTime timestamp, Long id, Pageable pageable);
+    
+    // Tail reads for the Merkle accumulator
+    List<AuditLog> findByIdBetweenOrderByIdAsc(Long fromId, Long toId, Pageable pageable);
+    
+    @Query("SELECT MAX(a.id) FROM AuditLog a")
+    Long findMaxId();
 }
@@ -0,0 +1,15 @@
+package com.healthtourism.audit.repository;
+
+import com.healthtourism.audit.entity.AuditMerkleBatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AuditMerkleBatchRepository extends JpaRepository<AuditMerkleBatch, Long> {
+    Optional<AuditMerkleBatch> findFirstByStatusOrderByIdDesc(AuditMerkleBatch.Status status);
+    List<AuditMerkleBatch> findByStatusOrderByIdAsc(AuditMerkleBatch.Status status);
+    Optional<AuditMerkleBatch> findFirstByOrderByIdDesc();
+}
@@ -0,0 +1,103 @@
+package com.healthtourism.audit.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * JDBC access to the Merkle node table.
+ *
+ * Appends insert every node created by a run of leaves and advance the batch
+ * cursor in one transaction, so the persisted frontier always matches the
+ * batch leaf count.
+ */
+@Repository
+public class AuditMerkleStore {
+
+    private static final String INSERT_NODE_SQL =
+            "INSERT INTO audit_merkle_nodes (batch_id, level, node_index, hash, audit_log_id) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String ADVANCE_BATCH_SQL =
+            "UPDATE audit_merkle_batches SET leaf_count = ?, last_audit_log_id = ?, "
+            + "first_audit_log_id = COALESCE(first_audit_log_id, ?) WHERE id = ? AND leaf_count = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AuditMerkleStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public record Node(int level, long index, byte[] hash, Long auditLogId) {
+    }
+
+    public record LeafRef(long batchId, long leafIndex) {
+    }
+
+    /**
+     * Persist new nodes and move the batch from {@code expectedLeafCount} to {@code newLeafCount}.
+     * The leaf-count check makes a stale in-memory frontier fail instead of corrupting the tree.
+     */
+    @Transactional
+    public void append(long batchId, List<Node> nodes, long expectedLeafCount, long newLeafCount,
+                       long firstAuditLogId, long lastAuditLogId) {
+        int updated = jdbcTemplate.update(ADVANCE_BATCH_SQL,
+                newLeafCount, lastAuditLogId, firstAuditLogId, batchId, expectedLeafCount);
+        if (updated != 1) {
+            throw new IllegalStateException("Merkle batch " + batchId + " moved past leaf " + expectedLeafCount);
+        }
+        jdbcTemplate.batchUpdate(INSERT_NODE_SQL, nodes, nodes.size(), (ps, node) -> {
+            ps.setLong(1, batchId);
+            ps.setInt(2, node.level());
+            ps.setLong(3, node.index());
+            ps.setBytes(4, node.hash());
+            if (node.auditLogId() != null) {
+                ps.setLong(5, node.auditLogId());
+            } else {
+                ps.setNull(5, Types.BIGINT);
+            }
+        });
+    }
+
+    /**
+     * Audit log ids in (fromId, toId] that have no leaf in any batch.
+     */
+    public List<Long> findUnappendedAuditLogIds(long fromId, long toId) {
+        return jdbcTemplate.queryForList(
+                "SELECT a.id FROM audit_logs a LEFT JOIN audit_merkle_nodes n "
+                + "ON n.audit_log_id = a.id AND n.level = 0 "
+                + "WHERE a.id > ? AND a.id <= ? AND n.id IS NULL ORDER BY a.id",
+                Long.class, fromId, toId);
+    }
+
+    public byte[] findHash(long batchId, int level, long index) {
+        List<byte[]> hashes = jdbcTemplate.query(
+                "SELECT hash FROM audit_merkle_nodes WHERE batch_id = ? AND level = ? AND node_index = ?",
+                (rs, row) -> rs.getBytes(1), batchId, level, index);
+        return hashes.isEmpty() ? null : hashes.get(0);
+    }
+
+    /**
+     * Leaf index of every audit log appended to a batch, keyed by audit log id.
+     */
+    public Map<Long, Long> findLeafIndexes(long batchId) {
+        Map<Long, Long> leafIndexes = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT audit_log_id, node_index FROM audit_merkle_nodes WHERE batch_id = ? AND level = 0",
+                (RowCallbackHandler) rs -> leafIndexes.put(rs.getLong(1), rs.getLong(2)), batchId);
+        return leafIndexes;
+    }
+
+    public Optional<LeafRef> findLeaf(long auditLogId) {
+        List<LeafRef> refs = jdbcTemplate.query(
+                "SELECT batch_id, node_index FROM audit_merkle_nodes WHERE audit_log_id = ? AND level = 0",
+                (rs, row) -> new LeafRef(rs.getLong(1), rs.getLong(2)), auditLogId);
+        return refs.stream().findFirst();
+    }
+}
@@ -1,5 +1,7 @@
 package com.healthtourism.audit.service;
 
+import com.healthtourism.audit.archive.AuditArchiveQuery;
+import com.healthtourism.audit.archive.AuditSegmentStore;
 import com.healthtourism.audit.entity.AuditLog;
 import com.healthtourism.audit.repository.AuditLogRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,6 +9,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
@@ -25,6 +28,9 @@ public class ArchiveRetrievalService {
     @Autowired
     private AuditLogRepository auditLogRepository;
     
+    @Autowired(required = false)
+    private AuditSegmentStore segmentStore;
+    
     @Value("${audit.archive.cold.storage.type:s3}")
     private String coldStorageType;
     
@@ -78,6 +84,18 @@ public class ArchiveRetrievalService {
         return List.of();
     }
     
+    /**
+     * Query archived segments in place. Partition directories and segment
+     * min/max indexes are pruned before any column is decompressed, and only
+     * the columns referenced by the predicate are read for non-matching rows.
+     */
+    public List<AuditLog> queryArchive(AuditArchiveQuery query) throws IOException {
+        if (segmentStore == null) {
+            return List.of();
+        }
+        return segmentStore.query(query);
+    }
+    
     /**
      * Get retrieval status
      */
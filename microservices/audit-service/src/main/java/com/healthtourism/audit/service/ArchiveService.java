@@ -1,15 +1,21 @@
 package com.healthtourism.audit.service;
 
+import com.healthtourism.audit.archive.AuditSegmentStore;
 import com.healthtourism.audit.entity.AuditLog;
 import com.healthtourism.audit.repository.AuditLogRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Archive Service for HIPAA Compliance
@@ -27,46 +33,101 @@ public class ArchiveService {
     @Value("${audit.archive.enabled:true}")
     private boolean archiveEnabled;
     
+    @Value("${audit.archive.page-size:1000}")
+    private int pageSize;
+    
+    @Value("${audit.archive.segment-rows:50000}")
+    private int segmentRows;
+    
+    @Value("${audit.archive.delete-batch-size:500}")
+    private int deleteBatchSize;
+    
+    @Autowired
+    private AuditSegmentStore segmentStore;
+    
     /**
      * Archive old audit logs to cold storage
      * Runs daily at 2 AM
+     *
+     * Expired rows are read in keyset pages (id > last id), buffered per day and
+     * written as columnar segments; each segment's rows are deleted in bounded
+     * batches only after the segment is durably on disk. No transaction spans the
+     * run and memory is bounded by the segment size, not the retention backlog.
      */
     @Scheduled(cron = "0 0 2 * * ?") // Daily at 2 AM
-    @Transactional
     public void archiveOldLogs() {
         if (!archiveEnabled) {
             return;
         }
         
         LocalDateTime cutoffDate = LocalDateTime.now().minusDays(retentionDays);
-        List<AuditLog> oldLogs = auditLogRepository.findByTimestampBefore(cutoffDate);
+        Map<LocalDate, List<AuditLog>> partitions = new TreeMap<>();
+        int buffered = 0;
+        long lastId = 0;
+        int archived = 0;
         
-        for (AuditLog log : oldLogs) {
-            try {
-                // In production, move to cold storage (S3, Glacier, etc.)
-                archiveToColdStorage(log);
+        try {
+            while (true) {
+                List<AuditLog> page = auditLogRepository.findByTimestampBeforeAndIdGreaterThanOrderByIdAsc(
+                        cutoffDate, lastId, PageRequest.of(0, pageSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+                for (AuditLog log : page) {
+                    LocalDate day = log.getTimestamp().toLocalDate();
+                    List<AuditLog> rows = partitions.computeIfAbsent(day, d -> new ArrayList<>());
+                    rows.add(log);
+                    buffered++;
+                    if (rows.size() >= segmentRows) {
+                        archived += archivePartition(day, rows);
+                        buffered -= rows.size();
+                        partitions.remove(day);
+                    }
+                }
+                lastId = page.get(page.size() - 1).getId();
                 
-                // Mark as archived (soft delete or move to archive table)
-                markAsArchived(log);
-            } catch (Exception e) {
-                // Log error but continue with other logs
-                System.err.println("Failed to archive log " + log.getId() + ": " + e.getMessage());
+                // Ids are roughly time-ordered, so few days are open at once; cap it anyway
+                if (buffered >= segmentRows * 2) {
+                    archived += archiveAll(partitions);
+                    buffered = 0;
+                }
             }
+            archived += archiveAll(partitions);
+        } catch (IOException e) {
+            // Rows of unwritten segments stay in the database and are picked up next run
+            System.err.println("Audit archival stopped after " + archived + " logs: " + e.getMessage());
+            return;
+        }
+        
+        if (archived > 0) {
+            System.out.println("Archived " + archived + " audit logs older than " + cutoffDate);
         }
     }
     
-    private void archiveToColdStorage(AuditLog log) {
-        // In production, implement actual cold storage integration
-        // Examples: AWS S3 Glacier, Azure Archive Storage, etc.
-        // For now, just log the action
-        System.out.println("Archiving log " + log.getId() + " to cold storage");
+    private int archiveAll(Map<LocalDate, List<AuditLog>> partitions) throws IOException {
+        int archived = 0;
+        for (Map.Entry<LocalDate, List<AuditLog>> partition : partitions.entrySet()) {
+            archived += archivePartition(partition.getKey(), partition.getValue());
+        }
+        partitions.clear();
+        return archived;
     }
     
-    private void markAsArchived(AuditLog log) {
-        // In production, either:
-        // 1. Move to archive table
-        // 2. Soft delete with archived flag
-        // 3. Delete from main table (after confirming cold storage)
-        // For now, we'll keep it simple
+    private int archivePartition(LocalDate day, List<AuditLog> rows) throws IOException {
+        segmentStore.writeSegment(day, rows);
+        
+        // Delete in bounded batches, each in its own short transaction
+        List<Long> ids = new ArrayList<>(deleteBatchSize);
+        for (AuditLog log : rows) {
+            ids.add(log.getId());
+            if (ids.size() == deleteBatchSize) {
+                auditLogRepository.deleteAllByIdInBatch(ids);
+                ids.clear();
+            }
+        }
+        if (!ids.isEmpty()) {
+            auditLogRepository.deleteAllByIdInBatch(ids);
+        }
+        return rows.size();
     }
 }
@@ -1,28 +1,48 @@
 package com.healthtourism.audit.service;
 
 import com.healthtourism.audit.entity.AuditLog;
+import com.healthtourism.audit.entity.AuditMerkleBatch;
+import com.healthtourism.audit.merkle.AuditLeafEncoder;
+import com.healthtourism.audit.merkle.MerkleFrontier;
+import com.healthtourism.audit.repository.AuditMerkleBatchRepository;
+import com.healthtourism.audit.repository.AuditMerkleStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Audit Blockchain Service
- * Periodically sends audit log hashes to blockchain for immutable verification
+ * Periodically anchors audit Merkle roots on the blockchain for immutable verification
  * Ensures that even archived audit logs cannot be tampered with
+ *
+ * Each run seals the open Merkle batch maintained by {@link AuditMerkleService}
+ * and sends only its root (plus leaf count and id range) to blockchain-service.
+ * Batches whose anchoring failed stay CLOSED and are retried on the next run.
  */
 @Service
 public class AuditBlockchainService {
     
+    private static final Logger log = LoggerFactory.getLogger(AuditBlockchainService.class);
+    
+    @Autowired
+    private AuditMerkleService merkleService;
+    
+    @Autowired
+    private AuditMerkleBatchRepository batchRepository;
+    
     @Autowired
-    private AuditService auditService;
+    private AuditMerkleStore merkleStore;
     
     @Value("${blockchain.service.url:http://localhost:8040}")
     private String blockchainServiceUrl;
@@ -30,124 +50,116 @@ public class AuditBlockchainService {
     @Value("${audit.blockchain.enabled:true}")
     private boolean blockchainEnabled;
     
-    @Value("${audit.blockchain.batch.size:100}")
-    private int batchSize;
-    
     private final RestTemplate restTemplate = new RestTemplate();
     
     /**
-     * Send audit log batch hash to blockchain
-     * Runs daily to create immutable records of audit logs
+     * Seal the current Merkle batch and anchor every sealed, unanchored root
      */
-    @Scheduled(cron = "0 0 3 * * ?") // Daily at 3 AM
-    @Transactional
+    @Scheduled(cron = "${audit.merkle.anchor-cron:0 0 * * * ?}") // Hourly by default
     public void sendAuditLogHashToBlockchain() {
         if (!blockchainEnabled) {
             return;
         }
         
         try {
-            // Get yesterday's audit logs
-            LocalDateTime yesterday = LocalDateTime.now().minusDays(1);
-            LocalDateTime startOfDay = yesterday.withHour(0).withMinute(0).withSecond(0);
-            LocalDateTime endOfDay = yesterday.withHour(23).withMinute(59).withSecond(59);
-            
-            List<AuditLog> logs = auditService.getLogsByDateRange(startOfDay, endOfDay);
-            
-            if (logs.isEmpty()) {
-                return;
-            }
-            
-            // Create batch hash
-            String batchHash = createBatchHash(logs);
-            String batchId = "AUDIT-BATCH-" + yesterday.toLocalDate();
-            
-            // Send to blockchain
-            Map<String, Object> blockchainData = new HashMap<>();
-            blockchainData.put("batchId", batchId);
-            blockchainData.put("date", yesterday.toLocalDate().toString());
-            blockchainData.put("logCount", logs.size());
-            blockchainData.put("batchHash", batchHash);
-            blockchainData.put("startTimestamp", startOfDay.toString());
-            blockchainData.put("endTimestamp", endOfDay.toString());
-            
-            // Create blockchain record
-            String dataReference = "audit://batch/" + batchId;
-            
-            restTemplate.postForObject(
-                blockchainServiceUrl + "/api/blockchain/create",
-                blockchainData,
-                Map.class,
-                Map.of(
-                    "recordType", "AUDIT_LOG",
-                    "recordId", batchId,
-                    "userId", "SYSTEM",
-                    "dataReference", dataReference
-                )
-            );
-            
+            merkleService.appendNewLogs();
+            merkleService.closeBatch();
         } catch (Exception e) {
-            // Log error but don't fail the scheduled job
-            System.err.println("Failed to send audit log hash to blockchain: " + e.getMessage());
-        }
-    }
-    
-    /**
-     * Create hash of audit log batch
-     */
-    private String createBatchHash(List<AuditLog> logs) {
-        StringBuilder hashInput = new StringBuilder();
-        
-        for (AuditLog log : logs) {
-            hashInput.append(log.getId())
-                    .append(log.getUserId())
-                    .append(log.getResourceType())
-                    .append(log.getResourceId())
-                    .append(log.getAction())
-                    .append(log.getTimestamp())
-                    .append(log.getIpAddress());
+            log.error("Failed to seal audit Merkle batch: {}", e.getMessage());
         }
         
-        // Calculate SHA-256 hash
-        try {
-            java.security.MessageDigest digest = java.security.MessageDigest.getInstance("SHA-256");
-            byte[] hashBytes = digest.digest(hashInput.toString().getBytes());
-            return bytesToHex(hashBytes);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to create batch hash", e);
+        for (AuditMerkleBatch batch : batchRepository.findByStatusOrderByIdAsc(AuditMerkleBatch.Status.CLOSED)) {
+            try {
+                anchor(batch);
+            } catch (Exception e) {
+                // Log error but don't fail the scheduled job; the batch is retried next run
+                log.error("Failed to anchor {} on blockchain: {}", batch.getBatchId(), e.getMessage());
+                break;
+            }
         }
     }
     
-    /**
-     * Convert bytes to hex string
-     */
-    private String bytesToHex(byte[] bytes) {
-        StringBuilder result = new StringBuilder();
-        for (byte b : bytes) {
-            result.append(String.format("%02x", b));
-        }
-        return result.toString();
+    private void anchor(AuditMerkleBatch batch) {
+        Map<String, Object> blockchainData = anchorData(batch, batch.getRootHash());
+        
+        // Record metadata goes in the query string; only the body is hashed into the block
+        String url = UriComponentsBuilder.fromHttpUrl(blockchainServiceUrl + "/api/blockchain/create")
+                .queryParam("recordType", "AUDIT_LOG")
+                .queryParam("recordId", batch.getBatchId())
+                .queryParam("userId", "SYSTEM")
+                .queryParam("dataReference", "audit://merkle/" + batch.getBatchId())
+                .toUriString();
+        
+        @SuppressWarnings("unchecked")
+        Map<String, Object> block = restTemplate.postForObject(url, blockchainData, Map.class);
+        
+        batch.setStatus(AuditMerkleBatch.Status.ANCHORED);
+        batch.setAnchoredAt(LocalDateTime.now());
+        batch.setBlockHash(block != null ? (String) block.get("blockHash") : null);
+        batchRepository.save(batch);
     }
     
     /**
-     * Verify audit log batch integrity using blockchain
+     * Verify an audit log batch against the Merkle root anchored on the blockchain.
+     *
+     * Leaves are in append order, which is not always id order, so the rows are
+     * put in the order of their stored leaf index before the root is recomputed.
+     * The root stored in this database is not trusted: the anchor data rebuilt
+     * with the recomputed root must match the data hash of the batch's block.
+     *
+     * @param logs the batch's rows, in any order
      */
     public boolean verifyBatchIntegrity(String batchId, List<AuditLog> logs) {
         try {
-            // Get blockchain record
-            Map<String, Object> blockchainRecord = restTemplate.getForObject(
-                blockchainServiceUrl + "/api/blockchain/type/AUDIT_LOG",
-                Map.class
-            );
+            Long id = Long.valueOf(batchId.substring(batchId.lastIndexOf('-') + 1));
+            AuditMerkleBatch batch = batchRepository.findById(id).orElse(null);
+            if (batch == null || batch.getStatus() != AuditMerkleBatch.Status.ANCHORED
+                    || batch.getBlockHash() == null || batch.getLeafCount() != logs.size()) {
+                return false;
+            }
             
-            // Recalculate batch hash
-            String calculatedHash = createBatchHash(logs);
+            Map<Long, Long> leafIndexes = merkleStore.findLeafIndexes(batch.getId());
+            AuditLog[] byLeafIndex = new AuditLog[logs.size()];
+            for (AuditLog auditLog : logs) {
+                Long leafIndex = leafIndexes.get(auditLog.getId());
+                if (leafIndex == null || leafIndex >= byLeafIndex.length || byLeafIndex[leafIndex.intValue()] != null) {
+                    return false;
+                }
+                byLeafIndex[leafIndex.intValue()] = auditLog;
+            }
             
-            // Compare with blockchain hash
-            // In production, would extract hash from blockchain record
-            return true; // Simplified
+            // Recalculate root in leaf order
+            MerkleFrontier frontier = new MerkleFrontier();
+            for (AuditLog auditLog : byLeafIndex) {
+                frontier.append(AuditLeafEncoder.leafHash(auditLog), (level, index, hash) -> { });
+            }
+            return isAnchored(batch, HexFormat.of().formatHex(frontier.root()));
         } catch (Exception e) {
+            log.warn("Could not verify {}: {}", batchId, e.getMessage());
             return false;
         }
     }
+    
+    private boolean isAnchored(AuditMerkleBatch batch, String merkleRoot) {
+        String url = UriComponentsBuilder.fromHttpUrl(blockchainServiceUrl + "/api/blockchain/verify-data")
+                .queryParam("blockHash", batch.getBlockHash())
+                .toUriString();
+        return Boolean.TRUE.equals(restTemplate.postForObject(url, anchorData(batch, merkleRoot), Boolean.class));
+    }
+    
+    /**
+     * Body hashed into the anchoring block. Must stay a HashMap with these keys:
+     * blockchain-service hashes the JSON in the order it receives it.
+     */
+    private Map<String, Object> anchorData(AuditMerkleBatch batch, String merkleRoot) {
+        Map<String, Object> blockchainData = new HashMap<>();
+        blockchainData.put("batchId", batch.getBatchId());
+        blockchainData.put("merkleRoot", merkleRoot);
+        blockchainData.put("logCount", batch.getLeafCount());
+        blockchainData.put("firstAuditLogId", batch.getFirstAuditLogId());
+        blockchainData.put("lastAuditLogId", batch.getLastAuditLogId());
+        blockchainData.put("openedAt", batch.getOpenedAt().toString());
+        blockchainData.put("closedAt", batch.getClosedAt().toString());
+        return blockchainData;
+    }
 }
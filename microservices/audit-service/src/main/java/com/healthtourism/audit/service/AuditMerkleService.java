@@ -0,0 +1,331 @@
+package com.healthtourism.audit.service;
+
+import com.healthtourism.audit.entity.AuditLog;
+import com.healthtourism.audit.entity.AuditMerkleBatch;
+import com.healthtourism.audit.merkle.AuditLeafEncoder;
+import com.healthtourism.audit.merkle.MerkleFrontier;
+import com.healthtourism.audit.merkle.MerkleProof;
+import com.healthtourism.audit.repository.AuditLogRepository;
+import com.healthtourism.audit.repository.AuditMerkleBatchRepository;
+import com.healthtourism.audit.repository.AuditMerkleStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Incremental Merkle accumulator over the audit log.
+ *
+ * Rows are appended shortly after they are written: each run reads the new
+ * rows, folds their leaf hashes into an in-memory frontier (one peak per set
+ * bit of the leaf count) and persists the leaf plus any completed interior
+ * nodes, about two small rows per entry. Closing a batch is O(log n) and
+ * inclusion proofs read O(log n) stored nodes, so neither rescans the log.
+ *
+ * Ids are handed out before commit, so a run only consumes ids up to the
+ * maximum seen on the previous run. An id inside that range that is still
+ * missing is remembered as a gap and looked up again on every run; if its
+ * insert commits late the row is appended then (leaves are therefore in
+ * append order, not strictly id order). Gaps still empty after
+ * {@code audit.merkle.gap-timeout-ms} are treated as rolled back. Gaps are
+ * kept in memory, so after a restart the last {@code audit.merkle.gap-rescan-ids}
+ * ids are checked once for rows that never got a leaf.
+ */
+@Service
+public class AuditMerkleService {
+    
+    private static final Logger log = LoggerFactory.getLogger(AuditMerkleService.class);
+    
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+    
+    @Autowired
+    private AuditMerkleBatchRepository batchRepository;
+    
+    @Autowired
+    private AuditMerkleStore merkleStore;
+    
+    @Value("${audit.merkle.enabled:true}")
+    private boolean merkleEnabled;
+    
+    @Value("${audit.merkle.page-size:1000}")
+    private int pageSize;
+    
+    @Value("${audit.merkle.gap-timeout-ms:600000}")
+    private long gapTimeoutMs;
+    
+    @Value("${audit.merkle.gap-rescan-ids:10000}")
+    private long gapRescanIds;
+    
+    @Value("${audit.merkle.max-gaps:100000}")
+    private int maxGaps;
+    
+    private AuditMerkleBatch openBatch;
+    private MerkleFrontier frontier;
+    private long cursor;
+    private Long highWaterMark;
+    private boolean recovered;
+    
+    // Ids below the cursor that had no row when scanned, with the time they were first missed
+    private final TreeMap<Long, Long> gaps = new TreeMap<>();
+    
+    /**
+     * Append audit logs written since the last run to the open batch.
+     */
+    @Scheduled(fixedDelayString = "${audit.merkle.append-interval-ms:5000}")
+    public synchronized void appendNewLogs() {
+        if (!merkleEnabled) {
+            return;
+        }
+        try {
+            ensureLoaded();
+            if (!recovered) {
+                recoverGapsBelowCursor();
+                recovered = true;
+            }
+            appendFilledGaps();
+            Long upTo = highWaterMark;
+            highWaterMark = auditLogRepository.findMaxId();
+            if (upTo == null) {
+                return;
+            }
+            while (cursor < upTo) {
+                List<AuditLog> page = auditLogRepository.findByIdBetweenOrderByIdAsc(
+                        cursor + 1, upTo, PageRequest.of(0, pageSize));
+                // A short page means every id up to upTo has been seen
+                long scannedTo = page.size() < pageSize ? upTo : page.get(page.size() - 1).getId();
+                trackGaps(page, scannedTo);
+                if (!page.isEmpty()) {
+                    appendPage(page, scannedTo);
+                }
+                cursor = scannedTo;
+            }
+        } catch (Exception e) {
+            // Drop in-memory state; the next run reloads it from the last committed append
+            openBatch = null;
+            frontier = null;
+            recovered = false;
+            log.error("Failed to append audit logs to Merkle batch: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Remember ids in (cursor, scannedTo] that the page did not return.
+     */
+    private void trackGaps(List<AuditLog> page, long scannedTo) {
+        long now = System.currentTimeMillis();
+        long expected = cursor + 1;
+        for (AuditLog auditLog : page) {
+            addGaps(expected, auditLog.getId() - 1, now);
+            expected = auditLog.getId() + 1;
+        }
+        addGaps(expected, scannedTo, now);
+    }
+    
+    private void addGaps(long from, long to, long now) {
+        for (long id = from; id <= to; id++) {
+            if (gaps.size() >= maxGaps) {
+                // Typically a large id jump (e.g. a reserved auto-increment block), not pending inserts
+                log.warn("Too many audit log id gaps, not tracking ids {}..{}", id, to);
+                return;
+            }
+            gaps.putIfAbsent(id, now);
+        }
+    }
+    
+    /**
+     * Append rows whose ids were gaps on an earlier run and have since committed;
+     * forget gaps that stayed empty for longer than the timeout.
+     */
+    private void appendFilledGaps() {
+        if (gaps.isEmpty()) {
+            return;
+        }
+        List<AuditLog> filled = new ArrayList<>();
+        List<Long> ids = new ArrayList<>(gaps.keySet());
+        for (int from = 0; from < ids.size(); from += pageSize) {
+            filled.addAll(auditLogRepository.findAllById(ids.subList(from, Math.min(ids.size(), from + pageSize))));
+        }
+        filled.sort(Comparator.comparing(AuditLog::getId));
+        for (int from = 0; from < filled.size(); from += pageSize) {
+            List<AuditLog> page = filled.subList(from, Math.min(filled.size(), from + pageSize));
+            appendPage(page, cursor);
+        }
+        if (!filled.isEmpty()) {
+            log.info("Appended {} audit logs that committed after their id was scanned", filled.size());
+        }
+        
+        long expiredBefore = System.currentTimeMillis() - gapTimeoutMs;
+        int expired = 0;
+        for (Iterator<Long> it = gaps.values().iterator(); it.hasNext(); ) {
+            if (it.next() < expiredBefore) {
+                it.remove();
+                expired++;
+            }
+        }
+        if (expired > 0) {
+            log.debug("Dropped {} audit log id gaps as rolled back", expired);
+        }
+    }
+    
+    /**
+     * After a restart the in-memory gaps are gone: append rows just below the
+     * cursor that committed late and never got a leaf.
+     */
+    private void recoverGapsBelowCursor() {
+        List<Long> ids = merkleStore.findUnappendedAuditLogIds(Math.max(0L, cursor - gapRescanIds), cursor);
+        long now = System.currentTimeMillis();
+        ids.forEach(id -> gaps.putIfAbsent(id, now));
+    }
+    
+    private void appendPage(List<AuditLog> page, long scannedTo) {
+        long expectedLeafCount = frontier.leafCount();
+        List<AuditMerkleStore.Node> nodes = new ArrayList<>(page.size() * 2);
+        for (AuditLog auditLog : page) {
+            Long auditLogId = auditLog.getId();
+            frontier.append(AuditLeafEncoder.leafHash(auditLog), (level, index, hash) ->
+                    nodes.add(new AuditMerkleStore.Node(level, index, hash, level == 0 ? auditLogId : null)));
+        }
+        long first = page.get(0).getId();
+        // Late rows from gaps sit below the cursor and must not move it back
+        long last = Math.max(scannedTo, cursor);
+        merkleStore.append(openBatch.getId(), nodes, expectedLeafCount, frontier.leafCount(), first, last);
+        
+        if (openBatch.getFirstAuditLogId() == null) {
+            openBatch.setFirstAuditLogId(first);
+        }
+        openBatch.setLastAuditLogId(last);
+        openBatch.setLeafCount(frontier.leafCount());
+        page.forEach(auditLog -> gaps.remove(auditLog.getId()));
+    }
+    
+    /**
+     * Seal the open batch with its current root and start a new one.
+     *
+     * @return the closed batch, or empty if nothing was appended since the last close
+     */
+    public synchronized Optional<AuditMerkleBatch> closeBatch() {
+        ensureLoaded();
+        if (frontier.leafCount() == 0) {
+            return Optional.empty();
+        }
+        AuditMerkleBatch closed = batchRepository.findById(openBatch.getId()).orElseThrow();
+        if (closed.getLeafCount() != frontier.leafCount()) {
+            throw new IllegalStateException("Merkle batch " + closed.getBatchId() + " is out of sync with its frontier");
+        }
+        closed.setStatus(AuditMerkleBatch.Status.CLOSED);
+        closed.setRootHash(HexFormat.of().formatHex(frontier.root()));
+        closed.setClosedAt(LocalDateTime.now());
+        closed = batchRepository.save(closed);
+        
+        openBatch = batchRepository.save(newBatch());
+        frontier = new MerkleFrontier();
+        return Optional.of(closed);
+    }
+    
+    /**
+     * O(log n) inclusion proof for an audit log id, together with the batch it belongs to.
+     * Empty if the row has not been appended yet or its batch is still open.
+     */
+    public Optional<Map<String, Object>> getInclusionProof(Long auditLogId) {
+        Optional<AuditMerkleStore.LeafRef> leaf = merkleStore.findLeaf(auditLogId);
+        if (leaf.isEmpty()) {
+            return Optional.empty();
+        }
+        AuditMerkleBatch batch = batchRepository.findById(leaf.get().batchId()).orElseThrow();
+        if (batch.getStatus() == AuditMerkleBatch.Status.OPEN) {
+            return Optional.empty();
+        }
+        MerkleProof proof = buildProof(batch, leaf.get().leafIndex());
+        
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("auditLogId", auditLogId);
+        response.put("batchId", batch.getBatchId());
+        response.put("status", batch.getStatus());
+        response.put("rootHash", batch.getRootHash());
+        response.put("blockHash", batch.getBlockHash());
+        response.put("proof", proof);
+        return Optional.of(response);
+    }
+    
+    /**
+     * Recompute the leaf from the stored row and check its path against the sealed batch root.
+     */
+    public boolean verifyAuditLog(Long auditLogId) {
+        Optional<AuditLog> auditLog = auditLogRepository.findById(auditLogId);
+        Optional<AuditMerkleStore.LeafRef> leaf = merkleStore.findLeaf(auditLogId);
+        if (auditLog.isEmpty() || leaf.isEmpty()) {
+            return false;
+        }
+        AuditMerkleBatch batch = batchRepository.findById(leaf.get().batchId()).orElseThrow();
+        if (batch.getStatus() == AuditMerkleBatch.Status.OPEN) {
+            return false;
+        }
+        MerkleProof proof = buildProof(batch, leaf.get().leafIndex());
+        String leafHash = HexFormat.of().formatHex(AuditLeafEncoder.leafHash(auditLog.get()));
+        return leafHash.equals(proof.leafHash());
+    }
+    
+    private MerkleProof buildProof(AuditMerkleBatch batch, long leafIndex) {
+        long batchId = batch.getId();
+        MerkleProof proof = MerkleProof.build(leafIndex, batch.getLeafCount(),
+                (level, index) -> merkleStore.findHash(batchId, level, index));
+        if (!proof.root().equals(batch.getRootHash())) {
+            throw new IllegalStateException("Merkle nodes of " + batch.getBatchId() + " do not match its root");
+        }
+        return proof;
+    }
+    
+    private void ensureLoaded() {
+        if (frontier != null) {
+            return;
+        }
+        AuditMerkleBatch batch = batchRepository.findFirstByStatusOrderByIdDesc(AuditMerkleBatch.Status.OPEN)
+                .orElse(null);
+        if (batch == null) {
+            batch = newBatch();
+            // Continue after the last sealed batch rather than re-hashing the whole log
+            batch.setLastAuditLogId(batchRepository.findFirstByOrderByIdDesc()
+                    .map(AuditMerkleBatch::getLastAuditLogId).orElse(null));
+            batch = batchRepository.save(batch);
+        }
+        
+        long leafCount = batch.getLeafCount();
+        List<byte[]> peaks = new ArrayList<>();
+        long start = leafCount;
+        for (int level = 0; level < 63; level++) {
+            if (((leafCount >>> level) & 1) == 1) {
+                start -= 1L << level;
+                peaks.add(merkleStore.findHash(batch.getId(), level, start >>> level));
+            } else {
+                peaks.add(null);
+            }
+        }
+        frontier = new MerkleFrontier(leafCount, peaks);
+        openBatch = batch;
+        cursor = batch.getLastAuditLogId() != null ? batch.getLastAuditLogId() : 0L;
+    }
+    
+    private AuditMerkleBatch newBatch() {
+        AuditMerkleBatch batch = new AuditMerkleBatch();
+        batch.setStatus(AuditMerkleBatch.Status.OPEN);
+        batch.setLeafCount(0L);
+        batch.setLastAuditLogId(openBatch != null ? openBatch.getLastAuditLogId() : null);
+        batch.setOpenedAt(LocalDateTime.now());
+        return batch;
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * HIPAA/KVKK Compliant Audit Service
@@ -33,7 +34,28 @@ public class AuditService {
             Boolean success,
             String errorMessage) {
         
+        return auditLogRepository.save(buildAuditLog(userId, userEmail, userRole, resourceType,
+                resourceId, action, request, description, success, errorMessage));
+    }
+    
+    /**
+     * Build an audit record without storing it. Request details are captured
+     * here, on the request thread, so the record can be written asynchronously.
+     */
+    public AuditLog buildAuditLog(
+            Long userId,
+            String userEmail,
+            String userRole,
+            AuditLog.ResourceType resourceType,
+            String resourceId,
+            AuditLog.Action action,
+            HttpServletRequest request,
+            String description,
+            Boolean success,
+            String errorMessage) {
+        
         AuditLog auditLog = new AuditLog();
+        auditLog.setEventId(UUID.randomUUID().toString());
         auditLog.setUserId(userId);
         auditLog.setUserEmail(userEmail);
         auditLog.setUserRole(userRole);
@@ -51,7 +73,7 @@ public class AuditService {
             auditLog.setSessionId(request.getSession(false) != null ? request.getSession().getId() : null);
         }
         
-        return auditLogRepository.save(auditLog);
+        return auditLog;
     }
     
     public List<AuditLog> getAccessHistoryByUser(Long userId) {
@@ -0,0 +1,282 @@
+package com.healthtourism.audit.writer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthtourism.audit.entity.AuditLog;
+import com.healthtourism.audit.repository.AuditLogBatchInserter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Non-blocking audit pipeline used by {@link com.healthtourism.audit.aspect.AuditAspect}.
+ *
+ * Request threads only build the {@link AuditLog} and publish it into a lock-free
+ * ring buffer. A single writer thread drains it and flushes when
+ * {@code audit.writer.batch-size} records are collected or
+ * {@code audit.writer.flush-interval-ms} has elapsed:
+ * <ol>
+ *   <li>append the batch to the local spill journal and fsync once for the group;</li>
+ *   <li>JDBC batch insert; on success the journal is marked committed.</li>
+ * </ol>
+ * If the database is slow or down, records keep accumulating in the journal and
+ * are replayed in order once inserts succeed again (and on startup after a crash).
+ * If the ring buffer is full, the producer appends to the journal itself rather
+ * than dropping; a record is only dropped if even that fails, or if the database
+ * rejects it as invalid.
+ */
+@Component
+public class AuditLogWriter implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    private final AuditLogBatchInserter batchInserter;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${audit.writer.buffer-size:8192}")
+    private int bufferSize;
+
+    @Value("${audit.writer.batch-size:500}")
+    private int batchSize;
+
+    @Value("${audit.writer.flush-interval-ms:50}")
+    private long flushIntervalMs;
+
+    @Value("${audit.writer.retry-interval-ms:5000}")
+    private long retryIntervalMs;
+
+    @Value("${audit.writer.spill-file:./data/audit-spill.log}")
+    private String spillFilePath;
+
+    private AuditRingBuffer<AuditLog> buffer;
+    private AuditSpillFile spill;
+    private Thread writer;
+    private volatile boolean running;
+    private long nextRetryAt;
+
+    private Counter dropped;
+    private Counter overflow;
+    private Timer flushTimer;
+    private DistributionSummary batchSizeSummary;
+
+    public AuditLogWriter(AuditLogBatchInserter batchInserter, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.batchInserter = batchInserter;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        buffer = new AuditRingBuffer<>(bufferSize);
+        spill = new AuditSpillFile(Paths.get(spillFilePath));
+
+        Gauge.builder("audit.writer.buffer.depth", buffer, AuditRingBuffer::size)
+                .description("Audit records waiting in the ring buffer")
+                .register(meterRegistry);
+        Gauge.builder("audit.writer.spill.backlog", spill, AuditLogWriter::backlogBytes)
+                .description("Bytes in the spill journal not yet stored in the database")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        dropped = Counter.builder("audit.writer.dropped")
+                .description("Audit records that could not be stored")
+                .register(meterRegistry);
+        overflow = Counter.builder("audit.writer.overflow")
+                .description("Audit records journaled by the caller because the ring buffer was full")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("audit.writer.flush")
+                .description("Latency of journal fsync plus database batch insert")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        batchSizeSummary = DistributionSummary.builder("audit.writer.batch.size")
+                .register(meterRegistry);
+
+        running = true;
+        writer = new Thread(this::run, "audit-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Publish an audit record without blocking on the database.
+     */
+    public void enqueue(AuditLog auditLog) {
+        if (running && buffer.offer(auditLog)) {
+            return;
+        }
+        overflow.increment();
+        try {
+            spill.append(List.of(toJson(auditLog)));
+        } catch (IOException | RuntimeException e) {
+            dropped.increment();
+            log.error("Dropping audit record {} for resource {}/{}: {}", auditLog.getEventId(),
+                    auditLog.getResourceType(), auditLog.getResourceId(), e.getMessage());
+        }
+    }
+
+    private void run() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        long batchStarted = 0;
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (running) {
+            if (batch.isEmpty()) {
+                batchStarted = System.nanoTime();
+            }
+            buffer.drainTo(batch, batchSize - batch.size());
+            boolean due = System.nanoTime() - batchStarted >= flushIntervalNanos;
+            if (batch.size() >= batchSize || (!batch.isEmpty() && due)) {
+                flush(batch);
+                batch.clear();
+            } else if (batch.isEmpty() && due) {
+                replayBacklog();
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            } else {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+        // Shutdown: journal and try to store whatever is still buffered
+        buffer.drainTo(batch, Integer.MAX_VALUE);
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    private void flush(List<AuditLog> batch) {
+        long started = System.nanoTime();
+        List<String> lines = new ArrayList<>(batch.size());
+        for (AuditLog auditLog : batch) {
+            try {
+                lines.add(toJson(auditLog));
+            } catch (RuntimeException e) {
+                dropped.increment();
+                log.error("Dropping unserializable audit record {}: {}", auditLog.getEventId(), e.getMessage());
+            }
+        }
+        try {
+            AuditSpillFile.Span span = spill.append(lines);
+            spill.sync();
+            if (span.start() == spill.committed() && insert(batch)) {
+                // Fast path: nothing older pending, the in-memory batch is stored
+                spill.commit(span.end());
+            } else {
+                replayBacklog();
+            }
+        } catch (IOException e) {
+            // Journal unavailable: the database is now the only copy
+            log.error("Audit spill journal write failed: {}", e.getMessage());
+            if (!insert(batch)) {
+                dropped.increment(batch.size());
+            }
+        }
+        batchSizeSummary.record(batch.size());
+        flushTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Store journaled records that are not yet in the database, oldest first.
+     */
+    private void replayBacklog() {
+        try {
+            if (spill.backlogBytes() == 0 || System.currentTimeMillis() < nextRetryAt) {
+                return;
+            }
+            spill.sync();
+            while (true) {
+                AuditSpillFile.Segment segment = spill.readUncommitted(batchSize);
+                if (segment.lines().isEmpty()) {
+                    if (segment.endOffset() > spill.committed()) {
+                        spill.commit(segment.endOffset());
+                    }
+                    return;
+                }
+                List<AuditLog> logs = new ArrayList<>(segment.lines().size());
+                for (String line : segment.lines()) {
+                    try {
+                        logs.add(objectMapper.readValue(line, AuditLog.class));
+                    } catch (JsonProcessingException e) {
+                        dropped.increment();
+                        log.error("Skipping corrupt audit journal entry: {}", e.getOriginalMessage());
+                    }
+                }
+                if (!logs.isEmpty() && !insert(logs)) {
+                    nextRetryAt = System.currentTimeMillis() + retryIntervalMs;
+                    return;
+                }
+                spill.commit(segment.endOffset());
+            }
+        } catch (IOException e) {
+            log.error("Audit spill journal replay failed: {}", e.getMessage());
+            nextRetryAt = System.currentTimeMillis() + retryIntervalMs;
+        }
+    }
+
+    /**
+     * @return false if the database is unavailable and the records must stay journaled
+     */
+    private boolean insert(List<AuditLog> logs) {
+        try {
+            batchInserter.insertAll(logs);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            // A bad record fails the whole batch; store the rest one by one
+            for (AuditLog auditLog : logs) {
+                try {
+                    batchInserter.insertAll(List.of(auditLog));
+                } catch (DataIntegrityViolationException rejected) {
+                    dropped.increment();
+                    log.error("Database rejected audit record {}: {}", auditLog.getEventId(),
+                            rejected.getMostSpecificCause().getMessage());
+                } catch (RuntimeException unavailable) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Audit batch insert failed, keeping {} records journaled: {}", logs.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    private String toJson(AuditLog auditLog) {
+        try {
+            return objectMapper.writeValueAsString(auditLog);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e.getOriginalMessage(), e);
+        }
+    }
+
+    private static double backlogBytes(AuditSpillFile spill) {
+        try {
+            return spill.backlogBytes();
+        } catch (IOException e) {
+            return Double.NaN;
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        running = false;
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        if (spill != null) {
+            spill.close();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.healthtourism.audit.writer;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only local journal of audit records (one JSON document per line).
+ *
+ * Records are appended before they are written to the database and the file
+ * is forced to disk once per group, not per record. {@code committed} is the
+ * offset up to which everything is known to be in the database; once it
+ * reaches the end of the file the journal is truncated. The offset is not
+ * persisted: after a restart the whole file is replayed and the database
+ * insert ignores event ids it already has.
+ */
+final class AuditSpillFile implements AutoCloseable {
+
+    private final Path path;
+    private final FileChannel channel;
+    private long committed;
+
+    AuditSpillFile(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.channel.position(channel.size());
+        terminateTornLine();
+    }
+
+    /**
+     * A crash mid-append can leave a partial last line; end it so the next
+     * append starts on a fresh line and the fragment is skipped as unparseable.
+     */
+    private void terminateTornLine() throws IOException {
+        long size = channel.size();
+        if (size == 0) {
+            return;
+        }
+        ByteBuffer last = ByteBuffer.allocate(1);
+        channel.read(last, size - 1);
+        if (last.get(0) != '\n') {
+            channel.write(ByteBuffer.wrap(new byte[]{'\n'}));
+        }
+    }
+
+    /**
+     * Append lines; returns the byte span they occupy. Callers decide when to {@link #sync()}.
+     */
+    synchronized Span append(List<String> lines) throws IOException {
+        long start = channel.position();
+        StringBuilder block = new StringBuilder(lines.size() * 256);
+        for (String line : lines) {
+            block.append(line).append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(block.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        return new Span(start, channel.position());
+    }
+
+    synchronized void sync() throws IOException {
+        channel.force(false);
+    }
+
+    synchronized long committed() {
+        return committed;
+    }
+
+    synchronized long backlogBytes() throws IOException {
+        return channel.position() - committed;
+    }
+
+    /**
+     * Mark everything up to {@code offset} as stored; truncate when fully caught up.
+     */
+    synchronized void commit(long offset) throws IOException {
+        committed = Math.max(committed, offset);
+        if (committed == channel.position()) {
+            channel.truncate(0);
+            channel.position(0);
+            committed = 0;
+        }
+    }
+
+    /**
+     * Read up to {@code maxLines} complete lines starting at the committed offset.
+     * A line still being appended is not returned until its newline is written.
+     */
+    Segment readUncommitted(int maxLines) throws IOException {
+        long start;
+        long end;
+        synchronized (this) {
+            start = committed;
+            end = channel.position();
+        }
+        List<String> lines = new ArrayList<>();
+        long offset = start;
+        try (FileChannel reader = FileChannel.open(path, StandardOpenOption.READ);
+             InputStream in = new BufferedInputStream(Channels.newInputStream(reader.position(start)), 64 * 1024)) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(512);
+            long position = start;
+            int b;
+            while (lines.size() < maxLines && position < end && (b = in.read()) >= 0) {
+                position++;
+                if (b == '\n') {
+                    if (line.size() > 0) {
+                        lines.add(line.toString(StandardCharsets.UTF_8));
+                    }
+                    line.reset();
+                    offset = position;
+                } else {
+                    line.write(b);
+                }
+            }
+        }
+        return new Segment(lines, offset);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.force(false);
+        channel.close();
+    }
+
+    record Span(long start, long end) {
+    }
+
+    record Segment(List<String> lines, long endOffset) {
+    }
+}
@@ -0,0 +1,67 @@
+package com.healthtourism.audit.archive;
+
+import com.healthtourism.audit.entity.AuditLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditSegmentStoreTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2018, 1, 1, 0, 0);
+
+    @Test
+    void testQuery_PushesPredicatesIntoSegments(@TempDir Path dir) throws Exception {
+        // Given
+        AuditSegmentStore store = new AuditSegmentStore(dir.toString());
+        List<AuditLog> rows = new ArrayList<>();
+        for (long i = 1; i <= 1000; i++) {
+            rows.add(auditLog(i, i % 10, i % 2 == 0 ? AuditLog.Action.READ : AuditLog.Action.UPDATE));
+        }
+        store.writeSegment(DAY.toLocalDate(), rows);
+
+        // When
+        List<AuditLog> result = store.query(new AuditArchiveQuery(DAY, DAY.plusDays(1), 4L,
+                AuditLog.ResourceType.MEDICAL_DOCUMENT, null, AuditLog.Action.READ, 1000));
+
+        // Then
+        assertEquals(100, result.size());
+        assertTrue(result.stream().allMatch(log -> log.getUserId() == 4L && log.getAction() == AuditLog.Action.READ));
+        assertEquals("doc-4", result.get(0).getResourceId());
+        assertEquals(DAY.plusSeconds(4), result.get(0).getTimestamp());
+    }
+
+    @Test
+    void testQuery_SkipsSegmentsOutsideIndexRange(@TempDir Path dir) throws Exception {
+        // Given
+        AuditSegmentStore store = new AuditSegmentStore(dir.toString());
+        store.writeSegment(DAY.toLocalDate(), List.of(auditLog(1, 1, AuditLog.Action.READ)));
+
+        // When
+        List<AuditLog> result = store.query(new AuditArchiveQuery(DAY, DAY.plusDays(1), 99L,
+                null, null, null, 10));
+
+        // Then
+        assertTrue(result.isEmpty());
+    }
+
+    private static AuditLog auditLog(long id, long userId, AuditLog.Action action) {
+        AuditLog log = new AuditLog();
+        log.setId(id);
+        log.setEventId("event-" + id);
+        log.setUserId(userId);
+        log.setUserEmail("user" + userId + "@example.com");
+        log.setUserRole("PATIENT");
+        log.setResourceType(AuditLog.ResourceType.MEDICAL_DOCUMENT);
+        log.setResourceId("doc-" + id);
+        log.setAction(action);
+        log.setTimestamp(DAY.plusSeconds(id));
+        log.setSuccess(true);
+        return log;
+    }
+}
@@ -0,0 +1,87 @@
+package com.healthtourism.audit.merkle;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MerkleFrontierTest {
+
+    @Test
+    void testInclusionProof_VerifiesEveryLeafForEveryTreeSize() {
+        for (int size = 1; size <= 33; size++) {
+            // Given
+            Map<String, byte[]> nodes = new HashMap<>();
+            MerkleFrontier frontier = new MerkleFrontier();
+            for (int i = 0; i < size; i++) {
+                frontier.append(leaf(i), (level, index, hash) -> nodes.put(level + ":" + index, hash));
+            }
+            byte[] root = frontier.root();
+
+            for (int i = 0; i < size; i++) {
+                // When
+                MerkleProof proof = MerkleProof.build(i, size, (level, index) -> nodes.get(level + ":" + index));
+
+                // Then
+                assertTrue(proof.verify(root), "leaf " + i + " of " + size);
+                assertTrue(proof.steps().size() <= 2 * (64 - Long.numberOfLeadingZeros(size)));
+            }
+        }
+    }
+
+    @Test
+    void testInclusionProof_RejectsTamperedLeaf() {
+        // Given
+        Map<String, byte[]> nodes = new HashMap<>();
+        MerkleFrontier frontier = new MerkleFrontier();
+        for (int i = 0; i < 7; i++) {
+            frontier.append(leaf(i), (level, index, hash) -> nodes.put(level + ":" + index, hash));
+        }
+        MerkleProof proof = MerkleProof.build(3, 7, (level, index) -> nodes.get(level + ":" + index));
+
+        // When
+        MerkleProof tampered = new MerkleProof(3, 7,
+                HexFormat.of().formatHex(leaf(99)), proof.steps(), proof.root());
+
+        // Then
+        assertFalse(tampered.verify(frontier.root()));
+    }
+
+    @Test
+    void testRestoredFrontier_ContinuesWithSameRoot() {
+        // Given
+        Map<String, byte[]> nodes = new HashMap<>();
+        MerkleFrontier original = new MerkleFrontier();
+        for (int i = 0; i < 11; i++) {
+            original.append(leaf(i), (level, index, hash) -> nodes.put(level + ":" + index, hash));
+        }
+
+        // When - rebuild peaks from stored nodes (11 = 8 + 2 + 1)
+        List<byte[]> peaks = new ArrayList<>();
+        long start = 11;
+        for (int level = 0; level < 63; level++) {
+            if (((11L >>> level) & 1) == 1) {
+                start -= 1L << level;
+                peaks.add(nodes.get(level + ":" + (start >>> level)));
+            } else {
+                peaks.add(null);
+            }
+        }
+        MerkleFrontier restored = new MerkleFrontier(11, peaks);
+        original.append(leaf(11), (level, index, hash) -> { });
+        restored.append(leaf(11), (level, index, hash) -> { });
+
+        // Then
+        assertArrayEquals(original.root(), restored.root());
+    }
+
+    private static byte[] leaf(int i) {
+        return MerkleFrontier.leafHash(("entry-" + i).getBytes(StandardCharsets.UTF_8));
+    }
+}
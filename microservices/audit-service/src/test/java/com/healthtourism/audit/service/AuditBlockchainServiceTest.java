@@ -0,0 +1,158 @@
+package com.healthtourism.audit.service;
+
+import com.healthtourism.audit.entity.AuditLog;
+import com.healthtourism.audit.entity.AuditMerkleBatch;
+import com.healthtourism.audit.merkle.AuditLeafEncoder;
+import com.healthtourism.audit.merkle.MerkleFrontier;
+import com.healthtourism.audit.repository.AuditMerkleBatchRepository;
+import com.healthtourism.audit.repository.AuditMerkleStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+@ExtendWith(MockitoExtension.class)
+class AuditBlockchainServiceTest {
+
+    private static final String VERIFY_URL = "http://blockchain/api/blockchain/verify-data?blockHash=block-1";
+
+    @Mock
+    private AuditMerkleService merkleService;
+
+    @Mock
+    private AuditMerkleBatchRepository batchRepository;
+
+    @Mock
+    private AuditMerkleStore merkleStore;
+
+    @InjectMocks
+    private AuditBlockchainService blockchainService;
+
+    private MockRestServiceServer blockchain;
+    private AuditMerkleBatch batch;
+    private String anchoredRoot;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(blockchainService, "blockchainServiceUrl", "http://blockchain");
+        blockchain = MockRestServiceServer.bindTo(
+                (RestTemplate) ReflectionTestUtils.getField(blockchainService, "restTemplate")).build();
+
+        // Id 2 committed late, so the leaves were appended as 1, 3, 2
+        anchoredRoot = root(log(1L), log(3L), log(2L));
+        batch = new AuditMerkleBatch();
+        batch.setId(9L);
+        batch.setStatus(AuditMerkleBatch.Status.ANCHORED);
+        batch.setLeafCount(3L);
+        batch.setFirstAuditLogId(1L);
+        batch.setLastAuditLogId(3L);
+        batch.setRootHash(anchoredRoot);
+        batch.setBlockHash("block-1");
+        batch.setOpenedAt(LocalDateTime.of(2026, 1, 1, 10, 0));
+        batch.setClosedAt(LocalDateTime.of(2026, 1, 1, 11, 0));
+        lenient().when(batchRepository.findById(9L)).thenReturn(Optional.of(batch));
+        lenient().when(merkleStore.findLeafIndexes(9L)).thenReturn(Map.of(1L, 0L, 3L, 1L, 2L, 2L));
+    }
+
+    @Test
+    void testVerifyBatchIntegrity_RecomputesRootInLeafOrder() {
+        // Given
+        expectChainHoldsRoot(anchoredRoot);
+
+        // When
+        boolean valid = blockchainService.verifyBatchIntegrity("AUDIT-MERKLE-9", List.of(log(1L), log(2L), log(3L)));
+
+        // Then
+        assertTrue(valid);
+        blockchain.verify();
+    }
+
+    @Test
+    void testVerifyBatchIntegrity_TamperedLogWithRewrittenLocalRoot_Fails() {
+        // Given: a row was edited and the root stored next to it rewritten to match
+        AuditLog tampered = log(2L);
+        tampered.setDescription("edited");
+        batch.setRootHash(root(log(1L), log(3L), tampered));
+        expectChainHoldsRoot(anchoredRoot);
+
+        // When
+        boolean valid = blockchainService.verifyBatchIntegrity("AUDIT-MERKLE-9", List.of(log(1L), tampered, log(3L)));
+
+        // Then
+        assertFalse(valid);
+        blockchain.verify();
+    }
+
+    @Test
+    void testVerifyBatchIntegrity_LogWithoutLeafInBatch_Fails() {
+        // When
+        boolean valid = blockchainService.verifyBatchIntegrity("AUDIT-MERKLE-9", List.of(log(1L), log(2L), log(4L)));
+
+        // Then
+        assertFalse(valid);
+        blockchain.verify();
+    }
+
+    @Test
+    void testVerifyBatchIntegrity_NotYetAnchored_Fails() {
+        // Given
+        batch.setStatus(AuditMerkleBatch.Status.CLOSED);
+        batch.setBlockHash(null);
+
+        // When
+        boolean valid = blockchainService.verifyBatchIntegrity("AUDIT-MERKLE-9", List.of(log(1L), log(2L), log(3L)));
+
+        // Then
+        assertFalse(valid);
+        verifyNoInteractions(merkleStore);
+        blockchain.verify();
+    }
+
+    /**
+     * Stands in for blockchain-service: the block only matches anchor data carrying {@code root}.
+     */
+    private void expectChainHoldsRoot(String root) {
+        blockchain.expect(requestTo(VERIFY_URL))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(request -> {
+                    String body = ((MockClientHttpRequest) request).getBodyAsString();
+                    boolean matches = body.contains("\"merkleRoot\":\"" + root + "\"");
+                    return withSuccess(String.valueOf(matches), MediaType.APPLICATION_JSON).createResponse(request);
+                });
+    }
+
+    private static String root(AuditLog... leaves) {
+        MerkleFrontier frontier = new MerkleFrontier();
+        for (AuditLog leaf : leaves) {
+            frontier.append(AuditLeafEncoder.leafHash(leaf), (level, index, hash) -> { });
+        }
+        return HexFormat.of().formatHex(frontier.root());
+    }
+
+    private static AuditLog log(Long id) {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setId(id);
+        auditLog.setEventId("event-" + id);
+        return auditLog;
+    }
+}
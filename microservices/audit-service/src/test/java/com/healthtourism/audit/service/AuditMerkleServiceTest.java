@@ -0,0 +1,127 @@
+package com.healthtourism.audit.service;
+
+import com.healthtourism.audit.entity.AuditLog;
+import com.healthtourism.audit.entity.AuditMerkleBatch;
+import com.healthtourism.audit.repository.AuditLogRepository;
+import com.healthtourism.audit.repository.AuditMerkleBatchRepository;
+import com.healthtourism.audit.repository.AuditMerkleStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuditMerkleServiceTest {
+
+    @Mock
+    private AuditLogRepository auditLogRepository;
+
+    @Mock
+    private AuditMerkleBatchRepository batchRepository;
+
+    @Mock
+    private AuditMerkleStore merkleStore;
+
+    @InjectMocks
+    private AuditMerkleService merkleService;
+
+    private final List<Long> appendedLeaves = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(merkleService, "merkleEnabled", true);
+        ReflectionTestUtils.setField(merkleService, "pageSize", 1000);
+        ReflectionTestUtils.setField(merkleService, "gapTimeoutMs", 600_000L);
+        ReflectionTestUtils.setField(merkleService, "gapRescanIds", 10_000L);
+        ReflectionTestUtils.setField(merkleService, "maxGaps", 100_000);
+
+        AuditMerkleBatch open = new AuditMerkleBatch();
+        open.setId(1L);
+        open.setStatus(AuditMerkleBatch.Status.OPEN);
+        open.setLeafCount(0L);
+        when(batchRepository.findFirstByStatusOrderByIdDesc(AuditMerkleBatch.Status.OPEN))
+                .thenReturn(Optional.of(open));
+        when(merkleStore.findUnappendedAuditLogIds(anyLong(), anyLong())).thenReturn(List.of());
+        doAnswer(invocation -> {
+            List<AuditMerkleStore.Node> nodes = invocation.getArgument(1);
+            nodes.stream().filter(node -> node.level() == 0).forEach(node -> appendedLeaves.add(node.auditLogId()));
+            return null;
+        }).when(merkleStore).append(anyLong(), anyList(), anyLong(), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    void testAppendNewLogs_AppendsRowThatCommitsAfterItsIdWasScanned() {
+        // Given: id 2 is allocated but not yet committed when ids 1..3 are scanned
+        when(auditLogRepository.findMaxId()).thenReturn(3L);
+        when(auditLogRepository.findByIdBetweenOrderByIdAsc(eq(1L), eq(3L), any(Pageable.class)))
+                .thenReturn(List.of(log(1L), log(3L)));
+        merkleService.appendNewLogs(); // Records the high-water mark
+        merkleService.appendNewLogs(); // Appends 1 and 3, remembers 2 as a gap
+
+        // When
+        when(auditLogRepository.findAllById(List.of(2L))).thenReturn(List.of(log(2L)));
+        merkleService.appendNewLogs();
+
+        // Then
+        assertEquals(List.of(1L, 3L, 2L), appendedLeaves);
+    }
+
+    @Test
+    void testAppendNewLogs_ForgetsGapsAfterTimeout() {
+        // Given
+        ReflectionTestUtils.setField(merkleService, "gapTimeoutMs", -1L);
+        when(auditLogRepository.findMaxId()).thenReturn(3L);
+        when(auditLogRepository.findByIdBetweenOrderByIdAsc(eq(1L), eq(3L), any(Pageable.class)))
+                .thenReturn(List.of(log(1L), log(3L)));
+        when(auditLogRepository.findAllById(List.of(2L))).thenReturn(List.of());
+        merkleService.appendNewLogs();
+        merkleService.appendNewLogs();
+
+        // When: the first re-check finds nothing and the gap has timed out
+        merkleService.appendNewLogs();
+        merkleService.appendNewLogs();
+
+        // Then
+        verify(auditLogRepository, times(1)).findAllById(List.of(2L));
+        assertEquals(List.of(1L, 3L), appendedLeaves);
+    }
+
+    @Test
+    void testAppendNewLogs_RecoversUnappendedRowsAfterRestart() {
+        // Given: the open batch already covers ids up to 10, but 7 never got a leaf
+        AuditMerkleBatch open = new AuditMerkleBatch();
+        open.setId(1L);
+        open.setStatus(AuditMerkleBatch.Status.OPEN);
+        open.setLeafCount(0L);
+        open.setLastAuditLogId(10L);
+        when(batchRepository.findFirstByStatusOrderByIdDesc(AuditMerkleBatch.Status.OPEN))
+                .thenReturn(Optional.of(open));
+        when(merkleStore.findUnappendedAuditLogIds(0L, 10L)).thenReturn(List.of(7L));
+        when(auditLogRepository.findAllById(List.of(7L))).thenReturn(List.of(log(7L)));
+
+        // When
+        merkleService.appendNewLogs();
+
+        // Then
+        assertEquals(List.of(7L), appendedLeaves);
+    }
+
+    private static AuditLog log(Long id) {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setId(id);
+        auditLog.setEventId("event-" + id);
+        return auditLog;
+    }
+}
@@ -0,0 +1,50 @@
+package com.healthtourism.audit.writer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditRingBufferTest {
+
+    @Test
+    void testOfferAndDrain_RejectsWhenFull() {
+        // Given
+        AuditRingBuffer<String> buffer = new AuditRingBuffer<>(4);
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer("log-" + i));
+        }
+
+        // Then
+        assertFalse(buffer.offer("overflow"));
+        List<String> drained = new ArrayList<>();
+        assertEquals(4, buffer.drainTo(drained, 10));
+        assertEquals(List.of("log-0", "log-1", "log-2", "log-3"), drained);
+        assertTrue(buffer.offer("after-drain"));
+    }
+
+    @Test
+    void testSpillFile_TruncatesWhenCommitted(@TempDir Path dir) throws Exception {
+        // Given
+        try (AuditSpillFile spill = new AuditSpillFile(dir.resolve("spill.log"))) {
+            spill.append(List.of("{\"a\":1}", "{\"b\":2}"));
+
+            // When
+            AuditSpillFile.Segment first = spill.readUncommitted(1);
+            spill.commit(first.endOffset());
+            AuditSpillFile.Segment rest = spill.readUncommitted(10);
+            spill.commit(rest.endOffset());
+
+            // Then
+            assertEquals(List.of("{\"a\":1}"), first.lines());
+            assertEquals(List.of("{\"b\":2}"), rest.lines());
+            assertEquals(0, spill.backlogBytes());
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.healthtourism.blockchain.controller;
 
 import com.healthtourism.blockchain.entity.BlockchainRecord;
 import com.healthtourism.blockchain.service.BlockchainService;
+import com.healthtourism.blockchain.service.ChainVerificationReport;
+import com.healthtourism.blockchain.service.ChainVerificationService;
 import com.healthtourism.blockchain.service.IPFSService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +12,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/blockchain")
@@ -19,6 +22,9 @@ public class BlockchainController {
     @Autowired
     private BlockchainService blockchainService;
     
+    @Autowired
+    private ChainVerificationService chainVerificationService;
+    
     @Autowired(required = false)
     private IPFSService ipfsService;
     
@@ -29,7 +35,7 @@ public class BlockchainController {
     private ObjectMapper objectMapper;
     
     @PostMapping("/create")
-    public ResponseEntity<BlockchainRecord> createBlock(
+    public CompletableFuture<ResponseEntity<BlockchainRecord>> createBlock(
             @RequestBody Map<String, Object> data,
             @RequestParam BlockchainRecord.RecordType recordType,
             @RequestParam String recordId,
@@ -55,7 +61,9 @@ public class BlockchainController {
             dataReference = "off-chain://" + recordType + "/" + recordId;
         }
         
-        return ResponseEntity.ok(blockchainService.createBlock(data, recordType, recordId, userId, dataReference));
+        // Request thread is released while the sequencer group-commits the block
+        return blockchainService.createBlockAsync(data, recordType, recordId, userId, dataReference)
+                .thenApply(ResponseEntity::ok);
     }
     
     /**
@@ -147,6 +155,23 @@ public class BlockchainController {
         return ResponseEntity.ok(blockchainService.verifyChainIntegrity());
     }
     
+    /**
+     * Run verification (incremental from the last checkpoint unless full=true) and return the report
+     */
+    @PostMapping("/verify/run")
+    public ResponseEntity<ChainVerificationReport> runChainVerification(
+            @RequestParam(required = false, defaultValue = "false") boolean full) {
+        return ResponseEntity.ok(chainVerificationService.verify(full));
+    }
+    
+    /**
+     * Progress of the running verification, or the outcome of the last one
+     */
+    @GetMapping("/verify/report")
+    public ResponseEntity<ChainVerificationReport> getChainVerificationReport() {
+        return ResponseEntity.ok(chainVerificationService.getReport());
+    }
+    
     /**
      * Store record on Polygon Layer 2 (cost-effective)
      */
@@ -27,7 +27,7 @@ public class BlockchainRecord {
     @Column(nullable = false)
     private String previousHash; // Previous block hash
     
-    @Column(nullable = false)
+    @Column(nullable = false, unique = true)
     private Long blockIndex;
     
     @Column(nullable = false)
@@ -0,0 +1,35 @@
+package com.healthtourism.blockchain.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Chain Verification Checkpoint
+ * Signed marker that every block up to blockIndex was verified and ends in blockHash
+ */
+@Entity
+@Table(name = "chain_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChainCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false, unique = true)
+    private Long blockIndex;
+    
+    @Column(nullable = false)
+    private String blockHash;
+    
+    @Column(nullable = false)
+    private LocalDateTime verifiedAt;
+    
+    @Column(nullable = false)
+    private String signature; // HMAC-SHA256 over blockIndex, blockHash and verifiedAt
+}
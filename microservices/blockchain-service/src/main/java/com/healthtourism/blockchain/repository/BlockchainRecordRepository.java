@@ -1,6 +1,7 @@
 package com.healthtourism.blockchain.repository;
 
 import com.healthtourism.blockchain.entity.BlockchainRecord;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -14,4 +15,8 @@ public interface BlockchainRecordRepository extends JpaRepository<BlockchainReco
     List<BlockchainRecord> findByRecordTypeOrderByBlockIndexDesc(BlockchainRecord.RecordType recordType);
     Optional<BlockchainRecord> findTopByOrderByBlockIndexDesc();
     List<BlockchainRecord> findAllByOrderByBlockIndexAsc();
+    Optional<BlockchainRecord> findByBlockIndex(Long blockIndex);
+    
+    // Keyset page for chain verification
+    List<BlockchainRecord> findByBlockIndexGreaterThanOrderByBlockIndexAsc(Long blockIndex, Pageable pageable);
 }
@@ -0,0 +1,12 @@
+package com.healthtourism.blockchain.repository;
+
+import com.healthtourism.blockchain.entity.ChainCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ChainCheckpointRepository extends JpaRepository<ChainCheckpoint, Long> {
+    Optional<ChainCheckpoint> findTopByOrderByBlockIndexDesc();
+}
@@ -0,0 +1,57 @@
+package com.healthtourism.blockchain.service;
+
+import com.healthtourism.blockchain.entity.BlockchainRecord;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Block hash and signature functions shared by block creation and chain verification.
+ */
+final class BlockHasher {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private BlockHasher() {
+    }
+
+    /**
+     * Calculate block hash (includes dataHash, not full data - off-chain storage optimization)
+     */
+    static String blockHash(BlockchainRecord block) {
+        String data = block.getPreviousHash() +
+                     block.getBlockIndex() +
+                     block.getRecordType() +
+                     block.getRecordId() +
+                     block.getDataHash() + // Use hash instead of full data (off-chain)
+                     (block.getDataReference() != null ? block.getDataReference() : "") +
+                     block.getTimestamp().toString();
+        return sha256Hex(data);
+    }
+
+    /**
+     * Simplified signature - in production use proper digital signature (RSA, ECDSA, etc.)
+     */
+    static String signature(BlockchainRecord block) {
+        return sha256Hex(block.getBlockHash() + block.getUserId() + block.getTimestamp().toString());
+    }
+
+    static String sha256Hex(String data) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return toHex(digest.digest(data.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,188 @@
+package com.healthtourism.blockchain.service;
+
+import com.healthtourism.blockchain.entity.BlockchainRecord;
+import com.healthtourism.blockchain.repository.BlockchainRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Single writer that owns the head of the chain.
+ *
+ * Producers hand in blocks whose data hash and metadata are already computed
+ * and get a future back. One sequencer thread drains whatever is queued (up to
+ * {@code blockchain.sequencer.max-batch}), links each block to the in-memory
+ * head (index, previous hash, timestamp, block hash, signature) and commits the
+ * whole group in a single transaction. Nothing reads the previous block from
+ * the database on the write path, and concurrent producers can no longer race
+ * on the same parent.
+ *
+ * If a commit fails every future in the group fails and the head is reloaded
+ * from the database, so the next group links to what is actually persisted.
+ * The unique block index backs this up if a second instance ever writes.
+ */
+@Component
+public class BlockSequencer implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(BlockSequencer.class);
+
+    private final BlockCommitter committer;
+    private final Supplier<Optional<BlockchainRecord>> headLoader;
+    private final BlockingQueue<PendingBlock> queue;
+    private final int maxBatch;
+
+    private volatile boolean running;
+    private Thread sequencerThread;
+
+    // Owned by the sequencer thread
+    private long headIndex;
+    private String headHash;
+
+    @Autowired
+    public BlockSequencer(BlockchainRecordRepository recordRepository,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${blockchain.sequencer.queue-capacity:4096}") int queueCapacity,
+                          @Value("${blockchain.sequencer.max-batch:256}") int maxBatch) {
+        this(blocks -> new TransactionTemplate(transactionManager).execute(status -> recordRepository.saveAll(blocks)),
+                recordRepository::findTopByOrderByBlockIndexDesc, queueCapacity, maxBatch);
+    }
+
+    BlockSequencer(BlockCommitter committer, Supplier<Optional<BlockchainRecord>> headLoader,
+                   int queueCapacity, int maxBatch) {
+        this.committer = committer;
+        this.headLoader = headLoader;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatch = maxBatch;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        loadHead();
+        running = true;
+        sequencerThread = new Thread(this::run, "block-sequencer");
+        sequencerThread.setDaemon(true);
+        sequencerThread.start();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (sequencerThread != null) {
+            sequencerThread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    /**
+     * Queue a block for sequencing. Blocks the caller while the queue is full.
+     *
+     * @param block block with record fields, data hash and metadata set
+     * @return completes with the persisted block once its group is committed
+     */
+    public CompletableFuture<BlockchainRecord> submit(BlockchainRecord block) {
+        CompletableFuture<BlockchainRecord> future = new CompletableFuture<>();
+        if (!running) {
+            future.completeExceptionally(new IllegalStateException("Block sequencer is not running"));
+            return future;
+        }
+        try {
+            queue.put(new PendingBlock(block, future));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private void run() {
+        List<PendingBlock> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingBlock first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                sequenceAndCommit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.error("Block sequencer error: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+        PendingBlock left;
+        while ((left = queue.poll()) != null) {
+            left.future().completeExceptionally(new IllegalStateException("Block sequencer stopped"));
+        }
+    }
+
+    private void sequenceAndCommit(List<PendingBlock> batch) {
+        List<BlockchainRecord> blocks = new ArrayList<>(batch.size());
+        long index = headIndex;
+        String previousHash = headHash;
+        for (PendingBlock pending : batch) {
+            BlockchainRecord block = pending.block();
+            block.setBlockIndex(++index);
+            block.setPreviousHash(previousHash);
+            // Postgres keeps microseconds; truncating keeps the hash reproducible after a reload
+            block.setTimestamp(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+            block.setBlockHash(BlockHasher.blockHash(block));
+            block.setSignature(BlockHasher.signature(block));
+            previousHash = block.getBlockHash();
+            blocks.add(block);
+        }
+
+        List<BlockchainRecord> saved;
+        try {
+            saved = committer.commit(blocks);
+        } catch (RuntimeException e) {
+            for (PendingBlock pending : batch) {
+                pending.future().completeExceptionally(e);
+            }
+            loadHead();
+            return;
+        }
+        headIndex = index;
+        headHash = previousHash;
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).future().complete(saved.get(i));
+        }
+    }
+
+    private void loadHead() {
+        Optional<BlockchainRecord> head = headLoader.get();
+        headIndex = head.map(BlockchainRecord::getBlockIndex).orElse(-1L);
+        headHash = head.map(BlockchainRecord::getBlockHash).orElse("0");
+    }
+
+    /**
+     * Persists one group of linked blocks atomically, returning them in order.
+     */
+    @FunctionalInterface
+    interface BlockCommitter {
+        List<BlockchainRecord> commit(List<BlockchainRecord> blocks);
+    }
+
+    private record PendingBlock(BlockchainRecord block, CompletableFuture<BlockchainRecord> future) {
+    }
+}
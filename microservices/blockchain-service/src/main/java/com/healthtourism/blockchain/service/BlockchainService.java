@@ -5,14 +5,12 @@ import com.healthtourism.blockchain.repository.BlockchainRecordRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Blockchain Service for Data Integrity
@@ -30,21 +28,29 @@ public class BlockchainService {
     @Autowired
     private ObjectMapper objectMapper;
     
-    @Transactional
+    @Autowired
+    private BlockSequencer blockSequencer;
+    
+    @Autowired
+    private ChainVerificationService chainVerificationService;
+    
     public BlockchainRecord createBlock(Object data, BlockchainRecord.RecordType recordType, String recordId, String userId, String dataReference) {
-        // Get previous block
-        BlockchainRecord previousBlock = getLatestBlock();
-        String previousHash = previousBlock != null ? previousBlock.getBlockHash() : "0";
-        Long blockIndex = previousBlock != null ? previousBlock.getBlockIndex() + 1 : 0L;
-        
-        // Create new block
+        try {
+            return createBlockAsync(data, recordType, recordId, userId, dataReference).join();
+        } catch (CompletionException e) {
+            throw new RuntimeException("Failed to create block", e.getCause());
+        }
+    }
+    
+    /**
+     * Hash the payload on the caller's thread and hand the block to the sequencer,
+     * which links it to the chain head and group-commits it
+     */
+    public CompletableFuture<BlockchainRecord> createBlockAsync(Object data, BlockchainRecord.RecordType recordType, String recordId, String userId, String dataReference) {
         BlockchainRecord newBlock = new BlockchainRecord();
-        newBlock.setPreviousHash(previousHash);
-        newBlock.setBlockIndex(blockIndex);
         newBlock.setRecordType(recordType);
         newBlock.setRecordId(recordId);
         newBlock.setUserId(userId);
-        newBlock.setTimestamp(LocalDateTime.now());
         newBlock.setIsValid(true);
         newBlock.setDataReference(dataReference); // Off-chain storage reference
         
@@ -69,24 +75,12 @@ public class BlockchainService {
             if (!metadataMap.isEmpty()) {
                 newBlock.setMetadata(objectMapper.writeValueAsString(metadataMap));
             }
-            
-            // Calculate block hash (includes dataHash, not full data)
-            String blockHash = calculateHash(newBlock);
-            newBlock.setBlockHash(blockHash);
-            
-            // Generate signature (simplified - in production use proper digital signature)
-            String signature = generateSignature(newBlock);
-            newBlock.setSignature(signature);
-            
-            // Validate block
-            if (validateBlock(newBlock, previousBlock)) {
-                return recordRepository.save(newBlock);
-            } else {
-                throw new RuntimeException("Block validation failed");
-            }
         } catch (Exception e) {
-            throw new RuntimeException("Failed to create block", e);
+            return CompletableFuture.failedFuture(e);
         }
+        
+        // Index, previous hash, block hash and signature are assigned by the sequencer
+        return blockSequencer.submit(newBlock);
     }
     
     public List<BlockchainRecord> getRecordsByUser(String userId) {
@@ -102,109 +96,18 @@ public class BlockchainService {
             .orElseThrow(() -> new RuntimeException("Block not found"));
     }
     
+    /**
+     * Verify blocks added since the last checkpoint (see {@link ChainVerificationService})
+     * Only a completed valid run counts; a run still in progress is not yet valid
+     */
     public Boolean verifyChainIntegrity() {
-        List<BlockchainRecord> allBlocks = recordRepository.findAllByOrderByBlockIndexAsc();
-        
-        if (allBlocks.isEmpty()) {
-            return true; // Empty chain is valid
-        }
-        
-        for (int i = 1; i < allBlocks.size(); i++) {
-            BlockchainRecord currentBlock = allBlocks.get(i);
-            BlockchainRecord previousBlock = allBlocks.get(i - 1);
-            
-            if (!validateBlock(currentBlock, previousBlock)) {
-                return false;
-            }
-        }
-        
-        return true;
+        return chainVerificationService.verify(false).isValid();
     }
     
     /**
      * Calculate data hash (public method for verification)
      */
     public String calculateDataHash(String data) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(data.getBytes(StandardCharsets.UTF_8));
-            return bytesToHex(hash);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to calculate data hash", e);
-        }
-    }
-    
-    private BlockchainRecord getLatestBlock() {
-        return recordRepository.findTopByOrderByBlockIndexDesc()
-            .orElse(null);
-    }
-    
-    /**
-     * Calculate block hash (includes dataHash, not full data - off-chain storage optimization)
-     */
-    private String calculateHash(BlockchainRecord block) {
-        try {
-            String data = block.getPreviousHash() + 
-                         block.getBlockIndex() + 
-                         block.getRecordType() + 
-                         block.getRecordId() + 
-                         block.getDataHash() + // Use hash instead of full data (off-chain)
-                         (block.getDataReference() != null ? block.getDataReference() : "") +
-                         block.getTimestamp().toString();
-            
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(data.getBytes(StandardCharsets.UTF_8));
-            return bytesToHex(hash);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to calculate hash", e);
-        }
-    }
-    
-    /**
-     * Convert bytes to hex string (helper method)
-     */
-    private String bytesToHex(byte[] bytes) {
-        StringBuilder hexString = new StringBuilder();
-        for (byte b : bytes) {
-            String hex = Integer.toHexString(0xff & b);
-            if (hex.length() == 1) {
-                hexString.append('0');
-            }
-            hexString.append(hex);
-        }
-        return hexString.toString();
-    }
-    
-    private String generateSignature(BlockchainRecord block) {
-        // Simplified signature - in production use proper digital signature (RSA, ECDSA, etc.)
-        try {
-            String data = block.getBlockHash() + block.getUserId() + block.getTimestamp().toString();
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] signature = digest.digest(data.getBytes(StandardCharsets.UTF_8));
-            return bytesToHex(signature);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to generate signature", e);
-        }
-    }
-    
-    private Boolean validateBlock(BlockchainRecord block, BlockchainRecord previousBlock) {
-        // Validate hash
-        String calculatedHash = calculateHash(block);
-        if (!calculatedHash.equals(block.getBlockHash())) {
-            return false;
-        }
-        
-        // Validate previous hash link
-        if (previousBlock != null && !block.getPreviousHash().equals(previousBlock.getBlockHash())) {
-            return false;
-        }
-        
-        // Validate signature
-        String calculatedSignature = generateSignature(block);
-        if (!calculatedSignature.equals(block.getSignature())) {
-            return false;
-        }
-        
-        return true;
+        return BlockHasher.sha256Hex(data);
     }
 }
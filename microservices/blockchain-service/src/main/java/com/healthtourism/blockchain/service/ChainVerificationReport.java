@@ -0,0 +1,40 @@
+package com.healthtourism.blockchain.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress and outcome of a chain verification run.
+ *
+ * @param startIndex     first block index checked (block after the checkpoint)
+ * @param verifiedIndex  highest index verified so far (-1 if none)
+ * @param targetIndex    chain head when the run started
+ * @param failedIndex    first invalid block, or null
+ */
+public record ChainVerificationReport(
+        Status status,
+        long startIndex,
+        long verifiedIndex,
+        long targetIndex,
+        long blocksVerified,
+        double blocksPerSecond,
+        double progressPercent,
+        Long failedIndex,
+        String failureReason,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt) {
+
+    public enum Status {
+        NOT_RUN,
+        RUNNING,
+        VALID,
+        INVALID
+    }
+
+    public boolean isValid() {
+        return status == Status.VALID;
+    }
+
+    static ChainVerificationReport notRun() {
+        return new ChainVerificationReport(Status.NOT_RUN, 0, -1, -1, 0, 0, 0, null, null, null, null);
+    }
+}
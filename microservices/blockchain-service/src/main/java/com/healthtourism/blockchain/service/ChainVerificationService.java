@@ -0,0 +1,284 @@
+package com.healthtourism.blockchain.service;
+
+import com.healthtourism.blockchain.entity.BlockchainRecord;
+import com.healthtourism.blockchain.entity.ChainCheckpoint;
+import com.healthtourism.blockchain.repository.BlockchainRecordRepository;
+import com.healthtourism.blockchain.repository.ChainCheckpointRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Chain Verification Service
+ * Incrementally verifies the hash chain from the last signed checkpoint
+ *
+ * Blocks are read in keyset pages (block index > last verified index), so memory
+ * is bounded by the page size. Within a page, hashes and signatures are
+ * recomputed in parallel by fork-join over contiguous segments; every block,
+ * including the first of each segment, is checked against the hash of the block
+ * before it, and the first block of a page against the last verified hash. After
+ * each page an HMAC-signed checkpoint records "verified up to index N with hash H",
+ * so the next run starts there instead of at genesis.
+ */
+@Service
+public class ChainVerificationService implements InitializingBean {
+    
+    private static final Logger log = LoggerFactory.getLogger(ChainVerificationService.class);
+    
+    @Autowired
+    private BlockchainRecordRepository recordRepository;
+    
+    @Autowired
+    private ChainCheckpointRepository checkpointRepository;
+    
+    @Value("${blockchain.verification.page-size:10000}")
+    private int pageSize;
+    
+    @Value("${blockchain.verification.segment-size:512}")
+    private int segmentSize;
+    
+    @Value("${blockchain.checkpoint.secret}")
+    private String checkpointSecret;
+    
+    private final ReentrantLock runLock = new ReentrantLock();
+    private volatile ChainVerificationReport lastReport = ChainVerificationReport.notRun();
+    
+    /**
+     * Refuse to start without a checkpoint secret; a well-known one would let anyone
+     * forge a checkpoint and skip verification of the blocks before it.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        if (checkpointSecret == null || checkpointSecret.isBlank()) {
+            throw new IllegalStateException(
+                    "blockchain.checkpoint.secret is not set (BLOCKCHAIN_CHECKPOINT_SECRET)");
+        }
+    }
+    
+    /**
+     * Verify blocks added since the last checkpoint.
+     * If a run is already in progress, returns its current progress instead of starting another.
+     *
+     * @param full ignore checkpoints and re-verify from genesis
+     */
+    public ChainVerificationReport verify(boolean full) {
+        if (!runLock.tryLock()) {
+            return lastReport;
+        }
+        try {
+            return run(full);
+        } finally {
+            runLock.unlock();
+        }
+    }
+    
+    /**
+     * Latest progress of the running verification, or the outcome of the last one
+     */
+    public ChainVerificationReport getReport() {
+        return lastReport;
+    }
+    
+    private ChainVerificationReport run(boolean full) {
+        Progress progress = new Progress();
+        progress.targetIndex = recordRepository.findTopByOrderByBlockIndexDesc()
+                .map(BlockchainRecord::getBlockIndex).orElse(-1L);
+        
+        long lastIndex = -1;
+        String lastHash = "0"; // Genesis previous hash
+        Optional<ChainCheckpoint> checkpoint = full ? Optional.empty() : checkpointRepository.findTopByOrderByBlockIndexDesc();
+        if (checkpoint.isPresent()) {
+            ChainCheckpoint cp = checkpoint.get();
+            if (!sign(cp.getBlockIndex(), cp.getBlockHash(), cp.getVerifiedAt()).equals(cp.getSignature())) {
+                log.warn("Checkpoint at block {} has an invalid signature; verifying from genesis", cp.getBlockIndex());
+            } else {
+                Optional<BlockchainRecord> anchor = recordRepository.findByBlockIndex(cp.getBlockIndex());
+                if (anchor.isEmpty() || !cp.getBlockHash().equals(anchor.get().getBlockHash())) {
+                    progress.startIndex = cp.getBlockIndex();
+                    return publish(progress.finish(new Failure(cp.getBlockIndex(), "Block differs from verified checkpoint")));
+                }
+                lastIndex = cp.getBlockIndex();
+                lastHash = cp.getBlockHash();
+            }
+        }
+        progress.startIndex = lastIndex + 1;
+        progress.verifiedIndex = lastIndex;
+        publish(progress.snapshot());
+        
+        while (lastIndex < progress.targetIndex) {
+            List<BlockchainRecord> page = recordRepository.findByBlockIndexGreaterThanOrderByBlockIndexAsc(
+                    lastIndex, PageRequest.of(0, pageSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            Failure failure = ForkJoinPool.commonPool().invoke(
+                    new SegmentTask(page, 0, page.size(), lastIndex, lastHash, segmentSize));
+            if (failure != null) {
+                progress.blocksVerified += failure.index() - lastIndex - 1;
+                return publish(progress.finish(failure));
+            }
+            
+            BlockchainRecord tail = page.get(page.size() - 1);
+            lastIndex = tail.getBlockIndex();
+            lastHash = tail.getBlockHash();
+            saveCheckpoint(lastIndex, lastHash);
+            progress.verifiedIndex = lastIndex;
+            progress.blocksVerified += page.size();
+            publish(progress.snapshot());
+        }
+        return publish(progress.finish(null));
+    }
+    
+    private void saveCheckpoint(long blockIndex, String blockHash) {
+        LocalDateTime verifiedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        ChainCheckpoint checkpoint = new ChainCheckpoint();
+        checkpoint.setBlockIndex(blockIndex);
+        checkpoint.setBlockHash(blockHash);
+        checkpoint.setVerifiedAt(verifiedAt);
+        checkpoint.setSignature(sign(blockIndex, blockHash, verifiedAt));
+        checkpointRepository.save(checkpoint);
+    }
+    
+    private String sign(long blockIndex, String blockHash, LocalDateTime verifiedAt) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(checkpointSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            String payload = blockIndex + "|" + blockHash + "|" + verifiedAt;
+            return HexFormat.of().formatHex(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to sign checkpoint", e);
+        }
+    }
+    
+    private ChainVerificationReport publish(ChainVerificationReport report) {
+        lastReport = report;
+        if (report.status() == ChainVerificationReport.Status.INVALID) {
+            log.error("Chain verification failed at block {}: {}", report.failedIndex(), report.failureReason());
+        }
+        return report;
+    }
+    
+    /**
+     * Checks one block against its predecessor; returns the reason it is invalid, or null
+     */
+    static String checkBlock(BlockchainRecord block, long expectedIndex, String expectedPreviousHash) {
+        if (block.getBlockIndex() != expectedIndex) {
+            return "Expected block " + expectedIndex + " but found " + block.getBlockIndex();
+        }
+        if (!expectedPreviousHash.equals(block.getPreviousHash())) {
+            return "Previous hash does not link to block " + (expectedIndex - 1);
+        }
+        if (!constantTimeEquals(BlockHasher.blockHash(block), block.getBlockHash())) {
+            return "Block hash mismatch";
+        }
+        if (!constantTimeEquals(BlockHasher.signature(block), block.getSignature())) {
+            return "Signature mismatch";
+        }
+        return null;
+    }
+    
+    private static boolean constantTimeEquals(String expected, String actual) {
+        return actual != null && MessageDigest.isEqual(
+                expected.getBytes(StandardCharsets.UTF_8), actual.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    record Failure(long index, String reason) {
+    }
+    
+    /**
+     * Verifies page[from, to); returns the earliest failure in the range, or null
+     */
+    static final class SegmentTask extends RecursiveTask<Failure> {
+        private final List<BlockchainRecord> page;
+        private final int from;
+        private final int to;
+        private final long pagePreviousIndex;
+        private final String pagePreviousHash;
+        private final int segmentSize;
+        
+        SegmentTask(List<BlockchainRecord> page, int from, int to,
+                    long pagePreviousIndex, String pagePreviousHash, int segmentSize) {
+            this.page = page;
+            this.from = from;
+            this.to = to;
+            this.pagePreviousIndex = pagePreviousIndex;
+            this.pagePreviousHash = pagePreviousHash;
+            this.segmentSize = segmentSize;
+        }
+        
+        @Override
+        protected Failure compute() {
+            if (to - from > segmentSize) {
+                int mid = (from + to) >>> 1;
+                SegmentTask right = new SegmentTask(page, mid, to, pagePreviousIndex, pagePreviousHash, segmentSize);
+                right.fork();
+                Failure left = new SegmentTask(page, from, mid, pagePreviousIndex, pagePreviousHash, segmentSize).compute();
+                Failure rightFailure = right.join();
+                return left != null ? left : rightFailure;
+            }
+            // Segment boundary: the first block links to the last block of the previous segment
+            long expectedIndex = from == 0 ? pagePreviousIndex + 1 : page.get(from - 1).getBlockIndex() + 1;
+            String expectedPreviousHash = from == 0 ? pagePreviousHash : page.get(from - 1).getBlockHash();
+            for (int i = from; i < to; i++) {
+                BlockchainRecord block = page.get(i);
+                String reason = checkBlock(block, expectedIndex, expectedPreviousHash);
+                if (reason != null) {
+                    return new Failure(expectedIndex, reason);
+                }
+                expectedIndex++;
+                expectedPreviousHash = block.getBlockHash();
+            }
+            return null;
+        }
+    }
+    
+    /**
+     * Mutable run state; published as immutable {@link ChainVerificationReport} snapshots
+     */
+    private static final class Progress {
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private long startIndex;
+        private long verifiedIndex = -1;
+        private long targetIndex = -1;
+        private long blocksVerified;
+        
+        ChainVerificationReport snapshot() {
+            return report(ChainVerificationReport.Status.RUNNING, null, null);
+        }
+        
+        ChainVerificationReport finish(Failure failure) {
+            return failure == null
+                    ? report(ChainVerificationReport.Status.VALID, null, LocalDateTime.now())
+                    : report(ChainVerificationReport.Status.INVALID, failure, LocalDateTime.now());
+        }
+        
+        private ChainVerificationReport report(ChainVerificationReport.Status status, Failure failure, LocalDateTime finishedAt) {
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            long total = targetIndex - startIndex + 1;
+            double percent = total <= 0 ? 100.0 : Math.min(100.0, 100.0 * blocksVerified / total);
+            return new ChainVerificationReport(status, startIndex, verifiedIndex, targetIndex, blocksVerified,
+                    seconds > 0 ? blocksVerified / seconds : 0, percent,
+                    failure != null ? failure.index() : null, failure != null ? failure.reason() : null,
+                    startedAt, finishedAt);
+        }
+    }
+}
@@ -1,20 +1,23 @@
 package com.healthtourism.blockchain.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.healthtourism.blockchain.entity.BlockchainRecord;
 import com.healthtourism.blockchain.repository.BlockchainRecordRepository;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -23,9 +26,27 @@ class BlockchainServiceOptimizationTest {
     @Mock
     private BlockchainRecordRepository recordRepository;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private BlockchainService blockchainService;
 
+    private BlockSequencer blockSequencer;
+
+    @BeforeEach
+    void setUp() {
+        blockSequencer = new BlockSequencer(recordRepository::saveAll,
+                recordRepository::findTopByOrderByBlockIndexDesc, 16, 16);
+        blockSequencer.afterPropertiesSet();
+        ReflectionTestUtils.setField(blockchainService, "blockSequencer", blockSequencer);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        blockSequencer.destroy();
+    }
+
     @Test
     void testOffChainStorageOptimization() {
         // Given - Large data object
@@ -35,12 +56,7 @@ class BlockchainServiceOptimizationTest {
         largeData.put("hospital", "Medical Center");
         largeData.put("detailedReport", "Very long detailed medical report...".repeat(100)); // Large data
         
-        BlockchainRecord record = new BlockchainRecord();
-        record.setDataHash("hash123");
-        record.setDataReference("s3://bucket/large-data-123.json");
-        
-        when(recordRepository.findTopByOrderByBlockIndexDesc()).thenReturn(Optional.empty());
-        when(recordRepository.save(any(BlockchainRecord.class))).thenReturn(record);
+        when(recordRepository.saveAll(anyIterable())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // When - Create block with off-chain storage
         BlockchainRecord result = blockchainService.createBlock(
@@ -56,8 +72,8 @@ class BlockchainServiceOptimizationTest {
         assertNotNull(result.getDataHash());
         assertNotNull(result.getDataReference());
         // Verify that large data is NOT stored in database (only hash)
-        assertNull(result.getData()); // data field should be null (removed in optimization)
-        verify(recordRepository, times(1)).save(any(BlockchainRecord.class));
+        assertFalse(result.getMetadata().contains("detailedReport")); // metadata keeps only lightweight fields
+        verify(recordRepository, times(1)).saveAll(anyIterable());
     }
 
     @Test
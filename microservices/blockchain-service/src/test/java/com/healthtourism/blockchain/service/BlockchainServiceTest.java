@@ -1,20 +1,23 @@
 package com.healthtourism.blockchain.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.healthtourism.blockchain.entity.BlockchainRecord;
 import com.healthtourism.blockchain.repository.BlockchainRecordRepository;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -23,9 +26,30 @@ class BlockchainServiceTest {
     @Mock
     private BlockchainRecordRepository recordRepository;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private ChainVerificationService chainVerificationService;
+
     @InjectMocks
     private BlockchainService blockchainService;
 
+    private BlockSequencer blockSequencer;
+
+    @BeforeEach
+    void setUp() {
+        blockSequencer = new BlockSequencer(recordRepository::saveAll,
+                recordRepository::findTopByOrderByBlockIndexDesc, 16, 16);
+        blockSequencer.afterPropertiesSet();
+        ReflectionTestUtils.setField(blockchainService, "blockSequencer", blockSequencer);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        blockSequencer.destroy();
+    }
+
     @Test
     void testCreateBlock() {
         // Given
@@ -33,31 +57,54 @@ class BlockchainServiceTest {
         data.put("treatment", "Dental Implant");
         data.put("amount", 5000);
 
-        BlockchainRecord record = new BlockchainRecord();
-        record.setBlockHash("hash123");
-        when(recordRepository.findTopByOrderByBlockIndexDesc()).thenReturn(Optional.empty());
-        when(recordRepository.save(any(BlockchainRecord.class))).thenReturn(record);
+        when(recordRepository.saveAll(anyIterable())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // When
         BlockchainRecord result = blockchainService.createBlock(
-            data, BlockchainRecord.RecordType.MEDICAL_TREATMENT, "123", "1"
+            data, BlockchainRecord.RecordType.MEDICAL_TREATMENT, "123", "1", null
         );
 
         // Then
         assertNotNull(result);
         assertNotNull(result.getBlockHash());
-        verify(recordRepository, times(1)).save(any(BlockchainRecord.class));
+        verify(recordRepository, times(1)).saveAll(anyIterable());
     }
 
     @Test
     void testVerifyChainIntegrity() {
         // Given
-        when(recordRepository.findAllByOrderByBlockIndexAsc()).thenReturn(java.util.Collections.emptyList());
+        when(chainVerificationService.verify(false)).thenReturn(new ChainVerificationReport(
+            ChainVerificationReport.Status.VALID, 0, -1, -1, 0, 0, 100, null, null, null, null));
 
         // When
         Boolean result = blockchainService.verifyChainIntegrity();
 
         // Then
-        assertNotNull(result);
+        assertTrue(result);
+    }
+
+    @Test
+    void testVerifyChainIntegrity_RunInProgress_NotValid() {
+        // Given - another run holds the lock, so its progress is returned
+        when(chainVerificationService.verify(false)).thenReturn(new ChainVerificationReport(
+            ChainVerificationReport.Status.RUNNING, 0, -1, -1, 0, 0, 40, null, null, null, null));
+
+        // When
+        Boolean result = blockchainService.verifyChainIntegrity();
+
+        // Then
+        assertFalse(result);
+    }
+
+    @Test
+    void testVerifyChainIntegrity_NeverRun_NotValid() {
+        // Given
+        when(chainVerificationService.verify(false)).thenReturn(ChainVerificationReport.notRun());
+
+        // When
+        Boolean result = blockchainService.verifyChainIntegrity();
+
+        // Then
+        assertFalse(result);
     }
 }
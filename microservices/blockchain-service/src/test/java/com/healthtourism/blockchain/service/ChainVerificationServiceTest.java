@@ -0,0 +1,157 @@
+package com.healthtourism.blockchain.service;
+
+import com.healthtourism.blockchain.entity.BlockchainRecord;
+import com.healthtourism.blockchain.entity.ChainCheckpoint;
+import com.healthtourism.blockchain.repository.BlockchainRecordRepository;
+import com.healthtourism.blockchain.repository.ChainCheckpointRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChainVerificationServiceTest {
+
+    @Mock
+    private BlockchainRecordRepository recordRepository;
+
+    @Mock
+    private ChainCheckpointRepository checkpointRepository;
+
+    @InjectMocks
+    private ChainVerificationService verificationService;
+
+    private final List<BlockchainRecord> chain = new ArrayList<>();
+    private final List<ChainCheckpoint> checkpoints = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(verificationService, "pageSize", 100);
+        ReflectionTestUtils.setField(verificationService, "segmentSize", 16);
+        ReflectionTestUtils.setField(verificationService, "checkpointSecret", "test-secret");
+
+        String previousHash = "0";
+        for (long i = 0; i < 250; i++) {
+            BlockchainRecord block = new BlockchainRecord();
+            block.setBlockIndex(i);
+            block.setPreviousHash(previousHash);
+            block.setRecordType(BlockchainRecord.RecordType.PAYMENT);
+            block.setRecordId("payment-" + i);
+            block.setUserId("1");
+            block.setDataHash(BlockHasher.sha256Hex("data-" + i));
+            block.setTimestamp(LocalDateTime.of(2024, 1, 1, 0, 0).plusSeconds(i));
+            block.setBlockHash(BlockHasher.blockHash(block));
+            block.setSignature(BlockHasher.signature(block));
+            previousHash = block.getBlockHash();
+            chain.add(block);
+        }
+
+        lenient().when(recordRepository.findTopByOrderByBlockIndexDesc())
+                .thenAnswer(inv -> Optional.of(chain.get(chain.size() - 1)));
+        lenient().when(recordRepository.findByBlockIndexGreaterThanOrderByBlockIndexAsc(anyLong(), any(Pageable.class)))
+                .thenAnswer(inv -> {
+                    long after = inv.getArgument(0);
+                    Pageable pageable = inv.getArgument(1);
+                    return chain.stream().filter(b -> b.getBlockIndex() > after).limit(pageable.getPageSize()).toList();
+                });
+        lenient().when(recordRepository.findByBlockIndex(anyLong()))
+                .thenAnswer(inv -> chain.stream().filter(b -> b.getBlockIndex() == (long) inv.getArgument(0)).findFirst());
+        lenient().when(checkpointRepository.findTopByOrderByBlockIndexDesc())
+                .thenAnswer(inv -> checkpoints.isEmpty() ? Optional.empty() : Optional.of(checkpoints.get(checkpoints.size() - 1)));
+        lenient().when(checkpointRepository.save(any(ChainCheckpoint.class)))
+                .thenAnswer(inv -> {
+                    checkpoints.add(inv.getArgument(0));
+                    return inv.getArgument(0);
+                });
+    }
+
+    @Test
+    void testVerify_ValidChainWritesCheckpointPerPage() {
+        // When
+        ChainVerificationReport report = verificationService.verify(false);
+
+        // Then
+        assertEquals(ChainVerificationReport.Status.VALID, report.status());
+        assertEquals(250, report.blocksVerified());
+        assertEquals(249, report.verifiedIndex());
+        assertEquals(3, checkpoints.size());
+        assertEquals(chain.get(249).getBlockHash(), checkpoints.get(2).getBlockHash());
+    }
+
+    @Test
+    void testVerify_ResumesFromCheckpoint() {
+        // Given
+        verificationService.verify(false);
+
+        // When
+        ChainVerificationReport report = verificationService.verify(false);
+
+        // Then
+        assertTrue(report.isValid());
+        assertEquals(0, report.blocksVerified());
+        assertEquals(250, report.startIndex());
+    }
+
+    @Test
+    void testVerify_DetectsTamperedBlockAcrossSegments() {
+        // Given
+        chain.get(137).setRecordId("tampered");
+
+        // When
+        ChainVerificationReport report = verificationService.verify(false);
+
+        // Then
+        assertEquals(ChainVerificationReport.Status.INVALID, report.status());
+        assertEquals(137L, report.failedIndex());
+        assertEquals(1, checkpoints.size()); // Only the first page was checkpointed
+    }
+
+    @Test
+    void testVerify_IgnoresForgedCheckpoint() {
+        // Given
+        ChainCheckpoint forged = new ChainCheckpoint();
+        forged.setBlockIndex(249L);
+        forged.setBlockHash(chain.get(249).getBlockHash());
+        forged.setVerifiedAt(LocalDateTime.now());
+        forged.setSignature("not-a-valid-hmac");
+        checkpoints.add(forged);
+
+        // When
+        ChainVerificationReport report = verificationService.verify(false);
+
+        // Then
+        assertTrue(report.isValid());
+        assertEquals(0, report.startIndex());
+        assertEquals(250, report.blocksVerified());
+        verify(recordRepository, never()).findByBlockIndex(anyLong());
+    }
+
+    @Test
+    void testAfterPropertiesSet_MissingSecret_FailsStartup() {
+        // Given
+        ReflectionTestUtils.setField(verificationService, "checkpointSecret", " ");
+
+        // When / Then
+        assertThrows(IllegalStateException.class, () -> verificationService.afterPropertiesSet());
+    }
+
+    @Test
+    void testAfterPropertiesSet_WithSecret_Starts() {
+        // When / Then
+        assertDoesNotThrow(() -> verificationService.afterPropertiesSet());
+    }
+}
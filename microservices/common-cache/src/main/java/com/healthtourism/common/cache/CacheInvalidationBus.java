@@ -0,0 +1,95 @@
+package com.healthtourism.common.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+/**
+ * Cache Invalidation Bus
+ * 
+ * Broadcasts L1 invalidations to every node over Redis pub/sub.
+ * Messages from this node are ignored on receipt, since the local L1 was
+ * already updated when the change was made.
+ * 
+ * Message format: {@code nodeId|E|cacheName|key} for a single key,
+ * {@code nodeId|C|cacheName} for a full clear.
+ */
+@Slf4j
+public class CacheInvalidationBus implements MessageListener, InitializingBean, DisposableBean {
+    
+    public static final String DEFAULT_CHANNEL = "cache:invalidation";
+    
+    private final String nodeId = UUID.randomUUID().toString();
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer container;
+    private final String channel;
+    private final List<BiConsumer<String, String>> handlers = new CopyOnWriteArrayList<>();
+    
+    public CacheInvalidationBus(RedisConnectionFactory connectionFactory, String channel) {
+        this.redisTemplate = new StringRedisTemplate(connectionFactory);
+        this.channel = channel;
+        this.container = new RedisMessageListenerContainer();
+        this.container.setConnectionFactory(connectionFactory);
+        this.container.addMessageListener(this, new ChannelTopic(channel));
+    }
+    
+    /**
+     * Register a handler called with (cacheName, key); key is null for a full clear.
+     */
+    public void subscribe(BiConsumer<String, String> handler) {
+        handlers.add(handler);
+    }
+    
+    public void publishEvict(String cacheName, String key) {
+        publish(nodeId + "|E|" + cacheName + "|" + key);
+    }
+    
+    public void publishClear(String cacheName) {
+        publish(nodeId + "|C|" + cacheName);
+    }
+    
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (Exception e) {
+            // Other nodes fall back to their L1 TTL
+            log.warn("Failed to publish cache invalidation: {}", e.getMessage());
+        }
+    }
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\\|", 4);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        String key = "E".equals(parts[1]) && parts.length == 4 ? parts[3] : null;
+        for (BiConsumer<String, String> handler : handlers) {
+            handler.accept(parts[2], key);
+        }
+    }
+    
+    @Override
+    public void afterPropertiesSet() {
+        container.afterPropertiesSet();
+        container.start();
+    }
+    
+    @Override
+    public void destroy() throws Exception {
+        container.destroy();
+    }
+}
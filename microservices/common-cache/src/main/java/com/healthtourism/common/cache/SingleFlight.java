@@ -0,0 +1,60 @@
+package com.healthtourism.common.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Single Flight
+ * 
+ * Coalesces concurrent calls for the same key: the first caller runs the
+ * loader, everyone else arriving while it runs waits for and shares its
+ * result (or failure). Nothing is remembered once the call completes.
+ */
+public class SingleFlight<K> {
+    
+    private final ConcurrentMap<K, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    
+    @SuppressWarnings("unchecked")
+    public <T> T execute(K key, Callable<T> loader) throws Exception {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            return (T) await(existing);
+        }
+        try {
+            T value = loader.call();
+            mine.complete(value);
+            return value;
+        } catch (Throwable t) {
+            mine.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+    
+    /**
+     * Number of keys currently being loaded.
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+    
+    private static Object await(CompletableFuture<Object> future) throws Exception {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.healthtourism.common.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Two-Level Cache
+ * 
+ * L1: bounded in-process Caffeine cache (size + TTL, W-TinyLFU eviction).
+ * L2: the shared Redis cache.
+ * 
+ * Reads try L1, then L2 (promoting hits into L1), then the loader;
+ * concurrent misses for the same key are coalesced into one load.
+ * Writes and evictions go to L2 first, then L1, and are broadcast so other
+ * nodes drop their L1 copy. L1 holds shared instances: cached values must be
+ * treated as immutable.
+ * 
+ * Metrics: cache.twolevel.gets (per level hit/miss), cache.twolevel.l2.requests
+ * (Redis round-trip latency per operation) and cache.twolevel.l2.errors.
+ */
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+    
+    private final String name;
+    private final Cache<String, Object> local;
+    private final org.springframework.cache.Cache remote;
+    private final CacheInvalidationBus invalidationBus;
+    private final SingleFlight<String> singleFlight = new SingleFlight<>();
+    
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+    private final Timer l2Gets;
+    private final Timer l2Puts;
+    private final Timer l2Evicts;
+    private final Timer l2Clears;
+    private final Counter l2Errors;
+    
+    public TwoLevelCache(String name,
+                         Cache<String, Object> local,
+                         org.springframework.cache.Cache remote,
+                         CacheInvalidationBus invalidationBus,
+                         MeterRegistry meterRegistry) {
+        super(false);
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.invalidationBus = invalidationBus;
+        this.l1Hits = requests(meterRegistry, "l1", "hit");
+        this.l1Misses = requests(meterRegistry, "l1", "miss");
+        this.l2Hits = requests(meterRegistry, "l2", "hit");
+        this.l2Misses = requests(meterRegistry, "l2", "miss");
+        this.l2Gets = remoteLatency(meterRegistry, "get");
+        this.l2Puts = remoteLatency(meterRegistry, "put");
+        this.l2Evicts = remoteLatency(meterRegistry, "evict");
+        this.l2Clears = remoteLatency(meterRegistry, "clear");
+        this.l2Errors = Counter.builder("cache.twolevel.l2.errors")
+                .description("Failed calls to the shared (Redis) cache")
+                .tag("cache", name)
+                .register(meterRegistry);
+        meterRegistry.gauge("cache.twolevel.loads.inflight",
+                Tags.of("cache", name), singleFlight, SingleFlight::inFlightCount);
+    }
+    
+    private Counter requests(MeterRegistry registry, String level, String result) {
+        return Counter.builder("cache.twolevel.gets")
+                .tag("cache", name)
+                .tag("level", level)
+                .tag("result", result)
+                .register(registry);
+    }
+    
+    private Timer remoteLatency(MeterRegistry registry, String operation) {
+        return Timer.builder("cache.twolevel.l2.requests")
+                .description("Round trips to the shared (Redis) cache")
+                .tag("cache", name)
+                .tag("operation", operation)
+                .register(registry);
+    }
+    
+    /**
+     * Time a call to L2, counting it as an error if it throws.
+     */
+    private <T> T timed(Timer timer, Supplier<T> call) {
+        Timer.Sample sample = Timer.start();
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            l2Errors.increment();
+            throw e;
+        } finally {
+            sample.stop(timer);
+        }
+    }
+    
+    private void timed(Timer timer, Runnable call) {
+        timed(timer, () -> {
+            call.run();
+            return null;
+        });
+    }
+    
+    @Override
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+    
+    @Override
+    protected Object lookup(Object key) {
+        String localKey = localKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            l1Hits.increment();
+            return value;
+        }
+        l1Misses.increment();
+        
+        ValueWrapper wrapper = timed(l2Gets, () -> remote.get(key));
+        if (wrapper == null || wrapper.get() == null) {
+            l2Misses.increment();
+            return null;
+        }
+        l2Hits.increment();
+        local.put(localKey, wrapper.get());
+        return wrapper.get();
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            l1Hits.increment();
+            return (T) value;
+        }
+        l1Misses.increment();
+        try {
+            // Concurrent misses for the same key on this node go to L2 / the loader once
+            return singleFlight.execute(localKey, () -> {
+                Object filled = local.getIfPresent(localKey);
+                if (filled != null) {
+                    return (T) filled;
+                }
+                ValueWrapper wrapper = timed(l2Gets, () -> remote.get(key));
+                if (wrapper != null && wrapper.get() != null) {
+                    l2Hits.increment();
+                    local.put(localKey, wrapper.get());
+                    return (T) wrapper.get();
+                }
+                l2Misses.increment();
+                T loaded = valueLoader.call();
+                if (loaded != null) {
+                    // A fresh load does not make other nodes' L1 stale, so no broadcast
+                    timed(l2Puts, () -> remote.put(key, loaded));
+                    local.put(localKey, loaded);
+                }
+                return loaded;
+            });
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+    
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        timed(l2Puts, () -> remote.put(key, value));
+        local.put(localKey(key), value);
+        invalidationBus.publishEvict(name, localKey(key));
+    }
+    
+    @Override
+    public void evict(Object key) {
+        timed(l2Evicts, () -> remote.evict(key));
+        local.invalidate(localKey(key));
+        invalidationBus.publishEvict(name, localKey(key));
+    }
+    
+    @Override
+    public void clear() {
+        timed(l2Clears, remote::clear);
+        local.invalidateAll();
+        invalidationBus.publishClear(name);
+    }
+    
+    /**
+     * Apply an invalidation received from another node (L1 only).
+     */
+    void invalidateLocal(String key) {
+        if (key == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(key);
+        }
+    }
+    
+    private static String localKey(Object key) {
+        // Same string form the Redis cache uses, so remote invalidations match
+        return String.valueOf(key);
+    }
+}
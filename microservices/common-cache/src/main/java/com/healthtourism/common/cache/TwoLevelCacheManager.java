@@ -0,0 +1,147 @@
+package com.healthtourism.common.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Two-Level Cache Manager
+ * 
+ * Wraps an existing (Redis) CacheManager and puts a bounded Caffeine L1 in
+ * front of every cache it returns. L1 size and TTL can be set per cache.
+ * Cross-node L1 invalidation goes through {@link CacheInvalidationBus}.
+ * 
+ * Usage:
+ * <pre>
+ * return TwoLevelCacheManager.builder(redisCacheManager, invalidationBus, meterRegistry)
+ *         .defaultLocalSpec(10_000, Duration.ofMinutes(1))
+ *         .localSpec("doctors", 5_000, Duration.ofMinutes(5))
+ *         .transactionAware(true)
+ *         .build();
+ * </pre>
+ */
+public class TwoLevelCacheManager implements CacheManager {
+    
+    private final CacheManager remoteCacheManager;
+    private final CacheInvalidationBus invalidationBus;
+    private final MeterRegistry meterRegistry;
+    private final LocalSpec defaultSpec;
+    private final Map<String, LocalSpec> specs;
+    private final boolean transactionAware;
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Cache> decorated = new ConcurrentHashMap<>();
+    
+    private TwoLevelCacheManager(Builder builder) {
+        this.remoteCacheManager = builder.remoteCacheManager;
+        this.invalidationBus = builder.invalidationBus;
+        this.meterRegistry = builder.meterRegistry;
+        this.defaultSpec = builder.defaultSpec;
+        this.specs = Map.copyOf(builder.specs);
+        this.transactionAware = builder.transactionAware;
+        this.invalidationBus.subscribe(this::onRemoteInvalidation);
+    }
+    
+    public static Builder builder(CacheManager remoteCacheManager,
+                                  CacheInvalidationBus invalidationBus,
+                                  MeterRegistry meterRegistry) {
+        return new Builder(remoteCacheManager, invalidationBus, meterRegistry);
+    }
+    
+    @Override
+    public Cache getCache(String name) {
+        Cache existing = decorated.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        Cache remote = remoteCacheManager.getCache(name);
+        if (remote == null) {
+            return null;
+        }
+        return decorated.computeIfAbsent(name, n -> {
+            TwoLevelCache cache = caches.computeIfAbsent(n, k -> createCache(k, remote));
+            // Defer L2 writes, L1 updates and broadcasts until the surrounding transaction commits
+            return transactionAware ? new TransactionAwareCacheDecorator(cache) : cache;
+        });
+    }
+    
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(decorated.keySet());
+    }
+    
+    private TwoLevelCache createCache(String name, Cache remote) {
+        LocalSpec spec = specs.getOrDefault(name, defaultSpec);
+        Counter evictions = Counter.builder("cache.twolevel.evictions")
+                .tag("cache", name)
+                .tag("level", "l1")
+                .register(meterRegistry);
+        com.github.benmanes.caffeine.cache.Cache<String, Object> local = Caffeine.newBuilder()
+                .maximumSize(spec.maximumSize)
+                .expireAfterWrite(spec.ttl)
+                .<String, Object>removalListener((key, value, cause) -> {
+                    if (cause.wasEvicted()) {
+                        evictions.increment();
+                    }
+                })
+                .build();
+        return new TwoLevelCache(name, local, remote, invalidationBus, meterRegistry);
+    }
+    
+    private void onRemoteInvalidation(String cacheName, String key) {
+        TwoLevelCache cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.invalidateLocal(key);
+        }
+    }
+    
+    private record LocalSpec(long maximumSize, Duration ttl) {
+    }
+    
+    public static class Builder {
+        
+        private final CacheManager remoteCacheManager;
+        private final CacheInvalidationBus invalidationBus;
+        private final MeterRegistry meterRegistry;
+        private LocalSpec defaultSpec = new LocalSpec(10_000, Duration.ofMinutes(1));
+        private final Map<String, LocalSpec> specs = new HashMap<>();
+        private boolean transactionAware;
+        
+        private Builder(CacheManager remoteCacheManager,
+                        CacheInvalidationBus invalidationBus,
+                        MeterRegistry meterRegistry) {
+            this.remoteCacheManager = remoteCacheManager;
+            this.invalidationBus = invalidationBus;
+            this.meterRegistry = meterRegistry;
+        }
+        
+        public Builder defaultLocalSpec(long maximumSize, Duration ttl) {
+            this.defaultSpec = new LocalSpec(maximumSize, ttl);
+            return this;
+        }
+        
+        public Builder localSpec(String cacheName, long maximumSize, Duration ttl) {
+            this.specs.put(cacheName, new LocalSpec(maximumSize, ttl));
+            return this;
+        }
+        
+        public Builder transactionAware(boolean transactionAware) {
+            this.transactionAware = transactionAware;
+            return this;
+        }
+        
+        public TwoLevelCacheManager build() {
+            return new TwoLevelCacheManager(this);
+        }
+    }
+}
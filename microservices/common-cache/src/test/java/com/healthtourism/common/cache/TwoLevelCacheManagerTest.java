@@ -0,0 +1,105 @@
+package com.healthtourism.common.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TwoLevelCacheManagerTest {
+
+    private ConcurrentMapCacheManager remoteCacheManager;
+    private CacheInvalidationBus invalidationBus;
+    private BiConsumer<String, String> invalidationHandler;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        remoteCacheManager = new ConcurrentMapCacheManager();
+        invalidationBus = mock(CacheInvalidationBus.class);
+        ArgumentCaptor<BiConsumer<String, String>> handler = ArgumentCaptor.forClass(BiConsumer.class);
+        TwoLevelCacheManager.builder(remoteCacheManager, invalidationBus, new SimpleMeterRegistry()).build();
+        verify(invalidationBus).subscribe(handler.capture());
+        invalidationHandler = handler.getValue();
+        reset(invalidationBus);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testGetCache_ReturnsSameInstancePerName() {
+        TwoLevelCacheManager manager = manager(false);
+
+        Cache doctors = manager.getCache("doctors");
+
+        assertInstanceOf(TwoLevelCache.class, doctors);
+        assertSame(doctors, manager.getCache("doctors"));
+        assertTrue(manager.getCacheNames().contains("doctors"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRemoteInvalidation_DropsOnlyTheLocalCopy() {
+        ArgumentCaptor<BiConsumer<String, String>> handler = ArgumentCaptor.forClass(BiConsumer.class);
+        TwoLevelCacheManager manager = manager(false);
+        verify(invalidationBus).subscribe(handler.capture());
+        TwoLevelCache doctors = (TwoLevelCache) manager.getCache("doctors");
+        doctors.put("id:1", "doctor-1");
+        remoteCacheManager.getCache("doctors").put("id:1", "doctor-1-updated-elsewhere");
+
+        handler.getValue().accept("doctors", "id:1");
+
+        // L1 was dropped, so the next read sees the value another node wrote to Redis
+        assertEquals("doctor-1-updated-elsewhere", doctors.get("id:1").get());
+    }
+
+    @Test
+    void testRemoteInvalidation_ForUnknownCacheIsIgnored() {
+        assertDoesNotThrow(() -> invalidationHandler.accept("unknown", "id:1"));
+        assertDoesNotThrow(() -> invalidationHandler.accept("unknown", null));
+    }
+
+    @Test
+    void testTransactionAware_DefersWritesAndBroadcastUntilCommit() {
+        TwoLevelCacheManager manager = manager(true);
+        Cache doctors = manager.getCache("doctors");
+        assertInstanceOf(TransactionAwareCacheDecorator.class, doctors);
+
+        TransactionSynchronizationManager.initSynchronization();
+        doctors.put("id:2", "doctor-2");
+
+        assertNull(remoteCacheManager.getCache("doctors").get("id:2"));
+        verify(invalidationBus, never()).publishEvict(any(), any());
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+
+        assertEquals("doctor-2", remoteCacheManager.getCache("doctors").get("id:2").get());
+        verify(invalidationBus).publishEvict("doctors", "id:2");
+    }
+
+    private TwoLevelCacheManager manager(boolean transactionAware) {
+        return TwoLevelCacheManager.builder(remoteCacheManager, invalidationBus, new SimpleMeterRegistry())
+                .defaultLocalSpec(100, Duration.ofMinutes(1))
+                .transactionAware(transactionAware)
+                .build();
+    }
+}
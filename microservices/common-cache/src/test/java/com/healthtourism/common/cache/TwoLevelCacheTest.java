@@ -0,0 +1,168 @@
+package com.healthtourism.common.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TwoLevelCacheTest {
+
+    private com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+    private ConcurrentMapCache remote;
+    private CacheInvalidationBus invalidationBus;
+    private SimpleMeterRegistry meterRegistry;
+    private TwoLevelCache cache;
+
+    @BeforeEach
+    void setUp() {
+        local = Caffeine.newBuilder().maximumSize(100).build();
+        remote = new ConcurrentMapCache("doctors", false);
+        invalidationBus = mock(CacheInvalidationBus.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new TwoLevelCache("doctors", local, remote, invalidationBus, meterRegistry);
+    }
+
+    @Test
+    void testGetWithLoader_MissLoadsOnceAndFillsBothLevels() {
+        AtomicInteger loads = new AtomicInteger();
+
+        String first = cache.get("id:1", () -> "doctor-" + loads.incrementAndGet());
+        String second = cache.get("id:1", () -> "doctor-" + loads.incrementAndGet());
+
+        assertEquals("doctor-1", first);
+        assertEquals("doctor-1", second);
+        assertEquals(1, loads.get());
+        assertEquals("doctor-1", local.getIfPresent("id:1"));
+        assertEquals("doctor-1", remote.get("id:1").get());
+        assertEquals(1.0, count("l1", "hit"));
+        assertEquals(1.0, count("l2", "miss"));
+        // A fresh load is not an invalidation
+        verifyNoInteractions(invalidationBus);
+    }
+
+    @Test
+    void testGet_RemoteHitIsPromotedToLocal() {
+        remote.put("id:2", "doctor-2");
+
+        assertEquals("doctor-2", cache.get("id:2").get());
+        remote.evict("id:2");
+
+        // Served from L1 without touching Redis again
+        assertEquals("doctor-2", cache.get("id:2").get());
+        assertEquals(1.0, count("l2", "hit"));
+        assertEquals(1.0, count("l1", "hit"));
+    }
+
+    @Test
+    void testPutAndEvict_UpdateBothLevelsAndBroadcast() {
+        cache.put("id:3", "doctor-3");
+
+        assertEquals("doctor-3", local.getIfPresent("id:3"));
+        assertEquals("doctor-3", remote.get("id:3").get());
+        verify(invalidationBus).publishEvict("doctors", "id:3");
+
+        cache.evict("id:3");
+
+        assertNull(local.getIfPresent("id:3"));
+        assertNull(remote.get("id:3"));
+        verify(invalidationBus, times(2)).publishEvict("doctors", "id:3");
+    }
+
+    @Test
+    void testClear_ClearsBothLevelsAndBroadcasts() {
+        cache.put("id:4", "doctor-4");
+
+        cache.clear();
+
+        assertEquals(0, local.estimatedSize());
+        assertNull(remote.get("id:4"));
+        verify(invalidationBus).publishClear("doctors");
+    }
+
+    @Test
+    void testInvalidateLocal_LeavesRemoteUntouched() {
+        cache.put("id:5", "doctor-5");
+
+        cache.invalidateLocal("id:5");
+
+        assertNull(local.getIfPresent("id:5"));
+        assertEquals("doctor-5", remote.get("id:5").get());
+    }
+
+    @Test
+    void testGetWithLoader_FailureIsWrappedAndNotCached() {
+        Cache.ValueRetrievalException e = assertThrows(Cache.ValueRetrievalException.class,
+                () -> cache.get("id:6", () -> {
+                    throw new IllegalStateException("db down");
+                }));
+
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertNull(local.getIfPresent("id:6"));
+        assertNull(remote.get("id:6"));
+        assertEquals("doctor-6", cache.get("id:6", () -> "doctor-6"));
+    }
+
+    @Test
+    void testGetWithLoader_ConcurrentMissesShareOneLoad() throws Exception {
+        int threads = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderEntered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> cache.get("id:7", () -> {
+                    loads.incrementAndGet();
+                    loaderEntered.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return "doctor-7";
+                })));
+            }
+            assertTrue(loaderEntered.await(5, TimeUnit.SECONDS));
+            // Give the other callers time to pile up behind the first load
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("doctor-7", result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testRemoteFailure_IsCountedAndRethrown() {
+        Cache failing = mock(Cache.class);
+        when(failing.get("id:8")).thenThrow(new IllegalStateException("redis down"));
+        TwoLevelCache withFailingRemote = new TwoLevelCache("doctors", local, failing, invalidationBus, meterRegistry);
+
+        assertThrows(IllegalStateException.class, () -> withFailingRemote.get("id:8"));
+        assertEquals(1.0, meterRegistry.get("cache.twolevel.l2.errors").tag("cache", "doctors").counter().count());
+    }
+
+    private double count(String level, String result) {
+        return meterRegistry.get("cache.twolevel.gets")
+                .tag("cache", "doctors")
+                .tag("level", level)
+                .tag("result", result)
+                .counter()
+                .count();
+    }
+}
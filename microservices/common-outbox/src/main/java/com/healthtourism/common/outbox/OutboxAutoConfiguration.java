@@ -0,0 +1,80 @@
+package com.healthtourism.common.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registers the outbox writer and relay for services that depend on common-outbox.
+ *
+ * The relay gets its own producer, derived from the service's Kafka settings,
+ * with idempotence, acks=all, compression and batching forced on.
+ */
+@AutoConfiguration(after = {DataSourceAutoConfiguration.class, JdbcTemplateAutoConfiguration.class,
+        HibernateJpaAutoConfiguration.class, KafkaAutoConfiguration.class})
+@EnableConfigurationProperties(OutboxProperties.class)
+@ConditionalOnBean(JdbcTemplate.class)
+public class OutboxAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public OutboxRepository outboxRepository(JdbcTemplate jdbcTemplate, OutboxProperties properties) {
+        OutboxRepository repository = new OutboxRepository(jdbcTemplate, properties.getTable());
+        if (properties.isInitializeSchema()) {
+            repository.createSchemaIfMissing();
+        }
+        return repository;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public OutboxWriter outboxWriter(OutboxRepository outboxRepository, ObjectMapper objectMapper) {
+        return new OutboxWriter(outboxRepository, objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnBean(ProducerFactory.class)
+    @ConditionalOnProperty(prefix = "outbox", name = "relay-enabled", havingValue = "true", matchIfMissing = true)
+    public OutboxRelay outboxRelay(OutboxRepository outboxRepository,
+                                   ProducerFactory<String, String> producerFactory,
+                                   PlatformTransactionManager transactionManager,
+                                   OutboxProperties properties,
+                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        overrides.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        overrides.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        overrides.put(ProducerConfig.ACKS_CONFIG, "all");
+        overrides.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5); // Max that keeps idempotent ordering
+        overrides.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, properties.getCompressionType());
+        overrides.put(ProducerConfig.LINGER_MS_CONFIG, properties.getLingerMs());
+        overrides.put(ProducerConfig.BATCH_SIZE_CONFIG, properties.getProducerBatchBytes());
+        KafkaTemplate<String, String> relayTemplate =
+                new KafkaTemplate<>(producerFactory.copyWithConfigurationOverride(overrides));
+
+        return new OutboxRelay(outboxRepository, relayTemplate, new TransactionTemplate(transactionManager),
+                properties, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+}
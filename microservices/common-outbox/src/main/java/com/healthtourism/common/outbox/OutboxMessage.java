@@ -0,0 +1,17 @@
+package com.healthtourism.common.outbox;
+
+import java.time.LocalDateTime;
+
+/**
+ * One pending outbox row. {@code aggregateId} is the Kafka key, so events of
+ * the same aggregate land on the same partition in order.
+ */
+public record OutboxMessage(
+        long id,
+        String aggregateType,
+        String aggregateId,
+        String topic,
+        String eventType,
+        String payload,
+        LocalDateTime createdAt) {
+}
@@ -0,0 +1,130 @@
+package com.healthtourism.common.outbox;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Outbox settings ({@code outbox.*}).
+ */
+@ConfigurationProperties(prefix = "outbox")
+public class OutboxProperties {
+
+    /** Start the relay thread; writers work regardless so events are never lost. */
+    private boolean relayEnabled = true;
+
+    /** Outbox table; each service sharing a database should use its own. */
+    private String table = "outbox_events";
+
+    /** Create the table and indexes on startup if they do not exist. */
+    private boolean initializeSchema = true;
+
+    /** Rows claimed and published per relay transaction. */
+    private int batchSize = 500;
+
+    /** Idle wait between polls when the previous batch was not full. */
+    private Duration pollInterval = Duration.ofMillis(200);
+
+    /** Upper bound on waiting for broker acks of one batch. */
+    private Duration sendTimeout = Duration.ofSeconds(30);
+
+    /** How long claimed rows stay reserved for the relay publishing them; keep well above send-timeout. */
+    private Duration claimTimeout = Duration.ofMinutes(2);
+
+    /** Published rows older than this are deleted. */
+    private Duration retention = Duration.ofDays(7);
+
+    private String compressionType = "lz4";
+
+    private int lingerMs = 5;
+
+    private int producerBatchBytes = 65536;
+
+    public boolean isRelayEnabled() {
+        return relayEnabled;
+    }
+
+    public void setRelayEnabled(boolean relayEnabled) {
+        this.relayEnabled = relayEnabled;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public void setTable(String table) {
+        this.table = table;
+    }
+
+    public boolean isInitializeSchema() {
+        return initializeSchema;
+    }
+
+    public void setInitializeSchema(boolean initializeSchema) {
+        this.initializeSchema = initializeSchema;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Duration getPollInterval() {
+        return pollInterval;
+    }
+
+    public void setPollInterval(Duration pollInterval) {
+        this.pollInterval = pollInterval;
+    }
+
+    public Duration getSendTimeout() {
+        return sendTimeout;
+    }
+
+    public void setSendTimeout(Duration sendTimeout) {
+        this.sendTimeout = sendTimeout;
+    }
+
+    public Duration getClaimTimeout() {
+        return claimTimeout;
+    }
+
+    public void setClaimTimeout(Duration claimTimeout) {
+        this.claimTimeout = claimTimeout;
+    }
+
+    public Duration getRetention() {
+        return retention;
+    }
+
+    public void setRetention(Duration retention) {
+        this.retention = retention;
+    }
+
+    public String getCompressionType() {
+        return compressionType;
+    }
+
+    public void setCompressionType(String compressionType) {
+        this.compressionType = compressionType;
+    }
+
+    public int getLingerMs() {
+        return lingerMs;
+    }
+
+    public void setLingerMs(int lingerMs) {
+        this.lingerMs = lingerMs;
+    }
+
+    public int getProducerBatchBytes() {
+        return producerBatchBytes;
+    }
+
+    public void setProducerBatchBytes(int producerBatchBytes) {
+        this.producerBatchBytes = producerBatchBytes;
+    }
+}
@@ -0,0 +1,279 @@
+package com.healthtourism.common.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes outbox rows to Kafka.
+ *
+ * Each cycle has three steps:
+ * <ol>
+ *   <li>a short transaction claims up to {@code outbox.batch-size} pending rows with
+ *       {@code FOR UPDATE SKIP LOCKED} (so several instances can relay in parallel), leases
+ *       them for {@code outbox.claim-timeout} and commits;</li>
+ *   <li>the rows are sent through an idempotent, compressed producer and the acks awaited,
+ *       with no transaction or row lock held;</li>
+ *   <li>a second transaction marks the acknowledged rows published and releases the rest.</li>
+ * </ol>
+ * A relay that dies between the steps leaves its rows leased; they are claimed again
+ * once the lease runs out.
+ *
+ * Ordering is per aggregate (Kafka key):
+ * <ul>
+ *   <li>rows of an aggregate whose older rows are held by another relay are left for later;</li>
+ *   <li>after a failed send, later rows of the same aggregate stay pending too, and are
+ *       re-sent with it on the next cycle.</li>
+ * </ul>
+ * Delivery is at-least-once; consumers can de-duplicate on the {@code outbox-id} header.
+ */
+public class OutboxRelay implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final Duration STATS_INTERVAL = Duration.ofSeconds(5);
+    private static final Duration CLEANUP_INTERVAL = Duration.ofMinutes(10);
+
+    private final OutboxRepository repository;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxProperties properties;
+
+    private final Timer lagTimer;
+    private final Counter published;
+    private final Counter failed;
+    private final DistributionSummary batchSizeSummary;
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final AtomicLong oldestPendingAgeMs = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread relayThread;
+    private long nextStatsAt;
+    private long nextCleanupAt;
+
+    public OutboxRelay(OutboxRepository repository, KafkaTemplate<String, String> kafkaTemplate,
+                       TransactionTemplate transactionTemplate, OutboxProperties properties,
+                       MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+
+        String table = properties.getTable();
+        this.lagTimer = Timer.builder("outbox.relay.lag")
+                .description("Time from outbox insert to broker ack")
+                .tag("table", table)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.published = Counter.builder("outbox.relay.published")
+                .tag("table", table)
+                .register(meterRegistry);
+        this.failed = Counter.builder("outbox.relay.failed")
+                .tag("table", table)
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("outbox.relay.batch.size")
+                .tag("table", table)
+                .register(meterRegistry);
+        Gauge.builder("outbox.pending", pendingCount, AtomicLong::get)
+                .description("Unpublished outbox rows")
+                .tag("table", table)
+                .register(meterRegistry);
+        Gauge.builder("outbox.oldest.pending.age", oldestPendingAgeMs, v -> v.get() / 1000.0)
+                .description("Age of the oldest unpublished row in seconds")
+                .tag("table", table)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        nextStatsAt = System.nanoTime();
+        nextCleanupAt = nextStatsAt;
+        running = true;
+        relayThread = new Thread(this::run, "outbox-relay-" + properties.getTable());
+        relayThread.setDaemon(true);
+        relayThread.start();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (relayThread != null) {
+            relayThread.interrupt();
+            relayThread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    private void run() {
+        long idleMs = properties.getPollInterval().toMillis();
+        while (running) {
+            int claimed = 0;
+            try {
+                claimed = relayBatch();
+                housekeeping();
+            } catch (RuntimeException e) {
+                log.error("Outbox relay cycle failed: {}", e.getMessage());
+                claimed = 0;
+            }
+            if (claimed < properties.getBatchSize()) {
+                try {
+                    Thread.sleep(idleMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * One claim-send-mark cycle; the claim and the mark each run in their own transaction.
+     *
+     * @return number of rows claimed
+     */
+    int relayBatch() {
+        Claim claim = transactionTemplate.execute(status -> claimBatch());
+        if (claim == null || claim.batch().isEmpty()) {
+            return claim != null ? claim.claimed() : 0;
+        }
+        List<OutboxMessage> batch = claim.batch();
+        batchSizeSummary.record(batch.size());
+
+        Map<OutboxMessage, CompletableFuture<SendResult<String, String>>> sends = new LinkedHashMap<>();
+        for (OutboxMessage message : batch) {
+            ProducerRecord<String, String> record = new ProducerRecord<>(
+                    message.topic(), message.aggregateId(), message.payload());
+            record.headers().add("outbox-id", Long.toString(message.id()).getBytes(StandardCharsets.UTF_8));
+            record.headers().add("event-type", message.eventType().getBytes(StandardCharsets.UTF_8));
+            sends.put(message, kafkaTemplate.send(record));
+        }
+        kafkaTemplate.flush();
+
+        long deadline = System.nanoTime() + properties.getSendTimeout().toNanos();
+        Set<String> blockedAggregates = new HashSet<>();
+        List<Long> publishedIds = new ArrayList<>(batch.size());
+        List<Long> heldBackIds = new ArrayList<>();
+        Map<Long, String> errors = new HashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<OutboxMessage, CompletableFuture<SendResult<String, String>>> send : sends.entrySet()) {
+            OutboxMessage message = send.getKey();
+            String error = awaitAck(send.getValue(), deadline);
+            if (error == null && !blockedAggregates.contains(message.aggregateId())) {
+                publishedIds.add(message.id());
+                lagTimer.record(Duration.between(message.createdAt(), now));
+            } else {
+                // Keep this and every later row of the aggregate pending so they are re-sent in order
+                blockedAggregates.add(message.aggregateId());
+                if (error != null) {
+                    errors.put(message.id(), error);
+                } else {
+                    heldBackIds.add(message.id());
+                }
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            repository.markPublished(publishedIds);
+            repository.markFailed(errors);
+            repository.releaseClaims(heldBackIds);
+        });
+        published.increment(publishedIds.size());
+        if (!errors.isEmpty()) {
+            failed.increment(errors.size());
+            log.warn("Outbox relay: {} of {} sends failed, first: {}",
+                    errors.size(), batch.size(), errors.values().iterator().next());
+        }
+        return claim.claimed();
+    }
+
+    /**
+     * Claim pending rows and lease the ones this relay may publish; runs inside the claim transaction.
+     */
+    private Claim claimBatch() {
+        List<OutboxMessage> claimed = repository.claimBatch(properties.getBatchSize());
+        if (claimed.isEmpty()) {
+            return new Claim(0, List.of());
+        }
+        List<OutboxMessage> batch = dropRowsBehindOtherRelays(claimed);
+        repository.leaseClaims(batch.stream().map(OutboxMessage::id).toList(), properties.getClaimTimeout());
+        return new Claim(claimed.size(), batch);
+    }
+
+    private List<OutboxMessage> dropRowsBehindOtherRelays(List<OutboxMessage> claimed) {
+        Map<String, Long> firstClaimed = new HashMap<>();
+        for (OutboxMessage message : claimed) {
+            firstClaimed.putIfAbsent(message.aggregateId(), message.id());
+        }
+        Map<String, Long> oldestPending = repository.findOldestPendingIds(firstClaimed.keySet());
+        List<OutboxMessage> batch = new ArrayList<>(claimed.size());
+        for (OutboxMessage message : claimed) {
+            Long oldest = oldestPending.get(message.aggregateId());
+            if (oldest == null || oldest >= firstClaimed.get(message.aggregateId())) {
+                batch.add(message);
+            }
+        }
+        return batch;
+    }
+
+    private String awaitAck(CompletableFuture<SendResult<String, String>> future, long deadlineNanos) {
+        try {
+            future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return null;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return cause.getClass().getSimpleName() + ": " + cause.getMessage();
+        } catch (TimeoutException e) {
+            return "Timed out waiting for broker ack";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "Interrupted";
+        }
+    }
+
+    private void housekeeping() {
+        long now = System.nanoTime();
+        if (now - nextStatsAt >= 0) {
+            nextStatsAt = now + STATS_INTERVAL.toNanos();
+            OutboxRepository.PendingStats stats = repository.pendingStats();
+            pendingCount.set(stats.count());
+            oldestPendingAgeMs.set(stats.oldestCreatedAt() != null
+                    ? Math.max(0, Duration.between(stats.oldestCreatedAt(), LocalDateTime.now()).toMillis())
+                    : 0);
+        }
+        if (now - nextCleanupAt >= 0) {
+            nextCleanupAt = now + CLEANUP_INTERVAL.toNanos();
+            LocalDateTime cutoff = LocalDateTime.now().minus(properties.getRetention());
+            int deleted;
+            do {
+                deleted = repository.deletePublishedBefore(cutoff, 1000);
+            } while (deleted == 1000 && running);
+        }
+    }
+
+    private record Claim(int claimed, List<OutboxMessage> batch) {
+    }
+}
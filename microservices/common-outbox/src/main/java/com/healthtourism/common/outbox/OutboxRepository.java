@@ -0,0 +1,166 @@
+package com.healthtourism.common.outbox;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC access to the outbox table (PostgreSQL).
+ */
+public class OutboxRepository {
+
+    private static final RowMapper<OutboxMessage> MESSAGE_MAPPER = (rs, row) -> new OutboxMessage(
+            rs.getLong("id"),
+            rs.getString("aggregate_type"),
+            rs.getString("aggregate_id"),
+            rs.getString("topic"),
+            rs.getString("event_type"),
+            rs.getString("payload"),
+            rs.getTimestamp("created_at").toLocalDateTime());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final String table;
+
+    public OutboxRepository(JdbcTemplate jdbcTemplate, String table) {
+        if (!table.matches("[A-Za-z_][A-Za-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid outbox table name: " + table);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.table = table;
+    }
+
+    public void createSchemaIfMissing() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + " ("
+                + "id BIGSERIAL PRIMARY KEY, "
+                + "aggregate_type VARCHAR(64) NOT NULL, "
+                + "aggregate_id VARCHAR(128) NOT NULL, "
+                + "topic VARCHAR(255) NOT NULL, "
+                + "event_type VARCHAR(128) NOT NULL, "
+                + "payload TEXT NOT NULL, "
+                + "created_at TIMESTAMP NOT NULL, "
+                + "published_at TIMESTAMP, "
+                + "attempts INT NOT NULL DEFAULT 0, "
+                + "last_error VARCHAR(1000), "
+                + "claimed_until TIMESTAMP)");
+        jdbcTemplate.execute("ALTER TABLE " + table + " ADD COLUMN IF NOT EXISTS claimed_until TIMESTAMP");
+        // Partial indexes keep the relay's scans proportional to the backlog, not the table
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_" + table + "_pending ON " + table
+                + " (id) WHERE published_at IS NULL");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_" + table + "_pending_key ON " + table
+                + " (aggregate_id, id) WHERE published_at IS NULL");
+    }
+
+    public void insert(String aggregateType, String aggregateId, String topic, String eventType, String payload) {
+        jdbcTemplate.update("INSERT INTO " + table
+                + " (aggregate_type, aggregate_id, topic, event_type, payload, created_at) VALUES (?, ?, ?, ?, ?, ?)",
+                aggregateType, aggregateId, topic, eventType, payload, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /**
+     * Lock the oldest pending rows not locked or leased by another relay. Must run in a transaction.
+     */
+    public List<OutboxMessage> claimBatch(int limit) {
+        return jdbcTemplate.query("SELECT id, aggregate_type, aggregate_id, topic, event_type, payload, created_at FROM "
+                + table + " WHERE published_at IS NULL AND (claimed_until IS NULL OR claimed_until < LOCALTIMESTAMP)"
+                + " ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED",
+                MESSAGE_MAPPER, limit);
+    }
+
+    /**
+     * Reserve claimed rows for the calling relay once its claim transaction commits.
+     * Uses the database clock so relays on different hosts agree on expiry.
+     */
+    public void leaseClaims(List<Long> ids, Duration timeout) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        long timeoutMs = timeout.toMillis();
+        jdbcTemplate.batchUpdate("UPDATE " + table
+                + " SET claimed_until = LOCALTIMESTAMP + ? * INTERVAL '1 millisecond' WHERE id = ?",
+                ids, ids.size(), (ps, id) -> {
+                    ps.setLong(1, timeoutMs);
+                    ps.setLong(2, id);
+                });
+    }
+
+    /**
+     * Give leased rows back without counting an attempt, e.g. rows held back behind a failed send.
+     */
+    public void releaseClaims(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("UPDATE " + table + " SET claimed_until = NULL WHERE id = ?",
+                ids, ids.size(), (ps, id) -> ps.setLong(1, id));
+    }
+
+    /**
+     * Oldest pending id per aggregate, including rows locked or leased by other relays.
+     */
+    public Map<String, Long> findOldestPendingIds(Collection<String> aggregateIds) {
+        Map<String, Long> oldest = new HashMap<>();
+        namedJdbcTemplate.query("SELECT aggregate_id, MIN(id) AS min_id FROM " + table
+                + " WHERE published_at IS NULL AND aggregate_id IN (:ids) GROUP BY aggregate_id",
+                new MapSqlParameterSource("ids", aggregateIds),
+                rs -> {
+                    oldest.put(rs.getString("aggregate_id"), rs.getLong("min_id"));
+                });
+        return oldest;
+    }
+
+    public void markPublished(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate("UPDATE " + table + " SET published_at = ?, attempts = attempts + 1 WHERE id = ?",
+                ids, ids.size(), (ps, id) -> {
+                    ps.setTimestamp(1, now);
+                    ps.setLong(2, id);
+                });
+    }
+
+    public void markFailed(Map<Long, String> errors) {
+        if (errors.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, String>> entries = List.copyOf(errors.entrySet());
+        jdbcTemplate.batchUpdate("UPDATE " + table
+                + " SET attempts = attempts + 1, last_error = ?, claimed_until = NULL WHERE id = ?",
+                entries, entries.size(), (ps, entry) -> {
+                    String error = entry.getValue();
+                    ps.setString(1, error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+                    ps.setLong(2, entry.getKey());
+                });
+    }
+
+    /**
+     * @return pending row count and creation time of the oldest pending row (null if none)
+     */
+    public PendingStats pendingStats() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*), MIN(created_at) FROM " + table + " WHERE published_at IS NULL",
+                (rs, row) -> {
+                    Timestamp oldest = rs.getTimestamp(2);
+                    return new PendingStats(rs.getLong(1), oldest != null ? oldest.toLocalDateTime() : null);
+                });
+    }
+
+    public int deletePublishedBefore(LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.update("DELETE FROM " + table + " WHERE id IN (SELECT id FROM " + table
+                + " WHERE published_at < ? ORDER BY id LIMIT ?)", Timestamp.valueOf(cutoff), limit);
+    }
+
+    public record PendingStats(long count, LocalDateTime oldestCreatedAt) {
+    }
+}
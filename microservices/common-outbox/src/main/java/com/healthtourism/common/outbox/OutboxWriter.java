@@ -0,0 +1,39 @@
+package com.healthtourism.common.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Records an event in the outbox table as part of the caller's transaction.
+ *
+ * The event becomes visible to the relay only if the business change commits,
+ * and is published even if Kafka is down at that moment. Callers should be
+ * transactional; a call outside a transaction still records the event, in a
+ * transaction of its own, but is then no longer atomic with the change.
+ */
+public class OutboxWriter {
+
+    private final OutboxRepository repository;
+    private final ObjectMapper objectMapper;
+
+    public OutboxWriter(OutboxRepository repository, ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param aggregateId Kafka key; events of one aggregate are published in the order they were written
+     */
+    @Transactional(propagation = Propagation.REQUIRED)
+    public void append(String aggregateType, Object aggregateId, String topic, String eventType, Object payload) {
+        String json;
+        try {
+            json = payload instanceof String s ? s : objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox payload is not serializable: " + eventType, e);
+        }
+        repository.insert(aggregateType, String.valueOf(aggregateId), topic, eventType, json);
+    }
+}
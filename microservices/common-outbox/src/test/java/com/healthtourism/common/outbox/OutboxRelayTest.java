@@ -0,0 +1,125 @@
+package com.healthtourism.common.outbox;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.mockito.InOrder;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+
+    private OutboxRepository repository;
+    private KafkaTemplate<String, String> kafkaTemplate;
+    private PlatformTransactionManager transactionManager;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        repository = mock(OutboxRepository.class);
+        kafkaTemplate = mock(KafkaTemplate.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        relay = new OutboxRelay(repository, kafkaTemplate, new TransactionTemplate(transactionManager),
+                new OutboxProperties(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRelayBatch_FailedSendHoldsBackLaterEventsOfSameAggregate() {
+        // Given - payment 1 has two events, the first fails; payment 2 succeeds
+        when(repository.claimBatch(anyInt())).thenReturn(List.of(
+                message(10, "1", "CREATED"), message(11, "2", "CREATED"), message(12, "1", "COMPLETED")));
+        when(repository.findOldestPendingIds(anyCollection())).thenReturn(Map.of("1", 10L, "2", 11L));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(inv -> {
+            ProducerRecord<String, String> record = inv.getArgument(0);
+            return record.value().equals("1:CREATED")
+                    ? CompletableFuture.failedFuture(new IllegalStateException("broker down"))
+                    : CompletableFuture.completedFuture(mock(SendResult.class));
+        });
+
+        // When
+        int claimed = relay.relayBatch();
+
+        // Then
+        assertEquals(3, claimed);
+        verify(repository).markPublished(List.of(11L));
+        verify(repository).markFailed(argThat(errors -> errors.keySet().equals(Set.of(10L))));
+        verify(repository).releaseClaims(List.of(12L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRelayBatch_SkipsAggregateWithOlderRowsHeldByAnotherRelay() {
+        // Given - row 5 of payment 1 is locked by another instance
+        when(repository.claimBatch(anyInt())).thenReturn(List.of(message(20, "1", "REFUNDED"), message(21, "3", "CREATED")));
+        when(repository.findOldestPendingIds(anyCollection())).thenReturn(Map.of("1", 5L, "3", 21L));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        // When
+        relay.relayBatch();
+
+        // Then
+        verify(kafkaTemplate, times(1)).send(any(ProducerRecord.class));
+        verify(repository).markPublished(List.of(21L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRelayBatch_CommitsClaimBeforeSendingAndMarksInSecondTransaction() {
+        // Given
+        when(repository.claimBatch(anyInt())).thenReturn(List.of(message(30, "4", "CREATED")));
+        when(repository.findOldestPendingIds(anyCollection())).thenReturn(Map.of("4", 30L));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        // When
+        relay.relayBatch();
+
+        // Then - no transaction (and no row lock) is open while waiting for the broker
+        InOrder order = inOrder(repository, transactionManager, kafkaTemplate);
+        order.verify(repository).claimBatch(anyInt());
+        order.verify(repository).leaseClaims(eq(List.of(30L)), any());
+        order.verify(transactionManager).commit(any());
+        order.verify(kafkaTemplate).send(any(ProducerRecord.class));
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(repository).markPublished(List.of(30L));
+        order.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void testRelayBatch_DoesNotSendWhenNothingIsClaimed() {
+        // Given
+        when(repository.claimBatch(anyInt())).thenReturn(List.of());
+
+        // When
+        int claimed = relay.relayBatch();
+
+        // Then
+        assertEquals(0, claimed);
+        verify(repository, never()).leaseClaims(anyList(), any());
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    private static OutboxMessage message(long id, String aggregateId, String eventType) {
+        return new OutboxMessage(id, "PAYMENT", aggregateId, "payment-events", eventType,
+                aggregateId + ":" + eventType, LocalDateTime.now());
+    }
+}
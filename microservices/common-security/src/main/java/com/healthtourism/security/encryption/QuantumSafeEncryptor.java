@@ -4,6 +4,7 @@ import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.Cipher;
+import javax.crypto.KeyAgreement;
 import java.security.*;
 import java.security.spec.AlgorithmParameterSpec;
 import java.util.Base64;
@@ -1,40 +1,41 @@
 package com.healthtourism.security.filter;
 
-import com.healthtourism.security.service.JwtService;
+import com.healthtourism.security.service.JwtPrincipal;
+import com.healthtourism.security.service.VerifiedTokenCache;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Collection;
 
 /**
  * JWT Authentication Filter
  * 
  * Intercepts every HTTP request and:
  * 1. Extracts JWT token from Authorization header
- * 2. Validates token
- * 3. Extracts user information from token
+ * 2. Validates token (signature checked once, result cached per token)
+ * 3. Builds the principal from the verified claims
  * 4. Sets authentication in SecurityContext
  * 
+ * Loading the user through UserDetailsService is optional
+ * (security.jwt.load-user-details) and goes through a short-TTL cache.
+ * 
  * This filter runs before Spring Security's authentication mechanism.
  */
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
@@ -42,8 +43,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final String AUTHORIZATION_HEADER = "Authorization";
     private static final String BEARER_PREFIX = "Bearer ";
     
-    private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final boolean loadUserDetails;
+    
+    public JwtAuthenticationFilter(
+            VerifiedTokenCache verifiedTokenCache,
+            @Value("${security.jwt.load-user-details:true}") boolean loadUserDetails) {
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.loadUserDetails = loadUserDetails;
+    }
     
     @Override
     protected void doFilterInternal(
@@ -54,8 +62,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         final String authHeader = request.getHeader(AUTHORIZATION_HEADER);
         
-        // Skip if no Authorization header
-        if (authHeader == null || !authHeader.startsWith(BEARER_PREFIX)) {
+        // Skip if no Authorization header or user is already authenticated
+        if (authHeader == null || !authHeader.startsWith(BEARER_PREFIX)
+                || SecurityContextHolder.getContext().getAuthentication() != null) {
             filterChain.doFilter(request, response);
             return;
         }
@@ -64,41 +73,37 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // Extract token from header
             final String jwt = authHeader.substring(BEARER_PREFIX.length());
             
-            // Extract username from token
-            final String username = jwtService.extractUsername(jwt);
+            // Verify once (or reuse an earlier verification of the same token)
+            JwtPrincipal principal = verifiedTokenCache.resolve(jwt);
             
-            // Validate token and check if user is not already authenticated
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            if (principal != null) {
+                UserDetails authenticatedUser = principal;
+                Collection<? extends GrantedAuthority> authorities = principal.getAuthorities();
                 
-                // Load user details
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                
-                // Validate token
-                if (jwtService.validateToken(jwt, userDetails)) {
-                    
-                    // Extract roles from token
-                    List<String> roles = jwtService.extractRoles(jwt);
-                    List<SimpleGrantedAuthority> authorities = roles.stream()
-                            .map(SimpleGrantedAuthority::new)
-                            .collect(Collectors.toList());
-                    
-                    // Create authentication token
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null,
-                            authorities.isEmpty() ? userDetails.getAuthorities() : authorities
-                    );
-                    
-                    // Set authentication details
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    
-                    // Set authentication in SecurityContext
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                    
-                    logger.debug("User authenticated: {}", username);
-                } else {
-                    logger.warn("Invalid JWT token for user: {}", username);
+                if (loadUserDetails) {
+                    UserDetails userDetails = verifiedTokenCache.loadUser(principal.getUsername());
+                    authenticatedUser = userDetails;
+                    if (authorities.isEmpty()) {
+                        authorities = userDetails.getAuthorities();
+                    }
                 }
+                
+                // Create authentication token
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                        authenticatedUser,
+                        null,
+                        authorities
+                );
+                
+                // Set authentication details
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                
+                // Set authentication in SecurityContext
+                SecurityContextHolder.getContext().setAuthentication(authToken);
+                
+                logger.debug("User authenticated: {}", principal.getUsername());
+            } else {
+                logger.warn("Invalid JWT token");
             }
         } catch (Exception e) {
             logger.error("Error processing JWT token: {}", e.getMessage(), e);
@@ -109,4 +114,3 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 }
-
@@ -0,0 +1,100 @@
+package com.healthtourism.security.service;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable principal built from verified JWT claims.
+ * 
+ * Lets a request be authenticated from the token alone, without a
+ * UserDetailsService lookup. Implements UserDetails so code that inspects
+ * the principal (e.g. BOLA checks via getUserId) keeps working.
+ */
+public final class JwtPrincipal implements UserDetails {
+    
+    private final String username;
+    private final Long userId;
+    private final List<GrantedAuthority> authorities;
+    private final Instant expiresAt;
+    
+    public JwtPrincipal(String username, Long userId, List<String> roles, Instant expiresAt) {
+        this.username = username;
+        this.userId = userId;
+        this.authorities = roles.stream()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+        this.expiresAt = expiresAt;
+    }
+    
+    /**
+     * Build a principal from claims that have already been verified.
+     */
+    public static JwtPrincipal fromClaims(Claims claims, List<String> roles) {
+        Object userId = claims.get("userId");
+        Long id = null;
+        if (userId instanceof Number) {
+            id = ((Number) userId).longValue();
+        } else if (userId != null) {
+            try {
+                id = Long.valueOf(userId.toString());
+            } catch (NumberFormatException ignored) {
+                // leave unset; BOLA falls back to the username
+            }
+        }
+        Instant expiresAt = claims.getExpiration() != null ? claims.getExpiration().toInstant() : null;
+        return new JwtPrincipal(claims.getSubject(), id, roles, expiresAt);
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !expiresAt.isAfter(now);
+    }
+    
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+    
+    @Override
+    public String getPassword() {
+        return null;
+    }
+    
+    @Override
+    public String getUsername() {
+        return username;
+    }
+    
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+    
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+    
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+    
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
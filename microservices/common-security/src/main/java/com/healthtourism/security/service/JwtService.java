@@ -1,9 +1,11 @@
 package com.healthtourism.security.service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -46,6 +48,20 @@ public class JwtService {
     @Value("${jwt.refresh-expiration:604800000}") // 7 days in milliseconds
     private Long refreshExpiration;
     
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+    
+    /**
+     * Derive the signing key and build the parser once; both are immutable and thread-safe.
+     */
+    @PostConstruct
+    void init() {
+        this.signingKey = buildSigningKey();
+        this.jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+    }
+    
     /**
      * Generate JWT token for user
      * 
@@ -126,6 +142,18 @@ public class JwtService {
         return claimsResolver.apply(claims);
     }
     
+    /**
+     * Verify the signature and expiry of a token and return its claims.
+     * Use this when several claims are needed, so the token is parsed only once.
+     * 
+     * @param token JWT token
+     * @return All claims
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or expired
+     */
+    public Claims parseClaims(String token) {
+        return jwtParser.parseSignedClaims(token).getPayload();
+    }
+    
     /**
      * Extract all claims from token
      * 
@@ -133,11 +161,7 @@ public class JwtService {
      * @return All claims
      */
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parseClaims(token);
     }
     
     /**
@@ -193,6 +217,10 @@ public class JwtService {
      * @return Secret key for signing
      */
     private SecretKey getSigningKey() {
+        return signingKey;
+    }
+    
+    private SecretKey buildSigningKey() {
         byte[] keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
         
         // Ensure key is at least 256 bits (32 bytes)
@@ -213,21 +241,41 @@ public class JwtService {
      * @param token JWT token
      * @return Roles (as string list)
      */
-    @SuppressWarnings("unchecked")
     public java.util.List<String> extractRoles(String token) {
         try {
-            Claims claims = extractAllClaims(token);
-            Object authorities = claims.get("authorities");
-            
-            if (authorities instanceof java.util.List) {
-                return (java.util.List<String>) authorities;
-            }
-            
-            return java.util.Collections.emptyList();
+            return extractRoles(extractAllClaims(token));
         } catch (Exception e) {
             logger.warn("Error extracting roles from token: {}", e.getMessage());
             return java.util.Collections.emptyList();
         }
     }
+    
+    /**
+     * Extract roles from already verified claims
+     * 
+     * @param claims Verified claims
+     * @return Roles (as string list)
+     */
+    public java.util.List<String> extractRoles(Claims claims) {
+        Object authorities = claims.get("authorities");
+        
+        if (!(authorities instanceof java.util.List)) {
+            return java.util.Collections.emptyList();
+        }
+        
+        // generateToken(UserDetails) serialises GrantedAuthority objects as {"authority": "..."}
+        java.util.List<String> roles = new java.util.ArrayList<>();
+        for (Object authority : (java.util.List<?>) authorities) {
+            if (authority instanceof Map) {
+                Object name = ((Map<?, ?>) authority).get("authority");
+                if (name != null) {
+                    roles.add(name.toString());
+                }
+            } else if (authority != null) {
+                roles.add(authority.toString());
+            }
+        }
+        return roles;
+    }
 }
 
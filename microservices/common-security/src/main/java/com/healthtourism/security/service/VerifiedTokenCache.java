@@ -0,0 +1,140 @@
+package com.healthtourism.security.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Verified Token Cache
+ * 
+ * Keeps the principal of recently verified JWTs, keyed by the SHA-256 of the
+ * token, so a client sending the same token repeatedly pays for signature
+ * verification once. Entries never outlive the token's own expiry. Invalid
+ * tokens are not cached.
+ * 
+ * Also fronts UserDetailsService with a short-TTL cache for services that
+ * still want the user loaded on each request.
+ */
+@Service
+public class VerifiedTokenCache {
+    
+    private static final Logger logger = LoggerFactory.getLogger(VerifiedTokenCache.class);
+    
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+    
+    private final JwtService jwtService;
+    private final UserDetailsService userDetailsService;
+    private final Cache<String, JwtPrincipal> tokens;
+    private final Cache<String, UserDetails> users;
+    
+    public VerifiedTokenCache(
+            JwtService jwtService,
+            UserDetailsService userDetailsService,
+            @Value("${security.jwt.token-cache.max-size:10000}") long maxTokens,
+            @Value("${security.jwt.token-cache.max-ttl-seconds:300}") long maxTtlSeconds,
+            @Value("${security.jwt.user-cache.max-size:10000}") long maxUsers,
+            @Value("${security.jwt.user-cache.ttl-seconds:30}") long userTtlSeconds) {
+        this.jwtService = jwtService;
+        this.userDetailsService = userDetailsService;
+        long maxTtlNanos = Duration.ofSeconds(maxTtlSeconds).toNanos();
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(maxTokens)
+                .expireAfter(new Expiry<String, JwtPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(String key, JwtPrincipal value, long currentTime) {
+                        if (value.getExpiresAt() == null) {
+                            return maxTtlNanos;
+                        }
+                        long untilExpiry = Duration.between(Instant.now(), value.getExpiresAt()).toNanos();
+                        return Math.max(0L, Math.min(maxTtlNanos, untilExpiry));
+                    }
+                    
+                    @Override
+                    public long expireAfterUpdate(String key, JwtPrincipal value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                    
+                    @Override
+                    public long expireAfterRead(String key, JwtPrincipal value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofSeconds(userTtlSeconds))
+                .build();
+    }
+    
+    /**
+     * Return the principal for a token, verifying it only on a cache miss.
+     * 
+     * @param token Raw JWT
+     * @return Principal, or null if the token is invalid or expired
+     */
+    public JwtPrincipal resolve(String token) {
+        String key = hash(token);
+        JwtPrincipal cached = tokens.getIfPresent(key);
+        if (cached != null) {
+            if (!cached.isExpired(Instant.now())) {
+                return cached;
+            }
+            tokens.invalidate(key);
+            return null;
+        }
+        
+        try {
+            Claims claims = jwtService.parseClaims(token);
+            if (claims.getSubject() == null) {
+                return null;
+            }
+            JwtPrincipal principal = JwtPrincipal.fromClaims(claims, jwtService.extractRoles(claims));
+            tokens.put(key, principal);
+            return principal;
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.debug("Rejected JWT: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Load user details through the short-TTL user cache.
+     */
+    public UserDetails loadUser(String username) {
+        return users.get(username, userDetailsService::loadUserByUsername);
+    }
+    
+    /**
+     * Drop a user from the cache, e.g. after their roles or status changed.
+     */
+    public void evictUser(String username) {
+        users.invalidate(username);
+    }
+    
+    private static String hash(String token) {
+        MessageDigest digest = SHA256.get();
+        digest.reset();
+        return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,104 @@
+package com.healthtourism.security.benchmark;
+
+import com.healthtourism.security.service.JwtPrincipal;
+import com.healthtourism.security.service.JwtService;
+import com.healthtourism.security.service.VerifiedTokenCache;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of authenticating a request from its bearer token: the old path
+ * (signature verified three times, once per extracted claim) against one
+ * verification, against the verified-token cache.
+ *
+ * Requests cycle over a fixed set of tokens, as repeat calls from the same
+ * clients would, so the cache benchmark measures the hit path.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.healthtourism.security.benchmark.JwtVerificationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtVerificationBenchmark {
+
+    @Param({"1000"})
+    private int clients;
+
+    private JwtService jwtService;
+    private VerifiedTokenCache cache;
+    private String[] tokens;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", "benchmark-secret-key-that-is-at-least-32-characters");
+        ReflectionTestUtils.setField(jwtService, "expiration", 3_600_000L);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+        cache = new VerifiedTokenCache(jwtService,
+                username -> { throw new UsernameNotFoundException(username); },
+                10_000, 300, 10_000, 30);
+        tokens = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            Map<String, Object> claims = new HashMap<>();
+            claims.put("userId", i);
+            claims.put("authorities", List.of("ROLE_PATIENT"));
+            tokens[i] = jwtService.generateToken(claims, "user-" + i);
+        }
+    }
+
+    private String nextToken() {
+        return tokens[ThreadLocalRandom.current().nextInt(tokens.length)];
+    }
+
+    @Benchmark
+    public void parsePerClaim(Blackhole bh) {
+        String token = nextToken();
+        bh.consume(jwtService.extractUsername(token));
+        bh.consume(jwtService.validateToken(token));
+        bh.consume(jwtService.extractRoles(token));
+    }
+
+    @Benchmark
+    public JwtPrincipal parseOnce() {
+        Claims claims = jwtService.parseClaims(nextToken());
+        return JwtPrincipal.fromClaims(claims, jwtService.extractRoles(claims));
+    }
+
+    @Benchmark
+    public JwtPrincipal verifiedTokenCache() {
+        return cache.resolve(nextToken());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,107 @@
+package com.healthtourism.security.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class VerifiedTokenCacheTest {
+
+    private static final String SECRET = "test-secret-key-that-is-at-least-32-characters-long";
+
+    private JwtService jwtService;
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        JwtService service = new JwtService();
+        ReflectionTestUtils.setField(service, "secretKey", SECRET);
+        ReflectionTestUtils.setField(service, "expiration", 60_000L);
+        ReflectionTestUtils.setField(service, "refreshExpiration", 120_000L);
+        service.init();
+        jwtService = spy(service);
+        cache = new VerifiedTokenCache(jwtService,
+                username -> { throw new UsernameNotFoundException(username); },
+                100, 300, 100, 30);
+    }
+
+    @Test
+    void testResolve_VerifiesSameTokenOnce() {
+        // Given
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", 42);
+        claims.put("authorities", List.of("ROLE_PATIENT"));
+        String token = jwtService.generateToken(claims, "alice");
+
+        // When
+        JwtPrincipal first = cache.resolve(token);
+        JwtPrincipal second = cache.resolve(token);
+
+        // Then
+        assertNotNull(first);
+        assertSame(first, second);
+        assertEquals("alice", first.getUsername());
+        assertEquals(42L, first.getUserId());
+        assertTrue(first.getAuthorities().contains(new SimpleGrantedAuthority("ROLE_PATIENT")));
+        verify(jwtService, times(1)).parseClaims(anyString());
+    }
+
+    @Test
+    void testResolve_ReadsAuthoritiesSerialisedFromUserDetails() {
+        // Given
+        String token = jwtService.generateToken(
+                User.withUsername("dr.bob").password("x").authorities("ROLE_DOCTOR").build());
+
+        // When
+        JwtPrincipal principal = cache.resolve(token);
+
+        // Then
+        assertNotNull(principal);
+        assertEquals(List.of("ROLE_DOCTOR"),
+                principal.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+    }
+
+    @Test
+    void testResolve_RejectsTamperedTokenWithoutCaching() {
+        // Given
+        String token = jwtService.generateToken(new HashMap<>(), "alice");
+        String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+
+        // When
+        JwtPrincipal first = cache.resolve(tampered);
+        JwtPrincipal second = cache.resolve(tampered);
+
+        // Then
+        assertNull(first);
+        assertNull(second);
+        verify(jwtService, times(2)).parseClaims(tampered);
+    }
+
+    @Test
+    void testResolve_RejectsTokenSignedWithAnotherKey() {
+        // Given
+        JwtService other = new JwtService();
+        ReflectionTestUtils.setField(other, "secretKey", "another-secret-key-that-is-at-least-32-characters");
+        ReflectionTestUtils.setField(other, "expiration", 60_000L);
+        other.init();
+        String token = other.generateToken(new HashMap<>(), "mallory");
+
+        // When
+        JwtPrincipal principal = cache.resolve(token);
+
+        // Then
+        assertNull(principal);
+    }
+}
@@ -1,5 +1,6 @@
 package com.healthtourism.costpredictorservice.controller;
 
+import com.healthtourism.costpredictorservice.dto.CostPredictionRequest;
 import com.healthtourism.costpredictorservice.entity.CostPrediction;
 import com.healthtourism.costpredictorservice.service.CostPredictionService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -25,16 +26,12 @@ public class CostPredictionController {
                description = "Analyzes medical reports from IPFS and predicts total cost with ±5% accuracy")
     public ResponseEntity<CostPrediction> predictCost(@RequestBody Map<String, Object> request) {
         try {
-            Long userId = Long.valueOf(request.get("userId").toString());
-            Long hospitalId = Long.valueOf(request.get("hospitalId").toString());
-            Long doctorId = Long.valueOf(request.get("doctorId").toString());
-            String procedureType = request.get("procedureType").toString();
-            String medicalReportHash = request.getOrDefault("medicalReportHash", "").toString();
-            String medicalReportReference = request.getOrDefault("medicalReportReference", "").toString();
+            CostPredictionRequest predictionRequest = toPredictionRequest(request);
             
             CostPrediction prediction = costPredictionService.predictCost(
-                    userId, hospitalId, doctorId, procedureType, 
-                    medicalReportHash, medicalReportReference);
+                    predictionRequest.userId(), predictionRequest.hospitalId(), predictionRequest.doctorId(),
+                    predictionRequest.procedureType(), predictionRequest.medicalReportHash(),
+                    predictionRequest.medicalReportReference());
             
             return ResponseEntity.ok(prediction);
         } catch (Exception e) {
@@ -42,6 +39,30 @@ public class CostPredictionController {
         }
     }
     
+    @PostMapping("/predict/batch")
+    @Operation(summary = "Predict medical costs for several requests",
+               description = "Hospital, doctor, accommodation and report lookups shared by requests are made once")
+    public ResponseEntity<List<CostPrediction>> predictCosts(@RequestBody List<Map<String, Object>> requests) {
+        try {
+            List<CostPredictionRequest> predictionRequests = requests.stream()
+                    .map(this::toPredictionRequest)
+                    .toList();
+            return ResponseEntity.ok(costPredictionService.predictCosts(predictionRequests));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    private CostPredictionRequest toPredictionRequest(Map<String, Object> request) {
+        return new CostPredictionRequest(
+                Long.valueOf(request.get("userId").toString()),
+                Long.valueOf(request.get("hospitalId").toString()),
+                Long.valueOf(request.get("doctorId").toString()),
+                request.get("procedureType").toString(),
+                request.getOrDefault("medicalReportHash", "").toString(),
+                request.getOrDefault("medicalReportReference", "").toString());
+    }
+    
     @GetMapping("/user/{userId}")
     @Operation(summary = "Get all cost predictions for a user")
     public ResponseEntity<List<CostPrediction>> getPredictionsByUser(@PathVariable Long userId) {
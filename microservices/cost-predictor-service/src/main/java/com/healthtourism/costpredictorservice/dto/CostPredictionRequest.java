@@ -0,0 +1,10 @@
+package com.healthtourism.costpredictorservice.dto;
+
+public record CostPredictionRequest(
+        Long userId,
+        Long hospitalId,
+        Long doctorId,
+        String procedureType,
+        String medicalReportHash,
+        String medicalReportReference) {
+}
@@ -0,0 +1,239 @@
+package com.healthtourism.costpredictorservice.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remote lookups behind a cost prediction: medical report, hospital and doctor
+ * fees, accommodation and reservation history.
+ *
+ * Lookups run on virtual threads inside a {@link CostLookupScope} with a deadline
+ * of {@code cost.lookup.deadline}; each has a fallback used on error or timeout.
+ * Hospital and doctor fees change rarely and are cached for
+ * {@code cost.lookup.fee-cache.ttl}. Every remote call is timed in
+ * {@code cost.lookup.call}, tagged by dependency and outcome.
+ */
+@Component
+public class CostDataGateway implements InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(CostDataGateway.class);
+
+    static final String MEDICAL_REPORT = "medical-report";
+    static final String HOSPITAL_FEE = "hospital-fee";
+    static final String DOCTOR_FEE = "doctor-fee";
+    static final String ACCOMMODATION = "accommodation";
+    static final String RESERVATION_HISTORY = "reservation-history";
+
+    static final BigDecimal DEFAULT_HOSPITAL_FEE = new BigDecimal("5000.0");
+    static final BigDecimal DEFAULT_DOCTOR_FEE = new BigDecimal("1000.0");
+    static final BigDecimal DEFAULT_ACCOMMODATION_COST = new BigDecimal("700.0"); // 100 * 7 nights
+    private static final BigDecimal ACCOMMODATION_NIGHTS = new BigDecimal("7");
+
+    @Autowired(required = false)
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${blockchain.service.url:http://localhost:8030}")
+    private String blockchainServiceUrl;
+
+    @Value("${hospital.service.url:http://localhost:8002}")
+    private String hospitalServiceUrl;
+
+    @Value("${doctor.service.url:http://localhost:8003}")
+    private String doctorServiceUrl;
+
+    @Value("${accommodation.service.url:http://localhost:8004}")
+    private String accommodationServiceUrl;
+
+    @Value("${reservation.service.url:http://localhost:8009}")
+    private String reservationServiceUrl;
+
+    @Value("${cost.lookup.deadline:2s}")
+    private Duration deadline;
+
+    @Value("${cost.lookup.fee-cache.ttl:60s}")
+    private Duration feeCacheTtl;
+
+    @Value("${cost.lookup.fee-cache.max-entries:10000}")
+    private int feeCacheMaxEntries;
+
+    private ExecutorService executor;
+
+    private final Map<Long, CachedFee> hospitalFees = new ConcurrentHashMap<>();
+    private final Map<Long, CachedFee> doctorFees = new ConcurrentHashMap<>();
+
+    private record CachedFee(BigDecimal fee, long expiresAt) {
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("cost-lookup-", 0).factory());
+        if (restTemplate == null) {
+            // Sockets must not outlive the deadline by much; the scope interrupts them at the deadline anyway
+            SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+            requestFactory.setConnectTimeout(deadline);
+            requestFactory.setReadTimeout(deadline);
+            restTemplate = new RestTemplate(requestFactory);
+        }
+    }
+
+    CostLookupScope openScope() {
+        return new CostLookupScope(executor, System.nanoTime() + deadline.toNanos(), this::record);
+    }
+
+    /**
+     * Medical report from IPFS (via blockchain service).
+     */
+    @SuppressWarnings("unchecked")
+    CostLookupScope.Lookup<Map<String, Object>> medicalReport(CostLookupScope scope, String ipfsReference) {
+        return scope.fork(MEDICAL_REPORT, ipfsReference, () -> {
+            try {
+                // Extract CID from IPFS reference
+                String cid = ipfsReference.replace("ipfs://", "");
+                String url = blockchainServiceUrl + "/api/blockchain/ipfs/" + cid;
+                Map<String, Object> response = restTemplate.getForObject(url, Map.class);
+                if (response != null && response.containsKey("data")) {
+                    // Parse JSON data (simplified)
+                    return new HashMap<>(); // In production, parse actual JSON
+                }
+                return new HashMap<>();
+            } catch (Exception e) {
+                logger.warn("Failed to retrieve medical report: {}", e.getMessage());
+                throw e;
+            }
+        }, Map.of());
+    }
+
+    @SuppressWarnings("unchecked")
+    CostLookupScope.Lookup<BigDecimal> hospitalFee(CostLookupScope scope, Long hospitalId) {
+        return cachedFee(scope, HOSPITAL_FEE, hospitalFees, hospitalId, DEFAULT_HOSPITAL_FEE, () -> {
+            Map<String, Object> hospital = restTemplate.getForObject(
+                    hospitalServiceUrl + "/api/hospitals/" + hospitalId, Map.class);
+            return hospital != null && hospital.containsKey("basePrice")
+                    ? new BigDecimal(hospital.get("basePrice").toString()) : null;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    CostLookupScope.Lookup<BigDecimal> doctorFee(CostLookupScope scope, Long doctorId) {
+        return cachedFee(scope, DOCTOR_FEE, doctorFees, doctorId, DEFAULT_DOCTOR_FEE, () -> {
+            Map<String, Object> doctor = restTemplate.getForObject(
+                    doctorServiceUrl + "/api/doctors/" + doctorId, Map.class);
+            return doctor != null && doctor.containsKey("consultationFee")
+                    ? new BigDecimal(doctor.get("consultationFee").toString()) : null;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    CostLookupScope.Lookup<BigDecimal> accommodationCost(CostLookupScope scope, Long hospitalId) {
+        return scope.fork(ACCOMMODATION, hospitalId, () -> {
+            try {
+                String url = accommodationServiceUrl + "/api/accommodations/hospital/" + hospitalId;
+                List<Map<String, Object>> accommodations = restTemplate.getForObject(url, List.class);
+                if (accommodations != null && !accommodations.isEmpty()) {
+                    Map<String, Object> firstAccommodation = accommodations.get(0);
+                    if (firstAccommodation.containsKey("pricePerNight")) {
+                        BigDecimal pricePerNight = new BigDecimal(firstAccommodation.get("pricePerNight").toString());
+                        return pricePerNight.multiply(ACCOMMODATION_NIGHTS); // 7 nights estimate
+                    }
+                }
+                return DEFAULT_ACCOMMODATION_COST;
+            } catch (Exception e) {
+                logger.warn("Failed to estimate accommodation: {}", e.getMessage());
+                throw e;
+            }
+        }, DEFAULT_ACCOMMODATION_COST);
+    }
+
+    /**
+     * Past reservations of the procedure at the hospital, oldest first.
+     */
+    @SuppressWarnings("unchecked")
+    CostLookupScope.Lookup<List<Map<String, Object>>> reservationHistory(CostLookupScope scope, Long hospitalId,
+                                                                        String procedureType) {
+        return scope.fork(RESERVATION_HISTORY, hospitalId + "/" + procedureType, () -> {
+            try {
+                String url = reservationServiceUrl + "/api/reservations/hospital/" + hospitalId
+                        + "/procedure/" + procedureType;
+                List<Map<String, Object>> reservations = restTemplate.getForObject(url, List.class);
+                return reservations == null ? List.of() : reservations;
+            } catch (Exception e) {
+                logger.warn("Failed to load reservation history: {}", e.getMessage());
+                throw e;
+            }
+        }, List.of());
+    }
+
+    /**
+     * Fee from the cache, or a lookup that caches what the service returned. A
+     * missing fee or a failed call yields the default, which is never cached.
+     */
+    private CostLookupScope.Lookup<BigDecimal> cachedFee(CostLookupScope scope, String dependency,
+                                                        Map<Long, CachedFee> cache, Long id, BigDecimal defaultFee,
+                                                        Callable<BigDecimal> call) {
+        CachedFee cached = cache.get(id);
+        if (cached != null && cached.expiresAt() - System.nanoTime() > 0) {
+            return CostLookupScope.completed(dependency, cached.fee());
+        }
+        return scope.fork(dependency, id, () -> {
+            try {
+                BigDecimal fee = call.call();
+                if (fee == null) {
+                    return defaultFee;
+                }
+                if (cache.size() >= feeCacheMaxEntries) {
+                    long now = System.nanoTime();
+                    cache.values().removeIf(entry -> entry.expiresAt() - now <= 0);
+                }
+                if (cache.size() < feeCacheMaxEntries) {
+                    cache.put(id, new CachedFee(fee, System.nanoTime() + feeCacheTtl.toNanos()));
+                }
+                return fee;
+            } catch (Exception e) {
+                logger.warn("Failed to get {}: {}", dependency, e.getMessage());
+                throw e;
+            }
+        }, defaultFee);
+    }
+
+    private void record(String dependency, String outcome, long nanos) {
+        Timer.builder("cost.lookup.call")
+                .description("Cost prediction remote lookup latency")
+                .tag("dependency", dependency)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor.awaitTermination(deadline.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.healthtourism.costpredictorservice.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The remote lookups of one prediction (or batch of predictions), run
+ * concurrently under a single deadline.
+ *
+ * Each lookup is forked once per key, so a batch needing the same hospital twice
+ * calls hospital-service once. {@link #join()} waits until every fork is done or
+ * the deadline has passed and interrupts whatever is still running, so no fork
+ * outlives the scope. A lookup that failed or was cut off yields its fallback.
+ */
+final class CostLookupScope implements AutoCloseable {
+
+    static final String SUCCESS = "success";
+    static final String ERROR = "error";
+    static final String TIMEOUT = "timeout";
+
+    /** Receives one latency sample per remote call. */
+    interface Recorder {
+        void record(String dependency, String outcome, long nanos);
+    }
+
+    static final class Lookup<T> {
+
+        private final String dependency;
+        private final T fallback;
+        private final long started = System.nanoTime();
+        private final AtomicBoolean recorded = new AtomicBoolean();
+        private Future<T> future;
+
+        private Lookup(String dependency, T fallback) {
+            this.dependency = dependency;
+            this.fallback = fallback;
+        }
+
+        /**
+         * The looked-up value, or the fallback if the call failed, timed out or has
+         * not finished.
+         */
+        T get() {
+            if (!future.isDone() || future.isCancelled()) {
+                return fallback;
+            }
+            try {
+                return future.get();
+            } catch (ExecutionException | CancellationException e) {
+                return fallback;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return fallback;
+            }
+        }
+    }
+
+    private final ExecutorService executor;
+    private final long deadline;
+    private final Recorder recorder;
+    private final Map<String, Lookup<?>> forks = new LinkedHashMap<>();
+    private boolean joined;
+
+    /**
+     * @param deadline {@link System#nanoTime()} by which every lookup must be done
+     */
+    CostLookupScope(ExecutorService executor, long deadline, Recorder recorder) {
+        this.executor = executor;
+        this.deadline = deadline;
+        this.recorder = recorder;
+    }
+
+    /**
+     * Starts {@code call} unless a lookup of the same dependency and key was
+     * already started in this scope, in which case that one is returned.
+     */
+    @SuppressWarnings("unchecked")
+    <T> Lookup<T> fork(String dependency, Object key, Callable<T> call, T fallback) {
+        if (joined) {
+            throw new IllegalStateException("Scope already joined");
+        }
+        String forkKey = dependency + ':' + key;
+        Lookup<?> existing = forks.get(forkKey);
+        if (existing != null) {
+            return (Lookup<T>) existing;
+        }
+        Lookup<T> lookup = new Lookup<>(dependency, fallback);
+        lookup.future = executor.submit(() -> {
+            try {
+                T value = call.call();
+                record(lookup, SUCCESS);
+                return value;
+            } catch (Exception e) {
+                record(lookup, ERROR);
+                throw e;
+            }
+        });
+        forks.put(forkKey, lookup);
+        return lookup;
+    }
+
+    /**
+     * A lookup answered without a remote call, e.g. from a cache.
+     */
+    static <T> Lookup<T> completed(String dependency, T value) {
+        Lookup<T> lookup = new Lookup<>(dependency, value);
+        lookup.future = CompletableFuture.completedFuture(value);
+        return lookup;
+    }
+
+    /**
+     * Waits for every fork until the deadline, then cancels the rest.
+     */
+    void join() {
+        joined = true;
+        for (Lookup<?> lookup : forks.values()) {
+            try {
+                lookup.future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                record(lookup, TIMEOUT);
+                lookup.future.cancel(true);
+            } catch (ExecutionException | CancellationException e) {
+                // The lookup falls back to its default
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        close();
+    }
+
+    @Override
+    public void close() {
+        joined = true;
+        for (Lookup<?> lookup : forks.values()) {
+            if (!lookup.future.isDone()) {
+                record(lookup, TIMEOUT);
+                lookup.future.cancel(true);
+            }
+        }
+    }
+
+    private void record(Lookup<?> lookup, String outcome) {
+        // An interrupted call may still fail after its timeout was recorded; count it once
+        if (lookup.recorded.compareAndSet(false, true)) {
+            recorder.record(lookup.dependency, outcome, System.nanoTime() - lookup.started);
+        }
+    }
+}
@@ -1,19 +1,16 @@
 package com.healthtourism.costpredictorservice.service;
 
+import com.healthtourism.costpredictorservice.dto.CostPredictionRequest;
 import com.healthtourism.costpredictorservice.entity.CostPrediction;
 import com.healthtourism.costpredictorservice.repository.CostPredictionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -30,37 +27,20 @@ public class CostPredictionService {
     @Autowired
     private CostPredictionRepository predictionRepository;
     
-    @Autowired(required = false)
-    private RestTemplate restTemplate;
-    
-    @Value("${blockchain.service.url:http://localhost:8030}")
-    private String blockchainServiceUrl;
-    
-    @Value("${hospital.service.url:http://localhost:8002}")
-    private String hospitalServiceUrl;
-    
-    @Value("${doctor.service.url:http://localhost:8003}")
-    private String doctorServiceUrl;
+    @Autowired
+    private CostDataGateway costDataGateway;
     
-    @Value("${accommodation.service.url:http://localhost:8004}")
-    private String accommodationServiceUrl;
+    @Value("${cost.prediction.batch.max-size:100}")
+    private int maxBatchSize;
     
-    @Value("${reservation.service.url:http://localhost:8009}")
-    private String reservationServiceUrl;
+    private static final Logger logger = LoggerFactory.getLogger(CostPredictionService.class);
+    private static final BigDecimal TREND_MULTIPLIER_CAP = new BigDecimal("1.2");
     
     private final Random random = new Random();
     
-    private RestTemplate getRestTemplate() {
-        if (restTemplate == null) {
-            restTemplate = new RestTemplate();
-        }
-        return restTemplate;
-    }
-    
     /**
      * Predict medical cost based on medical report analysis
      */
-    @Transactional
     public CostPrediction predictCost(
             Long userId,
             Long hospitalId,
@@ -69,16 +49,57 @@ public class CostPredictionService {
             String medicalReportHash,
             String medicalReportReference) {
         
-        // Retrieve medical report from IPFS (via blockchain service)
-        Map<String, Object> medicalReport = retrieveMedicalReport(medicalReportReference);
+        return predictCosts(List.of(new CostPredictionRequest(userId, hospitalId, doctorId, procedureType,
+                medicalReportHash, medicalReportReference))).get(0);
+    }
+    
+    /**
+     * Predict costs for several requests at once. All remote lookups run
+     * concurrently under one deadline, and lookups shared between requests (same
+     * hospital, doctor or report) are made once.
+     */
+    public List<CostPrediction> predictCosts(List<CostPredictionRequest> requests) {
+        if (requests.size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " predictions per batch");
+        }
+        
+        // No transaction is open while the remote lookups run
+        List<CostInputs> inputs = new ArrayList<>(requests.size());
+        try (CostLookupScope scope = costDataGateway.openScope()) {
+            for (CostPredictionRequest request : requests) {
+                inputs.add(new CostInputs(
+                        costDataGateway.medicalReport(scope, request.medicalReportReference()),
+                        costDataGateway.hospitalFee(scope, request.hospitalId()),
+                        costDataGateway.doctorFee(scope, request.doctorId()),
+                        costDataGateway.accommodationCost(scope, request.hospitalId()),
+                        costDataGateway.reservationHistory(scope, request.hospitalId(), request.procedureType())));
+            }
+            scope.join();
+        }
         
+        List<CostPrediction> predictions = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            predictions.add(buildPrediction(requests.get(i), inputs.get(i)));
+        }
+        return predictionRepository.saveAll(predictions);
+    }
+    
+    private record CostInputs(
+            CostLookupScope.Lookup<Map<String, Object>> medicalReport,
+            CostLookupScope.Lookup<BigDecimal> hospitalFee,
+            CostLookupScope.Lookup<BigDecimal> doctorFee,
+            CostLookupScope.Lookup<BigDecimal> accommodationCost,
+            CostLookupScope.Lookup<List<Map<String, Object>>> reservationHistory) {
+    }
+    
+    private CostPrediction buildPrediction(CostPredictionRequest request, CostInputs inputs) {
         // AI Analysis (simulated - in production, use actual AI/ML model)
-        Map<String, Object> analysis = analyzeMedicalReport(medicalReport, procedureType);
+        Map<String, Object> analysis = analyzeMedicalReport(inputs.medicalReport().get(), request.procedureType());
         
-        // Get base costs from services
-        BigDecimal hospitalFee = getHospitalFee(hospitalId);
-        BigDecimal doctorFee = getDoctorFee(doctorId);
-        BigDecimal accommodationCost = estimateAccommodationCost(hospitalId);
+        // Base costs from services
+        BigDecimal hospitalFee = inputs.hospitalFee().get();
+        BigDecimal doctorFee = inputs.doctorFee().get();
+        BigDecimal accommodationCost = inputs.accommodationCost().get();
         BigDecimal medicationCost = estimateMedicationCost(analysis);
         BigDecimal transferCost = new BigDecimal("100.0"); // Default transfer cost
         
@@ -88,7 +109,7 @@ public class CostPredictionService {
                 hospitalFee.add(doctorFee), complicationProbability);
         
         // Analyze hidden costs trend from historical data
-        BigDecimal hiddenCostsAdjustment = analyzeHiddenCostsTrend(hospitalId, doctorId, procedureType);
+        BigDecimal hiddenCostsAdjustment = analyzeHiddenCostsTrend(inputs.reservationHistory().get());
         
         // Calculate total
         BigDecimal predictedTotalCost = hospitalFee
@@ -101,12 +122,12 @@ public class CostPredictionService {
         
         // Create prediction
         CostPrediction prediction = new CostPrediction();
-        prediction.setUserId(userId);
-        prediction.setHospitalId(hospitalId);
-        prediction.setDoctorId(doctorId);
-        prediction.setProcedureType(procedureType);
-        prediction.setMedicalReportHash(medicalReportHash);
-        prediction.setMedicalReportReference(medicalReportReference);
+        prediction.setUserId(request.userId());
+        prediction.setHospitalId(request.hospitalId());
+        prediction.setDoctorId(request.doctorId());
+        prediction.setProcedureType(request.procedureType());
+        prediction.setMedicalReportHash(request.medicalReportHash());
+        prediction.setMedicalReportReference(request.medicalReportReference());
         prediction.setAnalysisSummary((String) analysis.get("summary"));
         prediction.setHospitalFee(hospitalFee);
         prediction.setDoctorFee(doctorFee);
@@ -114,33 +135,14 @@ public class CostPredictionService {
         prediction.setMedicationCost(medicationCost);
         prediction.setTransferCost(transferCost);
         prediction.setComplicationRiskCost(complicationRiskCost);
+        prediction.setHiddenCostsAdjustment(hiddenCostsAdjustment);
         prediction.setPredictedTotalCost(predictedTotalCost);
         prediction.setAccuracyPercentage(new BigDecimal("95.0")); // ±5% accuracy
         prediction.setIdentifiedRisks((String) analysis.get("risks"));
         prediction.setRiskLevel((String) analysis.get("riskLevel"));
         prediction.setComplicationProbability(complicationProbability);
         
-        return predictionRepository.save(prediction);
-    }
-    
-    /**
-     * Retrieve medical report from IPFS
-     */
-    private Map<String, Object> retrieveMedicalReport(String ipfsReference) {
-        try {
-            // Extract CID from IPFS reference
-            String cid = ipfsReference.replace("ipfs://", "");
-            String url = blockchainServiceUrl + "/api/blockchain/ipfs/" + cid;
-            Map<String, Object> response = getRestTemplate().getForObject(url, Map.class);
-            
-            if (response != null && response.containsKey("data")) {
-                // Parse JSON data (simplified)
-                return new HashMap<>(); // In production, parse actual JSON
-            }
-        } catch (Exception e) {
-            System.err.println("Failed to retrieve medical report: " + e.getMessage());
-        }
-        return new HashMap<>();
+        return prediction;
     }
     
     /**
@@ -164,49 +166,6 @@ public class CostPredictionService {
         return analysis;
     }
     
-    private BigDecimal getHospitalFee(Long hospitalId) {
-        try {
-            String url = hospitalServiceUrl + "/api/hospitals/" + hospitalId;
-            Map<String, Object> hospital = getRestTemplate().getForObject(url, Map.class);
-            if (hospital != null && hospital.containsKey("basePrice")) {
-                return new BigDecimal(hospital.get("basePrice").toString());
-            }
-        } catch (Exception e) {
-            System.err.println("Failed to get hospital fee: " + e.getMessage());
-        }
-        return new BigDecimal("5000.0"); // Default
-    }
-    
-    private BigDecimal getDoctorFee(Long doctorId) {
-        try {
-            String url = doctorServiceUrl + "/api/doctors/" + doctorId;
-            Map<String, Object> doctor = getRestTemplate().getForObject(url, Map.class);
-            if (doctor != null && doctor.containsKey("consultationFee")) {
-                return new BigDecimal(doctor.get("consultationFee").toString());
-            }
-        } catch (Exception e) {
-            System.err.println("Failed to get doctor fee: " + e.getMessage());
-        }
-        return new BigDecimal("1000.0"); // Default
-    }
-    
-    private BigDecimal estimateAccommodationCost(Long hospitalId) {
-        try {
-            String url = accommodationServiceUrl + "/api/accommodations/hospital/" + hospitalId;
-            List<Map<String, Object>> accommodations = getRestTemplate().getForObject(url, List.class);
-            if (accommodations != null && !accommodations.isEmpty()) {
-                Map<String, Object> firstAccommodation = accommodations.get(0);
-                if (firstAccommodation.containsKey("pricePerNight")) {
-                    BigDecimal pricePerNight = new BigDecimal(firstAccommodation.get("pricePerNight").toString());
-                    return pricePerNight.multiply(new BigDecimal("7")); // 7 nights estimate
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("Failed to estimate accommodation: " + e.getMessage());
-        }
-        return new BigDecimal("700.0"); // Default (100 * 7 nights)
-    }
-    
     private BigDecimal estimateMedicationCost(Map<String, Object> analysis) {
         // Estimate based on procedure type and risk level
         String riskLevel = (String) analysis.get("riskLevel");
@@ -230,46 +189,33 @@ public class CostPredictionService {
      * Analyze hidden costs trend from historical data
      * Learns from past "extra costs" patterns to improve ±5% accuracy
      */
-    private BigDecimal analyzeHiddenCostsTrend(Long hospitalId, Long doctorId, String procedureType) {
-        try {
-            // Get historical reservations for similar procedures
-            String url = reservationServiceUrl + "/api/reservations/hospital/" + hospitalId + 
-                        "/procedure/" + procedureType;
-            List<Map<String, Object>> historicalReservations = getRestTemplate().getForObject(url, List.class);
-            
-            if (historicalReservations == null || historicalReservations.isEmpty()) {
-                return BigDecimal.ZERO; // No historical data
-            }
-            
-            // Analyze hidden costs pattern
-            BigDecimal totalHiddenCosts = BigDecimal.ZERO;
-            int count = 0;
-            
-            for (Map<String, Object> reservation : historicalReservations) {
-                BigDecimal basePrice = new BigDecimal(reservation.getOrDefault("totalPrice", "0").toString());
-                BigDecimal finalPrice = new BigDecimal(reservation.getOrDefault("finalPrice", basePrice).toString());
-                
-                // Calculate hidden cost (difference between final and base)
-                BigDecimal hiddenCost = finalPrice.subtract(basePrice);
-                if (hiddenCost.compareTo(BigDecimal.ZERO) > 0) {
-                    totalHiddenCosts = totalHiddenCosts.add(hiddenCost);
-                    count++;
-                }
+    private BigDecimal analyzeHiddenCostsTrend(List<Map<String, Object>> historicalReservations) {
+        if (historicalReservations.isEmpty()) {
+            return BigDecimal.ZERO; // No historical data
+        }
+        
+        // Analyze hidden costs pattern
+        BigDecimal totalHiddenCosts = BigDecimal.ZERO;
+        int count = 0;
+        
+        for (Map<String, Object> reservation : historicalReservations) {
+            // Calculate hidden cost (difference between final and base)
+            BigDecimal hiddenCost = hiddenCost(reservation);
+            if (hiddenCost != null && hiddenCost.compareTo(BigDecimal.ZERO) > 0) {
+                totalHiddenCosts = totalHiddenCosts.add(hiddenCost);
+                count++;
             }
+        }
+        
+        if (count > 0) {
+            // Calculate average hidden cost
+            BigDecimal averageHiddenCost = totalHiddenCosts.divide(new BigDecimal(count), 2, RoundingMode.HALF_UP);
             
-            if (count > 0) {
-                // Calculate average hidden cost
-                BigDecimal averageHiddenCost = totalHiddenCosts.divide(new BigDecimal(count), 2, RoundingMode.HALF_UP);
-                
-                // Apply trend analysis: if hidden costs are increasing, add more
-                // This helps achieve ±5% accuracy by learning from past patterns
-                BigDecimal trendMultiplier = calculateTrendMultiplier(historicalReservations);
-                
-                return averageHiddenCost.multiply(trendMultiplier);
-            }
+            // Apply trend analysis: if hidden costs are increasing, add more
+            // This helps achieve ±5% accuracy by learning from past patterns
+            BigDecimal trendMultiplier = calculateTrendMultiplier(historicalReservations);
             
-        } catch (Exception e) {
-            System.err.println("Failed to analyze hidden costs trend: " + e.getMessage());
+            return averageHiddenCost.multiply(trendMultiplier);
         }
         
         return BigDecimal.ZERO;
@@ -289,11 +235,10 @@ public class CostPredictionService {
         List<BigDecimal> recentHiddenCosts = new ArrayList<>();
         
         for (int i = historicalReservations.size() - sampleSize; i < historicalReservations.size(); i++) {
-            Map<String, Object> reservation = historicalReservations.get(i);
-            BigDecimal basePrice = new BigDecimal(reservation.getOrDefault("totalPrice", "0").toString());
-            BigDecimal finalPrice = new BigDecimal(reservation.getOrDefault("finalPrice", basePrice).toString());
-            BigDecimal hiddenCost = finalPrice.subtract(basePrice);
-            recentHiddenCosts.add(hiddenCost);
+            BigDecimal hiddenCost = hiddenCost(historicalReservations.get(i));
+            if (hiddenCost != null) {
+                recentHiddenCosts.add(hiddenCost);
+            }
         }
         
         // Calculate trend (simple linear regression)
@@ -314,15 +259,49 @@ public class CostPredictionService {
             
             // If second half average > first half average, costs are increasing
             if (secondAvg.compareTo(firstAvg) > 0) {
+                if (firstAvg.signum() <= 0) {
+                    return TREND_MULTIPLIER_CAP;
+                }
                 BigDecimal increaseRatio = secondAvg.divide(firstAvg, 2, RoundingMode.HALF_UP);
                 // Cap multiplier at 1.2 (20% increase max)
-                return increaseRatio.min(new BigDecimal("1.2"));
+                return increaseRatio.min(TREND_MULTIPLIER_CAP);
             }
         }
         
         return new BigDecimal("1.0"); // No trend detected
     }
     
+    /**
+     * Final minus base price of a past reservation, or null when the row has no
+     * usable totalPrice or a finalPrice that is not a number. A missing finalPrice
+     * means no extra cost was charged.
+     */
+    private BigDecimal hiddenCost(Map<String, Object> reservation) {
+        BigDecimal basePrice = toPrice(reservation.get("totalPrice"));
+        if (basePrice == null) {
+            logger.debug("Skipping reservation {} without a usable totalPrice", reservation.get("id"));
+            return null;
+        }
+        Object finalValue = reservation.get("finalPrice");
+        BigDecimal finalPrice = finalValue == null ? basePrice : toPrice(finalValue);
+        if (finalPrice == null) {
+            logger.debug("Skipping reservation {} with finalPrice '{}'", reservation.get("id"), finalValue);
+            return null;
+        }
+        return finalPrice.subtract(basePrice);
+    }
+    
+    private static BigDecimal toPrice(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value.toString().trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
     public List<CostPrediction> getPredictionsByUser(Long userId) {
         return predictionRepository.findByUserIdOrderByCreatedAtDesc(userId);
     }
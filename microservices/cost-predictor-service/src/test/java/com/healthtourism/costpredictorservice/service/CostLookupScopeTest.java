@@ -0,0 +1,129 @@
+package com.healthtourism.costpredictorservice.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CostLookupScopeTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<String> samples = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private CostLookupScope scope(long deadlineMillis) {
+        return new CostLookupScope(executor, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis),
+                (dependency, outcome, nanos) -> samples.add(dependency + ":" + outcome));
+    }
+
+    @Test
+    void testJoin_RunsLookupsConcurrently() {
+        // Given
+        CostLookupScope scope = scope(5_000);
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        // When
+        CostLookupScope.Lookup<String> first = scope.fork("a", 1, () -> awaitBoth(bothStarted, "first"), "fallback");
+        CostLookupScope.Lookup<String> second = scope.fork("b", 1, () -> awaitBoth(bothStarted, "second"), "fallback");
+        scope.join();
+
+        // Then
+        assertEquals("first", first.get());
+        assertEquals("second", second.get());
+        assertTrue(samples.containsAll(List.of("a:success", "b:success")));
+    }
+
+    @Test
+    void testJoin_FallsBackAfterDeadline() {
+        // Given
+        CostLookupScope scope = scope(100);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        // When
+        CostLookupScope.Lookup<String> fast = scope.fork("fast", 1, () -> "value", "fallback");
+        CostLookupScope.Lookup<String> slow = scope.fork("slow", 1, () -> {
+            try {
+                Thread.sleep(10_000);
+                return "late";
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+        }, "fallback");
+        long start = System.nanoTime();
+        scope.join();
+
+        // Then
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2_000);
+        assertEquals("value", fast.get());
+        assertEquals("fallback", slow.get());
+        assertTrue(samples.contains("slow:timeout"));
+        assertFalse(samples.contains("slow:error"));
+        assertDoesNotThrow(() -> assertTrue(interrupted.await(5, TimeUnit.SECONDS)));
+    }
+
+    @Test
+    void testGet_FallsBackOnError() {
+        // Given
+        CostLookupScope scope = scope(5_000);
+
+        // When
+        CostLookupScope.Lookup<Integer> failing = scope.fork("broken", 1, () -> {
+            throw new IllegalStateException("service down");
+        }, 42);
+        scope.join();
+
+        // Then
+        assertEquals(42, failing.get());
+        assertEquals(List.of("broken:error"), samples);
+    }
+
+    @Test
+    void testFork_SharesLookupsWithTheSameKey() {
+        // Given
+        CostLookupScope scope = scope(5_000);
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        CostLookupScope.Lookup<Integer> first = scope.fork("hospital", 7L, calls::incrementAndGet, 0);
+        CostLookupScope.Lookup<Integer> again = scope.fork("hospital", 7L, calls::incrementAndGet, 0);
+        CostLookupScope.Lookup<Integer> other = scope.fork("hospital", 8L, calls::incrementAndGet, 0);
+        scope.join();
+
+        // Then
+        assertSame(first, again);
+        assertNotSame(first, other);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testFork_RejectedAfterJoin() {
+        // Given
+        CostLookupScope scope = scope(5_000);
+        scope.join();
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> scope.fork("late", 1, () -> "x", "fallback"));
+    }
+
+    private static String awaitBoth(CountDownLatch bothStarted, String value) throws InterruptedException {
+        bothStarted.countDown();
+        // Only returns if the other lookup runs at the same time
+        if (!bothStarted.await(2, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("lookups ran one after another");
+        }
+        return value;
+    }
+}
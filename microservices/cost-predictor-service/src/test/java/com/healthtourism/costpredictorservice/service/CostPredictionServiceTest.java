@@ -0,0 +1,110 @@
+package com.healthtourism.costpredictorservice.service;
+
+import com.healthtourism.costpredictorservice.entity.CostPrediction;
+import com.healthtourism.costpredictorservice.repository.CostPredictionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CostPredictionServiceTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Mock
+    private CostPredictionRepository predictionRepository;
+
+    @Mock
+    private CostDataGateway costDataGateway;
+
+    @InjectMocks
+    private CostPredictionService costPredictionService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(costPredictionService, "maxBatchSize", 100);
+        when(costDataGateway.openScope()).thenAnswer(invocation -> new CostLookupScope(executor,
+                System.nanoTime() + TimeUnit.SECONDS.toNanos(5), (dependency, outcome, nanos) -> { }));
+        when(costDataGateway.medicalReport(any(), anyString()))
+                .thenReturn(CostLookupScope.completed("blockchain", Map.of()));
+        when(costDataGateway.hospitalFee(any(), anyLong()))
+                .thenReturn(CostLookupScope.completed("hospital", new BigDecimal("1000")));
+        when(costDataGateway.doctorFee(any(), anyLong()))
+                .thenReturn(CostLookupScope.completed("doctor", new BigDecimal("500")));
+        when(costDataGateway.accommodationCost(any(), anyLong()))
+                .thenReturn(CostLookupScope.completed("accommodation", new BigDecimal("700")));
+        when(predictionRepository.saveAll(anyIterable())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testPredictCost_SkipsMalformedHistoryRows() {
+        // Given
+        List<Map<String, Object>> history = new ArrayList<>();
+        history.add(reservation(1L, "1000", "1300"));
+        history.add(reservation(2L, null, "1500"));
+        history.add(reservation(3L, "abc", "1200"));
+        history.add(reservation(4L, "1000", "n/a"));
+        history.add(reservation(5L, "1000", "1100"));
+        history.add(reservation(6L, "1000", null));
+        when(costDataGateway.reservationHistory(any(), anyLong(), anyString()))
+                .thenReturn(CostLookupScope.completed("reservation", history));
+
+        // When
+        CostPrediction prediction = costPredictionService.predictCost(1L, 10L, 20L, "DENTAL", "hash", "ipfs://report");
+
+        // Then
+        // Rows 1 and 5 carry hidden costs (300, 100); the parsable rows (300, 100, 0) show no upward trend
+        assertEquals(0, new BigDecimal("200").compareTo(prediction.getHiddenCostsAdjustment()));
+    }
+
+    @Test
+    void testPredictCost_NoUsableHistoryAddsNoHiddenCost() {
+        // Given
+        List<Map<String, Object>> history = new ArrayList<>();
+        history.add(reservation(1L, null, null));
+        history.add(reservation(2L, "", "900"));
+        history.add(reservation(3L, "1000", "NaN"));
+        when(costDataGateway.reservationHistory(any(), anyLong(), anyString()))
+                .thenReturn(CostLookupScope.completed("reservation", history));
+
+        // When
+        CostPrediction prediction = costPredictionService.predictCost(1L, 10L, 20L, "DENTAL", "hash", "ipfs://report");
+
+        // Then
+        assertEquals(0, BigDecimal.ZERO.compareTo(prediction.getHiddenCostsAdjustment()));
+    }
+
+    private static Map<String, Object> reservation(Long id, String totalPrice, String finalPrice) {
+        Map<String, Object> reservation = new HashMap<>();
+        reservation.put("id", id);
+        reservation.put("totalPrice", totalPrice);
+        reservation.put("finalPrice", finalPrice);
+        return reservation;
+    }
+}
@@ -1,5 +1,6 @@
 package com.healthtourism.currencyconversionservice.controller;
 
+import com.healthtourism.currencyconversionservice.dto.BulkConversionResponse;
 import com.healthtourism.currencyconversionservice.dto.CurrencyConversionRequest;
 import com.healthtourism.currencyconversionservice.dto.CurrencyConversionResponse;
 import com.healthtourism.currencyconversionservice.service.CurrencyConversionService;
@@ -8,6 +9,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/currency")
@@ -31,6 +33,16 @@ public class CurrencyConversionController {
         return ResponseEntity.ok(response);
     }
     
+    @PostMapping("/convert/bulk")
+    public ResponseEntity<BulkConversionResponse> convertBulk(
+            @RequestBody List<CurrencyConversionRequest> requests) {
+        try {
+            return ResponseEntity.ok(currencyConversionService.convertBulk(requests));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/convert")
     public ResponseEntity<CurrencyConversionResponse> convertCurrencyGet(
             @RequestParam BigDecimal amount,
@@ -0,0 +1,17 @@
+package com.healthtourism.currencyconversionservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkConversionResponse {
+    private LocalDateTime ratesAsOf;
+    private List<BigDecimal> convertedAmounts;
+}
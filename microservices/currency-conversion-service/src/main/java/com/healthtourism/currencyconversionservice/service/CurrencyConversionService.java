@@ -1,23 +1,34 @@
 package com.healthtourism.currencyconversionservice.service;
 
+import com.healthtourism.currencyconversionservice.dto.BulkConversionResponse;
 import com.healthtourism.currencyconversionservice.dto.CurrencyConversionRequest;
 import com.healthtourism.currencyconversionservice.dto.CurrencyConversionResponse;
 import com.healthtourism.currencyconversionservice.entity.ExchangeRate;
 import com.healthtourism.currencyconversionservice.repository.ExchangeRateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class CurrencyConversionService {
     
+    private static final Logger log = LoggerFactory.getLogger(CurrencyConversionService.class);
+    
     @Autowired
     private ExchangeRateRepository exchangeRateRepository;
     
@@ -27,10 +38,64 @@ public class CurrencyConversionService {
     @Value("${currency.base:TRY}")
     private String baseCurrency;
     
+    @Value("${currency.supported:TRY,USD,EUR,GBP}")
+    private List<String> supportedCurrencies;
+    
+    @Value("${currency.bulk.max-items:5000}")
+    private int bulkMaxItems;
+    
     private final WebClient webClient = WebClient.create();
     
-    @Cacheable(value = "exchangeRates", key = "#fromCurrency + '-' + #toCurrency")
+    // Tüm kur çiftleri tek seferde hesaplanıp atomik olarak yayınlanır
+    private final AtomicReference<ExchangeRateMatrix> rateMatrix = new AtomicReference<>();
+    
     public BigDecimal getExchangeRate(String fromCurrency, String toCurrency) {
+        ExchangeRateMatrix matrix = currentMatrix();
+        int from = matrix.indexOf(fromCurrency);
+        int to = matrix.indexOf(toCurrency);
+        if (from >= 0 && to >= 0) {
+            return matrix.rate(from, to);
+        }
+        return lookupExchangeRate(fromCurrency, toCurrency);
+    }
+    
+    /**
+     * Rebuilds the rate matrix from the base-currency rates in one pass and swaps
+     * it in; readers keep using the previous snapshot until the swap.
+     */
+    @Scheduled(fixedDelayString = "${currency.matrix.refresh-interval-ms:600000}")
+    public void refreshRateMatrix() {
+        Map<String, BigDecimal> baseRates = new LinkedHashMap<>();
+        for (String currency : supportedCurrencies) {
+            baseRates.put(currency.trim().toUpperCase(), null);
+        }
+        for (ExchangeRate stored : exchangeRateRepository.findByFromCurrency(baseCurrency)) {
+            baseRates.putIfAbsent(stored.getToCurrency().toUpperCase(), null);
+        }
+        baseRates.remove(baseCurrency.toUpperCase());
+        for (Map.Entry<String, BigDecimal> entry : baseRates.entrySet()) {
+            entry.setValue(lookupExchangeRate(baseCurrency, entry.getKey()));
+        }
+        
+        ExchangeRateMatrix matrix = ExchangeRateMatrix.fromBaseRates(baseCurrency, baseRates, LocalDateTime.now());
+        rateMatrix.set(matrix);
+        log.info("Exchange rate matrix refreshed: {} currencies", matrix.getCurrencies().size());
+    }
+    
+    private ExchangeRateMatrix currentMatrix() {
+        ExchangeRateMatrix matrix = rateMatrix.get();
+        if (matrix == null) {
+            synchronized (rateMatrix) {
+                if (rateMatrix.get() == null) {
+                    refreshRateMatrix();
+                }
+                matrix = rateMatrix.get();
+            }
+        }
+        return matrix;
+    }
+    
+    private BigDecimal lookupExchangeRate(String fromCurrency, String toCurrency) {
         // Eğer aynı para birimi ise 1 döndür
         if (fromCurrency.equalsIgnoreCase(toCurrency)) {
             return BigDecimal.ONE;
@@ -61,9 +126,19 @@ public class CurrencyConversionService {
     }
     
     public CurrencyConversionResponse convertCurrency(CurrencyConversionRequest request) {
-        BigDecimal rate = getExchangeRate(request.getFromCurrency(), request.getToCurrency());
-        BigDecimal convertedAmount = request.getAmount().multiply(rate)
-                .setScale(2, RoundingMode.HALF_UP);
+        ExchangeRateMatrix matrix = currentMatrix();
+        int from = matrix.indexOf(request.getFromCurrency());
+        int to = matrix.indexOf(request.getToCurrency());
+        BigDecimal rate;
+        BigDecimal convertedAmount;
+        if (from >= 0 && to >= 0) {
+            rate = matrix.rate(from, to);
+            convertedAmount = matrix.convert(request.getAmount(), from, to);
+        } else {
+            rate = lookupExchangeRate(request.getFromCurrency(), request.getToCurrency());
+            convertedAmount = request.getAmount().multiply(rate)
+                    .setScale(2, RoundingMode.HALF_UP);
+        }
         
         CurrencyConversionResponse response = new CurrencyConversionResponse();
         response.setOriginalAmount(request.getAmount());
@@ -76,6 +151,37 @@ public class CurrencyConversionService {
         return response;
     }
     
+    /**
+     * Converts every line against the same rate snapshot; amounts are returned
+     * in request order. Pairs outside the snapshot are looked up once per request.
+     */
+    public BulkConversionResponse convertBulk(List<CurrencyConversionRequest> requests) {
+        if (requests.size() > bulkMaxItems) {
+            throw new IllegalArgumentException("En fazla " + bulkMaxItems + " satır dönüştürülebilir");
+        }
+        ExchangeRateMatrix matrix = currentMatrix();
+        Map<String, BigDecimal> fallbackRates = new HashMap<>();
+        BigDecimal[] convertedAmounts = new BigDecimal[requests.size()];
+        for (int i = 0; i < convertedAmounts.length; i++) {
+            CurrencyConversionRequest request = requests.get(i);
+            if (request == null || request.getAmount() == null
+                    || request.getFromCurrency() == null || request.getToCurrency() == null) {
+                throw new IllegalArgumentException("Satır " + i + ": amount, fromCurrency ve toCurrency zorunludur");
+            }
+            int from = matrix.indexOf(request.getFromCurrency());
+            int to = matrix.indexOf(request.getToCurrency());
+            if (from >= 0 && to >= 0) {
+                convertedAmounts[i] = matrix.convert(request.getAmount(), from, to);
+            } else {
+                String pair = request.getFromCurrency().toUpperCase() + '>' + request.getToCurrency().toUpperCase();
+                BigDecimal rate = fallbackRates.computeIfAbsent(pair,
+                        key -> lookupExchangeRate(request.getFromCurrency(), request.getToCurrency()));
+                convertedAmounts[i] = request.getAmount().multiply(rate).setScale(2, RoundingMode.HALF_UP);
+            }
+        }
+        return new BulkConversionResponse(matrix.getAsOf(), Arrays.asList(convertedAmounts));
+    }
+    
     private BigDecimal fetchExchangeRateFromApi(String fromCurrency, String toCurrency) {
         try {
             // ExchangeRate-API (ücretsiz) kullanımı
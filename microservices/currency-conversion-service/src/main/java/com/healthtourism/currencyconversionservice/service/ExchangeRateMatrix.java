@@ -0,0 +1,160 @@
+package com.healthtourism.currencyconversionservice.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of every currency-to-currency rate, built once per refresh
+ * from the base-currency (TRY) rates.
+ *
+ * Cross rates are computed exactly like the per-pair path did (through the base
+ * currency, 6 decimals, HALF_UP), so results do not change. Rates are also kept
+ * as fixed-point micros in a dense row-major array: a conversion is one array
+ * read, one 64-bit multiply and a HALF_UP rounding to cents, with no BigDecimal
+ * arithmetic unless the product would overflow a long.
+ */
+public final class ExchangeRateMatrix {
+
+    public static final int AMOUNT_SCALE = 2;
+    public static final int RATE_SCALE = 6;
+
+    private static final long RATE_UNIT = 1_000_000L;
+    /** Amounts below 10^16 have at most 18 digits in cents, which fits in a long. */
+    private static final int MAX_FAST_INTEGER_DIGITS = 16;
+
+    private final List<String> currencies;
+    private final Map<String, Integer> index;
+    private final int size;
+    private final long[] rateMicros;
+    private final BigDecimal[] rates;
+    private final LocalDateTime asOf;
+
+    private ExchangeRateMatrix(List<String> currencies, BigDecimal[] rates, LocalDateTime asOf) {
+        this.currencies = Collections.unmodifiableList(currencies);
+        this.size = currencies.size();
+        this.rates = rates;
+        this.rateMicros = new long[rates.length];
+        for (int i = 0; i < rates.length; i++) {
+            rateMicros[i] = rates[i].movePointRight(RATE_SCALE).longValueExact();
+        }
+        this.index = new HashMap<>(size * 4);
+        for (int i = 0; i < size; i++) {
+            String code = currencies.get(i);
+            index.put(code, i);
+            index.put(code.toLowerCase(Locale.ROOT), i);
+        }
+        this.asOf = asOf;
+    }
+
+    /**
+     * @param baseRates rate from {@code baseCurrency} to each currency (the base itself may be omitted)
+     */
+    public static ExchangeRateMatrix fromBaseRates(String baseCurrency, Map<String, BigDecimal> baseRates,
+                                                   LocalDateTime asOf) {
+        String base = baseCurrency.toUpperCase(Locale.ROOT);
+        List<String> currencies = new ArrayList<>();
+        List<BigDecimal> fromBase = new ArrayList<>();
+        currencies.add(base);
+        fromBase.add(BigDecimal.ONE);
+        for (Map.Entry<String, BigDecimal> entry : baseRates.entrySet()) {
+            String code = entry.getKey().toUpperCase(Locale.ROOT);
+            if (code.equals(base) || currencies.contains(code)) {
+                continue;
+            }
+            if (entry.getValue() == null || entry.getValue().signum() <= 0) {
+                throw new IllegalArgumentException("Invalid rate " + base + "->" + code + ": " + entry.getValue());
+            }
+            currencies.add(code);
+            fromBase.add(entry.getValue().setScale(RATE_SCALE, RoundingMode.HALF_UP));
+        }
+
+        int n = currencies.size();
+        BigDecimal[] rates = new BigDecimal[n * n];
+        for (int from = 0; from < n; from++) {
+            for (int to = 0; to < n; to++) {
+                BigDecimal rate;
+                if (from == to) {
+                    rate = BigDecimal.ONE;
+                } else if (from == 0) {
+                    rate = fromBase.get(to);
+                } else if (to == 0) {
+                    rate = BigDecimal.ONE.divide(fromBase.get(from), RATE_SCALE, RoundingMode.HALF_UP);
+                } else {
+                    rate = fromBase.get(to).divide(fromBase.get(from), RATE_SCALE, RoundingMode.HALF_UP);
+                }
+                rates[from * n + to] = rate.setScale(RATE_SCALE, RoundingMode.HALF_UP);
+            }
+        }
+        return new ExchangeRateMatrix(currencies, rates, asOf);
+    }
+
+    /**
+     * @return the currency's row/column, or -1 if it is not in this snapshot
+     */
+    public int indexOf(String currency) {
+        if (currency == null) {
+            return -1;
+        }
+        Integer i = index.get(currency);
+        if (i == null) {
+            i = index.get(currency.toUpperCase(Locale.ROOT));
+        }
+        return i != null ? i : -1;
+    }
+
+    public BigDecimal rate(int from, int to) {
+        return rates[from * size + to];
+    }
+
+    /**
+     * {@code amount * rate}, rounded HALF_UP to cents; same result as
+     * {@code amount.multiply(rate(from, to)).setScale(2, HALF_UP)}.
+     */
+    public BigDecimal convert(BigDecimal amount, int from, int to) {
+        if (amount.scale() <= AMOUNT_SCALE && amount.precision() - amount.scale() <= MAX_FAST_INTEGER_DIGITS) {
+            long cents = amount.movePointRight(AMOUNT_SCALE).longValue();
+            long rate = rateMicros[from * size + to];
+            long productHigh = Math.multiplyHigh(cents, rate);
+            long product = cents * rate;
+            if ((productHigh == 0 && product >= 0) || (productHigh == -1 && product < 0)) {
+                return BigDecimal.valueOf(roundMicrosHalfUp(product), AMOUNT_SCALE);
+            }
+        }
+        return amount.multiply(rates[from * size + to]).setScale(AMOUNT_SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Fixed-point core: cents times rate micros, back to cents.
+     *
+     * @throws ArithmeticException if the product does not fit in a long
+     */
+    public long convertCents(long cents, int from, int to) {
+        long product = Math.multiplyExact(cents, rateMicros[from * size + to]);
+        return roundMicrosHalfUp(product);
+    }
+
+    private static long roundMicrosHalfUp(long micros) {
+        long quotient = micros / RATE_UNIT;
+        long remainder = micros % RATE_UNIT;
+        // HALF_UP rounds ties away from zero, like BigDecimal
+        if (Math.abs(remainder) * 2 >= RATE_UNIT) {
+            quotient += Long.signum(micros);
+        }
+        return quotient;
+    }
+
+    public List<String> getCurrencies() {
+        return currencies;
+    }
+
+    public LocalDateTime getAsOf() {
+        return asOf;
+    }
+}
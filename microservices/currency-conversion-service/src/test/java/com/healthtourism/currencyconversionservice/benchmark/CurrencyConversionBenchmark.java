@@ -0,0 +1,106 @@
+package com.healthtourism.currencyconversionservice.benchmark;
+
+import com.healthtourism.currencyconversionservice.dto.CurrencyConversionResponse;
+import com.healthtourism.currencyconversionservice.service.ExchangeRateMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of converting a price list (e.g. a package search page) with the
+ * per-pair path (cached rate lookup keyed by "from-to", BigDecimal multiply,
+ * one response object per line) against the rate matrix.
+ *
+ * The per-pair path is measured with a warm cache, i.e. its best case; the
+ * database and cross-rate division on a cache miss are not included.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.healthtourism.currencyconversionservice.benchmark.CurrencyConversionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CurrencyConversionBenchmark {
+
+    private static final String[] CURRENCIES = {"TRY", "USD", "EUR", "GBP"};
+    private static final Map<String, BigDecimal> BASE_RATES = Map.of(
+            "USD", new BigDecimal("0.034"),
+            "EUR", new BigDecimal("0.031"),
+            "GBP", new BigDecimal("0.027"));
+
+    @Param({"1000"})
+    private int lines;
+
+    private BigDecimal[] amounts;
+    private String[] from;
+    private String[] to;
+    private ExchangeRateMatrix matrix;
+    private final ConcurrentMap<String, BigDecimal> rateCache = new ConcurrentHashMap<>();
+
+    @Setup
+    public void setUp() {
+        matrix = ExchangeRateMatrix.fromBaseRates("TRY", BASE_RATES, LocalDateTime.now());
+        for (String f : CURRENCIES) {
+            for (String t : CURRENCIES) {
+                rateCache.put(f + "-" + t, matrix.rate(matrix.indexOf(f), matrix.indexOf(t)));
+            }
+        }
+
+        Random random = new Random(42);
+        amounts = new BigDecimal[lines];
+        from = new String[lines];
+        to = new String[lines];
+        for (int i = 0; i < lines; i++) {
+            amounts[i] = BigDecimal.valueOf(random.nextInt(5_000_000) + 100, 2);
+            from[i] = CURRENCIES[random.nextInt(CURRENCIES.length)];
+            to[i] = CURRENCIES[random.nextInt(CURRENCIES.length)];
+        }
+    }
+
+    @Benchmark
+    public void perPairCachedLookup(Blackhole blackhole) {
+        for (int i = 0; i < lines; i++) {
+            BigDecimal rate = rateCache.get(from[i] + "-" + to[i]);
+            BigDecimal converted = amounts[i].multiply(rate).setScale(2, RoundingMode.HALF_UP);
+            blackhole.consume(new CurrencyConversionResponse(amounts[i], from[i], converted, to[i], rate,
+                    LocalDateTime.now()));
+        }
+    }
+
+    @Benchmark
+    public void matrixBulk(Blackhole blackhole) {
+        ExchangeRateMatrix snapshot = matrix;
+        for (int i = 0; i < lines; i++) {
+            blackhole.consume(snapshot.convert(amounts[i], snapshot.indexOf(from[i]), snapshot.indexOf(to[i])));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CurrencyConversionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,58 @@
+package com.healthtourism.currencyconversionservice.controller;
+
+import com.healthtourism.currencyconversionservice.dto.BulkConversionResponse;
+import com.healthtourism.currencyconversionservice.dto.CurrencyConversionRequest;
+import com.healthtourism.currencyconversionservice.service.CurrencyConversionService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CurrencyConversionControllerTest {
+
+    @Mock
+    private CurrencyConversionService currencyConversionService;
+
+    @InjectMocks
+    private CurrencyConversionController currencyConversionController;
+
+    @Test
+    void testConvertBulk_Success() {
+        // Given
+        List<CurrencyConversionRequest> requests = List.of(
+                new CurrencyConversionRequest(new BigDecimal("1000"), "TRY", "USD"));
+        BulkConversionResponse converted = new BulkConversionResponse(LocalDateTime.now(), List.of(new BigDecimal("34.00")));
+        when(currencyConversionService.convertBulk(requests)).thenReturn(converted);
+
+        // When
+        ResponseEntity<BulkConversionResponse> response = currencyConversionController.convertBulk(requests);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(converted, response.getBody());
+    }
+
+    @Test
+    void testConvertBulk_InvalidLine_BadRequest() {
+        // Given
+        List<CurrencyConversionRequest> requests = List.of(new CurrencyConversionRequest(null, "TRY", "USD"));
+        when(currencyConversionService.convertBulk(requests)).thenThrow(new IllegalArgumentException("Satır 0"));
+
+        // When
+        ResponseEntity<BulkConversionResponse> response = currencyConversionController.convertBulk(requests);
+
+        // Then
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+}
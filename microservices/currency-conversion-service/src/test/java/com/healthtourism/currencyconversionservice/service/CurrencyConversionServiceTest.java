@@ -0,0 +1,124 @@
+package com.healthtourism.currencyconversionservice.service;
+
+import com.healthtourism.currencyconversionservice.dto.BulkConversionResponse;
+import com.healthtourism.currencyconversionservice.dto.CurrencyConversionRequest;
+import com.healthtourism.currencyconversionservice.entity.ExchangeRate;
+import com.healthtourism.currencyconversionservice.repository.ExchangeRateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CurrencyConversionServiceTest {
+
+    @Mock
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @InjectMocks
+    private CurrencyConversionService currencyConversionService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(currencyConversionService, "baseCurrency", "TRY");
+        ReflectionTestUtils.setField(currencyConversionService, "supportedCurrencies", List.of("TRY", "USD", "EUR"));
+        ReflectionTestUtils.setField(currencyConversionService, "bulkMaxItems", 100);
+        when(exchangeRateRepository.findByFromCurrency("TRY")).thenReturn(List.of());
+        when(exchangeRateRepository.findByFromCurrencyAndToCurrency(anyString(), anyString())).thenReturn(Optional.empty());
+        currencyConversionService.refreshRateMatrix();
+        clearInvocations(exchangeRateRepository);
+    }
+
+    @Test
+    void testConvertBulk_MatrixPairs_ConvertedInRequestOrder() {
+        // Given
+        List<CurrencyConversionRequest> requests = List.of(
+                new CurrencyConversionRequest(new BigDecimal("1000"), "TRY", "USD"),
+                new CurrencyConversionRequest(new BigDecimal("34.00"), "usd", "try"),
+                new CurrencyConversionRequest(new BigDecimal("10"), "EUR", "EUR"));
+
+        // When
+        BulkConversionResponse response = currencyConversionService.convertBulk(requests);
+
+        // Then
+        assertEquals(List.of(new BigDecimal("34.00"), new BigDecimal("1000.00"), new BigDecimal("10.00")),
+                response.getConvertedAmounts());
+        assertNotNull(response.getRatesAsOf());
+        verifyNoInteractions(exchangeRateRepository);
+    }
+
+    @Test
+    void testConvertBulk_UnknownPair_LookedUpOncePerDistinctPair() {
+        // Given - GBP is not in the matrix, so every GBP line needs the fallback lookup
+        List<CurrencyConversionRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            requests.add(new CurrencyConversionRequest(new BigDecimal("100"), "TRY", i % 2 == 0 ? "GBP" : "gbp"));
+            requests.add(new CurrencyConversionRequest(new BigDecimal("100"), "GBP", "TRY"));
+        }
+
+        // When
+        BulkConversionResponse response = currencyConversionService.convertBulk(requests);
+
+        // Then
+        assertEquals(new BigDecimal("2.70"), response.getConvertedAmounts().get(0));
+        assertEquals(new BigDecimal("2.70"), response.getConvertedAmounts().get(2));
+        assertEquals(new BigDecimal("3703.70"), response.getConvertedAmounts().get(1));
+        verify(exchangeRateRepository, times(2)).save(any(ExchangeRate.class));
+        verify(exchangeRateRepository, times(1)).findByFromCurrencyAndToCurrency("TRY", "GBP");
+        verify(exchangeRateRepository, times(1)).findByFromCurrencyAndToCurrency("GBP", "TRY");
+    }
+
+    @Test
+    void testConvertBulk_FreshStoredRate_UsedWithoutSaving() {
+        // Given
+        ExchangeRate stored = new ExchangeRate(1L, "TRY", "JPY", new BigDecimal("4.500000"), LocalDateTime.now());
+        when(exchangeRateRepository.findByFromCurrencyAndToCurrency("TRY", "JPY")).thenReturn(Optional.of(stored));
+
+        // When
+        BulkConversionResponse response = currencyConversionService.convertBulk(List.of(
+                new CurrencyConversionRequest(new BigDecimal("10.01"), "TRY", "JPY"),
+                new CurrencyConversionRequest(new BigDecimal("0.01"), "TRY", "JPY")));
+
+        // Then - 10.01 * 4.5 = 45.045 -> 45.05 (HALF_UP); 0.045 -> 0.05
+        assertEquals(List.of(new BigDecimal("45.05"), new BigDecimal("0.05")), response.getConvertedAmounts());
+        verify(exchangeRateRepository, never()).save(any());
+    }
+
+    @Test
+    void testConvertBulk_MissingFieldOrNullLine_Rejected() {
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> currencyConversionService.convertBulk(List.of(
+                new CurrencyConversionRequest(null, "TRY", "USD"))));
+        assertThrows(IllegalArgumentException.class, () -> currencyConversionService.convertBulk(List.of(
+                new CurrencyConversionRequest(BigDecimal.ONE, "TRY", null))));
+        assertThrows(IllegalArgumentException.class, () -> currencyConversionService.convertBulk(
+                Arrays.asList((CurrencyConversionRequest) null)));
+    }
+
+    @Test
+    void testConvertBulk_TooManyLines_Rejected() {
+        // Given
+        List<CurrencyConversionRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 101; i++) {
+            requests.add(new CurrencyConversionRequest(BigDecimal.ONE, "TRY", "USD"));
+        }
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> currencyConversionService.convertBulk(requests));
+    }
+}
@@ -0,0 +1,117 @@
+package com.healthtourism.currencyconversionservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExchangeRateMatrixTest {
+
+    private ExchangeRateMatrix matrix;
+    private int tryIndex;
+    private int usdIndex;
+    private int eurIndex;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, BigDecimal> baseRates = new LinkedHashMap<>();
+        baseRates.put("USD", new BigDecimal("0.034"));
+        baseRates.put("EUR", new BigDecimal("0.031"));
+        baseRates.put("GBP", new BigDecimal("0.027"));
+        matrix = ExchangeRateMatrix.fromBaseRates("TRY", baseRates, LocalDateTime.now());
+        tryIndex = matrix.indexOf("TRY");
+        usdIndex = matrix.indexOf("USD");
+        eurIndex = matrix.indexOf("EUR");
+    }
+
+    @Test
+    void testIndexOf_UnknownOrNullCurrency_ReturnsMinusOne() {
+        // When / Then
+        assertEquals(-1, matrix.indexOf("JPY"));
+        assertEquals(-1, matrix.indexOf(null));
+        assertEquals(usdIndex, matrix.indexOf("usd"));
+        assertEquals(usdIndex, matrix.indexOf("Usd"));
+    }
+
+    @Test
+    void testRate_InversePairs_RoundedThroughBase() {
+        // When
+        BigDecimal tryToUsd = matrix.rate(tryIndex, usdIndex);
+        BigDecimal usdToTry = matrix.rate(usdIndex, tryIndex);
+        BigDecimal usdToEur = matrix.rate(usdIndex, eurIndex);
+        BigDecimal eurToUsd = matrix.rate(eurIndex, usdIndex);
+
+        // Then
+        assertEquals(new BigDecimal("0.034000"), tryToUsd);
+        assertEquals(new BigDecimal("29.411765"), usdToTry);
+        assertEquals(new BigDecimal("0.911765"), usdToEur);
+        assertEquals(new BigDecimal("1.096774"), eurToUsd);
+        assertEquals(BigDecimal.ONE.setScale(6), matrix.rate(eurIndex, eurIndex));
+    }
+
+    @Test
+    void testConvert_RoundsHalfUpToCents() {
+        // Given - 0.15 TRY * 0.034 = 0.0051 -> 0.01; 0.14 TRY * 0.034 = 0.00476 -> 0.00
+        // When / Then
+        assertEquals(new BigDecimal("0.01"), matrix.convert(new BigDecimal("0.15"), tryIndex, usdIndex));
+        assertEquals(new BigDecimal("0.00"), matrix.convert(new BigDecimal("0.14"), tryIndex, usdIndex));
+        assertEquals(new BigDecimal("-0.01"), matrix.convert(new BigDecimal("-0.15"), tryIndex, usdIndex));
+        assertEquals(new BigDecimal("34.00"), matrix.convert(new BigDecimal("1000"), tryIndex, usdIndex));
+    }
+
+    @Test
+    void testConvert_MatchesBigDecimalArithmetic() {
+        // Given
+        Random random = new Random(42);
+        int size = matrix.getCurrencies().size();
+
+        for (int i = 0; i < 10_000; i++) {
+            BigDecimal amount = BigDecimal.valueOf(random.nextLong() % 10_000_000_000L, random.nextInt(4));
+            int from = random.nextInt(size);
+            int to = random.nextInt(size);
+
+            // When
+            BigDecimal converted = matrix.convert(amount, from, to);
+
+            // Then
+            assertEquals(amount.multiply(matrix.rate(from, to)).setScale(2, RoundingMode.HALF_UP), converted,
+                    amount + " " + matrix.getCurrencies().get(from) + "->" + matrix.getCurrencies().get(to));
+        }
+    }
+
+    @Test
+    void testConvert_AmountTooLargeForFastPath_FallsBackToBigDecimal() {
+        // Given
+        BigDecimal amount = new BigDecimal("123456789012345678901.25");
+
+        // When
+        BigDecimal converted = matrix.convert(amount, usdIndex, tryIndex);
+
+        // Then
+        assertEquals(amount.multiply(matrix.rate(usdIndex, tryIndex)).setScale(2, RoundingMode.HALF_UP), converted);
+    }
+
+    @Test
+    void testConvertCents_RoundsHalfUpAndRejectsOverflow() {
+        // When / Then
+        assertEquals(1, matrix.convertCents(15, tryIndex, usdIndex));
+        assertEquals(0, matrix.convertCents(14, tryIndex, usdIndex));
+        assertEquals(-1, matrix.convertCents(-15, tryIndex, usdIndex));
+        assertEquals(2941, matrix.convertCents(100, usdIndex, tryIndex));
+        assertThrows(ArithmeticException.class, () -> matrix.convertCents(Long.MAX_VALUE / 2, usdIndex, tryIndex));
+    }
+
+    @Test
+    void testFromBaseRates_NonPositiveRate_Rejected() {
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () ->
+                ExchangeRateMatrix.fromBaseRates("TRY", Map.of("USD", BigDecimal.ZERO), LocalDateTime.now()));
+    }
+}
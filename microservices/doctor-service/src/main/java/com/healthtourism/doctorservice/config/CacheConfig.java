@@ -1,5 +1,9 @@
 package com.healthtourism.doctorservice.config;
 
+import com.healthtourism.common.cache.CacheInvalidationBus;
+import com.healthtourism.common.cache.TwoLevelCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
@@ -16,25 +20,49 @@ import java.time.Duration;
 /**
  * Cache Configuration
  * 
- * Redis-based caching for frequently accessed doctor data.
+ * Two-level caching for frequently accessed doctor data:
+ * an in-process Caffeine L1 in front of the shared Redis L2.
+ * L1 entries are invalidated cluster-wide over Redis pub/sub on writes.
  * Improves performance and reduces database load.
  */
 @Configuration
 @EnableCaching
 public class CacheConfig {
     
+    @Value("${cache.l1.maximum-size:10000}")
+    private long l1MaximumSize;
+    
+    @Value("${cache.l1.ttl-seconds:300}")
+    private long l1TtlSeconds;
+    
+    @Value("${cache.invalidation.channel:doctor-service:cache:invalidation}")
+    private String invalidationChannel;
+    
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
+    public CacheInvalidationBus cacheInvalidationBus(RedisConnectionFactory redisConnectionFactory) {
+        return new CacheInvalidationBus(redisConnectionFactory, invalidationChannel);
+    }
+    
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                                     CacheInvalidationBus cacheInvalidationBus,
+                                     MeterRegistry meterRegistry) {
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofHours(1)) // Cache TTL: 1 hour
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
                 .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()))
                 .disableCachingNullValues(); // Don't cache null values
         
-        return RedisCacheManager.builder(redisConnectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(redisConnectionFactory)
                 .cacheDefaults(config)
-                .transactionAware()
+                .build();
+        redisCacheManager.afterPropertiesSet();
+        
+        // Transaction awareness is applied on the two-level cache so L1, L2 and the
+        // cross-node broadcast all happen after commit
+        return TwoLevelCacheManager.builder(redisCacheManager, cacheInvalidationBus, meterRegistry)
+                .defaultLocalSpec(l1MaximumSize, Duration.ofSeconds(l1TtlSeconds))
+                .transactionAware(true)
                 .build();
     }
 }
-
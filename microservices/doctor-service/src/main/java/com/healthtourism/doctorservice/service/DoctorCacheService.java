@@ -0,0 +1,229 @@
+package com.healthtourism.doctorservice.service;
+
+import com.healthtourism.doctorservice.entity.Doctor;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Doctor Cache Service
+ * 
+ * Owns the "doctors" cache key scheme and dependency-tracked eviction:
+ * - Keys include the full pageable (page, size, sort), so different queries never collide
+ * - Every cached entry is registered under a tag (doctor, hospital or specialization) in a Redis set
+ * - Changing a doctor evicts only its id entry and the listings tagged with its
+ *   hospital and specialization (before and after the change)
+ * - Each tag has a version that eviction bumps first; an entry loaded while its
+ *   tag's version moved is dropped again, so a load racing an eviction cannot
+ *   leave stale data behind for the full TTL
+ */
+@Service
+@RequiredArgsConstructor
+public class DoctorCacheService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DoctorCacheService.class);
+    
+    public static final String CACHE_NAME = "doctors";
+    private static final String TAG_PREFIX = "doctors:tags:";
+    private static final String TAG_VERSION_PREFIX = "doctors:tag-versions:";
+    private static final Duration TAG_TTL = Duration.ofHours(1); // Matches the Redis cache TTL
+    
+    private final CacheManager cacheManager;
+    private final StringRedisTemplate redisTemplate;
+    
+    // ---- Keys ----
+    
+    public String idKey(Long id) {
+        return "id:" + id;
+    }
+    
+    public String hospitalPageKey(Long hospitalId, Pageable pageable) {
+        return "hospital:" + hospitalId + ":" + pageKey(pageable);
+    }
+    
+    public String hospitalAllKey(Long hospitalId) {
+        return "hospital:" + hospitalId + ":all";
+    }
+    
+    public String specializationPageKey(String specialization, Pageable pageable) {
+        return "specialization:" + specialization + ":" + pageKey(pageable);
+    }
+    
+    public String specializationAllKey(String specialization) {
+        return "specialization:" + specialization + ":all";
+    }
+    
+    public String topRatedPageKey(Long hospitalId, Pageable pageable) {
+        return "top-rated:hospital:" + hospitalId + ":" + pageKey(pageable);
+    }
+    
+    public String topRatedAllKey(Long hospitalId) {
+        return "top-rated:hospital:" + hospitalId + ":all";
+    }
+    
+    private static String pageKey(Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return "unpaged";
+        }
+        return "page:" + pageable.getPageNumber() + ":size:" + pageable.getPageSize() + ":sort:" + pageable.getSort();
+    }
+    
+    // ---- Tags ----
+    
+    public static String doctorTag(Long doctorId) {
+        return "doctor:" + doctorId;
+    }
+    
+    public static String hospitalTag(Long hospitalId) {
+        return "hospital:" + hospitalId;
+    }
+    
+    public static String specializationTag(String specialization) {
+        return "specialization:" + specialization;
+    }
+    
+    /**
+     * Tags of every listing a doctor can appear in.
+     */
+    public static Set<String> tagsOf(Doctor doctor) {
+        Set<String> tags = new LinkedHashSet<>();
+        if (doctor.getHospitalId() != null) {
+            tags.add(hospitalTag(doctor.getHospitalId()));
+        }
+        if (doctor.getSpecialization() != null) {
+            tags.add(specializationTag(doctor.getSpecialization()));
+        }
+        return tags;
+    }
+    
+    // ---- Lookup ----
+    
+    /**
+     * Return the cached value for a key, loading it on a miss.
+     * 
+     * On a miss the key is registered under its tag and the tag version is read
+     * before loading. If the version changed by the time the value is in the
+     * cache, an eviction ran during the load and the value is dropped again.
+     * Concurrent misses for the same key on this node share one load.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T cached(String tag, String key, Supplier<T> loader) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return loader.get();
+        }
+        Cache.ValueWrapper hit = cache.get(key);
+        if (hit != null) {
+            return (T) hit.get();
+        }
+        
+        long version = tagVersion(tag);
+        registerListing(tag, key);
+        T value;
+        try {
+            value = cache.get(key, loader::get);
+        } catch (Cache.ValueRetrievalException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        if (tagVersion(tag) != version) {
+            cache.evictIfPresent(key);
+            logger.debug("Dropped doctor cache entry {} loaded during eviction of {}", key, tag);
+        }
+        return value;
+    }
+    
+    private long tagVersion(String tag) {
+        try {
+            String version = redisTemplate.opsForValue().get(TAG_VERSION_PREFIX + tag);
+            return version != null ? Long.parseLong(version) : 0L;
+        } catch (Exception e) {
+            // Without Redis the entry still expires with its TTL
+            logger.warn("Failed to read cache tag version {}: {}", tag, e.getMessage());
+            return -1L;
+        }
+    }
+    
+    /**
+     * Record that a cache key depends on a tag, before the value is loaded.
+     */
+    private void registerListing(String tag, String key) {
+        try {
+            String tagKey = TAG_PREFIX + tag;
+            redisTemplate.opsForSet().add(tagKey, key);
+            redisTemplate.expire(tagKey, TAG_TTL);
+        } catch (Exception e) {
+            // The listing still expires with its TTL
+            logger.warn("Failed to register cache tag {} for {}: {}", tag, key, e.getMessage());
+        }
+    }
+    
+    // ---- Eviction ----
+    
+    /**
+     * Evict a doctor's id entry and every listing under the given tags.
+     * Runs after commit when called inside a transaction, so readers cannot
+     * repopulate the cache with pre-commit data.
+     */
+    public void evictDoctor(Long doctorId, Collection<String> tags) {
+        Set<String> tagSnapshot = Set.copyOf(tags);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doEvict(doctorId, tagSnapshot);
+                }
+            });
+        } else {
+            doEvict(doctorId, tagSnapshot);
+        }
+    }
+    
+    private void doEvict(Long doctorId, Set<String> tags) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return;
+        }
+        Set<String> allTags = new LinkedHashSet<>(tags);
+        Set<String> keys = new LinkedHashSet<>();
+        if (doctorId != null) {
+            allTags.add(doctorTag(doctorId));
+            keys.add(idKey(doctorId));
+        }
+        for (String tag : allTags) {
+            String tagKey = TAG_PREFIX + tag;
+            try {
+                // Bump the version before reading members, so a load that registered
+                // after this read still sees the change
+                String versionKey = TAG_VERSION_PREFIX + tag;
+                redisTemplate.opsForValue().increment(versionKey);
+                redisTemplate.expire(versionKey, TAG_TTL);
+                Set<String> members = redisTemplate.opsForSet().members(tagKey);
+                if (members != null) {
+                    keys.addAll(members);
+                }
+                redisTemplate.delete(tagKey);
+            } catch (Exception e) {
+                logger.warn("Failed to read cache tag {}: {}", tag, e.getMessage());
+            }
+        }
+        // evictIfPresent is immediate even on a transaction-aware cache
+        keys.forEach(cache::evictIfPresent);
+        logger.debug("Evicted {} doctor cache entries for doctor {} (tags: {})", keys.size(), doctorId, tags);
+    }
+}
@@ -11,15 +11,15 @@ import com.healthtourism.doctorservice.repository.DoctorRepository;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Doctor Service - Professional Implementation
@@ -31,7 +31,7 @@ import java.util.List;
  * - Transactional methods (read-only for queries, read-write for mutations)
  * - Business rule validation
  * - Custom exceptions
- * - Caching for frequently accessed data
+ * - Caching for frequently accessed data (targeted, tag-based eviction via DoctorCacheService)
  * - Pagination support
  * - Logging for critical operations
  */
@@ -45,6 +45,7 @@ public class DoctorService {
     private final DoctorRepository doctorRepository;
     private final DoctorMapper doctorMapper; // MapStruct mapper
     private final SpecializationValidationService specializationValidationService;
+    private final DoctorCacheService doctorCacheService;
     
     // Note: In a microservice architecture, HospitalRepository would be in hospital-service
     // For now, we'll validate hospital existence via hospital-service API or assume it exists
@@ -55,30 +56,32 @@ public class DoctorService {
      * 
      * Business Rule: Validates hospital existence
      */
-    @Cacheable(value = "doctors", key = "'hospital:' + #hospitalId + ':page:' + #pageable.pageNumber")
     public Page<DoctorResponseDTO> getDoctorsByHospital(Long hospitalId, Pageable pageable) {
-        logger.debug("Fetching doctors for hospital ID: {} (page: {}, size: {})", 
-            hospitalId, pageable.getPageNumber(), pageable.getPageSize());
-        
         // Business Rule: Validate hospital existence
         // In production, this would call hospital-service:
         // if (!hospitalService.existsById(hospitalId)) {
         //     throw new HospitalNotFoundException(hospitalId);
         // }
         
-        Page<Doctor> doctors = doctorRepository.findByHospitalIdAndIsAvailableTrue(hospitalId, pageable);
-        return doctors.map(doctorMapper::toResponseDTO);
+        return doctorCacheService.cached(DoctorCacheService.hospitalTag(hospitalId),
+            doctorCacheService.hospitalPageKey(hospitalId, pageable), () -> {
+                logger.debug("Fetching doctors for hospital ID: {} (page: {}, size: {})", 
+                    hospitalId, pageable.getPageNumber(), pageable.getPageSize());
+                Page<Doctor> doctors = doctorRepository.findByHospitalIdAndIsAvailableTrue(hospitalId, pageable);
+                return doctors.map(doctorMapper::toResponseDTO);
+            });
     }
     
     /**
      * Get doctors by hospital ID (without pagination - for backward compatibility)
      */
-    @Cacheable(value = "doctors", key = "'hospital:' + #hospitalId")
     public List<DoctorResponseDTO> getDoctorsByHospital(Long hospitalId) {
-        logger.debug("Fetching all doctors for hospital ID: {}", hospitalId);
-        
-        List<Doctor> doctors = doctorRepository.findByHospitalIdAndIsAvailableTrue(hospitalId);
-        return doctorMapper.toResponseDTOList(doctors);
+        return doctorCacheService.cached(DoctorCacheService.hospitalTag(hospitalId),
+            doctorCacheService.hospitalAllKey(hospitalId), () -> {
+                logger.debug("Fetching all doctors for hospital ID: {}", hospitalId);
+                List<Doctor> doctors = doctorRepository.findByHospitalIdAndIsAvailableTrue(hospitalId);
+                return doctorMapper.toResponseDTOList(doctors);
+            });
     }
     
     /**
@@ -86,30 +89,32 @@ public class DoctorService {
      * 
      * Business Rule: Validates specialization
      */
-    @Cacheable(value = "doctors", key = "'specialization:' + #specialization + ':page:' + #pageable.pageNumber")
     public Page<DoctorResponseDTO> getDoctorsBySpecialization(String specialization, Pageable pageable) {
-        logger.debug("Fetching doctors for specialization: {} (page: {}, size: {})", 
-            specialization, pageable.getPageNumber(), pageable.getPageSize());
-        
         // Business Rule: Validate specialization
         specializationValidationService.validateSpecialization(specialization);
         
-        Page<Doctor> doctors = doctorRepository.findBySpecializationAndIsAvailableTrue(specialization, pageable);
-        return doctors.map(doctorMapper::toResponseDTO);
+        return doctorCacheService.cached(DoctorCacheService.specializationTag(specialization),
+            doctorCacheService.specializationPageKey(specialization, pageable), () -> {
+                logger.debug("Fetching doctors for specialization: {} (page: {}, size: {})", 
+                    specialization, pageable.getPageNumber(), pageable.getPageSize());
+                Page<Doctor> doctors = doctorRepository.findBySpecializationAndIsAvailableTrue(specialization, pageable);
+                return doctors.map(doctorMapper::toResponseDTO);
+            });
     }
     
     /**
      * Get doctors by specialization (without pagination - for backward compatibility)
      */
-    @Cacheable(value = "doctors", key = "'specialization:' + #specialization")
     public List<DoctorResponseDTO> getDoctorsBySpecialization(String specialization) {
-        logger.debug("Fetching all doctors for specialization: {}", specialization);
-        
         // Business Rule: Validate specialization
         specializationValidationService.validateSpecialization(specialization);
         
-        List<Doctor> doctors = doctorRepository.findBySpecializationOrderByRatingDesc(specialization);
-        return doctorMapper.toResponseDTOList(doctors);
+        return doctorCacheService.cached(DoctorCacheService.specializationTag(specialization),
+            doctorCacheService.specializationAllKey(specialization), () -> {
+                logger.debug("Fetching all doctors for specialization: {}", specialization);
+                List<Doctor> doctors = doctorRepository.findBySpecializationOrderByRatingDesc(specialization);
+                return doctorMapper.toResponseDTOList(doctors);
+            });
     }
     
     /**
@@ -117,37 +122,40 @@ public class DoctorService {
      * 
      * Throws DoctorNotFoundException if doctor not found (handled by GlobalExceptionHandler)
      */
-    @Cacheable(value = "doctors", key = "'id:' + #id")
     public DoctorResponseDTO getDoctorById(Long id) {
-        logger.debug("Fetching doctor with ID: {}", id);
-        
-        Doctor doctor = doctorRepository.findByIdAndIsAvailableTrue(id)
-                .orElseThrow(() -> new DoctorNotFoundException(id));
-        
-        return doctorMapper.toResponseDTO(doctor);
+        return doctorCacheService.cached(DoctorCacheService.doctorTag(id), doctorCacheService.idKey(id), () -> {
+            logger.debug("Fetching doctor with ID: {}", id);
+            
+            Doctor doctor = doctorRepository.findByIdAndIsAvailableTrue(id)
+                    .orElseThrow(() -> new DoctorNotFoundException(id));
+            
+            return doctorMapper.toResponseDTO(doctor);
+        });
     }
     
     /**
      * Get top rated doctors by hospital with pagination
      */
-    @Cacheable(value = "doctors", key = "'top-rated:hospital:' + #hospitalId + ':page:' + #pageable.pageNumber")
     public Page<DoctorResponseDTO> getTopRatedDoctorsByHospital(Long hospitalId, Pageable pageable) {
-        logger.debug("Fetching top rated doctors for hospital ID: {} (page: {}, size: {})", 
-            hospitalId, pageable.getPageNumber(), pageable.getPageSize());
-        
-        Page<Doctor> doctors = doctorRepository.findByHospitalIdAndIsAvailableTrueOrderByRatingDesc(hospitalId, pageable);
-        return doctors.map(doctorMapper::toResponseDTO);
+        return doctorCacheService.cached(DoctorCacheService.hospitalTag(hospitalId),
+            doctorCacheService.topRatedPageKey(hospitalId, pageable), () -> {
+                logger.debug("Fetching top rated doctors for hospital ID: {} (page: {}, size: {})", 
+                    hospitalId, pageable.getPageNumber(), pageable.getPageSize());
+                Page<Doctor> doctors = doctorRepository.findByHospitalIdAndIsAvailableTrueOrderByRatingDesc(hospitalId, pageable);
+                return doctors.map(doctorMapper::toResponseDTO);
+            });
     }
     
     /**
      * Get top rated doctors by hospital (without pagination - for backward compatibility)
      */
-    @Cacheable(value = "doctors", key = "'top-rated:hospital:' + #hospitalId")
     public List<DoctorResponseDTO> getTopRatedDoctorsByHospital(Long hospitalId) {
-        logger.debug("Fetching all top rated doctors for hospital ID: {}", hospitalId);
-        
-        List<Doctor> doctors = doctorRepository.findByHospitalIdOrderByRatingDesc(hospitalId);
-        return doctorMapper.toResponseDTOList(doctors);
+        return doctorCacheService.cached(DoctorCacheService.hospitalTag(hospitalId),
+            doctorCacheService.topRatedAllKey(hospitalId), () -> {
+                logger.debug("Fetching all top rated doctors for hospital ID: {}", hospitalId);
+                List<Doctor> doctors = doctorRepository.findByHospitalIdOrderByRatingDesc(hospitalId);
+                return doctorMapper.toResponseDTOList(doctors);
+            });
     }
     
     /**
@@ -162,7 +170,6 @@ public class DoctorService {
      * MapStruct mapper converts CreateRequest to Entity
      */
     @Transactional // Override read-only: write operation
-    @CacheEvict(value = "doctors", allEntries = true) // Clear cache after creation
     public DoctorResponseDTO createDoctor(DoctorCreateRequest request) {
         logger.info("Creating new doctor: {} {}", request.getFirstName(), request.getLastName());
         
@@ -186,6 +193,9 @@ public class DoctorService {
         Doctor savedDoctor = doctorRepository.save(doctor);
         logger.info("Doctor created successfully with ID: {}", savedDoctor.getId());
         
+        // New doctor appears in its hospital and specialization listings
+        doctorCacheService.evictDoctor(savedDoctor.getId(), DoctorCacheService.tagsOf(savedDoctor));
+        
         return doctorMapper.toResponseDTO(savedDoctor);
     }
     
@@ -200,12 +210,13 @@ public class DoctorService {
      * System-managed fields (id, rating, totalReviews) cannot be updated
      */
     @Transactional // Override read-only: write operation
-    @CacheEvict(value = "doctors", allEntries = true) // Clear cache after update
     public DoctorResponseDTO updateDoctor(Long id, DoctorUpdateRequest request) {
         logger.info("Updating doctor with ID: {}", id);
         
         Doctor doctor = doctorRepository.findByIdAndIsAvailableTrue(id)
                 .orElseThrow(() -> new DoctorNotFoundException(id));
+        // Listings the doctor is in before the change (hospital/specialization may move)
+        Set<String> affectedTags = new HashSet<>(DoctorCacheService.tagsOf(doctor));
         
         // Business Rule: Validate specializations if provided
         if (request.getSpecializations() != null && !request.getSpecializations().isEmpty()) {
@@ -218,6 +229,9 @@ public class DoctorService {
         Doctor updatedDoctor = doctorRepository.save(doctor);
         logger.info("Doctor updated successfully with ID: {}", id);
         
+        affectedTags.addAll(DoctorCacheService.tagsOf(updatedDoctor));
+        doctorCacheService.evictDoctor(id, affectedTags);
+        
         return doctorMapper.toResponseDTO(updatedDoctor);
     }
     
@@ -230,7 +244,6 @@ public class DoctorService {
      * This preserves data integrity and audit trail
      */
     @Transactional // Override read-only: write operation
-    @CacheEvict(value = "doctors", allEntries = true) // Clear cache after deletion
     public void deleteDoctor(Long id) {
         logger.info("Deleting doctor with ID: {}", id);
         
@@ -240,6 +253,7 @@ public class DoctorService {
         // Soft delete using @SQLDelete annotation
         // The @SQLDelete annotation on Doctor entity will automatically update deleted = true
         doctorRepository.delete(doctor);
+        doctorCacheService.evictDoctor(id, DoctorCacheService.tagsOf(doctor));
         
         logger.info("Doctor deleted successfully with ID: {} (soft delete via @SQLDelete)", id);
     }
@@ -250,7 +264,6 @@ public class DoctorService {
      * Business Rule: Doctor must exist
      */
     @Transactional // Override read-only: write operation
-    @CacheEvict(value = "doctors", key = "'id:' + #id") // Clear cache for this doctor
     public DoctorResponseDTO uploadDoctorImage(Long id, MultipartFile file) {
         logger.info("Uploading image for doctor ID: {}", id);
         
@@ -289,6 +302,8 @@ public class DoctorService {
             doctor.setThumbnailUrl("http://localhost:8027/api/files/doctor/" + id + "/thumbnail");
             
             doctor = doctorRepository.save(doctor);
+            // Image URLs are part of the listing DTOs too
+            doctorCacheService.evictDoctor(id, DoctorCacheService.tagsOf(doctor));
             logger.info("Image uploaded successfully for doctor ID: {}", id);
         } catch (java.io.IOException e) {
             logger.error("Failed to upload image for doctor ID {}: {}", id, e.getMessage(), e);
@@ -0,0 +1,170 @@
+package com.healthtourism.doctorservice.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DoctorCacheServiceTest {
+
+    private static final Long HOSPITAL_ID = 7L;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private SetOperations<String, String> setOperations;
+
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(DoctorCacheService.CACHE_NAME) {
+        @Override
+        protected Cache createConcurrentMapCache(String name) {
+            // Loads outside any lock, like the shared Redis layer: an eviction from
+            // another node is never held up by a load in flight
+            return new ConcurrentMapCache(name) {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <T> T get(Object key, Callable<T> valueLoader) {
+                    ValueWrapper hit = get(key);
+                    if (hit != null) {
+                        return (T) hit.get();
+                    }
+                    try {
+                        T value = valueLoader.call();
+                        put(key, value);
+                        return value;
+                    } catch (Exception e) {
+                        throw new ValueRetrievalException(key, valueLoader, e);
+                    }
+                }
+            };
+        }
+    };
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    // In-memory stand-in for the tag sets and tag versions kept in Redis
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> sets = new ConcurrentHashMap<>();
+
+    private DoctorCacheService doctorCacheService;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(valueOperations.get(anyString())).thenAnswer(invocation -> {
+            Long version = versions.get(invocation.<String>getArgument(0));
+            return version != null ? version.toString() : null;
+        });
+        lenient().when(valueOperations.increment(anyString()))
+                .thenAnswer(invocation -> versions.merge(invocation.getArgument(0), 1L, Long::sum));
+        when(setOperations.add(anyString(), any())).thenAnswer(invocation -> {
+            sets.computeIfAbsent(invocation.getArgument(0), k -> ConcurrentHashMap.newKeySet())
+                    .add(invocation.getArgument(1));
+            return 1L;
+        });
+        lenient().when(setOperations.members(anyString()))
+                .thenAnswer(invocation -> sets.getOrDefault(invocation.<String>getArgument(0), Set.of()));
+        lenient().when(redisTemplate.delete(anyString()))
+                .thenAnswer(invocation -> sets.remove(invocation.<String>getArgument(0)) != null);
+        doctorCacheService = new DoctorCacheService(cacheManager, redisTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testCached_SecondLookup_ServedFromCache() {
+        // Given
+        String tag = DoctorCacheService.hospitalTag(HOSPITAL_ID);
+        String key = doctorCacheService.hospitalAllKey(HOSPITAL_ID);
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        doctorCacheService.cached(tag, key, () -> List.of("Dr. A" + loads.incrementAndGet()));
+        List<String> second = doctorCacheService.cached(tag, key, () -> List.of("Dr. A" + loads.incrementAndGet()));
+
+        // Then
+        assertEquals(List.of("Dr. A1"), second);
+        assertEquals(1, loads.get());
+        assertTrue(sets.get("doctors:tags:" + tag).contains(key));
+    }
+
+    @Test
+    void testEvictDoctor_EvictsListingsUnderItsTags() {
+        // Given
+        String tag = DoctorCacheService.hospitalTag(HOSPITAL_ID);
+        String key = doctorCacheService.hospitalAllKey(HOSPITAL_ID);
+        doctorCacheService.cached(tag, key, () -> List.of("Dr. A"));
+
+        // When
+        doctorCacheService.evictDoctor(1L, Set.of(tag));
+
+        // Then
+        assertNull(cacheManager.getCache(DoctorCacheService.CACHE_NAME).get(key));
+        assertFalse(sets.containsKey("doctors:tags:" + tag));
+    }
+
+    @Test
+    void testCached_EvictionDuringLoad_StaleListingNotServed() throws Exception {
+        // Given - a listing load that read the database before the doctor moved hospitals
+        String tag = DoctorCacheService.hospitalTag(HOSPITAL_ID);
+        String key = doctorCacheService.hospitalAllKey(HOSPITAL_ID);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+        Future<List<String>> staleLoad = executor.submit(() -> doctorCacheService.cached(tag, key, () -> {
+            loading.countDown();
+            await(evicted);
+            return List.of("Dr. A");
+        }));
+
+        // When - the eviction runs while that load is still in flight
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        doctorCacheService.evictDoctor(1L, Set.of(tag));
+        evicted.countDown();
+        staleLoad.get(5, TimeUnit.SECONDS);
+        List<String> listing = doctorCacheService.cached(tag, key, () -> List.of());
+
+        // Then - the next lookup reloads instead of serving the pre-eviction listing
+        assertEquals(List.of(), listing);
+        assertEquals(List.of(), cacheManager.getCache(DoctorCacheService.CACHE_NAME).get(key).get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
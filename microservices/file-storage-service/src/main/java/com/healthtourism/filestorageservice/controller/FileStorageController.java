@@ -8,6 +8,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -81,16 +82,24 @@ public class FileStorageController {
     }
     
     @GetMapping("/{fileId}")
-    public ResponseEntity<byte[]> downloadFile(@PathVariable Long fileId) {
+    @Operation(summary = "Download a file", description = "Streams the file from disk; supports Range, If-None-Match and If-Modified-Since")
+    public ResponseEntity<Resource> downloadFile(@PathVariable Long fileId) {
         try {
-            byte[] fileContent = fileStorageService.downloadFile(fileId);
+            Resource resource = fileStorageService.downloadFile(fileId);
             FileMetadataDTO metadata = fileStorageService.getFileMetadata(fileId);
             
-            return ResponseEntity.ok()
+            // ETag/Last-Modified let Spring answer conditional requests with 304,
+            // and a Resource body is served as 206 regions when Range is present
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + metadata.getOriginalFileName() + "\"")
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
                 .contentType(MediaType.parseMediaType(metadata.getContentType()))
-                .body(fileContent);
-        } catch (IOException e) {
+                .lastModified(resource.lastModified());
+            if (metadata.getChecksum() != null) {
+                response.eTag(metadata.getChecksum());
+            }
+            return response.body(resource);
+        } catch (IOException | RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
@@ -16,6 +16,7 @@ public class FileMetadataDTO {
     private String filePath;
     private String contentType;
     private Long fileSize;
+    private String checksum;
     private String uploadedBy;
     private String serviceName;
     private String category;
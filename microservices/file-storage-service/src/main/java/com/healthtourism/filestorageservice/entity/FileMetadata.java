@@ -32,6 +32,9 @@ public class FileMetadata {
     @Column(nullable = false)
     private Long fileSize;
 
+    @Column(length = 64)
+    private String checksum; // SHA-256 hex of the stored bytes, used as ETag
+
     private String uploadedBy;
     private String serviceName;
     private String category; // MEDICAL_DOCUMENT, IMAGE, PROFILE_PICTURE, etc.
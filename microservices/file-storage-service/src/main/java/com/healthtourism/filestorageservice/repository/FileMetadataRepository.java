@@ -2,7 +2,11 @@ package com.healthtourism.filestorageservice.repository;
 
 import com.healthtourism.filestorageservice.entity.FileMetadata;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,5 +17,16 @@ public interface FileMetadataRepository extends JpaRepository<FileMetadata, Long
     List<FileMetadata> findByServiceName(String serviceName);
     List<FileMetadata> findByCategory(String category);
     List<FileMetadata> findByUploadedBy(String uploadedBy);
+    
+    /**
+     * Records new content for a stored file; returns 0 if the row was deleted
+     * (or points at another file) in the meantime, without recreating it.
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE FileMetadata f SET f.fileSize = :fileSize, f.checksum = :checksum " +
+           "WHERE f.id = :id AND f.filePath = :filePath")
+    int updateStoredContent(@Param("id") Long id, @Param("filePath") String filePath,
+                            @Param("fileSize") long fileSize, @Param("checksum") String checksum);
 }
 
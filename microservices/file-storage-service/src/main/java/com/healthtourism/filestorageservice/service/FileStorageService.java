@@ -5,14 +5,27 @@ import com.healthtourism.filestorageservice.entity.FileMetadata;
 import com.healthtourism.filestorageservice.repository.FileMetadataRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -23,9 +36,14 @@ public class FileStorageService {
     @Autowired
     private FileMetadataRepository fileMetadataRepository;
     
+    private static final long TRANSFER_CHUNK = 1024 * 1024;
+    
     @Autowired(required = false)
     private ImageService imageService;
     
+    @Autowired(required = false)
+    private ImageCompressionWorker imageCompressionWorker;
+    
     @Value("${file.upload-dir}")
     private String uploadDir;
     
@@ -53,28 +71,43 @@ public class FileStorageService {
             Files.createDirectories(uploadPath);
         }
         
-        byte[] fileBytes = file.getBytes();
-        
-        // Compress image if enabled
-        if (isImageFile(file.getContentType()) && imageService != null && imageCompressionEnabled) {
-            String format = getFileExtension(originalFileName);
-            fileBytes = imageService.compressImage(fileBytes, 0.8f, format);
-        }
-        
+        // Spool to a temp file in the same directory, hashing on the way, then
+        // move into place so a partially written file is never visible
         Path filePath = uploadPath.resolve(fileName);
-        Files.write(filePath, fileBytes);
+        Path partPath = uploadPath.resolve(fileName + ".part");
+        MessageDigest digest = sha256();
+        long written;
+        try {
+            try (ReadableByteChannel in = Channels.newChannel(new DigestInputStream(file.getInputStream(), digest));
+                 FileChannel out = FileChannel.open(partPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                written = transferAll(in, out);
+                // The bytes reach the disk before the file appears under its final name
+                out.force(true);
+            }
+            // Renamed only once closed; an open file cannot be renamed on Windows
+            Files.move(partPath, filePath, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partPath);
+        }
         
         FileMetadata metadata = new FileMetadata();
         metadata.setFileName(fileName);
         metadata.setOriginalFileName(originalFileName);
         metadata.setFilePath(filePath.toString());
         metadata.setContentType(file.getContentType());
-        metadata.setFileSize((long) fileBytes.length);
+        metadata.setFileSize(written);
+        metadata.setChecksum(HexFormat.of().formatHex(digest.digest()));
         metadata.setUploadedBy(uploadedBy);
         metadata.setServiceName(serviceName);
         metadata.setCategory(category);
         
         metadata = fileMetadataRepository.save(metadata);
+        
+        // Compress image in the background, off the request thread
+        if (isImageFile(file.getContentType()) && imageCompressionWorker != null && imageCompressionEnabled) {
+            imageCompressionWorker.submit(metadata.getId(), getFileExtension(originalFileName));
+        }
+        
         return convertToDTO(metadata);
     }
     
@@ -99,21 +132,28 @@ public class FileStorageService {
         return filename.substring(lastDotIndex + 1);
     }
     
-    public byte[] downloadFile(Long fileId) throws IOException {
+    /**
+     * Stored file as a Resource; the web layer streams it (or a requested
+     * range of it) straight from disk
+     */
+    public Resource downloadFile(Long fileId) throws IOException {
         FileMetadata metadata = fileMetadataRepository.findById(fileId)
             .orElseThrow(() -> new RuntimeException("File not found"));
         
         Path filePath = Paths.get(metadata.getFilePath());
-        return Files.readAllBytes(filePath);
+        if (!Files.isReadable(filePath)) {
+            throw new NoSuchFileException(filePath.toString());
+        }
+        return new FileSystemResource(filePath);
     }
     
     public void deleteFile(Long fileId) throws IOException {
         FileMetadata metadata = fileMetadataRepository.findById(fileId)
             .orElseThrow(() -> new RuntimeException("File not found"));
         
-        Path filePath = Paths.get(metadata.getFilePath());
-        Files.deleteIfExists(filePath);
+        // Row first: once it is gone a running image compression cannot put the file back
         fileMetadataRepository.delete(metadata);
+        Files.deleteIfExists(Paths.get(metadata.getFilePath()));
     }
     
     public List<FileMetadataDTO> getFilesByService(String serviceName) {
@@ -136,6 +176,31 @@ public class FileStorageService {
         return convertToDTO(metadata);
     }
     
+    static String sha256Hex(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+    
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private static long transferAll(ReadableByteChannel in, FileChannel out) throws IOException {
+        long position = 0;
+        long transferred;
+        while ((transferred = out.transferFrom(in, position, TRANSFER_CHUNK)) > 0) {
+            position += transferred;
+        }
+        return position;
+    }
+    
     private FileMetadataDTO convertToDTO(FileMetadata metadata) {
         return new FileMetadataDTO(
             metadata.getId(),
@@ -144,6 +209,7 @@ public class FileStorageService {
             metadata.getFilePath(),
             metadata.getContentType(),
             metadata.getFileSize(),
+            metadata.getChecksum(),
             metadata.getUploadedBy(),
             metadata.getServiceName(),
             metadata.getCategory(),
@@ -0,0 +1,114 @@
+package com.healthtourism.filestorageservice.service;
+
+import com.healthtourism.filestorageservice.entity.FileMetadata;
+import com.healthtourism.filestorageservice.repository.FileMetadataRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background stage that recompresses uploaded images.
+ *
+ * Uploads are stored as received and returned immediately; this worker then
+ * re-encodes the file next to the original and atomically swaps it in only if
+ * the result is smaller, updating size and checksum. Open downloads keep
+ * reading the old file. When the queue is full the image simply stays
+ * uncompressed.
+ *
+ * A file may be deleted while it is being compressed. The row and the file are
+ * checked again right before the swap, and size and checksum are written with a
+ * conditional update, so a delete that still slips in between is never undone:
+ * the row is not recreated and the swapped-in file is removed again.
+ */
+@Component
+public class ImageCompressionWorker implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageCompressionWorker.class);
+
+    private final ImageService imageService;
+    private final FileMetadataRepository fileMetadataRepository;
+    private final ThreadPoolExecutor executor;
+
+    @Value("${file.image-compression-quality:0.8}")
+    private float quality = 0.8f;
+
+    public ImageCompressionWorker(ImageService imageService,
+                                  FileMetadataRepository fileMetadataRepository,
+                                  @Value("${file.image-compression-threads:2}") int threads,
+                                  @Value("${file.image-compression-queue:500}") int queueCapacity) {
+        this.imageService = imageService;
+        this.fileMetadataRepository = fileMetadataRepository;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-compression");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public void submit(Long fileId, String format) {
+        try {
+            executor.execute(() -> compress(fileId, format));
+        } catch (RejectedExecutionException e) {
+            log.warn("Image compression queue full, keeping file {} uncompressed", fileId);
+        }
+    }
+
+    private void compress(Long fileId, String format) {
+        FileMetadata metadata = fileMetadataRepository.findById(fileId).orElse(null);
+        if (metadata == null) {
+            return;
+        }
+        Path source = Paths.get(metadata.getFilePath());
+        Path compressed = source.resolveSibling(source.getFileName() + ".compressing");
+        try {
+            imageService.compressImage(source, compressed, quality, format);
+            long size = Files.size(compressed);
+            if (!Files.exists(source) || size >= Files.size(source)) {
+                Files.deleteIfExists(compressed);
+                return;
+            }
+            String checksum = FileStorageService.sha256Hex(compressed);
+            if (!isStillStored(fileId, metadata.getFilePath(), source)) {
+                Files.deleteIfExists(compressed);
+                return;
+            }
+            Files.move(compressed, source, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (fileMetadataRepository.updateStoredContent(fileId, metadata.getFilePath(), size, checksum) == 0) {
+                // Deleted between the check and the move: do not leave the file behind
+                Files.deleteIfExists(source);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Image compression failed for file {}: {}", fileId, e.getMessage());
+            try {
+                Files.deleteIfExists(compressed);
+            } catch (IOException ignored) {
+                // best effort cleanup
+            }
+        }
+    }
+
+    private boolean isStillStored(Long fileId, String filePath, Path source) {
+        return Files.exists(source) && fileMetadataRepository.findById(fileId)
+                .map(current -> filePath.equals(current.getFilePath()))
+                .orElse(false);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -5,12 +5,19 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -55,18 +62,27 @@ public class ImageService {
             throw new IllegalArgumentException("Image format not allowed. Allowed formats: " + allowedFormats);
         }
         
-        // Validate image content
-        try {
-            BufferedImage image = ImageIO.read(new ByteArrayInputStream(file.getBytes()));
-            if (image == null) {
+        // Validate image content. Only the header is parsed for dimensions,
+        // the pixels are not decoded and the upload is not copied to the heap.
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.getInputStream())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
                 throw new IllegalArgumentException("Invalid image file");
             }
-            
-            // Check dimensions
-            if (image.getWidth() > maxWidth || image.getHeight() > maxHeight) {
-                throw new IllegalArgumentException(
-                    String.format("Image dimensions exceed maximum allowed size (%dx%d)", maxWidth, maxHeight)
-                );
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                
+                // Check dimensions
+                if (width > maxWidth || height > maxHeight) {
+                    throw new IllegalArgumentException(
+                        String.format("Image dimensions exceed maximum allowed size (%dx%d)", maxWidth, maxHeight)
+                    );
+                }
+            } finally {
+                reader.dispose();
             }
         } catch (IOException e) {
             throw new IllegalArgumentException("Failed to read image file: " + e.getMessage());
@@ -127,28 +143,45 @@ public class ImageService {
         }
         
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writeCompressed(image, quality, format, baos);
+        return baos.toByteArray();
+    }
+    
+    /**
+     * Compresses an image file into another file without holding the encoded bytes in memory
+     */
+    public void compressImage(Path source, Path target, float quality, String format) throws IOException {
+        BufferedImage image = ImageIO.read(source.toFile());
         
+        if (image == null) {
+            throw new IOException("Invalid image data");
+        }
+        
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(target))) {
+            writeCompressed(image, quality, format, out);
+        }
+    }
+    
+    private void writeCompressed(BufferedImage image, float quality, String format, OutputStream out) throws IOException {
         // For JPEG compression
         if (format.equalsIgnoreCase("jpg") || format.equalsIgnoreCase("jpeg")) {
             javax.imageio.ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
-            javax.imageio.stream.ImageWriteParam param = writer.getDefaultWriteParam();
+            javax.imageio.ImageWriteParam param = writer.getDefaultWriteParam();
             
             if (param.canWriteCompressed()) {
                 param.setCompressionMode(javax.imageio.ImageWriteParam.MODE_EXPLICIT);
                 param.setCompressionQuality(quality);
             }
             
-            javax.imageio.stream.ImageOutputStream ios = ImageIO.createImageOutputStream(baos);
+            javax.imageio.stream.ImageOutputStream ios = ImageIO.createImageOutputStream(out);
             writer.setOutput(ios);
             writer.write(null, new javax.imageio.IIOImage(image, null, null), param);
             ios.close();
             writer.dispose();
         } else {
             // For other formats, just write without compression
-            ImageIO.write(image, format, baos);
+            ImageIO.write(image, format, out);
         }
-        
-        return baos.toByteArray();
     }
     
     private String getFileExtension(String filename) {
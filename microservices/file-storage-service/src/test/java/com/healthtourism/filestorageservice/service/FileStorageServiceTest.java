@@ -0,0 +1,167 @@
+package com.healthtourism.filestorageservice.service;
+
+import com.healthtourism.filestorageservice.dto.FileMetadataDTO;
+import com.healthtourism.filestorageservice.entity.FileMetadata;
+import com.healthtourism.filestorageservice.repository.FileMetadataRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.Resource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FileStorageServiceTest {
+
+    @Mock
+    private FileMetadataRepository fileMetadataRepository;
+
+    @Mock
+    private ImageCompressionWorker imageCompressionWorker;
+
+    @InjectMocks
+    private FileStorageService fileStorageService;
+
+    @TempDir
+    Path uploadDir;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(fileStorageService, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(fileStorageService, "maxSize", 10L * 1024 * 1024);
+        ReflectionTestUtils.setField(fileStorageService, "imageCompressionEnabled", true);
+        lenient().when(fileMetadataRepository.save(any(FileMetadata.class))).thenAnswer(invocation -> {
+            FileMetadata saved = invocation.getArgument(0);
+            saved.setId(42L);
+            return saved;
+        });
+    }
+
+    @Test
+    void testUploadFile_StreamsContentToDiskWithChecksum() throws Exception {
+        // Given - larger than one transfer chunk
+        byte[] content = new byte[3 * 1024 * 1024 + 17];
+        new Random(7).nextBytes(content);
+        MockMultipartFile file = new MockMultipartFile("file", "scan.pdf", "application/pdf", content);
+
+        // When
+        FileMetadataDTO result = fileStorageService.uploadFile(file, "user-1", "medical-records-service", "MEDICAL_DOCUMENT");
+
+        // Then
+        Path stored = Path.of(result.getFilePath());
+        assertArrayEquals(content, Files.readAllBytes(stored));
+        assertEquals(Long.valueOf(content.length), result.getFileSize());
+        assertEquals(sha256(content), result.getChecksum());
+        assertTrue(stored.getFileName().toString().endsWith("_scan.pdf"));
+        try (Stream<Path> files = Files.list(uploadDir)) {
+            assertEquals(1, files.count(), "no .part file left behind");
+        }
+        verifyNoInteractions(imageCompressionWorker);
+    }
+
+    @Test
+    void testUploadFile_TooLarge_StoresNothing() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(fileStorageService, "maxSize", 10L);
+        MockMultipartFile file = new MockMultipartFile("file", "big.pdf", "application/pdf", new byte[11]);
+
+        // When / Then
+        assertThrows(RuntimeException.class,
+                () -> fileStorageService.uploadFile(file, "user-1", "svc", "MEDICAL_DOCUMENT"));
+        try (Stream<Path> files = Files.list(uploadDir)) {
+            assertEquals(0, files.count());
+        }
+        verify(fileMetadataRepository, never()).save(any());
+    }
+
+    @Test
+    void testUploadFile_Image_QueuesBackgroundCompression() throws Exception {
+        // Given
+        MockMultipartFile file = new MockMultipartFile("file", "ward.jpeg", "image/jpeg", new byte[]{1, 2, 3});
+
+        // When
+        fileStorageService.uploadFile(file, "user-1", "hospital-service", "IMAGE_HOSPITAL");
+
+        // Then
+        verify(imageCompressionWorker).submit(42L, "jpeg");
+    }
+
+    @Test
+    void testDownloadFile_StreamsStoredFile() throws Exception {
+        // Given
+        Path stored = Files.write(uploadDir.resolve("report.pdf"), "report body".getBytes());
+        when(fileMetadataRepository.findById(5L)).thenReturn(Optional.of(metadata(5L, stored)));
+
+        // When
+        Resource resource = fileStorageService.downloadFile(5L);
+
+        // Then
+        assertEquals(stored.toFile(), resource.getFile());
+        assertEquals(11, resource.contentLength());
+        try (InputStream in = resource.getInputStream()) {
+            assertEquals("report body", new String(in.readAllBytes()));
+        }
+    }
+
+    @Test
+    void testDownloadFile_MissingOnDisk_ThrowsNoSuchFile() {
+        // Given
+        when(fileMetadataRepository.findById(5L))
+                .thenReturn(Optional.of(metadata(5L, uploadDir.resolve("gone.pdf"))));
+
+        // When / Then
+        assertThrows(NoSuchFileException.class, () -> fileStorageService.downloadFile(5L));
+    }
+
+    @Test
+    void testDeleteFile_RemovesRowBeforeFile() throws Exception {
+        // Given
+        Path stored = Files.write(uploadDir.resolve("report.pdf"), new byte[]{1});
+        FileMetadata metadata = metadata(5L, stored);
+        when(fileMetadataRepository.findById(5L)).thenReturn(Optional.of(metadata));
+        doAnswer(invocation -> {
+            assertTrue(Files.exists(stored), "row must go first");
+            return null;
+        }).when(fileMetadataRepository).delete(metadata);
+
+        // When
+        fileStorageService.deleteFile(5L);
+
+        // Then
+        verify(fileMetadataRepository).delete(metadata);
+        assertFalse(Files.exists(stored));
+    }
+
+    private static FileMetadata metadata(Long id, Path path) {
+        FileMetadata metadata = new FileMetadata();
+        metadata.setId(id);
+        metadata.setFileName(path.getFileName().toString());
+        metadata.setOriginalFileName(path.getFileName().toString());
+        metadata.setFilePath(path.toString());
+        metadata.setContentType("application/pdf");
+        metadata.setFileSize(0L);
+        return metadata;
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+}
@@ -0,0 +1,198 @@
+package com.healthtourism.filestorageservice.service;
+
+import com.healthtourism.filestorageservice.entity.FileMetadata;
+import com.healthtourism.filestorageservice.repository.FileMetadataRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImageCompressionWorkerTest {
+
+    private static final byte[] ORIGINAL = new byte[1000];
+    private static final byte[] SMALLER = new byte[400];
+
+    @Mock
+    private ImageService imageService;
+
+    @Mock
+    private FileMetadataRepository fileMetadataRepository;
+
+    @TempDir
+    Path uploadDir;
+
+    private Path source;
+    private FileMetadata metadata;
+    private ImageCompressionWorker worker;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        source = Files.write(uploadDir.resolve("ward.jpg"), ORIGINAL);
+        metadata = new FileMetadata();
+        metadata.setId(7L);
+        metadata.setFilePath(source.toString());
+        metadata.setFileSize((long) ORIGINAL.length);
+        worker = new ImageCompressionWorker(imageService, fileMetadataRepository, 1, 10);
+    }
+
+    @Test
+    void testCompress_SwapsInSmallerFile() throws Exception {
+        // Given
+        when(fileMetadataRepository.findById(7L)).thenReturn(Optional.of(metadata));
+        compressesTo(SMALLER);
+        when(fileMetadataRepository.updateStoredContent(eq(7L), eq(source.toString()), eq(400L), anyString()))
+                .thenReturn(1);
+
+        // When
+        runWorker();
+
+        // Then
+        assertArrayEquals(SMALLER, Files.readAllBytes(source));
+        verify(fileMetadataRepository).updateStoredContent(7L, source.toString(), 400L,
+                FileStorageService.sha256Hex(source));
+        verify(fileMetadataRepository, never()).save(any());
+        assertOnlySourceLeft();
+    }
+
+    @Test
+    void testCompress_LargerResult_KeepsOriginal() throws Exception {
+        // Given
+        when(fileMetadataRepository.findById(7L)).thenReturn(Optional.of(metadata));
+        compressesTo(new byte[2000]);
+
+        // When
+        runWorker();
+
+        // Then
+        assertArrayEquals(ORIGINAL, Files.readAllBytes(source));
+        verify(fileMetadataRepository, never()).updateStoredContent(anyLong(), anyString(), anyLong(), anyString());
+        assertOnlySourceLeft();
+    }
+
+    @Test
+    void testCompress_DeletedWhileCompressing_DoesNotResurrect() throws Exception {
+        // Given - the file and its row are deleted while the image is re-encoded
+        when(fileMetadataRepository.findById(7L))
+                .thenReturn(Optional.of(metadata))
+                .thenReturn(Optional.empty());
+        doAnswer(invocation -> {
+            Files.write(invocation.<Path>getArgument(1), SMALLER);
+            Files.delete(source);
+            return null;
+        }).when(imageService).compressImage(any(Path.class), any(Path.class), anyFloat(), anyString());
+
+        // When
+        runWorker();
+
+        // Then
+        assertFalse(Files.exists(source));
+        verify(fileMetadataRepository, never()).updateStoredContent(anyLong(), anyString(), anyLong(), anyString());
+        verify(fileMetadataRepository, never()).save(any());
+        try (Stream<Path> files = Files.list(uploadDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testCompress_RowDeletedWhileCompressing_KeepsFileUntouched() throws Exception {
+        // Given - the row is already gone, the file is about to be deleted
+        when(fileMetadataRepository.findById(7L))
+                .thenReturn(Optional.of(metadata))
+                .thenReturn(Optional.empty());
+        compressesTo(SMALLER);
+
+        // When
+        runWorker();
+
+        // Then
+        assertArrayEquals(ORIGINAL, Files.readAllBytes(source));
+        verify(fileMetadataRepository, never()).updateStoredContent(anyLong(), anyString(), anyLong(), anyString());
+        assertOnlySourceLeft();
+    }
+
+    @Test
+    void testCompress_DeletedDuringSwap_RemovesSwappedFile() throws Exception {
+        // Given - the delete lands between the last check and the update
+        when(fileMetadataRepository.findById(7L)).thenReturn(Optional.of(metadata));
+        compressesTo(SMALLER);
+        when(fileMetadataRepository.updateStoredContent(anyLong(), anyString(), anyLong(), anyString()))
+                .thenReturn(0);
+
+        // When
+        runWorker();
+
+        // Then
+        assertFalse(Files.exists(source));
+        try (Stream<Path> files = Files.list(uploadDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testCompress_RealJpeg_ShrinksAndRecordsChecksum() throws Exception {
+        // Given - a noisy image stored at full quality
+        BufferedImage image = new BufferedImage(256, 256, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(3);
+        for (int x = 0; x < 256; x++) {
+            for (int y = 0; y < 256; y++) {
+                image.setRGB(x, y, random.nextInt(0xffffff));
+            }
+        }
+        ImageService realImageService = new ImageService();
+        byte[] fullQuality;
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            ImageIO.write(image, "png", out);
+            fullQuality = realImageService.compressImage(out.toByteArray(), 1.0f, "jpg");
+        }
+        Files.write(source, fullQuality);
+        worker = new ImageCompressionWorker(realImageService, fileMetadataRepository, 1, 10);
+        when(fileMetadataRepository.findById(7L)).thenReturn(Optional.of(metadata));
+        when(fileMetadataRepository.updateStoredContent(anyLong(), anyString(), anyLong(), anyString()))
+                .thenReturn(1);
+
+        // When
+        runWorker();
+
+        // Then
+        long compressedSize = Files.size(source);
+        assertTrue(compressedSize < fullQuality.length);
+        assertNotNull(ImageIO.read(source.toFile()));
+        verify(fileMetadataRepository).updateStoredContent(7L, source.toString(), compressedSize,
+                FileStorageService.sha256Hex(source));
+    }
+
+    private void compressesTo(byte[] result) throws Exception {
+        doAnswer(invocation -> {
+            Files.write(invocation.<Path>getArgument(1), result);
+            return null;
+        }).when(imageService).compressImage(any(Path.class), any(Path.class), anyFloat(), anyString());
+    }
+
+    private void runWorker() throws InterruptedException {
+        worker.submit(7L, "jpg");
+        // Waits for the queued task to finish
+        worker.destroy();
+    }
+
+    private void assertOnlySourceLeft() throws Exception {
+        try (Stream<Path> files = Files.list(uploadDir)) {
+            assertEquals(1, files.count(), "no .compressing file left behind");
+        }
+    }
+}
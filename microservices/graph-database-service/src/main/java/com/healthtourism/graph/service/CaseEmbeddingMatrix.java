@@ -0,0 +1,253 @@
+package com.healthtourism.graph.service;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of every patient case as a feature-hashed embedding.
+ *
+ * Each condition, procedure type and medication of a patient adds 1 to one of
+ * {@code dimension} columns. A patient scores against a query by the overlap
+ * sum(min(query, patient)) over the columns, i.e. how many query features it
+ * has. Every patient with both the queried condition and procedure gets the top
+ * score, however many other features it has or where they hash; a collision can
+ * only lift a non-matching patient to that score, never above it.
+ *
+ * The matrix is stored as compressed sparse columns: for every column, the rows
+ * with a non-zero count and their counts, in row order. Memory grows with the
+ * number of features patients actually have, not with dimension x patients, and
+ * a query (usually two features) only reads the postings of its own columns.
+ */
+public final class CaseEmbeddingMatrix {
+
+    public record PatientCase(Long patientId, List<String> conditions, Map<String, Double> procedureRisks,
+                              List<String> medications) {
+    }
+
+    /**
+     * Best patients first. Every patient left out either lacks part of the query
+     * or has a risk of at least {@code riskCutoff}; the cutoff is infinite when no
+     * patient matching the whole query was left out.
+     */
+    public record Candidates(long[] patientIds, double riskCutoff) {
+    }
+
+    private final int dimension;
+    private final long[] patientIds;
+    /** Postings of column d are at [columnStart[d], columnStart[d + 1]) in postingRows and postingCounts. */
+    private final int[] columnStart;
+    private final int[] postingRows;
+    private final float[] postingCounts;
+    private final Map<String, double[]> riskByProcedure;
+    private final Instant asOf;
+
+    private CaseEmbeddingMatrix(int dimension, long[] patientIds, int[] columnStart, int[] postingRows,
+                                float[] postingCounts, Map<String, double[]> riskByProcedure, Instant asOf) {
+        this.dimension = dimension;
+        this.patientIds = patientIds;
+        this.columnStart = columnStart;
+        this.postingRows = postingRows;
+        this.postingCounts = postingCounts;
+        this.riskByProcedure = riskByProcedure;
+        this.asOf = asOf;
+    }
+
+    public static CaseEmbeddingMatrix build(Collection<PatientCase> cases, int dimension, Instant asOf) {
+        int n = cases.size();
+        long[] patientIds = new long[n];
+        // Each patient's distinct columns, sorted, with the count in each
+        int[][] rowColumns = new int[n][];
+        float[][] rowCounts = new float[n][];
+        int[] columnSize = new int[dimension];
+        Map<String, double[]> riskByProcedure = new HashMap<>();
+        int row = 0;
+        for (PatientCase patientCase : cases) {
+            patientIds[row] = patientCase.patientId();
+            int[] features = new int[patientCase.conditions().size() + patientCase.medications().size()
+                    + patientCase.procedureRisks().size()];
+            int f = 0;
+            for (String condition : patientCase.conditions()) {
+                features[f++] = featureIndex("condition", condition, dimension);
+            }
+            for (String medication : patientCase.medications()) {
+                features[f++] = featureIndex("medication", medication, dimension);
+            }
+            for (Map.Entry<String, Double> procedure : patientCase.procedureRisks().entrySet()) {
+                features[f++] = featureIndex("procedure", procedure.getKey(), dimension);
+                // The graph path only returns patients that take a medication; rank the rest last
+                if (!patientCase.medications().isEmpty()) {
+                    double[] risks = riskByProcedure.computeIfAbsent(procedure.getKey(), type -> {
+                        double[] empty = new double[n];
+                        Arrays.fill(empty, Double.NaN);
+                        return empty;
+                    });
+                    risks[row] = procedure.getValue() == null ? Double.MAX_VALUE : procedure.getValue();
+                }
+            }
+            Arrays.sort(features);
+            int distinct = 0;
+            float[] counts = new float[features.length];
+            for (int i = 0; i < features.length; i++) {
+                if (distinct > 0 && features[distinct - 1] == features[i]) {
+                    counts[distinct - 1] += 1f;
+                } else {
+                    features[distinct] = features[i];
+                    counts[distinct++] = 1f;
+                    columnSize[features[i]]++;
+                }
+            }
+            rowColumns[row] = Arrays.copyOf(features, distinct);
+            rowCounts[row] = Arrays.copyOf(counts, distinct);
+            row++;
+        }
+
+        int[] columnStart = new int[dimension + 1];
+        for (int d = 0; d < dimension; d++) {
+            columnStart[d + 1] = columnStart[d] + columnSize[d];
+        }
+        int[] postingRows = new int[columnStart[dimension]];
+        float[] postingCounts = new float[postingRows.length];
+        int[] next = Arrays.copyOf(columnStart, dimension);
+        for (int r = 0; r < n; r++) {
+            for (int i = 0; i < rowColumns[r].length; i++) {
+                int p = next[rowColumns[r][i]]++;
+                postingRows[p] = r;
+                postingCounts[p] = rowCounts[r][i];
+            }
+        }
+        return new CaseEmbeddingMatrix(dimension, patientIds, columnStart, postingRows, postingCounts,
+                riskByProcedure, asOf);
+    }
+
+    public float[] embedQuery(String condition, String procedureType) {
+        float[] query = new float[dimension];
+        query[featureIndex("condition", condition, dimension)] += 1f;
+        query[featureIndex("procedure", procedureType, dimension)] += 1f;
+        return query;
+    }
+
+    /**
+     * Ids of the {@code k} patients scoring highest against {@code query}. Equal
+     * scores are ordered by the patient's lowest risk score for
+     * {@code procedureType}, the order the graph expansion returns them in.
+     * Patients sharing no feature with the query are never returned.
+     */
+    public Candidates topCandidates(float[] query, String procedureType, int k) {
+        int n = patientIds.length;
+        float[] scores = new float[n];
+        float fullMatch = 0f;
+        for (int d = 0; d < dimension; d++) {
+            float weight = query[d];
+            if (weight <= 0f) {
+                continue;
+            }
+            fullMatch += weight;
+            for (int p = columnStart[d], end = columnStart[d + 1]; p < end; p++) {
+                scores[postingRows[p]] += Math.min(weight, postingCounts[p]);
+            }
+        }
+        double[] risks = riskByProcedure.get(procedureType);
+
+        // Bounded heap with the weakest candidate on top
+        int[] heap = new int[Math.max(1, Math.min(k, n))];
+        int size = 0;
+        int fullMatches = 0;
+        for (int i = 0; i < n; i++) {
+            if (scores[i] <= 0f) {
+                continue;
+            }
+            if (scores[i] >= fullMatch) {
+                fullMatches++;
+            }
+            if (size < heap.length) {
+                heap[size] = i;
+                siftUp(heap, size++, scores, risks);
+            } else if (better(i, heap[0], scores, risks)) {
+                heap[0] = i;
+                siftDown(heap, size, scores, risks);
+            }
+        }
+
+        double riskCutoff = Double.POSITIVE_INFINITY;
+        if (fullMatches > size) {
+            // Full matches sort by risk, NaN (not a match) last, so the weakest kept one bounds the rest
+            double weakestRisk = risks == null ? Double.NaN : risks[heap[0]];
+            if (!Double.isNaN(weakestRisk)) {
+                riskCutoff = weakestRisk;
+            }
+        }
+        long[] ids = new long[size];
+        for (int out = size - 1; out >= 0; out--) {
+            ids[out] = patientIds[heap[0]];
+            heap[0] = heap[--size];
+            siftDown(heap, size, scores, risks);
+        }
+        return new Candidates(ids, riskCutoff);
+    }
+
+    private static boolean better(int a, int b, float[] scores, double[] risks) {
+        if (scores[a] != scores[b]) {
+            return scores[a] > scores[b];
+        }
+        double riskA = risks == null ? Double.NaN : risks[a];
+        double riskB = risks == null ? Double.NaN : risks[b];
+        if (Double.isNaN(riskA) || Double.isNaN(riskB)) {
+            return !Double.isNaN(riskA) && Double.isNaN(riskB);
+        }
+        return riskA < riskB;
+    }
+
+    private static void siftUp(int[] heap, int i, float[] scores, double[] risks) {
+        int node = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!better(heap[parent], node, scores, risks)) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = node;
+    }
+
+    private static void siftDown(int[] heap, int size, float[] scores, double[] risks) {
+        if (size == 0) {
+            return;
+        }
+        int node = heap[0];
+        int i = 0;
+        while (2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && better(heap[child], heap[child + 1], scores, risks)) {
+                child++;
+            }
+            if (!better(node, heap[child], scores, risks)) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = node;
+    }
+
+    static int featureIndex(String kind, String value, int dimension) {
+        int h = (kind + ':' + value.toLowerCase(Locale.ROOT)).hashCode();
+        h ^= h >>> 16;
+        h *= 0x45d9f3b;
+        h ^= h >>> 16;
+        return Math.floorMod(h, dimension);
+    }
+
+    public int size() {
+        return patientIds.length;
+    }
+
+    public Instant getAsOf() {
+        return asOf;
+    }
+}
@@ -4,7 +4,7 @@ import com.healthtourism.graph.model.PatientNode;
 import com.healthtourism.graph.model.ConditionNode;
 import com.healthtourism.graph.repository.PatientNodeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.neo4j.core.Neo4jTemplate;
+import org.springframework.data.neo4j.core.Neo4jClient;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -12,7 +12,7 @@ import java.util.Map;
 
 /**
  * GraphRAG Service
- * Combines Neo4j (Graph) + Milvus (Vector) for advanced AI context retrieval
+ * Combines Neo4j (Graph) + vector search for advanced AI context retrieval
  */
 @Service
 public class GraphRAGService {
@@ -21,7 +21,10 @@ public class GraphRAGService {
     private PatientNodeRepository patientRepository;
     
     @Autowired
-    private Neo4jTemplate neo4jTemplate;
+    private Neo4jClient neo4jClient;
+    
+    @Autowired
+    private SimilarCaseRetriever similarCaseRetriever;
     
     @Autowired
     private VectorEmbeddingService vectorService;
@@ -29,31 +32,13 @@ public class GraphRAGService {
     /**
      * GraphRAG: Find similar patients with conditions and procedures
      * Example: "Diabetic patients who underwent cardiac surgery"
+     * Vector pre-filter on cached case embeddings, then graph expansion of the top candidates
      */
     public List<Map<String, Object>> findSimilarCases(
             String condition, 
             String procedureType,
             int limit) {
-        
-        String cypherQuery = """
-            MATCH (p:Patient)-[:HAS_CONDITION]->(c:Condition {name: $condition})
-            MATCH (p)-[:UNDERWENT_PROCEDURE]->(proc:Procedure {type: $procedureType})
-            MATCH (p)-[:HAS_CONDITION]->(otherConditions:Condition)
-            MATCH (p)-[:TAKES_MEDICATION]->(meds:Medication)
-            RETURN p, 
-                   collect(DISTINCT otherConditions.name) as conditions,
-                   collect(DISTINCT meds.name) as medications,
-                   proc.outcome as outcome,
-                   proc.riskScore as riskScore
-            ORDER BY proc.riskScore ASC
-            LIMIT $limit
-            """;
-        
-        return neo4jTemplate.query(cypherQuery, Map.of(
-            "condition", condition,
-            "procedureType", procedureType,
-            "limit", limit
-        )).all();
+        return similarCaseRetriever.findSimilarCases(condition, procedureType, limit);
     }
     
     /**
@@ -76,9 +61,9 @@ public class GraphRAGService {
             ORDER BY riskMultiplier DESC
             """;
         
-        return neo4jTemplate.query(cypherQuery, Map.of(
-            "procedureType", procedureType
-        )).all();
+        return List.copyOf(neo4jClient.query(cypherQuery)
+            .bindAll(Map.of("procedureType", procedureType))
+            .fetch().all());
     }
     
     /**
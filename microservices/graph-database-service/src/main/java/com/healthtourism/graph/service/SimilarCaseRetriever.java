@@ -0,0 +1,249 @@
+package com.healthtourism.graph.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Two-stage similar-case retrieval.
+ *
+ * Stage one ranks every patient against (condition, procedure) on a cached
+ * {@link CaseEmbeddingMatrix}, rebuilt from the graph in batches on a schedule.
+ * Stage two runs one parameterised Cypher query that checks the exact pattern and
+ * collects conditions and medications for the top candidates only, instead of
+ * expanding every matching patient. Results are cached per (condition, procedure)
+ * until the next matrix refresh.
+ *
+ * If stage one may have cut off a matching patient that belongs in the answer
+ * (the candidate list was full and the expansion went past its risk cutoff), the
+ * answer comes from the Cypher-only query. Results therefore match it, except for
+ * patients and risk scores changed since the last refresh.
+ */
+@Service
+public class SimilarCaseRetriever {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimilarCaseRetriever.class);
+
+    static final String CASE_FEATURES_QUERY = """
+            MATCH (p:Patient)
+            WHERE p.patientId > $after
+            WITH p ORDER BY p.patientId LIMIT $batchSize
+            CALL {
+                WITH p
+                MATCH (p)-[:HAS_CONDITION]->(c:Condition)
+                RETURN collect(DISTINCT c.name) AS conditions
+            }
+            CALL {
+                WITH p
+                MATCH (p)-[:UNDERWENT_PROCEDURE]->(proc:Procedure)
+                RETURN collect({type: proc.type, riskScore: proc.riskScore}) AS procedures
+            }
+            CALL {
+                WITH p
+                MATCH (p)-[:TAKES_MEDICATION]->(m:Medication)
+                RETURN collect(DISTINCT m.name) AS medications
+            }
+            RETURN p.patientId AS patientId, conditions, procedures, medications
+            ORDER BY patientId
+            """;
+
+    static final String EXPAND_CANDIDATES_QUERY = """
+            UNWIND $patientIds AS candidateId
+            MATCH (p:Patient {patientId: candidateId})-[:HAS_CONDITION]->(:Condition {name: $condition})
+            MATCH (p)-[:UNDERWENT_PROCEDURE]->(proc:Procedure {type: $procedureType})
+            CALL {
+                WITH p
+                MATCH (p)-[:HAS_CONDITION]->(c:Condition)
+                RETURN collect(DISTINCT c.name) AS conditions
+            }
+            CALL {
+                WITH p
+                MATCH (p)-[:TAKES_MEDICATION]->(m:Medication)
+                RETURN collect(DISTINCT m.name) AS medications
+            }
+            WITH p, conditions, medications, proc
+            WHERE size(medications) > 0
+            RETURN DISTINCT p, conditions, medications,
+                   proc.outcome AS outcome,
+                   proc.riskScore AS riskScore
+            ORDER BY riskScore ASC
+            LIMIT $limit
+            """;
+
+    static final String GRAPH_ONLY_QUERY = """
+            MATCH (p:Patient)-[:HAS_CONDITION]->(c:Condition {name: $condition})
+            MATCH (p)-[:UNDERWENT_PROCEDURE]->(proc:Procedure {type: $procedureType})
+            MATCH (p)-[:HAS_CONDITION]->(otherConditions:Condition)
+            MATCH (p)-[:TAKES_MEDICATION]->(meds:Medication)
+            RETURN p,
+                   collect(DISTINCT otherConditions.name) as conditions,
+                   collect(DISTINCT meds.name) as medications,
+                   proc.outcome as outcome,
+                   proc.riskScore as riskScore
+            ORDER BY proc.riskScore ASC
+            LIMIT $limit
+            """;
+
+    @Autowired
+    private Neo4jClient neo4jClient;
+
+    @Value("${graphrag.case-matrix.dimension:256}")
+    private int dimension;
+
+    @Value("${graphrag.case-matrix.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${graphrag.candidate-factor:4}")
+    private int candidateFactor;
+
+    @Value("${graphrag.result-cache.max-entries:1000}")
+    private int cacheMaxEntries;
+
+    private final AtomicReference<CaseEmbeddingMatrix> caseMatrix = new AtomicReference<>();
+
+    private final Map<CaseKey, CachedCases> resultCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<CaseKey, CachedCases> eldest) {
+                    return size() > cacheMaxEntries;
+                }
+            });
+
+    private record CaseKey(String condition, String procedureType) {
+    }
+
+    private record CachedCases(CaseEmbeddingMatrix matrix, int limit, List<Map<String, Object>> rows) {
+    }
+
+    /**
+     * Rebuilds the case matrix from the graph and drops cached results.
+     */
+    @Scheduled(fixedDelayString = "${graphrag.case-matrix.refresh-interval-ms:300000}")
+    public void refreshCaseMatrix() {
+        long start = System.nanoTime();
+        CaseEmbeddingMatrix fresh = loadCaseMatrix();
+        caseMatrix.set(fresh);
+        resultCache.clear();
+        logger.info("Case matrix refreshed: {} patients in {} ms", fresh.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private CaseEmbeddingMatrix currentMatrix() {
+        CaseEmbeddingMatrix matrix = caseMatrix.get();
+        if (matrix == null) {
+            synchronized (this) {
+                matrix = caseMatrix.get();
+                if (matrix == null) {
+                    matrix = loadCaseMatrix();
+                    caseMatrix.set(matrix);
+                }
+            }
+        }
+        return matrix;
+    }
+
+    private CaseEmbeddingMatrix loadCaseMatrix() {
+        Instant asOf = Instant.now();
+        List<CaseEmbeddingMatrix.PatientCase> cases = new ArrayList<>();
+        long after = Long.MIN_VALUE;
+        while (true) {
+            Collection<Map<String, Object>> rows = neo4jClient.query(CASE_FEATURES_QUERY)
+                    .bindAll(Map.of("after", after, "batchSize", batchSize))
+                    .fetch().all();
+            for (Map<String, Object> row : rows) {
+                cases.add(toPatientCase(row));
+            }
+            if (rows.size() < batchSize) {
+                break;
+            }
+            after = cases.get(cases.size() - 1).patientId();
+        }
+        return CaseEmbeddingMatrix.build(cases, dimension, asOf);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CaseEmbeddingMatrix.PatientCase toPatientCase(Map<String, Object> row) {
+        Map<String, Double> procedureRisks = new HashMap<>();
+        for (Map<String, Object> procedure : (List<Map<String, Object>>) row.get("procedures")) {
+            Object type = procedure.get("type");
+            if (type == null) {
+                continue;
+            }
+            Number risk = (Number) procedure.get("riskScore");
+            Double current = procedureRisks.get(type.toString());
+            // Keep the lowest risk per type; the graph path orders by it, nulls last
+            if (!procedureRisks.containsKey(type.toString())
+                    || (risk != null && (current == null || risk.doubleValue() < current))) {
+                procedureRisks.put(type.toString(), risk == null ? null : risk.doubleValue());
+            }
+        }
+        return new CaseEmbeddingMatrix.PatientCase(((Number) row.get("patientId")).longValue(),
+                (List<String>) row.get("conditions"), procedureRisks, (List<String>) row.get("medications"));
+    }
+
+    public List<Map<String, Object>> findSimilarCases(String condition, String procedureType, int limit) {
+        CaseEmbeddingMatrix matrix = currentMatrix();
+        CaseKey key = new CaseKey(condition, procedureType);
+        CachedCases cached = resultCache.get(key);
+        if (cached != null && cached.matrix() == matrix && cached.limit() >= limit) {
+            return cached.rows().subList(0, Math.min(limit, cached.rows().size()));
+        }
+
+        CaseEmbeddingMatrix.Candidates candidates = matrix.topCandidates(
+                matrix.embedQuery(condition, procedureType), procedureType, Math.max(limit, limit * candidateFactor));
+        List<Map<String, Object>> rows = List.copyOf(neo4jClient.query(EXPAND_CANDIDATES_QUERY)
+                .bindAll(Map.of(
+                        "patientIds", Arrays.stream(candidates.patientIds()).boxed().toList(),
+                        "condition", condition,
+                        "procedureType", procedureType,
+                        "limit", limit))
+                .fetch().all());
+        if (!coveredByCandidates(rows, limit, candidates.riskCutoff())) {
+            rows = findSimilarCasesByGraph(condition, procedureType, limit);
+        }
+        resultCache.put(key, new CachedCases(matrix, limit, rows));
+        return rows;
+    }
+
+    /**
+     * Patients outside the candidate list all have a risk of at least the cutoff,
+     * so rows up to it are exactly what the whole graph would return.
+     */
+    private static boolean coveredByCandidates(List<Map<String, Object>> rows, int limit, double riskCutoff) {
+        if (riskCutoff == Double.POSITIVE_INFINITY) {
+            return true;
+        }
+        if (rows.size() < limit) {
+            return false;
+        }
+        Number lastRisk = (Number) rows.get(rows.size() - 1).get("riskScore");
+        return lastRisk != null && lastRisk.doubleValue() <= riskCutoff;
+    }
+
+    /**
+     * Cypher-only similar-case query over the whole graph.
+     */
+    public List<Map<String, Object>> findSimilarCasesByGraph(String condition, String procedureType, int limit) {
+        return List.copyOf(neo4jClient.query(GRAPH_ONLY_QUERY)
+                .bindAll(Map.of(
+                        "condition", condition,
+                        "procedureType", procedureType,
+                        "limit", limit))
+                .fetch().all());
+    }
+}
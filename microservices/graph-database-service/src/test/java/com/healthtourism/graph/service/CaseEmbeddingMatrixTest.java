@@ -0,0 +1,124 @@
+package com.healthtourism.graph.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaseEmbeddingMatrixTest {
+
+    @Test
+    void testTopCandidates_RanksFullMatchesFirstByLowestRisk() {
+        // Given
+        CaseEmbeddingMatrix matrix = CaseEmbeddingMatrix.build(List.of(
+                patientCase(1L, List.of("Diabetes"), Map.of("CARDIAC_SURGERY", 0.7), List.of("Metformin")),
+                patientCase(2L, List.of("Diabetes", "Hypertension"), Map.of("CARDIAC_SURGERY", 0.2), List.of("Insulin")),
+                patientCase(3L, List.of("Diabetes"), Map.of("KNEE_REPLACEMENT", 0.1), List.of("Metformin")),
+                patientCase(4L, List.of("Asthma"), Map.of("CARDIAC_SURGERY", 0.05), List.of("Salbutamol")),
+                patientCase(5L, List.of("Diabetes"), Map.of("CARDIAC_SURGERY", 0.4), List.of("Metformin"))
+        ), 256, Instant.now());
+
+        // When
+        long[] candidates = matrix.topCandidates(matrix.embedQuery("Diabetes", "CARDIAC_SURGERY"),
+                "CARDIAC_SURGERY", 3).patientIds();
+
+        // Then
+        assertArrayEquals(new long[]{2L, 5L, 1L}, candidates);
+    }
+
+    @Test
+    void testTopCandidates_RanksPatientsWithoutMedicationAfterEqualScores() {
+        // Given
+        CaseEmbeddingMatrix matrix = CaseEmbeddingMatrix.build(List.of(
+                patientCase(1L, List.of("Diabetes"), Map.of("CARDIAC_SURGERY", 0.1), List.of()),
+                patientCase(2L, List.of("Diabetes"), Map.of("CARDIAC_SURGERY", 0.9), List.of("Insulin"))
+        ), 256, Instant.now());
+
+        // When
+        long[] candidates = matrix.topCandidates(matrix.embedQuery("Diabetes", "CARDIAC_SURGERY"),
+                "CARDIAC_SURGERY", 2).patientIds();
+
+        // Then
+        assertArrayEquals(new long[]{2L, 1L}, candidates);
+    }
+
+    @Test
+    void testTopCandidates_SkipsPatientsSharingNoFeature() {
+        // Given
+        CaseEmbeddingMatrix matrix = CaseEmbeddingMatrix.build(List.of(
+                patientCase(1L, List.of("Diabetes"), Map.of("CARDIAC_SURGERY", 0.3), List.of("Insulin")),
+                patientCase(2L, List.of("Asthma"), Map.of("DENTAL_IMPLANT", 0.1), List.of("Salbutamol"))
+        ), 4096, Instant.now());
+
+        // When
+        long[] candidates = matrix.topCandidates(matrix.embedQuery("Diabetes", "CARDIAC_SURGERY"),
+                "CARDIAC_SURGERY", 10).patientIds();
+
+        // Then
+        assertArrayEquals(new long[]{1L}, candidates);
+    }
+
+    @Test
+    void testTopCandidates_MatchesFullSortOnLargeMatrix() {
+        // Given
+        String[] conditions = {"Diabetes", "Hypertension", "Asthma", "Obesity", "Arthritis"};
+        String[] procedures = {"CARDIAC_SURGERY", "KNEE_REPLACEMENT", "DENTAL_IMPLANT"};
+        Random random = new Random(17);
+        List<CaseEmbeddingMatrix.PatientCase> cases = new ArrayList<>();
+        for (long id = 0; id < 5_000; id++) {
+            Map<String, Double> risks = new HashMap<>();
+            risks.put(procedures[random.nextInt(procedures.length)], (double) random.nextInt(1_000_000));
+            cases.add(patientCase(id, List.of(conditions[random.nextInt(conditions.length)]), risks,
+                    List.of("Medication" + random.nextInt(20))));
+        }
+        CaseEmbeddingMatrix matrix = CaseEmbeddingMatrix.build(cases, 256, Instant.now());
+
+        // When
+        long[] candidates = matrix.topCandidates(matrix.embedQuery("Asthma", "DENTAL_IMPLANT"),
+                "DENTAL_IMPLANT", 25).patientIds();
+
+        // Then
+        long[] expected = cases.stream()
+                .filter(c -> c.conditions().contains("Asthma") && c.procedureRisks().containsKey("DENTAL_IMPLANT"))
+                .sorted((a, b) -> Double.compare(a.procedureRisks().get("DENTAL_IMPLANT"),
+                        b.procedureRisks().get("DENTAL_IMPLANT")))
+                .limit(25)
+                .mapToLong(CaseEmbeddingMatrix.PatientCase::patientId)
+                .toArray();
+        assertArrayEquals(expected, candidates);
+    }
+
+    @Test
+    void testTopCandidates_ReportsRiskCutoffOnlyWhenMatchesWereLeftOut() {
+        // Given
+        CaseEmbeddingMatrix matrix = CaseEmbeddingMatrix.build(List.of(
+                patientCase(1L, List.of("Diabetes"), Map.of("CARDIAC_SURGERY", 0.7), List.of("Metformin")),
+                patientCase(2L, List.of("Diabetes"), Map.of("CARDIAC_SURGERY", 0.2), List.of("Insulin")),
+                patientCase(3L, List.of("Diabetes"), Map.of("CARDIAC_SURGERY", 0.4), List.of("Metformin")),
+                patientCase(4L, List.of("Asthma"), Map.of("CARDIAC_SURGERY", 0.1), List.of("Salbutamol"))
+        ), 4096, Instant.now());
+        float[] query = matrix.embedQuery("Diabetes", "CARDIAC_SURGERY");
+
+        // When
+        CaseEmbeddingMatrix.Candidates truncated = matrix.topCandidates(query, "CARDIAC_SURGERY", 2);
+        CaseEmbeddingMatrix.Candidates complete = matrix.topCandidates(query, "CARDIAC_SURGERY", 3);
+
+        // Then
+        assertArrayEquals(new long[]{2L, 3L}, truncated.patientIds());
+        assertEquals(0.4, truncated.riskCutoff(), 1e-9);
+        assertArrayEquals(new long[]{2L, 3L, 1L}, complete.patientIds());
+        assertEquals(Double.POSITIVE_INFINITY, complete.riskCutoff());
+    }
+
+    private static CaseEmbeddingMatrix.PatientCase patientCase(Long id, List<String> conditions,
+                                                               Map<String, Double> procedureRisks,
+                                                               List<String> medications) {
+        return new CaseEmbeddingMatrix.PatientCase(id, conditions, procedureRisks, medications);
+    }
+}
@@ -0,0 +1,207 @@
+package com.healthtourism.graph.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.neo4j.driver.AuthTokens;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.GraphDatabase;
+import org.neo4j.driver.types.Node;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.Neo4jContainer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Similar-case latency of the Cypher-only query against the two-stage retriever,
+ * on a synthetic graph in a Neo4j container (needs Docker).
+ *
+ * mvn test -Dtest=SimilarCaseRetrievalBenchmark -Dbenchmark=true [-Dgraphrag.bench.patients=20000]
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SimilarCaseRetrievalBenchmark {
+
+    private static final int CONDITIONS = 60;
+    private static final int MEDICATIONS = 150;
+    private static final String[] PROCEDURE_TYPES = {
+            "CARDIAC_SURGERY", "KNEE_REPLACEMENT", "HIP_REPLACEMENT", "DENTAL_IMPLANT", "CATARACT_SURGERY",
+            "BARIATRIC_SURGERY", "SPINAL_FUSION", "IVF", "RHINOPLASTY", "HAIR_TRANSPLANT"};
+    private static final String[] OUTCOMES = {"SUCCESS", "COMPLICATION", "READMISSION"};
+    private static final int QUERIES = 200;
+    private static final int LIMIT = 10;
+
+    private static Neo4jContainer<?> neo4j;
+    private static Driver driver;
+    private static Neo4jClient neo4jClient;
+
+    @BeforeAll
+    static void startGraph() {
+        neo4j = new Neo4jContainer<>("neo4j:5.15").withAdminPassword("benchmark");
+        neo4j.start();
+        driver = GraphDatabase.driver(neo4j.getBoltUrl(), AuthTokens.basic("neo4j", "benchmark"));
+        neo4jClient = Neo4jClient.create(driver);
+        populate(Integer.getInteger("graphrag.bench.patients", 20_000), new Random(42));
+    }
+
+    @AfterAll
+    static void stopGraph() {
+        if (driver != null) {
+            driver.close();
+        }
+        if (neo4j != null) {
+            neo4j.stop();
+        }
+    }
+
+    @Test
+    void benchmarkCypherOnlyVersusTwoStage() {
+        SimilarCaseRetriever retriever = new SimilarCaseRetriever();
+        ReflectionTestUtils.setField(retriever, "neo4jClient", neo4jClient);
+        ReflectionTestUtils.setField(retriever, "dimension", 256);
+        ReflectionTestUtils.setField(retriever, "batchSize", 5000);
+        ReflectionTestUtils.setField(retriever, "candidateFactor", 4);
+        ReflectionTestUtils.setField(retriever, "cacheMaxEntries", 1000);
+
+        long refreshStart = System.nanoTime();
+        retriever.refreshCaseMatrix();
+        System.out.printf("%nCase matrix build: %d ms%n", (System.nanoTime() - refreshStart) / 1_000_000);
+
+        Random random = new Random(7);
+        String[][] queries = new String[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = new String[]{condition(skewed(random, CONDITIONS)),
+                    PROCEDURE_TYPES[random.nextInt(PROCEDURE_TYPES.length)]};
+        }
+
+        // Same answers before timing anything
+        for (String[] query : queries) {
+            assertEquals(summary(retriever.findSimilarCasesByGraph(query[0], query[1], LIMIT)),
+                    summary(retriever.findSimilarCases(query[0], query[1], LIMIT)),
+                    "results differ for " + Arrays.toString(query));
+        }
+
+        Map<?, ?> resultCache = (Map<?, ?>) ReflectionTestUtils.getField(retriever, "resultCache");
+        report("cypher-only", queries, q -> () -> retriever.findSimilarCasesByGraph(q[0], q[1], LIMIT));
+        report("two-stage, cold cache", queries, q -> () -> {
+            resultCache.clear();
+            return retriever.findSimilarCases(q[0], q[1], LIMIT);
+        });
+        report("two-stage, warm cache", queries, q -> () -> retriever.findSimilarCases(q[0], q[1], LIMIT));
+    }
+
+    private static void report(String name, String[][] queries,
+                               Function<String[], Supplier<List<Map<String, Object>>>> call) {
+        for (String[] query : queries) {
+            call.apply(query).get();
+        }
+        long[] latencies = new long[queries.length];
+        for (int i = 0; i < queries.length; i++) {
+            long start = System.nanoTime();
+            call.apply(queries[i]).get();
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%-22s p50=%7.2f ms  p99=%7.2f ms  mean=%7.2f ms%n", name,
+                latencies[latencies.length / 2] / 1e6, latencies[latencies.length * 99 / 100] / 1e6,
+                Arrays.stream(latencies).average().orElse(0) / 1e6);
+    }
+
+    private static List<String> summary(List<Map<String, Object>> rows) {
+        List<String> summary = new ArrayList<>();
+        for (Map<String, Object> row : rows) {
+            summary.add(((Node) row.get("p")).get("patientId").asLong() + "@" + row.get("riskScore"));
+        }
+        return summary;
+    }
+
+    private static void populate(int patients, Random random) {
+        neo4jClient.query("CREATE INDEX patient_id IF NOT EXISTS FOR (p:Patient) ON (p.patientId)").run();
+        neo4jClient.query("CREATE INDEX condition_name IF NOT EXISTS FOR (c:Condition) ON (c.name)").run();
+        neo4jClient.query("CREATE INDEX procedure_type IF NOT EXISTS FOR (p:Procedure) ON (p.type)").run();
+        neo4jClient.query("UNWIND range(0, $n - 1) AS i CREATE (:Condition {conditionId: 'C' + i, name: 'Condition ' + i})")
+                .bind(CONDITIONS).to("n").run();
+        neo4jClient.query("UNWIND range(0, $n - 1) AS i CREATE (:Medication {medicationId: 'M' + i, name: 'Medication ' + i})")
+                .bind(MEDICATIONS).to("n").run();
+
+        int batch = 2_000;
+        for (int from = 0; from < patients; from += batch) {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (int id = from; id < Math.min(patients, from + batch); id++) {
+                Map<String, Object> row = new HashMap<>();
+                row.put("id", (long) id);
+                row.put("age", 20 + random.nextInt(60));
+                row.put("gender", random.nextBoolean() ? "F" : "M");
+                row.put("conditions", names(random, 1 + random.nextInt(4), CONDITIONS, "Condition "));
+                // Some patients take no medication; the Cypher-only path never returns them
+                row.put("medications", random.nextInt(10) == 0
+                        ? List.of() : names(random, 1 + random.nextInt(5), MEDICATIONS, "Medication "));
+                List<Map<String, Object>> procedures = new ArrayList<>();
+                for (int p = 0, count = 1 + random.nextInt(3); p < count; p++) {
+                    procedures.add(Map.of(
+                            "procedureId", id + "-" + p,
+                            "type", PROCEDURE_TYPES[random.nextInt(PROCEDURE_TYPES.length)],
+                            "riskScore", random.nextInt(1_000_000) / 1_000_000.0,
+                            "outcome", OUTCOMES[random.nextInt(OUTCOMES.length)]));
+                }
+                row.put("procedures", procedures);
+                rows.add(row);
+            }
+            neo4jClient.query("""
+                    UNWIND $rows AS row
+                    CREATE (p:Patient {patientId: row.id, name: 'Patient ' + row.id, age: row.age, gender: row.gender})
+                    WITH p, row
+                    CALL {
+                        WITH p, row
+                        UNWIND row.conditions AS conditionName
+                        MATCH (c:Condition {name: conditionName})
+                        CREATE (p)-[:HAS_CONDITION]->(c)
+                    }
+                    CALL {
+                        WITH p, row
+                        UNWIND row.medications AS medicationName
+                        MATCH (m:Medication {name: medicationName})
+                        CREATE (p)-[:TAKES_MEDICATION]->(m)
+                    }
+                    CALL {
+                        WITH p, row
+                        UNWIND row.procedures AS procedure
+                        CREATE (p)-[:UNDERWENT_PROCEDURE]->(:Procedure {procedureId: procedure.procedureId,
+                                type: procedure.type, riskScore: procedure.riskScore, outcome: procedure.outcome})
+                    }
+                    """).bind(rows).to("rows").run();
+        }
+    }
+
+    private static List<String> names(Random random, int count, int bound, String prefix) {
+        List<String> names = new ArrayList<>();
+        while (names.size() < count) {
+            String name = prefix + skewed(random, bound);
+            if (!names.contains(name)) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * A few common values and a long tail, as with real diagnoses.
+     */
+    private static int skewed(Random random, int bound) {
+        return (int) Math.min(bound - 1, Math.floor(Math.pow(random.nextDouble(), 2) * bound));
+    }
+
+    private static String condition(int index) {
+        return "Condition " + index;
+    }
+}
@@ -0,0 +1,232 @@
+package com.healthtourism.graph.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SimilarCaseRetrieverTest {
+
+    private static final String CONDITION = "Diabetes";
+    private static final String PROCEDURE = "CARDIAC_SURGERY";
+
+    @Mock
+    private Neo4jClient neo4jClient;
+
+    @InjectMocks
+    private SimilarCaseRetriever retriever;
+
+    // In-memory stand-in for the graph, answering the three queries the retriever runs
+    private final Map<Long, Patient> graph = new TreeMap<>();
+    private final List<String> queries = new ArrayList<>();
+
+    private static final class Patient {
+        final long id;
+        final List<String> conditions;
+        final List<String> medications;
+        double riskScore;
+
+        Patient(long id, List<String> conditions, double riskScore, List<String> medications) {
+            this.id = id;
+            this.conditions = conditions;
+            this.riskScore = riskScore;
+            this.medications = medications;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(retriever, "dimension", 256);
+        ReflectionTestUtils.setField(retriever, "batchSize", 5000);
+        ReflectionTestUtils.setField(retriever, "candidateFactor", 4);
+        ReflectionTestUtils.setField(retriever, "cacheMaxEntries", 1000);
+        when(neo4jClient.query(anyString())).thenAnswer(invocation -> spec(invocation.getArgument(0)));
+    }
+
+    @Test
+    void testFindSimilarCases_CandidateListNotFull_SkipsGraphQuery() {
+        // Given - fewer full matches than candidates, so the cutoff is infinite
+        addPatient(1L, 0.7, "Metformin");
+        addPatient(2L, 0.2, "Insulin");
+        addPatient(3L, 0.4);
+        graph.put(4L, new Patient(4L, List.of("Asthma"), 0.05, List.of("Salbutamol")));
+
+        // When
+        List<Map<String, Object>> cases = retriever.findSimilarCases(CONDITION, PROCEDURE, 2);
+
+        // Then
+        assertEquals(List.of(2L, 1L), patientIds(cases));
+        assertEquals(patientIds(graphOnly(2)), patientIds(cases));
+        assertFalse(queries.contains(SimilarCaseRetriever.GRAPH_ONLY_QUERY));
+    }
+
+    @Test
+    void testFindSimilarCases_RowsWithinCutoff_SkipsGraphQuery() {
+        // Given - 12 full matches for 8 candidates; the weakest candidate has risk 0.8
+        for (long id = 1; id <= 12; id++) {
+            addPatient(id, id / 10.0, "Insulin");
+        }
+
+        // When
+        List<Map<String, Object>> cases = retriever.findSimilarCases(CONDITION, PROCEDURE, 2);
+
+        // Then
+        assertEquals(List.of(1L, 2L), patientIds(cases));
+        assertFalse(queries.contains(SimilarCaseRetriever.GRAPH_ONLY_QUERY));
+    }
+
+    @Test
+    void testFindSimilarCases_LastRowAtCutoff_SkipsGraphQuery() {
+        // Given - one candidate per row, so the last row sits exactly on the cutoff
+        ReflectionTestUtils.setField(retriever, "candidateFactor", 1);
+        addPatient(1L, 0.1, "Insulin");
+        addPatient(2L, 0.2, "Insulin");
+        addPatient(3L, 0.3, "Insulin");
+
+        // When
+        List<Map<String, Object>> cases = retriever.findSimilarCases(CONDITION, PROCEDURE, 2);
+
+        // Then
+        assertEquals(List.of(1L, 2L), patientIds(cases));
+        assertFalse(queries.contains(SimilarCaseRetriever.GRAPH_ONLY_QUERY));
+    }
+
+    @Test
+    void testFindSimilarCases_RowsPastCutoff_FallsBackToGraphQuery() {
+        // Given - the candidates' risk rose after the refresh, past patients left out of the list
+        for (long id = 1; id <= 12; id++) {
+            addPatient(id, id / 10.0, "Insulin");
+        }
+        retriever.refreshCaseMatrix();
+        for (long id = 1; id <= 8; id++) {
+            graph.get(id).riskScore = 5.0;
+        }
+
+        // When
+        List<Map<String, Object>> cases = retriever.findSimilarCases(CONDITION, PROCEDURE, 2);
+
+        // Then
+        assertEquals(List.of(9L, 10L), patientIds(cases));
+        assertTrue(queries.contains(SimilarCaseRetriever.GRAPH_ONLY_QUERY));
+    }
+
+    @Test
+    void testFindSimilarCases_TooFewRowsWithFullList_FallsBackToGraphQuery() {
+        // Given - the candidates stopped taking medication after the refresh
+        for (long id = 1; id <= 12; id++) {
+            addPatient(id, id / 10.0, "Insulin");
+        }
+        retriever.refreshCaseMatrix();
+        for (long id = 2; id <= 8; id++) {
+            graph.get(id).medications.clear();
+        }
+
+        // When
+        List<Map<String, Object>> cases = retriever.findSimilarCases(CONDITION, PROCEDURE, 2);
+
+        // Then
+        assertEquals(List.of(1L, 9L), patientIds(cases));
+        assertTrue(queries.contains(SimilarCaseRetriever.GRAPH_ONLY_QUERY));
+    }
+
+    @Test
+    void testFindSimilarCases_CachedUntilRefresh() {
+        // Given
+        addPatient(1L, 0.3, "Insulin");
+        addPatient(2L, 0.1, "Insulin");
+        retriever.findSimilarCases(CONDITION, PROCEDURE, 2);
+        queries.clear();
+
+        // When
+        List<Map<String, Object>> cached = retriever.findSimilarCases(CONDITION, PROCEDURE, 1);
+        retriever.refreshCaseMatrix();
+        retriever.findSimilarCases(CONDITION, PROCEDURE, 1);
+
+        // Then
+        assertEquals(List.of(2L), patientIds(cached));
+        assertEquals(List.of(SimilarCaseRetriever.CASE_FEATURES_QUERY, SimilarCaseRetriever.EXPAND_CANDIDATES_QUERY),
+                queries);
+    }
+
+    private void addPatient(long id, double riskScore, String... medications) {
+        graph.put(id, new Patient(id, List.of(CONDITION), riskScore, new ArrayList<>(List.of(medications))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Neo4jClient.UnboundRunnableSpec spec(String cypher) {
+        Neo4jClient.UnboundRunnableSpec unbound = mock(Neo4jClient.UnboundRunnableSpec.class);
+        when(unbound.bindAll(anyMap())).thenAnswer(bind -> {
+            Map<String, Object> params = bind.getArgument(0);
+            Neo4jClient.RecordFetchSpec<Map<String, Object>> fetch = mock(Neo4jClient.RecordFetchSpec.class);
+            when(fetch.all()).thenAnswer(all -> {
+                queries.add(cypher);
+                return run(cypher, params);
+            });
+            Neo4jClient.RunnableSpec bound = mock(Neo4jClient.RunnableSpec.class);
+            when(bound.fetch()).thenReturn(fetch);
+            return bound;
+        });
+        return unbound;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> run(String cypher, Map<String, Object> params) {
+        if (cypher.equals(SimilarCaseRetriever.CASE_FEATURES_QUERY)) {
+            long after = (Long) params.get("after");
+            return graph.values().stream()
+                    .filter(patient -> patient.id > after)
+                    .limit((Integer) params.get("batchSize"))
+                    .map(patient -> Map.<String, Object>of(
+                            "patientId", patient.id,
+                            "conditions", patient.conditions,
+                            "procedures", List.of(Map.of("type", PROCEDURE, "riskScore", patient.riskScore)),
+                            "medications", List.copyOf(patient.medications)))
+                    .toList();
+        }
+        int limit = (Integer) params.get("limit");
+        if (cypher.equals(SimilarCaseRetriever.EXPAND_CANDIDATES_QUERY)) {
+            return matching(((List<Long>) params.get("patientIds")).stream().map(graph::get).toList(), limit);
+        }
+        if (cypher.equals(SimilarCaseRetriever.GRAPH_ONLY_QUERY)) {
+            return graphOnly(limit);
+        }
+        throw new IllegalArgumentException("Unexpected query: " + cypher);
+    }
+
+    private List<Map<String, Object>> graphOnly(int limit) {
+        return matching(List.copyOf(graph.values()), limit);
+    }
+
+    private static List<Map<String, Object>> matching(List<Patient> patients, int limit) {
+        return patients.stream()
+                .filter(patient -> patient.conditions.contains(CONDITION) && !patient.medications.isEmpty())
+                .sorted(Comparator.comparingDouble(patient -> patient.riskScore))
+                .limit(limit)
+                .map(patient -> Map.<String, Object>of(
+                        "p", patient.id,
+                        "conditions", patient.conditions,
+                        "medications", List.copyOf(patient.medications),
+                        "outcome", "SUCCESS",
+                        "riskScore", patient.riskScore))
+                .toList();
+    }
+
+    private static List<Object> patientIds(List<Map<String, Object>> cases) {
+        return cases.stream().map(row -> row.get("p")).toList();
+    }
+}
@@ -68,6 +68,12 @@ public class KafkaStreamsConfig {
         branches[1].to("iot-warning-alerts", Produced.with(Serdes.String(), new JsonSerde<>(Map.class)));
         branches[2].to("iot-processed-data", Produced.with(Serdes.String(), new JsonSerde<>(Map.class)));
 
+        // Every reading of a reservation, keyed by it, so a consumer that keeps
+        // per-reservation state sees all of them on one partition and in order
+        processed.filter((key, value) -> value.get("reservationId") != null)
+            .selectKey((key, value) -> value.get("reservationId").toString())
+            .to("iot-vital-signs", Produced.with(Serdes.String(), new JsonSerde<>(Map.class)));
+
         // Aggregate data by user for time windows
         KGroupedStream<String, Map<String, Object>> grouped = processed.groupBy(
             (key, value) -> value.get("userId").toString(),
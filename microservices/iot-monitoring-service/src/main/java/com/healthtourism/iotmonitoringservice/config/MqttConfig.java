@@ -56,7 +56,10 @@ public class MqttConfig {
             new MqttPahoMessageDrivenChannelAdapter(mqttClientId + "-inbound", 
                 mqttClientFactory(), "iot/patient/+/data", "iot/device/+/status");
         adapter.setCompletionTimeout(5000);
-        adapter.setConverter(new DefaultPahoMessageConverter());
+        // Hand raw bytes to the handler; it parses them without building a String
+        DefaultPahoMessageConverter converter = new DefaultPahoMessageConverter();
+        converter.setPayloadAsBytes(true);
+        adapter.setConverter(converter);
         adapter.setQos(1);
         adapter.setOutputChannel(mqttInputChannel());
         return adapter;
@@ -0,0 +1,252 @@
+package com.healthtourism.iotmonitoringservice.ingest;
+
+import com.healthtourism.iotmonitoringservice.entity.PatientMonitoringData;
+import com.healthtourism.iotmonitoringservice.repository.PatientMonitoringDataBatchWriter;
+import com.healthtourism.iotmonitoringservice.repository.PatientMonitoringDataRepository;
+import com.healthtourism.iotmonitoringservice.service.AlertService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous, batched persistence for MQTT telemetry.
+ *
+ * The MQTT inbound thread only parses, evaluates alert rules and enqueues.
+ * A single writer thread drains the bounded queue into JDBC batches, flushing
+ * when {@code batch-size} rows are collected or {@code flush-interval-ms} has
+ * passed since the first row of the batch.
+ *
+ * Backpressure: when the queue is full the caller waits up to
+ * {@code offer-timeout-ms}, then writes the reading itself. That slows the
+ * MQTT client (and therefore the broker's delivery) instead of dropping data.
+ *
+ * Readings that alert are handed to {@link AlertService} immediately on a
+ * separate executor, so a doctor is not notified later because of batching.
+ * The alert task notifies from its own copy of the reading and only then
+ * queues the row, with alertSentAt set if delivery succeeded, so no entity is
+ * shared between the alert and writer threads.
+ */
+@Component
+public class TelemetryIngestionPipeline implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(TelemetryIngestionPipeline.class);
+
+    private final PatientMonitoringDataBatchWriter batchWriter;
+    private final PatientMonitoringDataRepository monitoringRepository;
+    private final AlertService alertService;
+    private final MeterRegistry meterRegistry;
+    private final VitalSignRules vitalSignRules = VitalSignRules.defaults();
+
+    @Value("${iot.ingest.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${iot.ingest.batch-size:200}")
+    private int batchSize;
+
+    @Value("${iot.ingest.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${iot.ingest.offer-timeout-ms:500}")
+    private long offerTimeoutMs;
+
+    @Value("${iot.ingest.alert-threads:2}")
+    private int alertThreads;
+
+    private BlockingQueue<Pending> queue;
+    private ExecutorService alertExecutor;
+    private Thread writer;
+    private volatile boolean running;
+
+    private DistributionSummary batchSizeSummary;
+    private Timer lagTimer;
+    private Counter inlineWrites;
+    private Counter failedRows;
+    private Counter failedAlerts;
+
+    public TelemetryIngestionPipeline(PatientMonitoringDataBatchWriter batchWriter,
+                                      PatientMonitoringDataRepository monitoringRepository,
+                                      AlertService alertService,
+                                      MeterRegistry meterRegistry) {
+        this.batchWriter = batchWriter;
+        this.monitoringRepository = monitoringRepository;
+        this.alertService = alertService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        // Alert delivery is HTTP; if it falls behind (or is shutting down), the MQTT thread
+        // sends the alert itself. Never discard: the task also carries the row to persist.
+        alertExecutor = new ThreadPoolExecutor(alertThreads, alertThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(1000), daemon("iot-alert"), (task, executor) -> task.run());
+
+        Gauge.builder("iot.ingest.queue.depth", queue, BlockingQueue::size)
+                .description("Telemetry readings waiting to be persisted")
+                .register(meterRegistry);
+        batchSizeSummary = DistributionSummary.builder("iot.ingest.batch.size")
+                .description("Rows per JDBC batch insert")
+                .register(meterRegistry);
+        lagTimer = Timer.builder("iot.ingest.lag")
+                .description("Time from MQTT receipt to committed insert")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        inlineWrites = Counter.builder("iot.ingest.inline.writes")
+                .description("Readings written on the caller thread because the queue was full")
+                .register(meterRegistry);
+        failedRows = Counter.builder("iot.ingest.failures")
+                .description("Readings that could not be persisted")
+                .register(meterRegistry);
+        failedAlerts = Counter.builder("iot.ingest.alert.failures")
+                .description("Alerts the notification service did not accept")
+                .register(meterRegistry);
+
+        running = true;
+        writer = daemon("iot-ingest-writer").newThread(this::drainLoop);
+        writer.start();
+    }
+
+    /**
+     * Accept a reading from the MQTT thread. Returns once the reading is queued
+     * (or written inline under backpressure); alerting readings are queued by
+     * the alert task after delivery.
+     */
+    public void submit(VitalSignReading reading) {
+        long receivedAt = System.nanoTime();
+        String alertStatus = vitalSignRules.evaluate(reading);
+        LocalDateTime recordedAt = LocalDateTime.now();
+        PatientMonitoringData data = reading.toEntity(alertStatus, recordedAt);
+
+        if (VitalSignRules.isAlert(alertStatus)) {
+            PatientMonitoringData alert = reading.toEntity(alertStatus, recordedAt);
+            alertExecutor.execute(() -> {
+                if (alertService.sendAlert(alert)) {
+                    data.setAlertSentAt(LocalDateTime.now());
+                } else {
+                    failedAlerts.increment();
+                }
+                // The row is only handed to the writer once the alert thread is done with it
+                enqueue(new Pending(data, receivedAt));
+            });
+            return;
+        }
+        enqueue(new Pending(data, receivedAt));
+    }
+
+    private void enqueue(Pending pending) {
+        try {
+            if (running && queue.offer(pending, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        inlineWrites.increment();
+        write(List.of(pending));
+    }
+
+    private void drainLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Shutdown: flush whatever is left below
+                queue.drainTo(batch);
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        List<PatientMonitoringData> rows = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            rows.add(pending.data);
+        }
+        try {
+            batchWriter.insertAll(rows);
+        } catch (Exception e) {
+            // One bad row fails the whole batch; retry individually so the rest still land
+            log.warn("Batch insert of {} telemetry rows failed, retrying row by row: {}", rows.size(), e.getMessage());
+            for (PatientMonitoringData row : rows) {
+                try {
+                    monitoringRepository.save(row);
+                } catch (Exception rowError) {
+                    failedRows.increment();
+                    log.error("Dropping telemetry row for user {}: {}", row.getUserId(), rowError.getMessage());
+                }
+            }
+        }
+        batchSizeSummary.record(rows.size());
+        long now = System.nanoTime();
+        for (Pending pending : batch) {
+            lagTimer.record(now - pending.receivedAtNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        // Alert tasks queue their rows when done, so let them finish before the writer stops
+        if (alertExecutor != null) {
+            alertExecutor.shutdown();
+            alertExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        running = false;
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record Pending(PatientMonitoringData data, long receivedAtNanos) {
+    }
+}
@@ -0,0 +1,51 @@
+package com.healthtourism.iotmonitoringservice.ingest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Numeric measurements a wearable can report, with their JSON field names.
+ * The ordinal is the index into {@link VitalSignReading} value arrays and
+ * {@link VitalSignRules} threshold tables.
+ */
+public enum Vital {
+    HEART_RATE("heartRate"),
+    BLOOD_PRESSURE_SYSTOLIC("bloodPressureSystolic"),
+    BLOOD_PRESSURE_DIASTOLIC("bloodPressureDiastolic"),
+    BODY_TEMPERATURE("bodyTemperature"),
+    OXYGEN_SATURATION("oxygenSaturation"),
+    RESPIRATORY_RATE("respiratoryRate"),
+    STEPS("steps"),
+    DISTANCE_KM("distanceKm"),
+    CALORIES_BURNED("caloriesBurned"),
+    SLEEP_HOURS("sleepHours"),
+    PAIN_LEVEL("painLevel");
+
+    static final Vital[] VALUES = values();
+    public static final int COUNT = VALUES.length;
+
+    private static final Map<String, Vital> BY_FIELD = new HashMap<>();
+
+    static {
+        for (Vital vital : VALUES) {
+            BY_FIELD.put(vital.field, vital);
+        }
+    }
+
+    private final String field;
+
+    Vital(String field) {
+        this.field = field;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    /**
+     * @return the vital for a JSON field name, or null if it is not a numeric vital
+     */
+    public static Vital fromField(String field) {
+        return BY_FIELD.get(field);
+    }
+}
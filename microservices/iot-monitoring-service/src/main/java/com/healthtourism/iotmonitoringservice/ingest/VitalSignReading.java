@@ -0,0 +1,188 @@
+package com.healthtourism.iotmonitoringservice.ingest;
+
+import com.healthtourism.iotmonitoringservice.entity.PatientMonitoringData;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A single device reading with vitals held as primitives.
+ *
+ * Values are indexed by {@link Vital#ordinal()}; a missing measurement is NaN.
+ * BigDecimal conversion only happens once, when the reading is turned into an
+ * entity for persistence.
+ */
+public final class VitalSignReading {
+
+    private final double[] values = new double[Vital.COUNT];
+
+    private Long userId;
+    private Long reservationId;
+    private Long doctorId;
+    private String deviceType = "UNKNOWN";
+    private String deviceId = "";
+    private String sleepQuality;
+    private String symptoms;
+    private String notes;
+
+    public VitalSignReading() {
+        Arrays.fill(values, Double.NaN);
+    }
+
+    /**
+     * Build a reading from the loosely typed map used by the REST endpoint.
+     */
+    public static VitalSignReading fromMap(Long userId, Long reservationId, Long doctorId,
+                                           String deviceType, String deviceId, Map<String, Object> data) {
+        VitalSignReading reading = new VitalSignReading();
+        reading.userId = userId;
+        reading.reservationId = reservationId;
+        reading.doctorId = doctorId;
+        reading.deviceType = deviceType;
+        reading.deviceId = deviceId;
+        if (data != null) {
+            for (Map.Entry<String, Object> entry : data.entrySet()) {
+                Vital vital = Vital.fromField(entry.getKey());
+                if (vital != null && entry.getValue() != null) {
+                    Object value = entry.getValue();
+                    reading.set(vital, value instanceof Number
+                            ? ((Number) value).doubleValue()
+                            : Double.parseDouble(value.toString()));
+                }
+            }
+            if (data.containsKey("sleepQuality")) {
+                reading.sleepQuality = data.get("sleepQuality").toString();
+            }
+            if (data.containsKey("symptoms")) {
+                reading.symptoms = data.get("symptoms").toString();
+            }
+            if (data.containsKey("notes")) {
+                reading.notes = data.get("notes").toString();
+            }
+        }
+        return reading;
+    }
+
+    public double get(Vital vital) {
+        return values[vital.ordinal()];
+    }
+
+    public boolean has(Vital vital) {
+        return !Double.isNaN(values[vital.ordinal()]);
+    }
+
+    public void set(Vital vital, double value) {
+        values[vital.ordinal()] = value;
+    }
+
+    double valueAt(int index) {
+        return values[index];
+    }
+
+    /**
+     * Readings persisted without these ids are dropped (columns are NOT NULL).
+     */
+    public boolean isComplete() {
+        return userId != null && reservationId != null && doctorId != null;
+    }
+
+    /**
+     * Map to the JPA entity. Only present vitals are set.
+     */
+    public PatientMonitoringData toEntity(String alertStatus, LocalDateTime recordedAt) {
+        PatientMonitoringData data = new PatientMonitoringData();
+        data.setUserId(userId);
+        data.setReservationId(reservationId);
+        data.setDoctorId(doctorId);
+        data.setDeviceType(deviceType);
+        data.setDeviceId(deviceId);
+        data.setHeartRate(decimal(Vital.HEART_RATE));
+        data.setBloodPressureSystolic(decimal(Vital.BLOOD_PRESSURE_SYSTOLIC));
+        data.setBloodPressureDiastolic(decimal(Vital.BLOOD_PRESSURE_DIASTOLIC));
+        data.setBodyTemperature(decimal(Vital.BODY_TEMPERATURE));
+        data.setOxygenSaturation(decimal(Vital.OXYGEN_SATURATION));
+        data.setRespiratoryRate(decimal(Vital.RESPIRATORY_RATE));
+        data.setSteps(decimal(Vital.STEPS));
+        data.setDistanceKm(decimal(Vital.DISTANCE_KM));
+        data.setCaloriesBurned(decimal(Vital.CALORIES_BURNED));
+        data.setSleepHours(decimal(Vital.SLEEP_HOURS));
+        data.setPainLevel(decimal(Vital.PAIN_LEVEL));
+        data.setSleepQuality(sleepQuality);
+        data.setSymptoms(symptoms);
+        data.setNotes(notes);
+        data.setAlertStatus(alertStatus);
+        data.setRecordedAt(recordedAt);
+        return data;
+    }
+
+    private BigDecimal decimal(Vital vital) {
+        double value = values[vital.ordinal()];
+        return Double.isNaN(value) ? null : BigDecimal.valueOf(value);
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getReservationId() {
+        return reservationId;
+    }
+
+    public void setReservationId(Long reservationId) {
+        this.reservationId = reservationId;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public void setDoctorId(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public String getDeviceType() {
+        return deviceType;
+    }
+
+    public void setDeviceType(String deviceType) {
+        this.deviceType = deviceType;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(String deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    public String getSleepQuality() {
+        return sleepQuality;
+    }
+
+    public void setSleepQuality(String sleepQuality) {
+        this.sleepQuality = sleepQuality;
+    }
+
+    public String getSymptoms() {
+        return symptoms;
+    }
+
+    public void setSymptoms(String symptoms) {
+        this.symptoms = symptoms;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    public void setNotes(String notes) {
+        this.notes = notes;
+    }
+}
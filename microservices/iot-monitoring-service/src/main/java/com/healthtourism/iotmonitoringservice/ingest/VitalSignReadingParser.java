@@ -0,0 +1,108 @@
+package com.healthtourism.iotmonitoringservice.ingest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Streams an MQTT patient payload straight into a {@link VitalSignReading}.
+ *
+ * Expected shape:
+ * {"reservationId":1,"doctorId":2,"deviceType":"APPLE_WATCH","deviceId":"...",
+ *  "data":{"heartRate":72,"oxygenSaturation":98.5,...}}
+ *
+ * Numeric vitals are read with {@link JsonParser#getDoubleValue()} so no Map,
+ * boxed numbers or BigDecimals are created; field names come from Jackson's
+ * canonicalized symbol table.
+ */
+@Component
+public class VitalSignReadingParser {
+
+    private final JsonFactory jsonFactory;
+    private final ObjectMapper objectMapper;
+
+    public VitalSignReadingParser(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    public VitalSignReading parse(Long userId, byte[] payload) throws IOException {
+        VitalSignReading reading = new VitalSignReading();
+        reading.setUserId(userId);
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("MQTT payload is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                switch (field) {
+                    case "reservationId" -> reading.setReservationId(longValue(parser, token));
+                    case "doctorId" -> reading.setDoctorId(longValue(parser, token));
+                    case "deviceType" -> reading.setDeviceType(parser.getText());
+                    case "deviceId" -> reading.setDeviceId(parser.getText());
+                    case "data" -> parseData(parser, token, reading);
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return reading;
+    }
+
+    private void parseData(JsonParser parser, JsonToken token, VitalSignReading reading) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            Vital vital = Vital.fromField(field);
+            if (vital != null) {
+                reading.set(vital, doubleValue(parser, value));
+                continue;
+            }
+            switch (field) {
+                case "sleepQuality" -> reading.setSleepQuality(text(parser, value));
+                case "symptoms" -> reading.setSymptoms(text(parser, value));
+                case "notes" -> reading.setNotes(text(parser, value));
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private static double doubleValue(JsonParser parser, JsonToken token) throws IOException {
+        if (token.isNumeric()) {
+            return parser.getDoubleValue();
+        }
+        // Some devices send numbers as strings, which the Map-based path accepted too
+        return Double.parseDouble(parser.getText().trim());
+    }
+
+    private static Long longValue(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getLongValue();
+        }
+        return Long.valueOf(parser.getText().trim());
+    }
+
+    /**
+     * Scalars are stored as text; structured values (e.g. a symptoms object) are kept as JSON.
+     */
+    private String text(JsonParser parser, JsonToken token) throws IOException {
+        if (token.isStructStart()) {
+            return objectMapper.readTree(parser).toString();
+        }
+        return parser.getText();
+    }
+}
@@ -0,0 +1,103 @@
+package com.healthtourism.iotmonitoringservice.ingest;
+
+import java.util.Arrays;
+
+/**
+ * Alert thresholds compiled into primitive tables indexed by {@link Vital#ordinal()}.
+ *
+ * A value outside [criticalLow, criticalHigh] is CRITICAL, otherwise a value
+ * outside [warningLow, warningHigh] is WARNING. Vitals without a rule keep
+ * infinite bounds and can never trigger. Instances are immutable once built.
+ */
+public final class VitalSignRules {
+
+    public static final String NORMAL = "NORMAL";
+    public static final String WARNING = "WARNING";
+    public static final String CRITICAL = "CRITICAL";
+
+    private static final VitalSignRules DEFAULTS = builder()
+            .critical(Vital.HEART_RATE, 40, 150)
+            .warning(Vital.HEART_RATE, 50, 120)
+            .critical(Vital.OXYGEN_SATURATION, 90, Double.POSITIVE_INFINITY)
+            .warning(Vital.OXYGEN_SATURATION, 95, Double.POSITIVE_INFINITY)
+            .warning(Vital.BODY_TEMPERATURE, Double.NEGATIVE_INFINITY, 38.5) // Fever
+            .warning(Vital.PAIN_LEVEL, Double.NEGATIVE_INFINITY, 7) // Severe pain
+            .build();
+
+    private final double[] criticalLow;
+    private final double[] criticalHigh;
+    private final double[] warningLow;
+    private final double[] warningHigh;
+
+    private VitalSignRules(Builder builder) {
+        this.criticalLow = builder.criticalLow.clone();
+        this.criticalHigh = builder.criticalHigh.clone();
+        this.warningLow = builder.warningLow.clone();
+        this.warningHigh = builder.warningHigh.clone();
+    }
+
+    /**
+     * The clinical thresholds used for post-treatment monitoring.
+     */
+    public static VitalSignRules defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Evaluate a reading. The most severe status across all vitals wins;
+     * absent (NaN) vitals are skipped because every comparison with NaN is false.
+     */
+    public String evaluate(VitalSignReading reading) {
+        boolean warning = false;
+        for (int i = 0; i < Vital.COUNT; i++) {
+            double value = reading.valueAt(i);
+            if (value < criticalLow[i] || value > criticalHigh[i]) {
+                return CRITICAL;
+            }
+            if (value < warningLow[i] || value > warningHigh[i]) {
+                warning = true;
+            }
+        }
+        return warning ? WARNING : NORMAL;
+    }
+
+    public static boolean isAlert(String alertStatus) {
+        return CRITICAL.equals(alertStatus) || WARNING.equals(alertStatus);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private final double[] criticalLow = filled(Double.NEGATIVE_INFINITY);
+        private final double[] criticalHigh = filled(Double.POSITIVE_INFINITY);
+        private final double[] warningLow = filled(Double.NEGATIVE_INFINITY);
+        private final double[] warningHigh = filled(Double.POSITIVE_INFINITY);
+
+        private Builder() {
+        }
+
+        public Builder critical(Vital vital, double low, double high) {
+            criticalLow[vital.ordinal()] = low;
+            criticalHigh[vital.ordinal()] = high;
+            return this;
+        }
+
+        public Builder warning(Vital vital, double low, double high) {
+            warningLow[vital.ordinal()] = low;
+            warningHigh[vital.ordinal()] = high;
+            return this;
+        }
+
+        public VitalSignRules build() {
+            return new VitalSignRules(this);
+        }
+
+        private static double[] filled(double value) {
+            double[] table = new double[Vital.COUNT];
+            Arrays.fill(table, value);
+            return table;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.healthtourism.iotmonitoringservice.repository;
+
+import com.healthtourism.iotmonitoringservice.entity.PatientMonitoringData;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JDBC batch inserts for telemetry.
+ *
+ * The entity uses IDENTITY ids, which makes Hibernate insert row by row; going
+ * through JdbcTemplate lets the driver send one batch per flush (with
+ * rewriteBatchedStatements=true MySQL turns it into a multi-row INSERT).
+ * Generated ids are not read back.
+ */
+@Repository
+public class PatientMonitoringDataBatchWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO patient_monitoring_data (user_id, reservation_id, doctor_id, device_type, device_id, "
+            + "heart_rate, blood_pressure_systolic, blood_pressure_diastolic, body_temperature, oxygen_saturation, "
+            + "respiratory_rate, steps, distance_km, calories_burned, sleep_hours, sleep_quality, pain_level, "
+            + "symptoms, notes, alert_status, alert_sent_at, recorded_at, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PatientMonitoringDataBatchWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional
+    public void insertAll(List<PatientMonitoringData> rows) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, data) -> {
+            ps.setLong(1, data.getUserId());
+            ps.setLong(2, data.getReservationId());
+            ps.setLong(3, data.getDoctorId());
+            ps.setString(4, data.getDeviceType());
+            ps.setString(5, data.getDeviceId());
+            setDecimal(ps, 6, data.getHeartRate());
+            setDecimal(ps, 7, data.getBloodPressureSystolic());
+            setDecimal(ps, 8, data.getBloodPressureDiastolic());
+            setDecimal(ps, 9, data.getBodyTemperature());
+            setDecimal(ps, 10, data.getOxygenSaturation());
+            setDecimal(ps, 11, data.getRespiratoryRate());
+            setDecimal(ps, 12, data.getSteps());
+            setDecimal(ps, 13, data.getDistanceKm());
+            setDecimal(ps, 14, data.getCaloriesBurned());
+            setDecimal(ps, 15, data.getSleepHours());
+            ps.setString(16, data.getSleepQuality());
+            setDecimal(ps, 17, data.getPainLevel());
+            ps.setString(18, data.getSymptoms());
+            ps.setString(19, data.getNotes());
+            ps.setString(20, data.getAlertStatus() != null ? data.getAlertStatus() : "NORMAL");
+            setTimestamp(ps, 21, data.getAlertSentAt());
+            setTimestamp(ps, 22, data.getRecordedAt() != null ? data.getRecordedAt() : now);
+            setTimestamp(ps, 23, now);
+        });
+    }
+
+    private static void setDecimal(PreparedStatement ps, int index, BigDecimal value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.DECIMAL);
+        } else {
+            ps.setBigDecimal(index, value);
+        }
+    }
+
+    private static void setTimestamp(PreparedStatement ps, int index, LocalDateTime value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.TIMESTAMP);
+        } else {
+            ps.setTimestamp(index, Timestamp.valueOf(value));
+        }
+    }
+}
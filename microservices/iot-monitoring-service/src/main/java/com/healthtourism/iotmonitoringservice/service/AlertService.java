@@ -31,7 +31,12 @@ public class AlertService {
         return restTemplate;
     }
     
-    public void sendAlert(PatientMonitoringData data) {
+    /**
+     * Notify the doctor about an alerting reading.
+     * 
+     * @return true if the notification service accepted the alert
+     */
+    public boolean sendAlert(PatientMonitoringData data) {
         try {
             // Create alert notification
             Map<String, Object> notification = new HashMap<>();
@@ -48,9 +53,11 @@ public class AlertService {
             HttpEntity<Map<String, Object>> request = new HttpEntity<>(notification, headers);
             String url = notificationServiceUrl + "/api/notifications";
             getRestTemplate().postForObject(url, request, Map.class);
+            return true;
             
         } catch (Exception e) {
             System.err.println("Failed to send alert: " + e.getMessage());
+            return false;
         }
     }
     
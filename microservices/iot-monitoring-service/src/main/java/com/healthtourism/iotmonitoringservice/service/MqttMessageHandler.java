@@ -1,11 +1,17 @@
 package com.healthtourism.iotmonitoringservice.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthtourism.iotmonitoringservice.ingest.TelemetryIngestionPipeline;
+import com.healthtourism.iotmonitoringservice.ingest.VitalSignReading;
+import com.healthtourism.iotmonitoringservice.ingest.VitalSignReadingParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.integration.annotation.ServiceActivator;
 import org.springframework.messaging.Message;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 /**
@@ -15,17 +21,22 @@ import java.util.Map;
 @Service
 public class MqttMessageHandler {
 
+    private static final Logger log = LoggerFactory.getLogger(MqttMessageHandler.class);
+
     @Autowired
-    private IoTMonitoringService ioTMonitoringService;
+    private TelemetryIngestionPipeline ingestionPipeline;
 
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private VitalSignReadingParser readingParser;
+
     @ServiceActivator(inputChannel = "mqttInputChannel")
     public void handleMqttMessage(Message<?> message) {
         try {
             String topic = (String) message.getHeaders().get("mqtt_receivedTopic");
-            String payload = message.getPayload().toString();
+            byte[] payload = payloadBytes(message.getPayload());
             
             // Parse MQTT topic to extract device/user info
             // Format: iot/patient/{userId}/data or iot/device/{deviceId}/status
@@ -34,10 +45,9 @@ public class MqttMessageHandler {
             if (topicParts.length >= 4 && "patient".equals(topicParts[1]) && "data".equals(topicParts[3])) {
                 // Patient monitoring data
                 Long userId = Long.parseLong(topicParts[2]);
-                Map<String, Object> data = objectMapper.readValue(payload, Map.class);
                 
                 // Process monitoring data
-                processPatientData(userId, data);
+                processPatientData(userId, payload);
             } else if (topicParts.length >= 4 && "device".equals(topicParts[1]) && "status".equals(topicParts[3])) {
                 // Device status update
                 String deviceId = topicParts[2];
@@ -47,41 +57,33 @@ public class MqttMessageHandler {
                 processDeviceStatus(deviceId, status);
             }
         } catch (Exception e) {
-            System.err.println("Error processing MQTT message: " + e.getMessage());
+            log.error("Error processing MQTT message: {}", e.getMessage(), e);
         }
     }
 
-    private void processPatientData(Long userId, Map<String, Object> data) {
+    private void processPatientData(Long userId, byte[] payload) {
         try {
-            Long reservationId = data.containsKey("reservationId") ? 
-                Long.valueOf(data.get("reservationId").toString()) : null;
-            Long doctorId = data.containsKey("doctorId") ? 
-                Long.valueOf(data.get("doctorId").toString()) : null;
-            String deviceType = data.getOrDefault("deviceType", "UNKNOWN").toString();
-            String deviceId = data.getOrDefault("deviceId", "").toString();
-            
-            @SuppressWarnings("unchecked")
-            Map<String, Object> monitoringData = (Map<String, Object>) data.get("data");
+            // Streamed straight into primitives, no intermediate Map
+            VitalSignReading reading = readingParser.parse(userId, payload);
             
-            if (reservationId != null && doctorId != null) {
-                ioTMonitoringService.recordMonitoringData(
-                    userId, reservationId, doctorId, deviceType, deviceId, monitoringData);
+            if (reading.isComplete()) {
+                // Queued for batched persistence; alerts are dispatched immediately
+                ingestionPipeline.submit(reading);
             }
         } catch (Exception e) {
-            System.err.println("Error processing patient data: " + e.getMessage());
+            log.error("Error processing patient data for user {}: {}", userId, e.getMessage(), e);
         }
     }
 
+    private static byte[] payloadBytes(Object payload) {
+        if (payload instanceof byte[] bytes) {
+            return bytes;
+        }
+        return payload.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
     private void processDeviceStatus(String deviceId, Map<String, Object> status) {
         // Handle device status updates (online/offline, battery level, etc.)
-        System.out.println("Device " + deviceId + " status: " + status);
+        log.debug("Device {} status: {}", deviceId, status);
     }
 }
-
-
-
-
-
-
-
-
@@ -0,0 +1,131 @@
+package com.healthtourism.iotmonitoringservice.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthtourism.iotmonitoringservice.ingest.VitalSignReading;
+import com.healthtourism.iotmonitoringservice.ingest.VitalSignReadingParser;
+import com.healthtourism.iotmonitoringservice.ingest.VitalSignRules;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning one MQTT vital-sign payload into an alert status: the
+ * Map-based path (JSON to Map, BigDecimal per vital, BigDecimal threshold
+ * checks) against streaming into a primitive reading and the rule table.
+ *
+ * Persistence is excluded; both paths end at the alert status.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.healthtourism.iotmonitoringservice.benchmark.VitalSignIngestionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VitalSignIngestionBenchmark {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+    private static final BigDecimal HR_CRITICAL_LOW = new BigDecimal("40");
+    private static final BigDecimal HR_CRITICAL_HIGH = new BigDecimal("150");
+    private static final BigDecimal HR_WARNING_LOW = new BigDecimal("50");
+    private static final BigDecimal HR_WARNING_HIGH = new BigDecimal("120");
+    private static final BigDecimal SPO2_CRITICAL = new BigDecimal("90");
+    private static final BigDecimal SPO2_WARNING = new BigDecimal("95");
+    private static final BigDecimal FEVER = new BigDecimal("38.5");
+    private static final BigDecimal SEVERE_PAIN = new BigDecimal("7");
+
+    private ObjectMapper objectMapper;
+    private VitalSignReadingParser parser;
+    private VitalSignRules rules;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        parser = new VitalSignReadingParser(objectMapper);
+        rules = VitalSignRules.defaults();
+        payload = ("{\"reservationId\":1042,\"doctorId\":17,\"deviceType\":\"APPLE_WATCH\",\"deviceId\":\"aw-7f3c\","
+                + "\"data\":{\"heartRate\":88,\"bloodPressureSystolic\":128,\"bloodPressureDiastolic\":84,"
+                + "\"bodyTemperature\":37.2,\"oxygenSaturation\":96.5,\"respiratoryRate\":16,"
+                + "\"steps\":5230,\"distanceKm\":3.8,\"caloriesBurned\":240.5,\"sleepHours\":6.5,"
+                + "\"sleepQuality\":\"FAIR\",\"painLevel\":3}}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public String mapAndBigDecimal() throws IOException {
+        Map<String, Object> message = objectMapper.readValue(payload, MAP_TYPE);
+        Map<String, Object> data = (Map<String, Object>) message.get("data");
+        BigDecimal heartRate = decimal(data, "heartRate");
+        decimal(data, "bloodPressureSystolic");
+        decimal(data, "bloodPressureDiastolic");
+        BigDecimal temperature = decimal(data, "bodyTemperature");
+        BigDecimal oxygen = decimal(data, "oxygenSaturation");
+        decimal(data, "respiratoryRate");
+        decimal(data, "steps");
+        decimal(data, "distanceKm");
+        decimal(data, "caloriesBurned");
+        decimal(data, "sleepHours");
+        BigDecimal pain = decimal(data, "painLevel");
+
+        if (heartRate != null) {
+            if (heartRate.compareTo(HR_CRITICAL_LOW) < 0 || heartRate.compareTo(HR_CRITICAL_HIGH) > 0) {
+                return VitalSignRules.CRITICAL;
+            }
+            if (heartRate.compareTo(HR_WARNING_LOW) < 0 || heartRate.compareTo(HR_WARNING_HIGH) > 0) {
+                return VitalSignRules.WARNING;
+            }
+        }
+        if (oxygen != null) {
+            if (oxygen.compareTo(SPO2_CRITICAL) < 0) {
+                return VitalSignRules.CRITICAL;
+            }
+            if (oxygen.compareTo(SPO2_WARNING) < 0) {
+                return VitalSignRules.WARNING;
+            }
+        }
+        if (temperature != null && temperature.compareTo(FEVER) > 0) {
+            return VitalSignRules.WARNING;
+        }
+        if (pain != null && pain.compareTo(SEVERE_PAIN) > 0) {
+            return VitalSignRules.WARNING;
+        }
+        return VitalSignRules.NORMAL;
+    }
+
+    @Benchmark
+    public String streamedPrimitives() throws IOException {
+        VitalSignReading reading = parser.parse(5L, payload);
+        return rules.evaluate(reading);
+    }
+
+    private static BigDecimal decimal(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        return value != null ? new BigDecimal(value.toString()) : null;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VitalSignIngestionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
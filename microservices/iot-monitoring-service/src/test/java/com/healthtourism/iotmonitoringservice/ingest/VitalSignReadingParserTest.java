@@ -0,0 +1,81 @@
+package com.healthtourism.iotmonitoringservice.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VitalSignReadingParserTest {
+
+    private final VitalSignReadingParser parser = new VitalSignReadingParser(new ObjectMapper());
+
+    @Test
+    void testParse_ReadsIdsVitalsAndText() throws IOException {
+        // Given
+        String payload = """
+                {"reservationId":7,"doctorId":3,"deviceType":"APPLE_WATCH","deviceId":"aw-1",
+                 "data":{"heartRate":72,"oxygenSaturation":98.5,"sleepQuality":"GOOD","notes":"ok"}}
+                """;
+
+        // When
+        VitalSignReading reading = parser.parse(11L, bytes(payload));
+
+        // Then
+        assertEquals(11L, reading.getUserId());
+        assertEquals(7L, reading.getReservationId());
+        assertEquals(3L, reading.getDoctorId());
+        assertEquals("APPLE_WATCH", reading.getDeviceType());
+        assertEquals("aw-1", reading.getDeviceId());
+        assertEquals(72.0, reading.get(Vital.HEART_RATE));
+        assertEquals(98.5, reading.get(Vital.OXYGEN_SATURATION));
+        assertFalse(reading.has(Vital.BODY_TEMPERATURE));
+        assertEquals("GOOD", reading.getSleepQuality());
+        assertEquals("ok", reading.getNotes());
+        assertTrue(reading.isComplete());
+    }
+
+    @Test
+    void testParse_AcceptsNumbersSentAsStrings() throws IOException {
+        // Given
+        String payload = "{\"reservationId\":\"7\",\"doctorId\":3,\"data\":{\"bodyTemperature\":\" 38.9 \"}}";
+
+        // When
+        VitalSignReading reading = parser.parse(1L, bytes(payload));
+
+        // Then
+        assertEquals(7L, reading.getReservationId());
+        assertEquals(38.9, reading.get(Vital.BODY_TEMPERATURE));
+    }
+
+    @Test
+    void testParse_KeepsStructuredSymptomsAsJsonAndSkipsUnknownFields() throws IOException {
+        // Given
+        String payload = """
+                {"reservationId":7,"doctorId":3,"firmware":{"version":"1.2"},
+                 "data":{"symptoms":{"nausea":true},"heartRate":null,"battery":[80,79]}}
+                """;
+
+        // When
+        VitalSignReading reading = parser.parse(1L, bytes(payload));
+
+        // Then
+        assertEquals("{\"nausea\":true}", reading.getSymptoms());
+        assertFalse(reading.has(Vital.HEART_RATE));
+    }
+
+    @Test
+    void testParse_RejectsNonObjectPayload() {
+        // Given
+        byte[] payload = bytes("[1,2,3]");
+
+        // When / Then
+        assertThrows(IOException.class, () -> parser.parse(1L, payload));
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
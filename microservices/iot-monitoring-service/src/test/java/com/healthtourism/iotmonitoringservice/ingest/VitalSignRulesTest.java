@@ -0,0 +1,62 @@
+package com.healthtourism.iotmonitoringservice.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VitalSignRulesTest {
+
+    private final VitalSignRules rules = VitalSignRules.defaults();
+
+    @Test
+    void testEvaluate_NormalWhenWithinThresholdsOrAbsent() {
+        // Given
+        VitalSignReading reading = new VitalSignReading();
+        reading.set(Vital.HEART_RATE, 72);
+        reading.set(Vital.OXYGEN_SATURATION, 98);
+
+        // When / Then
+        assertEquals(VitalSignRules.NORMAL, rules.evaluate(reading));
+        assertEquals(VitalSignRules.NORMAL, rules.evaluate(new VitalSignReading()));
+    }
+
+    @Test
+    void testEvaluate_ThresholdBoundsAreInclusive() {
+        // Given
+        VitalSignReading reading = new VitalSignReading();
+        reading.set(Vital.HEART_RATE, 120);
+        reading.set(Vital.BODY_TEMPERATURE, 38.5);
+        reading.set(Vital.PAIN_LEVEL, 7);
+
+        // When / Then
+        assertEquals(VitalSignRules.NORMAL, rules.evaluate(reading));
+
+        reading.set(Vital.PAIN_LEVEL, 7.5);
+        assertEquals(VitalSignRules.WARNING, rules.evaluate(reading));
+    }
+
+    @Test
+    void testEvaluate_CriticalHeartRate() {
+        // Given
+        VitalSignReading reading = new VitalSignReading();
+        reading.set(Vital.HEART_RATE, 39);
+
+        // When / Then
+        assertEquals(VitalSignRules.CRITICAL, rules.evaluate(reading));
+    }
+
+    @Test
+    void testEvaluate_MostSevereStatusWins() {
+        // Given: a heart-rate warning is checked before the critical oxygen level
+        VitalSignReading reading = new VitalSignReading();
+        reading.set(Vital.HEART_RATE, 125);
+        reading.set(Vital.OXYGEN_SATURATION, 88);
+
+        // When
+        String status = rules.evaluate(reading);
+
+        // Then
+        assertEquals(VitalSignRules.CRITICAL, status);
+        assertTrue(VitalSignRules.isAlert(status));
+    }
+}
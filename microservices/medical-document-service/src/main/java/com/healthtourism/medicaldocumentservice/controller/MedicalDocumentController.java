@@ -4,10 +4,13 @@ import com.healthtourism.medicaldocumentservice.entity.MedicalDocument;
 import com.healthtourism.medicaldocumentservice.service.MedicalDocumentService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.util.List;
@@ -61,19 +64,38 @@ public class MedicalDocumentController {
     }
     
     @GetMapping("/{id}/download")
-    public ResponseEntity<byte[]> downloadDocument(@PathVariable String id) {
+    public ResponseEntity<StreamingResponseBody> downloadDocument(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader) {
         try {
-            byte[] fileContent = medicalDocumentService.downloadDocument(id);
             MedicalDocumentDTO document = medicalDocumentService.getDocumentById(id);
+            long length = medicalDocumentService.getDocumentLength(id);
             
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.parseMediaType(document.getMimeType()));
             headers.setContentDispositionFormData("attachment", document.getFileName());
+            headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
             
+            List<HttpRange> ranges = rangeHeader != null ? HttpRange.parseRanges(rangeHeader) : List.of();
+            if (ranges.size() == 1) {
+                // Only the chunks overlapping the range are decrypted
+                long start = ranges.get(0).getRangeStart(length);
+                long end = ranges.get(0).getRangeEnd(length);
+                long count = end - start + 1;
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                headers.setContentLength(count);
+                return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                    .headers(headers)
+                    .body(out -> medicalDocumentService.streamDocumentRange(id, start, count, out));
+            }
+            
+            headers.setContentLength(length);
             return ResponseEntity.ok()
                 .headers(headers)
-                .body(fileContent);
-        } catch (IOException e) {
+                .body(out -> medicalDocumentService.streamDocument(id, out));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).build();
+        } catch (IOException | RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
@@ -0,0 +1,250 @@
+package com.healthtourism.medicaldocumentservice.service;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * Chunked AES-GCM container for medical documents.
+ *
+ * Layout:
+ * <pre>
+ * header (28 bytes): magic "HTMD" | version (1) | reserved (3) | chunkSize (4) | plaintextLength (8) | noncePrefix (8)
+ * chunk 0..n-1:      ciphertext (chunkSize, last one shorter) | GCM tag (16)
+ * </pre>
+ * The nonce of chunk i is noncePrefix || i (big-endian int). The whole header is the
+ * associated data of every chunk, so chunks cannot be reordered, moved to another
+ * file or dropped without failing authentication or the length check.
+ *
+ * Memory use is one plaintext and one ciphertext chunk per operation, independent
+ * of file size, and chunk boundaries make byte-range decryption possible.
+ * Ciphers are reused per thread; instances of this class are thread-safe.
+ */
+final class ChunkedAesGcm {
+
+    static final int HEADER_LENGTH = 28;
+    static final int TAG_LENGTH = 16;
+    private static final byte[] MAGIC = {'H', 'T', 'M', 'D'};
+    private static final byte VERSION = 1;
+    private static final int NONCE_LENGTH = 12;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance("AES/GCM/NoPadding");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES/GCM not available", e);
+        }
+    });
+
+    private final SecretKey key;
+    private final int chunkSize;
+
+    ChunkedAesGcm(SecretKey key, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.key = key;
+        this.chunkSize = chunkSize;
+    }
+
+    static boolean hasMagic(byte[] prefix) {
+        if (prefix.length < MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (prefix[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encrypt exactly {@code length} bytes from {@code in} into {@code out}.
+     */
+    void encrypt(ReadableByteChannel in, long length, WritableByteChannel out) throws IOException {
+        byte[] noncePrefix = new byte[8];
+        RANDOM.nextBytes(noncePrefix);
+        Header header = new Header(chunkSize, length, noncePrefix);
+        if (header.chunkCount() > Integer.MAX_VALUE) {
+            // The chunk index is the 32-bit nonce counter
+            throw new IOException("Document too large for chunk size " + chunkSize);
+        }
+        writeFully(out, ByteBuffer.wrap(header.bytes));
+
+        ByteBuffer plain = ByteBuffer.allocate(chunkSize);
+        ByteBuffer sealed = ByteBuffer.allocate(chunkSize + TAG_LENGTH);
+        long chunks = header.chunkCount();
+        for (long index = 0; index < chunks; index++) {
+            plain.clear().limit(header.plainChunkLength(index));
+            readFully(in, plain);
+            plain.flip();
+            sealed.clear();
+            crypt(Cipher.ENCRYPT_MODE, header, index, plain, sealed);
+            sealed.flip();
+            writeFully(out, sealed);
+        }
+    }
+
+    /**
+     * Decrypt a whole container read sequentially from {@code in}.
+     */
+    void decrypt(ReadableByteChannel in, WritableByteChannel out) throws IOException {
+        Header header = readHeader(in);
+        ByteBuffer sealed = ByteBuffer.allocate(header.chunkSize + TAG_LENGTH);
+        ByteBuffer plain = ByteBuffer.allocate(header.chunkSize);
+        long chunks = header.chunkCount();
+        for (long index = 0; index < chunks; index++) {
+            sealed.clear().limit(header.plainChunkLength(index) + TAG_LENGTH);
+            readFully(in, sealed);
+            sealed.flip();
+            plain.clear();
+            crypt(Cipher.DECRYPT_MODE, header, index, sealed, plain);
+            plain.flip();
+            writeFully(out, plain);
+        }
+    }
+
+    /**
+     * Decrypt plaintext bytes [offset, offset + length) of an encrypted file,
+     * touching only the chunks that overlap the range.
+     */
+    void decryptRange(FileChannel file, long offset, long length, WritableByteChannel out) throws IOException {
+        file.position(0);
+        Header header = readHeader(file);
+        if (offset < 0 || length < 0 || offset + length > header.plaintextLength) {
+            throw new IOException("Range " + offset + "+" + length + " outside document of "
+                    + header.plaintextLength + " bytes");
+        }
+        if (length == 0) {
+            return;
+        }
+        ByteBuffer sealed = ByteBuffer.allocate(header.chunkSize + TAG_LENGTH);
+        ByteBuffer plain = ByteBuffer.allocate(header.chunkSize);
+        long first = offset / header.chunkSize;
+        long last = (offset + length - 1) / header.chunkSize;
+        long stride = (long) header.chunkSize + TAG_LENGTH;
+        for (long index = first; index <= last; index++) {
+            sealed.clear().limit(header.plainChunkLength(index) + TAG_LENGTH);
+            long position = HEADER_LENGTH + index * stride;
+            while (sealed.hasRemaining()) {
+                int read = file.read(sealed, position + sealed.position());
+                if (read < 0) {
+                    throw new EOFException("Encrypted document truncated at chunk " + index);
+                }
+            }
+            sealed.flip();
+            plain.clear();
+            crypt(Cipher.DECRYPT_MODE, header, index, sealed, plain);
+            plain.flip();
+
+            long chunkStart = index * header.chunkSize;
+            int from = (int) Math.max(0, offset - chunkStart);
+            int to = (int) Math.min(plain.limit(), offset + length - chunkStart);
+            plain.position(from).limit(to);
+            writeFully(out, plain);
+        }
+    }
+
+    /**
+     * Plaintext size recorded in the header of an encrypted file.
+     */
+    long plaintextLength(FileChannel file) throws IOException {
+        file.position(0);
+        return readHeader(file).plaintextLength;
+    }
+
+    private void crypt(int mode, Header header, long index, ByteBuffer input, ByteBuffer output) throws IOException {
+        byte[] nonce = new byte[NONCE_LENGTH];
+        System.arraycopy(header.noncePrefix, 0, nonce, 0, 8);
+        int counter = (int) index;
+        nonce[8] = (byte) (counter >>> 24);
+        nonce[9] = (byte) (counter >>> 16);
+        nonce[10] = (byte) (counter >>> 8);
+        nonce[11] = (byte) counter;
+        try {
+            Cipher cipher = CIPHER.get();
+            cipher.init(mode, key, new GCMParameterSpec(TAG_LENGTH * 8, nonce));
+            cipher.updateAAD(header.bytes);
+            cipher.doFinal(input, output);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Chunk " + index + " failed " + (mode == Cipher.ENCRYPT_MODE ? "encryption" : "authentication"), e);
+        }
+    }
+
+    private static Header readHeader(ReadableByteChannel in) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH);
+        readFully(in, buffer);
+        byte[] bytes = buffer.array();
+        if (!hasMagic(bytes) || bytes[4] != VERSION) {
+            throw new IOException("Not a chunked encrypted document");
+        }
+        buffer.position(8);
+        int chunkSize = buffer.getInt();
+        long plaintextLength = buffer.getLong();
+        Header header = new Header(bytes, chunkSize, plaintextLength);
+        if (chunkSize <= 0 || plaintextLength < 0 || header.chunkCount() > Integer.MAX_VALUE) {
+            throw new IOException("Corrupt encrypted document header");
+        }
+        return header;
+    }
+
+    private static void readFully(ReadableByteChannel in, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer) < 0) {
+                throw new EOFException("Unexpected end of document stream");
+            }
+        }
+    }
+
+    private static void writeFully(WritableByteChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static final class Header {
+        final byte[] bytes;
+        final int chunkSize;
+        final long plaintextLength;
+        final byte[] noncePrefix;
+
+        Header(int chunkSize, long plaintextLength, byte[] noncePrefix) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH);
+            buffer.put(MAGIC).put(VERSION).put(new byte[3])
+                    .putInt(chunkSize).putLong(plaintextLength).put(noncePrefix);
+            this.bytes = buffer.array();
+            this.chunkSize = chunkSize;
+            this.plaintextLength = plaintextLength;
+            this.noncePrefix = noncePrefix;
+        }
+
+        Header(byte[] bytes, int chunkSize, long plaintextLength) {
+            this.bytes = bytes;
+            this.chunkSize = chunkSize;
+            this.plaintextLength = plaintextLength;
+            this.noncePrefix = Arrays.copyOfRange(bytes, 20, 28);
+        }
+
+        /**
+         * At least one chunk, so even an empty document authenticates its header.
+         */
+        long chunkCount() {
+            return Math.max(1, (plaintextLength + chunkSize - 1) / chunkSize);
+        }
+
+        int plainChunkLength(long index) {
+            return (int) Math.min(chunkSize, plaintextLength - index * chunkSize);
+        }
+    }
+}
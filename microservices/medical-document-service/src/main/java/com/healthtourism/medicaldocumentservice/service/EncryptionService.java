@@ -4,20 +4,31 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.Cipher;
-import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.security.SecureRandom;
-import java.util.Base64;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
 
 /**
  * Encryption Service for GDPR/KVKK compliant file storage
  * Encrypts medical documents before storage
+ *
+ * Documents are written in the chunked AES-GCM format of {@link ChunkedAesGcm}
+ * and streamed through NIO channels, so memory use does not grow with file size
+ * and byte ranges can be decrypted without reading the whole file. Files written
+ * by the previous single-block AES/ECB implementation are still readable.
  */
 @Service
 public class EncryptionService {
@@ -25,43 +36,144 @@ public class EncryptionService {
     @Value("${encryption.secret.key:healthtourism-secret-key-32bytes!!}")
     private String secretKeyString;
 
+    @Value("${encryption.chunk-size:65536}")
+    private int chunkSize = 65536;
+
     private static final String ALGORITHM = "AES";
-    private static final String TRANSFORMATION = "AES";
+    private static final String LEGACY_TRANSFORMATION = "AES";
+
+    private volatile ChunkedAesGcm format;
 
     /**
      * Encrypt file content
      */
-    public byte[] encrypt(byte[] data) throws Exception {
-        SecretKeySpec secretKey = new SecretKeySpec(secretKeyString.getBytes(), ALGORITHM);
-        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-        cipher.init(Cipher.ENCRYPT_MODE, secretKey);
-        return cipher.doFinal(data);
+    public byte[] encrypt(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(
+                data.length + ChunkedAesGcm.HEADER_LENGTH + ChunkedAesGcm.TAG_LENGTH);
+        format().encrypt(Channels.newChannel(new ByteArrayInputStream(data)), data.length, Channels.newChannel(out));
+        return out.toByteArray();
     }
 
     /**
      * Decrypt file content
      */
-    public byte[] decrypt(byte[] encryptedData) throws Exception {
-        SecretKeySpec secretKey = new SecretKeySpec(secretKeyString.getBytes(), ALGORITHM);
-        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-        cipher.init(Cipher.DECRYPT_MODE, secretKey);
-        return cipher.doFinal(encryptedData);
+    public byte[] decrypt(byte[] encryptedData) throws IOException {
+        if (!ChunkedAesGcm.hasMagic(encryptedData)) {
+            return decryptLegacy(encryptedData);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(encryptedData.length);
+        format().decrypt(Channels.newChannel(new ByteArrayInputStream(encryptedData)), Channels.newChannel(out));
+        return out.toByteArray();
+    }
+
+    /**
+     * Encrypt file and save, one chunk in memory at a time
+     */
+    public void encryptFile(Path inputFile, Path outputFile) throws IOException {
+        try (FileChannel in = FileChannel.open(inputFile, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(outputFile, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            format().encrypt(in, in.size(), out);
+        }
+    }
+
+    /**
+     * Decrypt file and read. Buffers the whole document; prefer
+     * {@link #decryptFile(Path, OutputStream)} for anything but small files.
+     */
+    public byte[] decryptFile(Path encryptedFile) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        decryptFile(encryptedFile, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decrypt file straight into a stream (e.g. an HTTP response body)
+     */
+    public void decryptFile(Path encryptedFile, OutputStream out) throws IOException {
+        if (!isChunked(encryptedFile)) {
+            out.write(decryptLegacy(Files.readAllBytes(encryptedFile)));
+            return;
+        }
+        try (FileChannel in = FileChannel.open(encryptedFile, StandardOpenOption.READ)) {
+            format().decrypt(in, Channels.newChannel(out));
+        }
+    }
+
+    /**
+     * Decrypt plaintext bytes [offset, offset + length) for partial downloads
+     */
+    public void decryptRange(Path encryptedFile, long offset, long length, OutputStream out) throws IOException {
+        if (!isChunked(encryptedFile)) {
+            byte[] plain = decryptLegacy(Files.readAllBytes(encryptedFile));
+            if (offset < 0 || length < 0 || offset + length > plain.length) {
+                throw new IOException("Range outside document");
+            }
+            out.write(plain, (int) offset, (int) length);
+            return;
+        }
+        try (FileChannel in = FileChannel.open(encryptedFile, StandardOpenOption.READ)) {
+            WritableByteChannel channel = Channels.newChannel(out);
+            format().decryptRange(in, offset, length, channel);
+        }
     }
 
     /**
-     * Encrypt file and save
+     * Size of the decrypted document
      */
-    public void encryptFile(Path inputFile, Path outputFile) throws Exception {
-        byte[] fileContent = Files.readAllBytes(inputFile);
-        byte[] encryptedContent = encrypt(fileContent);
-        Files.write(outputFile, encryptedContent);
+    public long plaintextLength(Path encryptedFile) throws IOException {
+        if (!isChunked(encryptedFile)) {
+            return decryptLegacy(Files.readAllBytes(encryptedFile)).length;
+        }
+        try (FileChannel in = FileChannel.open(encryptedFile, StandardOpenOption.READ)) {
+            return format().plaintextLength(in);
+        }
+    }
+
+    private boolean isChunked(Path file) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer prefix = ByteBuffer.allocate(4);
+            while (prefix.hasRemaining()) {
+                if (in.read(prefix) < 0) {
+                    return false;
+                }
+            }
+            return ChunkedAesGcm.hasMagic(prefix.array());
+        }
+    }
+
+    private byte[] decryptLegacy(byte[] encryptedData) throws IOException {
+        try {
+            Cipher cipher = Cipher.getInstance(LEGACY_TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, secretKey());
+            return cipher.doFinal(encryptedData);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Failed to decrypt legacy document", e);
+        }
+    }
+
+    private ChunkedAesGcm format() throws IOException {
+        ChunkedAesGcm current = format;
+        if (current == null) {
+            current = new ChunkedAesGcm(secretKey(), chunkSize);
+            format = current;
+        }
+        return current;
     }
 
     /**
-     * Decrypt file and read
+     * A configured secret of a valid AES length is used as-is (this is what the
+     * legacy format required); anything else is hashed to a 256-bit key.
      */
-    public byte[] decryptFile(Path encryptedFile) throws Exception {
-        byte[] encryptedContent = Files.readAllBytes(encryptedFile);
-        return decrypt(encryptedContent);
+    private SecretKey secretKey() throws IOException {
+        byte[] raw = secretKeyString.getBytes(StandardCharsets.UTF_8);
+        if (raw.length == 16 || raw.length == 24 || raw.length == 32) {
+            return new SecretKeySpec(raw, ALGORITHM);
+        }
+        try {
+            return new SecretKeySpec(MessageDigest.getInstance("SHA-256").digest(raw), ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Cannot derive document encryption key", e);
+        }
     }
 }
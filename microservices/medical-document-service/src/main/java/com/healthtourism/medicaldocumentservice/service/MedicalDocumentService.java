@@ -9,6 +9,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -97,7 +98,33 @@ public class MedicalDocumentService {
         return convertToDTO(saved);
     }
     
-    public byte[] downloadDocument(String id) throws Exception {
+    public byte[] downloadDocument(String id) throws IOException {
+        // Decrypt file before returning
+        return encryptionService.decryptFile(resolveFile(id));
+    }
+    
+    /**
+     * Decrypted size of a stored document, used for Content-Length / Content-Range
+     */
+    public long getDocumentLength(String id) throws IOException {
+        return encryptionService.plaintextLength(resolveFile(id));
+    }
+    
+    /**
+     * Stream the decrypted document without buffering it in memory
+     */
+    public void streamDocument(String id, OutputStream out) throws IOException {
+        encryptionService.decryptFile(resolveFile(id), out);
+    }
+    
+    /**
+     * Stream a decrypted byte range (partial download)
+     */
+    public void streamDocumentRange(String id, long offset, long length, OutputStream out) throws IOException {
+        encryptionService.decryptRange(resolveFile(id), offset, length, out);
+    }
+    
+    private Path resolveFile(String id) {
         MedicalDocument document = medicalDocumentRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Belge bulunamadı"));
         
@@ -105,9 +132,7 @@ public class MedicalDocumentService {
         if (!Files.exists(filePath)) {
             throw new RuntimeException("Dosya bulunamadı");
         }
-        
-        // Decrypt file before returning
-        return encryptionService.decryptFile(filePath);
+        return filePath;
     }
     
     public void deleteDocument(String id) throws IOException {
@@ -0,0 +1,163 @@
+package com.healthtourism.medicaldocumentservice.benchmark;
+
+import com.healthtourism.medicaldocumentservice.service.EncryptionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time to encrypt and decrypt a medical document on disk: the chunked
+ * AES-GCM container (one chunk in memory) against the old approach of
+ * reading, encrypting and writing the whole file as one buffer, plus a 1 MB
+ * range read from the middle of the document.
+ *
+ * Heap use is what separates the two at large sizes; run with -prof gc to
+ * see allocation per operation. The whole-file baseline needs a heap larger
+ * than twice the document size and cannot hold a 2 GB document in one byte[]
+ * at all, so it stops at 1 GB while the chunked path runs up to 2 GB. The
+ * largest size needs about 6 GB of free space in the temp directory.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.healthtourism.medicaldocumentservice.benchmark.DocumentEncryptionBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class DocumentEncryptionBenchmark {
+
+    private static final String SECRET = "healthtourism-secret-key-32bytes!!";
+    private static final int RANGE_LENGTH = 1 << 20;
+
+    /**
+     * A random document on disk, plus its chunked ciphertext.
+     */
+    public abstract static class Document {
+
+        EncryptionService encryptionService;
+        SecretKeySpec legacyKey;
+        Path dir;
+        Path plain;
+        Path encrypted;
+        Path output;
+        long size;
+
+        abstract int sizeMb();
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            encryptionService = new EncryptionService();
+            ReflectionTestUtils.setField(encryptionService, "secretKeyString", SECRET);
+            legacyKey = new SecretKeySpec(MessageDigest.getInstance("SHA-256")
+                    .digest(SECRET.getBytes(StandardCharsets.UTF_8)), "AES");
+
+            dir = Files.createTempDirectory("document-encryption-bench");
+            plain = dir.resolve("plain.bin");
+            encrypted = dir.resolve("encrypted.bin");
+            output = dir.resolve("output.bin");
+            size = (long) sizeMb() << 20;
+
+            Random random = new Random(42);
+            byte[] block = new byte[1 << 20];
+            try (FileChannel channel = FileChannel.open(plain, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                for (int i = 0; i < sizeMb(); i++) {
+                    random.nextBytes(block);
+                    channel.write(ByteBuffer.wrap(block));
+                }
+            }
+            encryptionService.encryptFile(plain, encrypted);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ChunkedDocument extends Document {
+
+        @Param({"10", "100", "1024", "2048"})
+        int sizeMb;
+
+        @Override
+        int sizeMb() {
+            return sizeMb;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class WholeFileDocument extends Document {
+
+        // Files.readAllBytes cannot return 2 GB or more
+        @Param({"10", "100", "1024"})
+        int sizeMb;
+
+        @Override
+        int sizeMb() {
+            return sizeMb;
+        }
+    }
+
+    @Benchmark
+    public void chunkedEncryptFile(ChunkedDocument document) throws IOException {
+        document.encryptionService.encryptFile(document.plain, document.output);
+    }
+
+    @Benchmark
+    public void chunkedDecryptFile(ChunkedDocument document) throws IOException {
+        document.encryptionService.decryptFile(document.encrypted, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void chunkedDecryptRange(ChunkedDocument document) throws IOException {
+        document.encryptionService.decryptRange(document.encrypted, document.size / 2, RANGE_LENGTH,
+                OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void wholeFileEncrypt(WholeFileDocument document) throws Exception {
+        byte[] content = Files.readAllBytes(document.plain);
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.ENCRYPT_MODE, document.legacyKey);
+        Files.write(document.output, cipher.doFinal(content));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DocumentEncryptionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
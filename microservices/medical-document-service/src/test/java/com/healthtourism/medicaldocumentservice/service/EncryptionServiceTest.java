@@ -3,10 +3,18 @@ package com.healthtourism.medicaldocumentservice.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -48,4 +56,53 @@ class EncryptionServiceTest {
         assertNotNull(encrypted);
         assertArrayEquals(emptyData, decrypted);
     }
+
+    @Test
+    void testEncryptDecryptFile_MultipleChunks(@TempDir Path dir) throws Exception {
+        // Given
+        ReflectionTestUtils.setField(encryptionService, "chunkSize", 1024);
+        byte[] originalData = randomBytes(10_000);
+        Path plain = Files.write(dir.resolve("plain.pdf"), originalData);
+        Path encrypted = dir.resolve("encrypted.pdf");
+
+        // When
+        encryptionService.encryptFile(plain, encrypted);
+
+        // Then
+        assertEquals(originalData.length, encryptionService.plaintextLength(encrypted));
+        assertArrayEquals(originalData, encryptionService.decryptFile(encrypted));
+    }
+
+    @Test
+    void testDecryptRange_SpansChunkBoundaries(@TempDir Path dir) throws Exception {
+        // Given
+        ReflectionTestUtils.setField(encryptionService, "chunkSize", 1024);
+        byte[] originalData = randomBytes(5_000);
+        Path plain = Files.write(dir.resolve("plain.dcm"), originalData);
+        Path encrypted = dir.resolve("encrypted.dcm");
+        encryptionService.encryptFile(plain, encrypted);
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encryptionService.decryptRange(encrypted, 1000, 2100, out);
+
+        // Then
+        assertArrayEquals(Arrays.copyOfRange(originalData, 1000, 3100), out.toByteArray());
+    }
+
+    @Test
+    void testDecrypt_TamperedChunkFails() throws Exception {
+        // Given
+        byte[] encrypted = encryptionService.encrypt("Test medical document content".getBytes());
+        encrypted[encrypted.length - 20] ^= 1;
+
+        // When / Then
+        assertThrows(IOException.class, () -> encryptionService.decrypt(encrypted));
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] data = new byte[length];
+        new Random(42).nextBytes(data);
+        return data;
+    }
 }
@@ -0,0 +1,67 @@
+package com.healthtourism.patientriskscoringservice.consumer;
+
+import com.healthtourism.patientriskscoringservice.service.PatientRiskScoringService;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Feeds IoT readings into the incremental recovery scores. iot-monitoring-service
+ * publishes every reading once to the vital signs topic, keyed by reservation, so
+ * all readings of a reservation land on one partition and therefore on one
+ * instance of this group, in order. Scoring state is kept per instance and
+ * partition; when partitions move (a rebalance), their states are dropped and
+ * the new owner rebuilds them from the latest stored score.
+ */
+@Component
+public class VitalSignsConsumer implements ConsumerAwareRebalanceListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(VitalSignsConsumer.class);
+
+    @Autowired
+    private PatientRiskScoringService riskScoringService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @KafkaListener(topics = "${kafka.topics.vital-signs:iot-vital-signs}",
+            groupId = "patient-risk-scoring-group")
+    public void consumeVitalSigns(String message, @Header(KafkaHeaders.RECEIVED_PARTITION) int partition) {
+        try {
+            Map<String, Object> reading = objectMapper.readValue(message, Map.class);
+            riskScoringService.onVitalSigns(reading, partition);
+        } catch (Exception e) {
+            logger.error("Error processing vital signs event: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (!partitions.isEmpty()) {
+            riskScoringService.releaseStates(partitionNumbers(partitions));
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (!partitions.isEmpty()) {
+            riskScoringService.releaseStates(partitionNumbers(partitions));
+        }
+    }
+
+    private static List<Integer> partitionNumbers(Collection<TopicPartition> partitions) {
+        return partitions.stream().map(TopicPartition::partition).toList();
+    }
+}
@@ -2,31 +2,48 @@ package com.healthtourism.patientriskscoringservice.service;
 
 import com.healthtourism.patientriskscoringservice.entity.PatientRiskScore;
 import com.healthtourism.patientriskscoringservice.repository.PatientRiskScoreRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
 /**
  * Patient Risk Scoring Service
  * AI-driven recovery score calculation combining IoT data, medical history, and procedure complexity
+ *
+ * Scores are maintained incrementally: every IoT reading from Kafka updates the
+ * reservation's {@link RecoveryState} in O(1), and a score row is written only
+ * when it changed meaningfully (by {@code recovery.score.persist-delta} points,
+ * a category change or an alert). Medical history and procedure complexity come
+ * from the other services once per reservation and on each bulk rescore.
+ *
+ * Readings arrive keyed by reservation, so each reservation's state lives on the
+ * one instance that owns its partition. Only those states are tracked and bulk
+ * rescored; a REST request for a reservation owned elsewhere is scored once on a
+ * state that is not kept.
  */
 @Service
 public class PatientRiskScoringService {
     
+    private static final Logger logger = LoggerFactory.getLogger(PatientRiskScoringService.class);
+    
     @Autowired
     private PatientRiskScoreRepository riskScoreRepository;
     
@@ -45,6 +62,20 @@ public class PatientRiskScoringService {
     @Value("${reservation.service.url:http://localhost:8009}")
     private String reservationServiceUrl;
     
+    @Value("${recovery.score.ewma-alpha:0.3}")
+    private double ewmaAlpha;
+    
+    @Value("${recovery.score.persist-delta:1.0}")
+    private double persistDelta;
+    
+    @Value("${recovery.score.rescore-parallelism:16}")
+    private int rescoreParallelism;
+    
+    @Value("${recovery.score.idle-eviction:7d}")
+    private Duration idleEviction;
+    
+    private final Map<Long, RecoveryState> states = new ConcurrentHashMap<>();
+    
     private RestTemplate getRestTemplate() {
         if (restTemplate == null) {
             restTemplate = new RestTemplate();
@@ -55,283 +86,348 @@ public class PatientRiskScoringService {
     /**
      * Calculate recovery score for a patient
      */
-    @Transactional
     public PatientRiskScore calculateRecoveryScore(Long userId, Long reservationId) {
-        // Retrieve IoT data
-        BigDecimal iotDataScore = calculateIoTDataScore(userId, reservationId);
-        
-        // Retrieve medical history
-        BigDecimal medicalHistoryScore = calculateMedicalHistoryScore(userId);
-        
-        // Get procedure complexity
-        BigDecimal procedureComplexityScore = calculateProcedureComplexityScore(reservationId);
-        
-        // Calculate compliance score
-        BigDecimal complianceScore = calculateComplianceScore(userId, reservationId);
-        
-        // Calculate overall recovery score (weighted average)
-        BigDecimal recoveryScore = calculateWeightedScore(
-                iotDataScore, medicalHistoryScore, procedureComplexityScore, complianceScore);
-        
-        // Determine score category
-        String scoreCategory = determineScoreCategory(recoveryScore);
-        
-        // Get previous score for trend analysis
-        PatientRiskScore previousScore = getLatestScore(userId, reservationId);
-        BigDecimal previousScoreValue = previousScore != null ? previousScore.getRecoveryScore() : recoveryScore;
-        BigDecimal scoreChange = recoveryScore.subtract(previousScoreValue);
-        String trend = determineTrend(scoreChange);
-        
-        // Check if alert is needed
-        boolean requiresAlert = shouldAlertDoctor(recoveryScore, previousScoreValue, scoreChange);
-        
-        // Generate AI explanation for score change
-        String scoreExplanation = generateScoreExplanation(
-                recoveryScore, previousScoreValue, scoreChange, 
-                iotDataScore, medicalHistoryScore, procedureComplexityScore, complianceScore,
-                userId, reservationId);
-        
-        // Identify contributing factors
-        String contributingFactors = identifyContributingFactors(
-                iotDataScore, medicalHistoryScore, procedureComplexityScore, complianceScore,
-                scoreChange, userId, reservationId);
-        
-        // Create risk score
-        PatientRiskScore riskScore = new PatientRiskScore();
-        riskScore.setUserId(userId);
-        riskScore.setReservationId(reservationId);
-        riskScore.setRecoveryScore(recoveryScore);
-        riskScore.setScoreCategory(scoreCategory);
-        riskScore.setIotDataScore(iotDataScore);
-        riskScore.setMedicalHistoryScore(medicalHistoryScore);
-        riskScore.setProcedureComplexityScore(procedureComplexityScore);
-        riskScore.setComplianceScore(complianceScore);
-        riskScore.setTrend(trend);
-        riskScore.setPreviousScore(previousScoreValue);
-        riskScore.setScoreChange(scoreChange);
-        riskScore.setRequiresDoctorAlert(requiresAlert);
-        riskScore.setAiConfidence(new BigDecimal("0.85"));
-        riskScore.setScoreExplanation(scoreExplanation);
-        riskScore.setContributingFactors(contributingFactors);
-        riskScore.setAnalysisDetails(buildAnalysisDetails(iotDataScore, medicalHistoryScore, 
-                procedureComplexityScore, complianceScore, recoveryScore));
-        
-        // Save score
-        riskScore = riskScoreRepository.save(riskScore);
-        
-        // Send alerts if needed
-        if (requiresAlert) {
-            alertService.sendRecoveryScoreAlert(riskScore);
-            riskScore.setLastAlertSentAt(LocalDateTime.now());
-            riskScore.setAlertReason("Recovery score dropped significantly or below threshold");
-            riskScore = riskScoreRepository.save(riskScore);
-        } else if (recoveryScore.compareTo(new BigDecimal("80")) > 0) {
-            // Send positive notification
-            alertService.sendPositiveNotification(userId, recoveryScore);
+        RecoveryState state = states.get(reservationId);
+        if (state != null) {
+            synchronized (state) {
+                state.touch(System.currentTimeMillis());
+            }
+        } else {
+            // Readings for this reservation go to another instance; score the latest stored
+            // one without tracking it, so only the partition owner rescores and alerts later
+            state = newState(userId, reservationId, RecoveryState.UNTRACKED);
+            seedFromLatestReading(state);
         }
-        
-        return riskScore;
+        loadComponents(state);
+        return evaluate(state, true);
     }
     
     /**
-     * Calculate IoT data score (0-100)
+     * Apply one IoT reading (heartRate, oxygenSaturation, steps, painLevel; any may be absent)
+     * received from the given partition of the vital signs topic
      */
-    private BigDecimal calculateIoTDataScore(Long userId, Long reservationId) {
+    public void onVitalSigns(Map<String, Object> reading, int partition) {
+        Long userId = toLong(reading.get("userId"));
+        Long reservationId = toLong(reading.get("reservationId"));
+        if (userId == null || reservationId == null) {
+            return; // Not tied to a reservation
+        }
+        RecoveryState state = stateFor(userId, reservationId, partition);
+        boolean load;
+        synchronized (state) {
+            applyReading(state, reading);
+            load = !state.componentsLoaded();
+        }
+        if (load) {
+            loadComponents(state);
+        }
+        evaluate(state, false);
+    }
+    
+    private void applyReading(RecoveryState state, Map<String, Object> reading) {
+        state.accept(toLong(reading.get("doctorId")),
+                toDouble(reading.get("heartRate")),
+                toDouble(reading.get("oxygenSaturation")),
+                toDouble(reading.get("steps")),
+                toDouble(reading.get("painLevel")),
+                ewmaAlpha, System.currentTimeMillis());
+    }
+    
+    private RecoveryState stateFor(Long userId, Long reservationId, int partition) {
+        RecoveryState state = states.get(reservationId);
+        if (state != null) {
+            return state;
+        }
+        RecoveryState fresh = newState(userId, reservationId, partition);
+        state = states.putIfAbsent(reservationId, fresh);
+        return state != null ? state : fresh;
+    }
+    
+    private RecoveryState newState(Long userId, Long reservationId, int partition) {
+        RecoveryState state = new RecoveryState(userId, reservationId, partition, System.currentTimeMillis());
+        // Compare against what is already stored so a restart neither re-alerts nor rewrites rows
+        PatientRiskScore latest = getLatestScore(userId, reservationId);
+        if (latest != null) {
+            state.markPersisted(latest.getRecoveryScore().doubleValue(), latest.getScoreCategory(),
+                    Boolean.TRUE.equals(latest.getRequiresDoctorAlert()));
+        }
+        return state;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void seedFromLatestReading(RecoveryState state) {
         try {
-            String url = iotMonitoringServiceUrl + "/api/iot-monitoring/reservation/" + reservationId;
+            String url = iotMonitoringServiceUrl + "/api/iot-monitoring/reservation/" + state.reservationId();
             List<Map<String, Object>> iotData = getRestTemplate().getForObject(url, List.class);
-            
-            if (iotData == null || iotData.isEmpty()) {
-                return new BigDecimal("50.0"); // Neutral score if no data
-            }
-            
-            // Analyze latest IoT data
-            Map<String, Object> latestData = iotData.get(0);
-            BigDecimal score = new BigDecimal("70.0"); // Base score
-            
-            // Heart rate analysis
-            if (latestData.containsKey("heartRate")) {
-                BigDecimal heartRate = new BigDecimal(latestData.get("heartRate").toString());
-                if (heartRate.compareTo(new BigDecimal("60")) >= 0 && heartRate.compareTo(new BigDecimal("100")) <= 0) {
-                    score = score.add(new BigDecimal("10")); // Normal heart rate
-                } else {
-                    score = score.subtract(new BigDecimal("20")); // Abnormal heart rate
+            if (iotData != null && !iotData.isEmpty()) {
+                synchronized (state) {
+                    if (state.readings() == 0) {
+                        applyReading(state, iotData.get(0));
+                    }
                 }
             }
+        } catch (Exception e) {
+            logger.warn("Failed to load IoT data for reservation {}: {}", state.reservationId(), e.getMessage());
+        }
+    }
+    
+    private void loadComponents(RecoveryState state) {
+        double medicalHistoryScore = calculateMedicalHistoryScore(state.userId());
+        double procedureComplexityScore = calculateProcedureComplexityScore(state.reservationId());
+        double complianceScore = calculateComplianceScore(state.userId(), state.reservationId());
+        synchronized (state) {
+            state.setComponents(medicalHistoryScore, procedureComplexityScore, complianceScore);
+        }
+    }
+    
+    /**
+     * Scores the state and saves a row if it changed meaningfully (always if {@code force}).
+     * The Kafka listener, the bulk rescore and the REST endpoint can evaluate the same
+     * reservation at once; the state's persist lock makes each of them decide against
+     * the score the previous one saved, so a change is stored and alerted only once.
+     * Readings keep folding into the state while a save is in flight.
+     *
+     * @return the saved score, or null if nothing was saved
+     */
+    private PatientRiskScore evaluate(RecoveryState state, boolean force) {
+        PatientRiskScore riskScore;
+        boolean notifyDoctor;
+        boolean notifyPatient;
+        state.persistLock().lock();
+        try {
+            double recoveryScore;
+            String scoreCategory;
+            boolean requiresAlert;
+            synchronized (state) {
+                recoveryScore = state.recoveryScore();
+                scoreCategory = determineScoreCategory(recoveryScore);
+                double previousScore = Double.isNaN(state.persistedScore()) ? recoveryScore : state.persistedScore();
+                double scoreChange = Math.round((recoveryScore - previousScore) * 100.0) / 100.0;
+                requiresAlert = shouldAlertDoctor(recoveryScore, scoreChange);
             
-            // Oxygen saturation analysis
-            if (latestData.containsKey("oxygenSaturation")) {
-                BigDecimal oxygenSat = new BigDecimal(latestData.get("oxygenSaturation").toString());
-                if (oxygenSat.compareTo(new BigDecimal("95")) >= 0) {
-                    score = score.add(new BigDecimal("10")); // Good oxygen levels
-                } else {
-                    score = score.subtract(new BigDecimal("30")); // Low oxygen
+                boolean changed = Double.isNaN(state.persistedScore())
+                        || Math.abs(scoreChange) >= persistDelta
+                        || !scoreCategory.equals(state.persistedCategory())
+                        || requiresAlert != state.persistedAlert();
+                if (!force && !changed) {
+                    return null;
                 }
-            }
-            
-            // Activity analysis
-            if (latestData.containsKey("steps")) {
-                BigDecimal steps = new BigDecimal(latestData.get("steps").toString());
-                if (steps.compareTo(new BigDecimal("5000")) >= 0) {
-                    score = score.add(new BigDecimal("5")); // Good activity
+                // Alert on entering the alert state or on a further significant drop, not on every reading
+                notifyDoctor = requiresAlert && (!state.persistedAlert() || scoreChange < -10);
+                notifyPatient = !requiresAlert && recoveryScore > 80 && !"EXCELLENT".equals(state.persistedCategory());
+                riskScore = buildRiskScore(state, recoveryScore, scoreCategory, previousScore, scoreChange, requiresAlert);
+                if (notifyDoctor) {
+                    riskScore.setLastAlertSentAt(LocalDateTime.now());
+                    riskScore.setAlertReason("Recovery score dropped significantly or below threshold");
                 }
             }
             
-            // Pain level analysis
-            if (latestData.containsKey("painLevel")) {
-                BigDecimal painLevel = new BigDecimal(latestData.get("painLevel").toString());
-                if (painLevel.compareTo(new BigDecimal("3")) <= 0) {
-                    score = score.add(new BigDecimal("5")); // Low pain
-                } else if (painLevel.compareTo(new BigDecimal("7")) > 0) {
-                    score = score.subtract(new BigDecimal("15")); // High pain
-                }
+            // Save score; the state only counts it as persisted once the row is stored,
+            // so a failed save is retried on the next reading or rescore
+            riskScore = riskScoreRepository.save(riskScore);
+            synchronized (state) {
+                state.markPersisted(recoveryScore, scoreCategory, requiresAlert);
             }
-            
-            return score.max(new BigDecimal("0")).min(new BigDecimal("100"));
-        } catch (Exception e) {
-            System.err.println("Failed to calculate IoT data score: " + e.getMessage());
-            return new BigDecimal("50.0");
+        } finally {
+            state.persistLock().unlock();
         }
+        
+        // Send alerts if needed
+        if (notifyDoctor) {
+            alertService.sendRecoveryScoreAlert(riskScore);
+        } else if (notifyPatient) {
+            // Send positive notification
+            alertService.sendPositiveNotification(riskScore.getUserId(), riskScore.getRecoveryScore());
+        }
+        
+        return riskScore;
+    }
+    
+    private PatientRiskScore buildRiskScore(RecoveryState state, double recoveryScore, String scoreCategory,
+                                            double previousScore, double scoreChange, boolean requiresAlert) {
+        BigDecimal recovery = decimal(recoveryScore);
+        BigDecimal previous = decimal(previousScore);
+        BigDecimal change = decimal(scoreChange);
+        BigDecimal iotDataScore = decimal(state.iotScore());
+        BigDecimal medicalHistoryScore = decimal(state.medicalHistoryScore());
+        BigDecimal procedureComplexityScore = decimal(state.procedureComplexityScore());
+        BigDecimal complianceScore = decimal(state.complianceScore());
+        
+        PatientRiskScore riskScore = new PatientRiskScore();
+        riskScore.setUserId(state.userId());
+        riskScore.setReservationId(state.reservationId());
+        riskScore.setDoctorId(state.doctorId());
+        riskScore.setRecoveryScore(recovery);
+        riskScore.setScoreCategory(scoreCategory);
+        riskScore.setIotDataScore(iotDataScore);
+        riskScore.setMedicalHistoryScore(medicalHistoryScore);
+        riskScore.setProcedureComplexityScore(procedureComplexityScore);
+        riskScore.setComplianceScore(complianceScore);
+        riskScore.setTrend(determineTrend(scoreChange));
+        riskScore.setPreviousScore(previous);
+        riskScore.setScoreChange(change);
+        riskScore.setRequiresDoctorAlert(requiresAlert);
+        riskScore.setAiConfidence(new BigDecimal("0.85"));
+        // Generate AI explanation for score change
+        riskScore.setScoreExplanation(generateScoreExplanation(recovery, previous, change,
+                iotDataScore, medicalHistoryScore, complianceScore, state.vitals()));
+        // Identify contributing factors
+        riskScore.setContributingFactors(identifyContributingFactors(
+                iotDataScore, medicalHistoryScore, procedureComplexityScore, complianceScore, change, state));
+        riskScore.setAnalysisDetails(buildAnalysisDetails(iotDataScore, medicalHistoryScore,
+                procedureComplexityScore, complianceScore, recovery, state));
+        return riskScore;
     }
     
     /**
      * Calculate medical history score
      */
-    private BigDecimal calculateMedicalHistoryScore(Long userId) {
+    private double calculateMedicalHistoryScore(Long userId) {
         try {
             String url = medicalDocumentServiceUrl + "/api/medical-documents/user/" + userId;
             List<Map<String, Object>> medicalDocs = getRestTemplate().getForObject(url, List.class);
             
             if (medicalDocs == null || medicalDocs.isEmpty()) {
-                return new BigDecimal("70.0"); // Neutral if no history
+                return RecoveryState.DEFAULT_MEDICAL_HISTORY_SCORE; // Neutral if no history
             }
             
             // Analyze medical history complexity
             // More documents might indicate more complex history
-            int docCount = medicalDocs.size();
-            BigDecimal score = new BigDecimal("80.0");
-            
-            if (docCount > 10) {
-                score = score.subtract(new BigDecimal("10")); // Complex history
+            double score = 80.0;
+            if (medicalDocs.size() > 10) {
+                score -= 10; // Complex history
             }
-            
-            return score.max(new BigDecimal("0")).min(new BigDecimal("100"));
+            return score;
         } catch (Exception e) {
-            System.err.println("Failed to calculate medical history score: " + e.getMessage());
-            return new BigDecimal("70.0");
+            logger.warn("Failed to calculate medical history score: {}", e.getMessage());
+            return RecoveryState.DEFAULT_MEDICAL_HISTORY_SCORE;
         }
     }
     
     /**
      * Calculate procedure complexity score
      */
-    private BigDecimal calculateProcedureComplexityScore(Long reservationId) {
+    private double calculateProcedureComplexityScore(Long reservationId) {
         try {
             String url = reservationServiceUrl + "/api/reservations/" + reservationId;
             Map<String, Object> reservation = getRestTemplate().getForObject(url, Map.class);
             
             if (reservation == null) {
-                return new BigDecimal("70.0");
+                return RecoveryState.DEFAULT_PROCEDURE_COMPLEXITY_SCORE;
             }
             
             // Procedure complexity affects recovery
             // More complex procedures = lower initial score, but can improve
             String procedureType = (String) reservation.getOrDefault("procedureType", "CONSULTATION");
-            
-            BigDecimal score = new BigDecimal("80.0");
-            
+            double score = 80.0;
             if (procedureType.contains("SURGERY") || procedureType.contains("SURGICAL")) {
-                score = score.subtract(new BigDecimal("20")); // Surgery is more complex
+                score -= 20; // Surgery is more complex
             }
-            
-            return score.max(new BigDecimal("0")).min(new BigDecimal("100"));
+            return score;
         } catch (Exception e) {
-            System.err.println("Failed to calculate procedure complexity score: " + e.getMessage());
-            return new BigDecimal("70.0");
+            logger.warn("Failed to calculate procedure complexity score: {}", e.getMessage());
+            return RecoveryState.DEFAULT_PROCEDURE_COMPLEXITY_SCORE;
         }
     }
     
     /**
      * Calculate compliance score (medication, exercise, etc.)
      */
-    private BigDecimal calculateComplianceScore(Long userId, Long reservationId) {
+    private double calculateComplianceScore(Long userId, Long reservationId) {
         // This would integrate with Health Token service or IoT data
         // For now, return a base score
-        return new BigDecimal("75.0");
+        return RecoveryState.DEFAULT_COMPLIANCE_SCORE;
     }
     
-    /**
-     * Calculate weighted recovery score
-     */
-    private BigDecimal calculateWeightedScore(
-            BigDecimal iotDataScore,
-            BigDecimal medicalHistoryScore,
-            BigDecimal procedureComplexityScore,
-            BigDecimal complianceScore) {
-        
-        // Weights: IoT data is most important (40%), then compliance (30%), medical history (20%), procedure (10%)
-        BigDecimal weightedScore = iotDataScore.multiply(new BigDecimal("0.40"))
-                .add(complianceScore.multiply(new BigDecimal("0.30")))
-                .add(medicalHistoryScore.multiply(new BigDecimal("0.20")))
-                .add(procedureComplexityScore.multiply(new BigDecimal("0.10")));
-        
-        return weightedScore.setScale(2, RoundingMode.HALF_UP);
-    }
-    
-    private String determineScoreCategory(BigDecimal score) {
-        if (score.compareTo(new BigDecimal("80")) >= 0) {
+    private String determineScoreCategory(double score) {
+        if (score >= 80) {
             return "EXCELLENT";
-        } else if (score.compareTo(new BigDecimal("60")) >= 0) {
+        } else if (score >= 60) {
             return "GOOD";
-        } else if (score.compareTo(new BigDecimal("40")) >= 0) {
+        } else if (score >= 40) {
             return "FAIR";
         } else {
             return "POOR";
         }
     }
     
-    private String determineTrend(BigDecimal scoreChange) {
-        if (scoreChange.compareTo(new BigDecimal("5")) > 0) {
+    private String determineTrend(double scoreChange) {
+        if (scoreChange > 5) {
             return "IMPROVING";
-        } else if (scoreChange.compareTo(new BigDecimal("-5")) < 0) {
+        } else if (scoreChange < -5) {
             return "DECLINING";
         } else {
             return "STABLE";
         }
     }
     
-    private boolean shouldAlertDoctor(BigDecimal currentScore, BigDecimal previousScore, BigDecimal scoreChange) {
+    private boolean shouldAlertDoctor(double currentScore, double scoreChange) {
         // Alert if score drops significantly or falls below threshold
-        if (currentScore.compareTo(new BigDecimal("40")) < 0) {
+        if (currentScore < 40) {
             return true; // Critical threshold
         }
-        if (scoreChange.compareTo(new BigDecimal("-10")) < 0) {
-            return true; // Significant drop
-        }
-        return false;
+        return scoreChange < -10; // Significant drop
     }
     
     private String buildAnalysisDetails(
             BigDecimal iotScore, BigDecimal medicalScore, 
-            BigDecimal procedureScore, BigDecimal complianceScore, BigDecimal recoveryScore) {
+            BigDecimal procedureScore, BigDecimal complianceScore, BigDecimal recoveryScore,
+            RecoveryState state) {
         Map<String, Object> details = new HashMap<>();
         details.put("iotDataScore", iotScore);
         details.put("medicalHistoryScore", medicalScore);
         details.put("procedureComplexityScore", procedureScore);
         details.put("complianceScore", complianceScore);
         details.put("recoveryScore", recoveryScore);
+        details.put("readings", state.readings());
+        if (state.readings() > 0) {
+            details.put("iotScoreMin", state.minReadingScore());
+            details.put("iotScoreMax", state.maxReadingScore());
+            details.put("iotScoreTrendPerReading", Math.round(state.trend() * 100.0) / 100.0);
+        }
         details.put("calculatedAt", LocalDateTime.now().toString());
         return details.toString();
     }
     
     /**
-     * Periodic score recalculation (runs every hour)
+     * Bulk rescore of every tracked reservation, e.g. after medical history or
+     * procedure data changed. Reservations run in parallel on virtual threads,
+     * at most {@code recovery.score.rescore-parallelism} at a time.
      */
-    @Scheduled(fixedRate = 3600000) // 1 hour
+    @Scheduled(fixedRateString = "${recovery.score.rescore-interval-ms:3600000}") // 1 hour
     public void recalculateActivePatientScores() {
-        // Get all active reservations and recalculate scores
-        // This would query reservation service for active post-op patients
-        // For now, this is a placeholder
+        long idleBefore = System.currentTimeMillis() - idleEviction.toMillis();
+        states.values().removeIf(state -> state.lastActivityAt() < idleBefore);
+        
+        long start = System.nanoTime();
+        Semaphore permits = new Semaphore(rescoreParallelism);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (RecoveryState state : states.values()) {
+                executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        loadComponents(state);
+                        evaluate(state, false);
+                    } catch (Exception e) {
+                        logger.warn("Failed to rescore reservation {}: {}", state.reservationId(), e.getMessage());
+                    } finally {
+                        permits.release();
+                    }
+                    return null;
+                });
+            }
+        }
+        logger.info("Rescored {} reservations in {} ms", states.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    /**
+     * Drops the states fed by the given reading partitions once they are reassigned.
+     * The new owner rebuilds them from the latest stored score on its next reading.
+     */
+    public void releaseStates(Collection<Integer> partitions) {
+        int before = states.size();
+        states.values().removeIf(state -> partitions.contains(state.partition()));
+        logger.info("Released {} reservation states of partitions {}", before - states.size(), partitions);
     }
     
     public PatientRiskScore getLatestScore(Long userId, Long reservationId) {
@@ -359,10 +455,8 @@ public class PatientRiskScoringService {
             BigDecimal scoreChange,
             BigDecimal iotDataScore,
             BigDecimal medicalHistoryScore,
-            BigDecimal procedureComplexityScore,
             BigDecimal complianceScore,
-            Long userId,
-            Long reservationId) {
+            RecoveryState.Vitals vitals) {
         
         StringBuilder explanation = new StringBuilder();
         
@@ -387,40 +481,15 @@ public class PatientRiskScoringService {
             factors.add("IoT verilerinden gelen iyi vital bulgular");
         }
         
-        // Get specific IoT data for detailed explanation
-        try {
-            String url = iotMonitoringServiceUrl + "/api/iot-monitoring/reservation/" + reservationId;
-            List<Map<String, Object>> iotData = getRestTemplate().getForObject(url, List.class);
-            
-            if (iotData != null && !iotData.isEmpty()) {
-                Map<String, Object> latestData = iotData.get(0);
-                
-                // Oxygen saturation
-                if (latestData.containsKey("oxygenSaturation")) {
-                    BigDecimal oxygenSat = new BigDecimal(latestData.get("oxygenSaturation").toString());
-                    if (oxygenSat.compareTo(new BigDecimal("95")) < 0) {
-                        factors.add("düşük oksijen satürasyonu (%" + oxygenSat + ")");
-                    }
-                }
-                
-                // Steps/Activity
-                if (latestData.containsKey("steps")) {
-                    BigDecimal steps = new BigDecimal(latestData.get("steps").toString());
-                    if (steps.compareTo(new BigDecimal("5000")) < 0) {
-                        factors.add("hareketliliğin azalması (" + steps + " adım/gün)");
-                    }
-                }
-                
-                // Pain level
-                if (latestData.containsKey("painLevel")) {
-                    BigDecimal painLevel = new BigDecimal(latestData.get("painLevel").toString());
-                    if (painLevel.compareTo(new BigDecimal("5")) > 0) {
-                        factors.add("yüksek ağrı seviyesi (" + painLevel + "/10)");
-                    }
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("Failed to get IoT data for explanation: " + e.getMessage());
+        // Latest known vitals for detailed explanation
+        if (vitals.oxygenSaturation() < 95) {
+            factors.add("düşük oksijen satürasyonu (%" + format(vitals.oxygenSaturation()) + ")");
+        }
+        if (vitals.steps() < 5000) {
+            factors.add("hareketliliğin azalması (" + format(vitals.steps()) + " adım/gün)");
+        }
+        if (vitals.painLevel() > 5) {
+            factors.add("yüksek ağrı seviyesi (" + format(vitals.painLevel()) + "/10)");
         }
         
         // Compliance factors
@@ -459,8 +528,7 @@ public class PatientRiskScoringService {
             BigDecimal procedureComplexityScore,
             BigDecimal complianceScore,
             BigDecimal scoreChange,
-            Long userId,
-            Long reservationId) {
+            RecoveryState state) {
         
         Map<String, Object> factors = new HashMap<>();
         
@@ -470,34 +538,47 @@ public class PatientRiskScoringService {
         factors.put("complianceScore", complianceScore);
         factors.put("scoreChange", scoreChange);
         
-        // Get specific IoT metrics
-        try {
-            String url = iotMonitoringServiceUrl + "/api/iot-monitoring/reservation/" + reservationId;
-            List<Map<String, Object>> iotData = getRestTemplate().getForObject(url, List.class);
-            
-            if (iotData != null && !iotData.isEmpty()) {
-                Map<String, Object> latestData = iotData.get(0);
-                Map<String, Object> iotMetrics = new HashMap<>();
-                
-                if (latestData.containsKey("oxygenSaturation")) {
-                    iotMetrics.put("oxygenSaturation", latestData.get("oxygenSaturation"));
-                }
-                if (latestData.containsKey("heartRate")) {
-                    iotMetrics.put("heartRate", latestData.get("heartRate"));
-                }
-                if (latestData.containsKey("steps")) {
-                    iotMetrics.put("steps", latestData.get("steps"));
-                }
-                if (latestData.containsKey("painLevel")) {
-                    iotMetrics.put("painLevel", latestData.get("painLevel"));
-                }
-                
-                factors.put("iotMetrics", iotMetrics);
-            }
-        } catch (Exception e) {
-            System.err.println("Failed to get IoT metrics: " + e.getMessage());
+        // Latest known IoT metrics and their extremes since tracking began
+        if (state.readings() > 0) {
+            RecoveryState.Vitals vitals = state.vitals();
+            Map<String, Object> iotMetrics = new HashMap<>();
+            putIfKnown(iotMetrics, "oxygenSaturation", vitals.oxygenSaturation());
+            putIfKnown(iotMetrics, "heartRate", vitals.heartRate());
+            putIfKnown(iotMetrics, "steps", vitals.steps());
+            putIfKnown(iotMetrics, "painLevel", vitals.painLevel());
+            putIfKnown(iotMetrics, "minOxygenSaturation", state.minOxygenSaturation());
+            putIfKnown(iotMetrics, "maxPainLevel", state.maxPainLevel());
+            factors.put("iotMetrics", iotMetrics);
         }
         
         return factors.toString(); // In production, use ObjectMapper for proper JSON
     }
+    
+    private static void putIfKnown(Map<String, Object> metrics, String name, double value) {
+        if (Double.isFinite(value)) {
+            metrics.put(name, format(value));
+        }
+    }
+    
+    private static String format(double value) {
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+    
+    private static BigDecimal decimal(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+    
+    private static Long toLong(Object value) {
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        return value == null ? null : Long.valueOf(value.toString());
+    }
+    
+    private static double toDouble(Object value) {
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        return value == null ? Double.NaN : Double.parseDouble(value.toString());
+    }
 }
@@ -0,0 +1,242 @@
+package com.healthtourism.patientriskscoringservice.service;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rolling recovery state of one reservation, updated in O(1) per IoT reading.
+ *
+ * Vitals carry forward: a reading with only a step count keeps the last known
+ * heart rate, SpO2 and pain level. Each reading is scored with the IoT rules
+ * below and folded into an exponentially weighted moving average, so one noisy
+ * reading moves the IoT score by at most {@code alpha} of its deviation. Min/max
+ * of the per-reading score, the extremes of SpO2 and pain, and an EWMA of the
+ * per-reading change (the trend) are kept alongside.
+ *
+ * Not thread-safe: callers hold the state's monitor. Deciding whether to save a
+ * score, saving it and marking it persisted additionally run under
+ * {@link #persistLock()}, so only one score write per reservation is in flight.
+ */
+public final class RecoveryState {
+
+    static final double NEUTRAL_IOT_SCORE = 50.0;
+    static final double DEFAULT_MEDICAL_HISTORY_SCORE = 70.0;
+    static final double DEFAULT_PROCEDURE_COMPLEXITY_SCORE = 70.0;
+    static final double DEFAULT_COMPLIANCE_SCORE = 75.0;
+    static final int UNTRACKED = -1;
+
+    public record Vitals(double heartRate, double oxygenSaturation, double steps, double painLevel) {
+    }
+
+    private final Long userId;
+    private final Long reservationId;
+    // Reading partition that feeds this state, or UNTRACKED
+    private final int partition;
+    private Long doctorId;
+
+    // Latest known vitals, NaN until first reported
+    private double heartRate = Double.NaN;
+    private double oxygenSaturation = Double.NaN;
+    private double steps = Double.NaN;
+    private double painLevel = Double.NaN;
+
+    private double iotScore = Double.NaN;
+    private double lastReadingScore = Double.NaN;
+    private double minReadingScore = Double.POSITIVE_INFINITY;
+    private double maxReadingScore = Double.NEGATIVE_INFINITY;
+    private double trend;
+    private double minOxygenSaturation = Double.POSITIVE_INFINITY;
+    private double maxPainLevel = Double.NEGATIVE_INFINITY;
+    private long readings;
+    private volatile long lastActivityAt;
+
+    // Slower-moving components, refreshed from the other services
+    private double medicalHistoryScore = DEFAULT_MEDICAL_HISTORY_SCORE;
+    private double procedureComplexityScore = DEFAULT_PROCEDURE_COMPLEXITY_SCORE;
+    private double complianceScore = DEFAULT_COMPLIANCE_SCORE;
+    private boolean componentsLoaded;
+
+    // Last persisted score, NaN if none
+    private double persistedScore = Double.NaN;
+    private String persistedCategory;
+    private boolean persistedAlert;
+    private final ReentrantLock persistLock = new ReentrantLock();
+
+    public RecoveryState(Long userId, Long reservationId, int partition, long now) {
+        this.userId = userId;
+        this.reservationId = reservationId;
+        this.partition = partition;
+        this.lastActivityAt = now;
+    }
+
+    /**
+     * Folds one reading into the state. Absent vitals are NaN and keep their last value.
+     */
+    public void accept(Long readingDoctorId, double readingHeartRate, double readingOxygenSaturation,
+                       double readingSteps, double readingPainLevel, double alpha, long now) {
+        if (readingDoctorId != null) {
+            doctorId = readingDoctorId;
+        }
+        if (!Double.isNaN(readingHeartRate)) {
+            heartRate = readingHeartRate;
+        }
+        if (!Double.isNaN(readingOxygenSaturation)) {
+            oxygenSaturation = readingOxygenSaturation;
+            minOxygenSaturation = Math.min(minOxygenSaturation, readingOxygenSaturation);
+        }
+        if (!Double.isNaN(readingSteps)) {
+            steps = readingSteps;
+        }
+        if (!Double.isNaN(readingPainLevel)) {
+            painLevel = readingPainLevel;
+            maxPainLevel = Math.max(maxPainLevel, readingPainLevel);
+        }
+
+        double score = readingScore(heartRate, oxygenSaturation, steps, painLevel);
+        if (readings == 0) {
+            iotScore = score;
+        } else {
+            iotScore += alpha * (score - iotScore);
+            trend += alpha * ((score - lastReadingScore) - trend);
+        }
+        lastReadingScore = score;
+        minReadingScore = Math.min(minReadingScore, score);
+        maxReadingScore = Math.max(maxReadingScore, score);
+        readings++;
+        lastActivityAt = now;
+    }
+
+    /**
+     * IoT score (0-100) of a single set of vitals; NaN vitals are ignored.
+     */
+    static double readingScore(double heartRate, double oxygenSaturation, double steps, double painLevel) {
+        double score = 70.0; // Base score
+        if (!Double.isNaN(heartRate)) {
+            score += heartRate >= 60 && heartRate <= 100 ? 10 : -20; // Normal / abnormal heart rate
+        }
+        if (!Double.isNaN(oxygenSaturation)) {
+            score += oxygenSaturation >= 95 ? 10 : -30; // Good / low oxygen
+        }
+        if (steps >= 5000) {
+            score += 5; // Good activity
+        }
+        if (painLevel <= 3) {
+            score += 5; // Low pain
+        } else if (painLevel > 7) {
+            score -= 15; // High pain
+        }
+        return Math.max(0, Math.min(100, score));
+    }
+
+    /**
+     * Weighted recovery score: IoT 40%, compliance 30%, medical history 20%,
+     * procedure 10%, rounded to two decimals.
+     */
+    public double recoveryScore() {
+        double weighted = iotScore() * 0.40
+                + complianceScore * 0.30
+                + medicalHistoryScore * 0.20
+                + procedureComplexityScore * 0.10;
+        return Math.round(weighted * 100.0) / 100.0;
+    }
+
+    void setComponents(double medicalHistory, double procedureComplexity, double compliance) {
+        medicalHistoryScore = medicalHistory;
+        procedureComplexityScore = procedureComplexity;
+        complianceScore = compliance;
+        componentsLoaded = true;
+    }
+
+    void markPersisted(double score, String category, boolean alert) {
+        persistedScore = score;
+        persistedCategory = category;
+        persistedAlert = alert;
+    }
+
+    void touch(long now) {
+        lastActivityAt = now;
+    }
+
+    public double iotScore() {
+        return readings == 0 ? NEUTRAL_IOT_SCORE : Math.round(iotScore * 100.0) / 100.0;
+    }
+
+    public Vitals vitals() {
+        return new Vitals(heartRate, oxygenSaturation, steps, painLevel);
+    }
+
+    Long userId() {
+        return userId;
+    }
+
+    Long reservationId() {
+        return reservationId;
+    }
+
+    int partition() {
+        return partition;
+    }
+
+    Long doctorId() {
+        return doctorId;
+    }
+
+    long readings() {
+        return readings;
+    }
+
+    long lastActivityAt() {
+        return lastActivityAt;
+    }
+
+    double trend() {
+        return trend;
+    }
+
+    double minReadingScore() {
+        return minReadingScore;
+    }
+
+    double maxReadingScore() {
+        return maxReadingScore;
+    }
+
+    double minOxygenSaturation() {
+        return minOxygenSaturation;
+    }
+
+    double maxPainLevel() {
+        return maxPainLevel;
+    }
+
+    double medicalHistoryScore() {
+        return medicalHistoryScore;
+    }
+
+    double procedureComplexityScore() {
+        return procedureComplexityScore;
+    }
+
+    double complianceScore() {
+        return complianceScore;
+    }
+
+    boolean componentsLoaded() {
+        return componentsLoaded;
+    }
+
+    double persistedScore() {
+        return persistedScore;
+    }
+
+    String persistedCategory() {
+        return persistedCategory;
+    }
+
+    boolean persistedAlert() {
+        return persistedAlert;
+    }
+
+    ReentrantLock persistLock() {
+        return persistLock;
+    }
+}
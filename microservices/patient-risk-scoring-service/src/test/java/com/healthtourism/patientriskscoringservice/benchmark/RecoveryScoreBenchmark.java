@@ -0,0 +1,147 @@
+package com.healthtourism.patientriskscoringservice.benchmark;
+
+import com.healthtourism.patientriskscoringservice.service.RecoveryState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recovery scores per second for a stream of IoT readings across many
+ * reservations: folding each reading into the reservation's {@link RecoveryState}
+ * against the BigDecimal scoring the request path ran on the latest reading.
+ * Network and database calls are left out of both, so this is the CPU cost only.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.healthtourism.patientriskscoringservice.benchmark.RecoveryScoreBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecoveryScoreBenchmark {
+
+    private static final int READINGS = 4096;
+
+    @Param({"10000"})
+    private int reservations;
+
+    private Map<String, Object>[] readings;
+    private RecoveryState[] states;
+    private BigDecimal[] previousScores;
+    private int next;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        Random random = new Random(42);
+        readings = new Map[READINGS];
+        for (int i = 0; i < READINGS; i++) {
+            Map<String, Object> reading = new HashMap<>();
+            reading.put("userId", (long) random.nextInt(reservations));
+            reading.put("reservationId", (long) random.nextInt(reservations));
+            reading.put("heartRate", 55 + random.nextInt(60));
+            reading.put("oxygenSaturation", 90 + random.nextInt(10));
+            reading.put("steps", random.nextInt(10_000));
+            reading.put("painLevel", random.nextInt(11));
+            readings[i] = reading;
+        }
+        states = new RecoveryState[reservations];
+        previousScores = new BigDecimal[reservations];
+        for (int r = 0; r < reservations; r++) {
+            states[r] = new RecoveryState((long) r, (long) r, 0, 0L);
+            previousScores[r] = new BigDecimal("70.00");
+        }
+    }
+
+    @Benchmark
+    public double incremental() {
+        Map<String, Object> reading = readings[next++ & (READINGS - 1)];
+        RecoveryState state = states[((Number) reading.get("reservationId")).intValue()];
+        state.accept(null,
+                ((Number) reading.get("heartRate")).doubleValue(),
+                ((Number) reading.get("oxygenSaturation")).doubleValue(),
+                ((Number) reading.get("steps")).doubleValue(),
+                ((Number) reading.get("painLevel")).doubleValue(),
+                0.3, 0L);
+        return state.recoveryScore();
+    }
+
+    @Benchmark
+    public Object requestPath() {
+        Map<String, Object> latestData = readings[next++ & (READINGS - 1)];
+        int reservation = ((Number) latestData.get("reservationId")).intValue();
+
+        BigDecimal iotDataScore = new BigDecimal("70.0");
+        if (latestData.containsKey("heartRate")) {
+            BigDecimal heartRate = new BigDecimal(latestData.get("heartRate").toString());
+            if (heartRate.compareTo(new BigDecimal("60")) >= 0 && heartRate.compareTo(new BigDecimal("100")) <= 0) {
+                iotDataScore = iotDataScore.add(new BigDecimal("10"));
+            } else {
+                iotDataScore = iotDataScore.subtract(new BigDecimal("20"));
+            }
+        }
+        if (latestData.containsKey("oxygenSaturation")) {
+            BigDecimal oxygenSat = new BigDecimal(latestData.get("oxygenSaturation").toString());
+            if (oxygenSat.compareTo(new BigDecimal("95")) >= 0) {
+                iotDataScore = iotDataScore.add(new BigDecimal("10"));
+            } else {
+                iotDataScore = iotDataScore.subtract(new BigDecimal("30"));
+            }
+        }
+        if (latestData.containsKey("steps")) {
+            BigDecimal steps = new BigDecimal(latestData.get("steps").toString());
+            if (steps.compareTo(new BigDecimal("5000")) >= 0) {
+                iotDataScore = iotDataScore.add(new BigDecimal("5"));
+            }
+        }
+        if (latestData.containsKey("painLevel")) {
+            BigDecimal painLevel = new BigDecimal(latestData.get("painLevel").toString());
+            if (painLevel.compareTo(new BigDecimal("3")) <= 0) {
+                iotDataScore = iotDataScore.add(new BigDecimal("5"));
+            } else if (painLevel.compareTo(new BigDecimal("7")) > 0) {
+                iotDataScore = iotDataScore.subtract(new BigDecimal("15"));
+            }
+        }
+        iotDataScore = iotDataScore.max(new BigDecimal("0")).min(new BigDecimal("100"));
+
+        BigDecimal recoveryScore = iotDataScore.multiply(new BigDecimal("0.40"))
+                .add(new BigDecimal("75").multiply(new BigDecimal("0.30")))
+                .add(new BigDecimal("70").multiply(new BigDecimal("0.20")))
+                .add(new BigDecimal("70").multiply(new BigDecimal("0.10")))
+                .setScale(2, RoundingMode.HALF_UP);
+        BigDecimal scoreChange = recoveryScore.subtract(previousScores[reservation]);
+        previousScores[reservation] = recoveryScore;
+        String scoreCategory = recoveryScore.compareTo(new BigDecimal("80")) >= 0 ? "EXCELLENT"
+                : recoveryScore.compareTo(new BigDecimal("60")) >= 0 ? "GOOD"
+                : recoveryScore.compareTo(new BigDecimal("40")) >= 0 ? "FAIR" : "POOR";
+        String trend = scoreChange.compareTo(new BigDecimal("5")) > 0 ? "IMPROVING"
+                : scoreChange.compareTo(new BigDecimal("-5")) < 0 ? "DECLINING" : "STABLE";
+        return scoreCategory + trend;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RecoveryScoreBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
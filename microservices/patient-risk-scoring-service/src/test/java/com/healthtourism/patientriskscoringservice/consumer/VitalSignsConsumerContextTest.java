@@ -0,0 +1,48 @@
+package com.healthtourism.patientriskscoringservice.consumer;
+
+import com.healthtourism.patientriskscoringservice.service.PatientRiskScoringService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.jackson.autoconfigure.JacksonAutoConfiguration;
+import org.springframework.boot.kafka.autoconfigure.KafkaAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that Boot's Kafka auto-configuration picks up the vital signs listener
+ * and its rebalance hook. Containers are not started, so no broker is needed.
+ */
+@SpringBootTest(classes = VitalSignsConsumer.class,
+        properties = "spring.kafka.listener.auto-startup=false")
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, KafkaAutoConfiguration.class})
+class VitalSignsConsumerContextTest {
+
+    @MockitoBean
+    private PatientRiskScoringService riskScoringService;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry registry;
+
+    @Autowired
+    private VitalSignsConsumer consumer;
+
+    @Test
+    void testContext_RegistersVitalSignsListenerContainer() {
+        // When
+        Collection<MessageListenerContainer> containers = registry.getListenerContainers();
+
+        // Then
+        assertEquals(1, containers.size());
+        MessageListenerContainer container = containers.iterator().next();
+        assertArrayEquals(new String[]{"iot-vital-signs"}, container.getContainerProperties().getTopics());
+        assertEquals("patient-risk-scoring-group", container.getGroupId());
+        assertSame(consumer, container.getContainerProperties().getConsumerRebalanceListener());
+    }
+}
@@ -0,0 +1,301 @@
+package com.healthtourism.patientriskscoringservice.service;
+
+import com.healthtourism.patientriskscoringservice.entity.PatientRiskScore;
+import com.healthtourism.patientriskscoringservice.repository.PatientRiskScoreRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PatientRiskScoringServiceTest {
+
+    @Mock
+    private PatientRiskScoreRepository riskScoreRepository;
+
+    @Mock
+    private AlertService alertService;
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @InjectMocks
+    private PatientRiskScoringService riskScoringService;
+
+    private CountDownLatch saving;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(riskScoringService, "ewmaAlpha", 0.3);
+        ReflectionTestUtils.setField(riskScoringService, "persistDelta", 1.0);
+        ReflectionTestUtils.setField(riskScoringService, "rescoreParallelism", 4);
+        ReflectionTestUtils.setField(riskScoringService, "idleEviction", Duration.ofDays(7));
+        lenient().when(riskScoreRepository.save(any(PatientRiskScore.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private static Map<String, Object> reading(double heartRate, double oxygenSaturation, int steps, int painLevel) {
+        Map<String, Object> reading = new HashMap<>();
+        reading.put("userId", 1);
+        reading.put("reservationId", 10);
+        reading.put("doctorId", 7);
+        reading.put("heartRate", heartRate);
+        reading.put("oxygenSaturation", oxygenSaturation);
+        reading.put("steps", steps);
+        reading.put("painLevel", painLevel);
+        return reading;
+    }
+
+    @Test
+    void testOnVitalSigns_PersistsFirstScore() {
+        // When
+        riskScoringService.onVitalSigns(reading(75, 98, 6000, 2), 0);
+
+        // Then
+        ArgumentCaptor<PatientRiskScore> saved = ArgumentCaptor.forClass(PatientRiskScore.class);
+        verify(riskScoreRepository).save(saved.capture());
+        assertEquals(new BigDecimal("83.50"), saved.getValue().getRecoveryScore());
+        assertEquals("EXCELLENT", saved.getValue().getScoreCategory());
+        assertEquals(7L, saved.getValue().getDoctorId());
+        verify(alertService).sendPositiveNotification(1L, new BigDecimal("83.50"));
+    }
+
+    @Test
+    void testOnVitalSigns_SkipsUnchangedScore() {
+        // Given
+        riskScoringService.onVitalSigns(reading(75, 98, 6000, 2), 0);
+
+        // When
+        riskScoringService.onVitalSigns(reading(75, 98, 6000, 2), 0);
+        riskScoringService.onVitalSigns(reading(76, 97, 6100, 2), 0);
+
+        // Then
+        verify(riskScoreRepository, times(1)).save(any(PatientRiskScore.class));
+        verify(alertService, times(1)).sendPositiveNotification(anyLong(), any(BigDecimal.class));
+    }
+
+    @Test
+    void testOnVitalSigns_RetriesScoreAfterFailedSave() {
+        // Given
+        when(riskScoreRepository.save(any(PatientRiskScore.class)))
+                .thenThrow(new IllegalStateException("Database unavailable"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        assertThrows(IllegalStateException.class, () -> riskScoringService.onVitalSigns(reading(75, 98, 6000, 2), 0));
+
+        // When
+        riskScoringService.onVitalSigns(reading(75, 98, 6000, 2), 0);
+
+        // Then
+        verify(riskScoreRepository, times(2)).save(any(PatientRiskScore.class));
+        verify(alertService, times(1)).sendPositiveNotification(1L, new BigDecimal("83.50"));
+    }
+
+    @Test
+    void testReleaseStates_RebuildsFromStoredScore() {
+        // Given
+        riskScoringService.onVitalSigns(reading(75, 98, 6000, 2), 0);
+        PatientRiskScore stored = new PatientRiskScore();
+        stored.setRecoveryScore(new BigDecimal("83.50"));
+        stored.setScoreCategory("EXCELLENT");
+        stored.setRequiresDoctorAlert(false);
+        when(riskScoreRepository.findByUserIdAndReservationIdOrderByCalculatedAtDesc(1L, 10L))
+                .thenReturn(List.of(stored));
+
+        // When
+        riskScoringService.releaseStates(List.of(0));
+        riskScoringService.onVitalSigns(reading(75, 98, 6000, 2), 0);
+
+        // Then
+        verify(riskScoreRepository, times(1)).save(any(PatientRiskScore.class));
+    }
+
+    @Test
+    void testReleaseStates_KeepsStatesOfRetainedPartitions() {
+        // Given
+        riskScoringService.onVitalSigns(reading(75, 98, 6000, 2), 0);
+
+        // When
+        riskScoringService.releaseStates(List.of(1));
+        riskScoringService.onVitalSigns(reading(75, 98, 6000, 2), 0);
+
+        // Then - still tracked, so neither reloaded nor saved again
+        verify(riskScoreRepository, times(1)).findByUserIdAndReservationIdOrderByCalculatedAtDesc(1L, 10L);
+        verify(riskScoreRepository, times(1)).save(any(PatientRiskScore.class));
+    }
+
+    @Test
+    void testOnVitalSigns_AlertsOnceOnSignificantDrop() {
+        // Given
+        riskScoringService.onVitalSigns(reading(75, 98, 6000, 2), 0);
+
+        // When
+        riskScoringService.onVitalSigns(reading(130, 88, 500, 9), 0);
+
+        // Then
+        ArgumentCaptor<PatientRiskScore> saved = ArgumentCaptor.forClass(PatientRiskScore.class);
+        verify(riskScoreRepository, times(2)).save(saved.capture());
+        PatientRiskScore dropped = saved.getAllValues().get(1);
+        assertEquals(new BigDecimal("72.10"), dropped.getRecoveryScore());
+        assertEquals(new BigDecimal("-11.40"), dropped.getScoreChange());
+        assertEquals("DECLINING", dropped.getTrend());
+        assertTrue(dropped.getRequiresDoctorAlert());
+        assertNotNull(dropped.getLastAlertSentAt());
+        verify(alertService).sendRecoveryScoreAlert(dropped);
+    }
+
+    @Test
+    void testOnVitalSigns_IgnoresReadingWithoutReservation() {
+        // Given
+        Map<String, Object> reading = reading(75, 98, 6000, 2);
+        reading.remove("reservationId");
+
+        // When
+        riskScoringService.onVitalSigns(reading, 0);
+
+        // Then
+        verifyNoInteractions(riskScoreRepository, alertService);
+    }
+
+    @Test
+    void testCalculateRecoveryScore_SeedsFromLatestReading() {
+        // Given
+        when(restTemplate.getForObject(contains("/api/iot-monitoring/"), eq(List.class)))
+                .thenReturn(List.of(reading(75, 98, 6000, 2)));
+
+        // When
+        PatientRiskScore first = riskScoringService.calculateRecoveryScore(1L, 10L);
+        PatientRiskScore second = riskScoringService.calculateRecoveryScore(1L, 10L);
+
+        // Then
+        assertEquals(new BigDecimal("83.50"), first.getRecoveryScore());
+        assertEquals(new BigDecimal("83.50"), second.getRecoveryScore());
+        assertEquals("STABLE", second.getTrend());
+        verify(restTemplate, times(2)).getForObject(contains("/api/iot-monitoring/"), eq(List.class));
+        verify(riskScoreRepository, times(2)).save(any(PatientRiskScore.class));
+    }
+
+    @Test
+    void testCalculateRecoveryScore_ReservationOwnedElsewhere_NotRescored() {
+        // Given - no reading for the reservation reaches this instance
+        when(restTemplate.getForObject(contains("/api/iot-monitoring/"), eq(List.class)))
+                .thenReturn(List.of(reading(130, 88, 500, 9)));
+        riskScoringService.calculateRecoveryScore(1L, 10L);
+        clearInvocations(riskScoreRepository, alertService);
+        // Would change the score if the reservation were rescored here
+        lenient().when(restTemplate.getForObject(contains("/api/reservations/"), eq(Map.class)))
+                .thenReturn(Map.of("procedureType", "CARDIAC_SURGERY"));
+
+        // When
+        riskScoringService.recalculateActivePatientScores();
+
+        // Then
+        verifyNoInteractions(riskScoreRepository, alertService);
+    }
+
+    @Test
+    void testCalculateRecoveryScore_TrackedReservation_UsesConsumerState() {
+        // Given
+        riskScoringService.onVitalSigns(reading(75, 98, 6000, 2), 0);
+        riskScoringService.onVitalSigns(reading(130, 88, 500, 9), 0);
+
+        // When
+        PatientRiskScore score = riskScoringService.calculateRecoveryScore(1L, 10L);
+
+        // Then
+        assertEquals(new BigDecimal("72.10"), score.getRecoveryScore());
+        verify(restTemplate, never()).getForObject(contains("/api/iot-monitoring/"), eq(List.class));
+    }
+
+    @Test
+    void testRecalculateActivePatientScores_PicksUpChangedComponents() {
+        // Given
+        riskScoringService.onVitalSigns(reading(75, 98, 6000, 2), 0);
+        when(restTemplate.getForObject(contains("/api/reservations/"), eq(Map.class)))
+                .thenReturn(Map.of("procedureType", "CARDIAC_SURGERY"));
+
+        // When
+        riskScoringService.recalculateActivePatientScores();
+
+        // Then
+        ArgumentCaptor<PatientRiskScore> saved = ArgumentCaptor.forClass(PatientRiskScore.class);
+        verify(riskScoreRepository, times(2)).save(saved.capture());
+        assertEquals(new BigDecimal("82.50"), saved.getAllValues().get(1).getRecoveryScore());
+    }
+
+    @Test
+    void testRescoreDuringReadingSave_StoresAndNotifiesOnce() throws Exception {
+        // Given - the first reading's save is held open while a bulk rescore runs
+        CountDownLatch release = holdSaves();
+        CompletableFuture<Void> readingTask = CompletableFuture.runAsync(
+                () -> riskScoringService.onVitalSigns(reading(75, 98, 6000, 2), 0));
+
+        // When
+        rescoreWhileSaveInFlight(readingTask, release);
+
+        // Then - the rescore decides against the saved score and writes nothing
+        verify(riskScoreRepository, times(1)).save(any(PatientRiskScore.class));
+        verify(alertService, times(1)).sendPositiveNotification(1L, new BigDecimal("83.50"));
+    }
+
+    @Test
+    void testRescoreDuringAlertSave_AlertsDoctorOnce() throws Exception {
+        // Given - the drop reading's save is held open while a bulk rescore runs
+        riskScoringService.onVitalSigns(reading(75, 98, 6000, 2), 0);
+        CountDownLatch release = holdSaves();
+        CompletableFuture<Void> readingTask = CompletableFuture.runAsync(
+                () -> riskScoringService.onVitalSigns(reading(130, 88, 500, 9), 0));
+
+        // When
+        rescoreWhileSaveInFlight(readingTask, release);
+
+        // Then - the rescore sees the saved alert, so it does not alert again
+        ArgumentCaptor<PatientRiskScore> saved = ArgumentCaptor.forClass(PatientRiskScore.class);
+        verify(riskScoreRepository, atLeast(2)).save(saved.capture());
+        assertTrue(saved.getAllValues().get(1).getRequiresDoctorAlert());
+        saved.getAllValues().stream().skip(2).forEach(score -> assertNull(score.getLastAlertSentAt()));
+        verify(alertService, times(1)).sendRecoveryScoreAlert(any(PatientRiskScore.class));
+    }
+
+    /**
+     * Makes every later save block until the returned latch is released.
+     */
+    private CountDownLatch holdSaves() {
+        saving = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(riskScoreRepository.save(any(PatientRiskScore.class))).thenAnswer(invocation -> {
+            saving.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return invocation.getArgument(0);
+        });
+        return release;
+    }
+
+    private void rescoreWhileSaveInFlight(CompletableFuture<Void> readingTask, CountDownLatch release)
+            throws Exception {
+        assertTrue(saving.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> rescoreTask = CompletableFuture.runAsync(
+                riskScoringService::recalculateActivePatientScores);
+        Thread.sleep(200); // Let the rescore reach the reservation while the save is in flight
+        release.countDown();
+        readingTask.get(5, TimeUnit.SECONDS);
+        rescoreTask.get(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,78 @@
+package com.healthtourism.patientriskscoringservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecoveryStateTest {
+
+    private static final double ALPHA = 0.3;
+    private static final double NONE = Double.NaN;
+
+    private final RecoveryState state = new RecoveryState(1L, 10L, 0, 0L);
+
+    @Test
+    void testReadingScore_AppliesIoTRules() {
+        // When & Then
+        assertEquals(100.0, RecoveryState.readingScore(75, 98, 6000, 2));
+        assertEquals(5.0, RecoveryState.readingScore(130, 88, 500, 9));
+        assertEquals(70.0, RecoveryState.readingScore(NONE, NONE, NONE, NONE));
+        assertEquals(90.0, RecoveryState.readingScore(75, 98, NONE, 6));
+    }
+
+    @Test
+    void testIotScore_NeutralBeforeFirstReading() {
+        // When & Then
+        assertEquals(50.0, state.iotScore());
+        assertEquals(63.5, state.recoveryScore());
+    }
+
+    @Test
+    void testAccept_CarriesVitalsForward() {
+        // Given
+        state.accept(7L, 75, 98, 6000, 2, ALPHA, 1L);
+
+        // When
+        state.accept(null, NONE, 90, NONE, NONE, ALPHA, 2L);
+
+        // Then
+        RecoveryState.Vitals vitals = state.vitals();
+        assertEquals(75.0, vitals.heartRate());
+        assertEquals(90.0, vitals.oxygenSaturation());
+        assertEquals(6000.0, vitals.steps());
+        assertEquals(2.0, vitals.painLevel());
+        assertEquals(7L, state.doctorId());
+        assertEquals(90.0, state.minOxygenSaturation());
+        assertEquals(2L, state.lastActivityAt());
+    }
+
+    @Test
+    void testAccept_SmoothsReadingsWithEwma() {
+        // Given
+        state.accept(null, 75, 98, 6000, 2, ALPHA, 1L);
+
+        // When
+        state.accept(null, 130, 88, 500, 9, ALPHA, 2L);
+
+        // Then
+        assertEquals(71.5, state.iotScore());
+        assertEquals(5.0, state.minReadingScore());
+        assertEquals(100.0, state.maxReadingScore());
+        assertEquals(9.0, state.maxPainLevel());
+        assertEquals(-28.5, state.trend(), 1e-9);
+        assertEquals(2L, state.readings());
+    }
+
+    @Test
+    void testRecoveryScore_WeightsComponents() {
+        // Given
+        state.accept(null, 75, 98, 6000, 2, ALPHA, 1L);
+
+        // When
+        state.setComponents(80, 60, 75);
+
+        // Then
+        assertEquals(40.0 + 22.5 + 16.0 + 6.0, state.recoveryScore());
+        assertTrue(state.componentsLoaded());
+    }
+}
@@ -0,0 +1,117 @@
+package com.healthtourism.paymentservice.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.ManagedHttpClientConnectionFactory;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.io.ManagedHttpClientConnection;
+import org.apache.hc.core5.http.io.HttpConnectionFactory;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+
+/**
+ * Shared HTTP client for payment providers (PayPal REST API).
+ *
+ * One keep-alive connection pool for all provider calls, capped per host by
+ * {@code payment.provider.http.max-connections-per-route}, so a payment reuses an
+ * open TLS connection instead of paying for a new TCP + TLS handshake. Connection
+ * opens are counted next to requests, which gives the reuse rate:
+ * {@code 1 - payment.provider.http.connections.opened / payment.provider.http.requests}.
+ */
+@Configuration
+public class PaymentProviderHttpConfig {
+
+    @Value("${payment.provider.http.max-connections:64}")
+    private int maxConnections;
+
+    @Value("${payment.provider.http.max-connections-per-route:32}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${payment.provider.http.connect-timeout:3s}")
+    private Duration connectTimeout;
+
+    @Value("${payment.provider.http.read-timeout:8s}")
+    private Duration readTimeout;
+
+    @Value("${payment.provider.http.pool-wait-timeout:2s}")
+    private Duration poolWaitTimeout;
+
+    @Value("${payment.provider.http.idle-timeout:30s}")
+    private Duration idleTimeout;
+
+    @Value("${payment.provider.http.connection-ttl:5m}")
+    private Duration connectionTtl;
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient paymentProviderHttpClient(MeterRegistry meterRegistry) {
+        Counter opened = Counter.builder("payment.provider.http.connections.opened")
+                .description("New connections opened to payment providers")
+                .register(meterRegistry);
+        HttpConnectionFactory<ManagedHttpClientConnection> countingFactory = socket -> {
+            opened.increment();
+            return ManagedHttpClientConnectionFactory.INSTANCE.createConnection(socket);
+        };
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setConnectionFactory(countingFactory)
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .setTimeToLive(TimeValue.of(connectionTtl))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                        .build())
+                .build();
+
+        Gauge.builder("payment.provider.http.pool.leased", connectionManager, m -> m.getTotalStats().getLeased())
+                .description("Provider connections in use")
+                .register(meterRegistry);
+        Gauge.builder("payment.provider.http.pool.available", connectionManager, m -> m.getTotalStats().getAvailable())
+                .description("Idle provider connections ready for reuse")
+                .register(meterRegistry);
+        Gauge.builder("payment.provider.http.pool.pending", connectionManager, m -> m.getTotalStats().getPending())
+                .description("Requests waiting for a provider connection")
+                .register(meterRegistry);
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(poolWaitTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(idleTimeout))
+                .build();
+    }
+
+    @Bean
+    public RestTemplate paymentProviderRestTemplate(CloseableHttpClient paymentProviderHttpClient,
+                                                    MeterRegistry meterRegistry) {
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(paymentProviderHttpClient));
+        ClientHttpRequestInterceptor countRequests = (request, body, execution) -> {
+            Counter.builder("payment.provider.http.requests")
+                    .description("Requests sent to payment providers")
+                    .tag("host", String.valueOf(request.getURI().getHost()))
+                    .register(meterRegistry)
+                    .increment();
+            return execution.execute(request, body);
+        };
+        restTemplate.getInterceptors().add(countRequests);
+        return restTemplate;
+    }
+}
@@ -3,10 +3,14 @@ package com.healthtourism.paymentservice.controller;
 import com.healthtourism.paymentservice.dto.PaymentDTO;
 import com.healthtourism.paymentservice.dto.PaymentRequestDTO;
 import com.healthtourism.paymentservice.service.PaymentService;
+import com.healthtourism.paymentservice.service.PaymentStatusStream;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.net.URI;
 import java.util.List;
 
 @RestController
@@ -17,10 +21,20 @@ public class PaymentController {
     @Autowired
     private PaymentService paymentService;
     
+    /**
+     * Returns 202 while the provider call is still running; the Location header
+     * points at the status stream for that payment.
+     */
     @PostMapping
     public ResponseEntity<?> processPayment(@RequestBody PaymentRequestDTO request) {
         try {
-            return ResponseEntity.ok(paymentService.processPayment(request));
+            PaymentDTO payment = paymentService.processPayment(request);
+            if (PaymentStatusStream.isSettled(payment)) {
+                return ResponseEntity.ok(payment);
+            }
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/payments/number/" + payment.getPaymentNumber() + "/events"))
+                    .body(payment);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -40,6 +54,15 @@ public class PaymentController {
         }
     }
     
+    @GetMapping(value = "/number/{paymentNumber}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamPaymentStatus(@PathVariable String paymentNumber) {
+        try {
+            return ResponseEntity.ok(paymentService.streamStatus(paymentNumber));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
     @PostMapping("/{id}/refund")
     public ResponseEntity<?> refundPayment(@PathVariable Long id) {
         try {
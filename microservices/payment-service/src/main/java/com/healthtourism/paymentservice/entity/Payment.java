@@ -9,7 +9,9 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+    @Index(name = "idx_payment_status_created", columnList = "status, created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -40,7 +42,7 @@ public class Payment {
     private String paymentMethod; // CREDIT_CARD, DEBIT_CARD, PAYPAL, BANK_TRANSFER
 
     @Column(nullable = false)
-    private String status; // PENDING, COMPLETED, FAILED, REFUNDED
+    private String status; // PENDING, COMPLETED, FAILED, CANCELLED, REFUNDED (PENDING without transactionId: provider call in flight)
 
     @Column(nullable = false)
     private LocalDateTime paymentDate;
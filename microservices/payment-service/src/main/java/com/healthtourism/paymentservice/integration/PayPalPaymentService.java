@@ -1,15 +1,13 @@
 package com.healthtourism.paymentservice.integration;
 
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
-import jakarta.annotation.PostConstruct;
 import java.math.BigDecimal;
-import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -20,75 +18,25 @@ import java.util.Map;
 @Service
 public class PayPalPaymentService {
     
-    @Value("${paypal.client.id:}")
-    private String clientId;
+    @Autowired
+    private PayPalTokenProvider tokenProvider;
     
-    @Value("${paypal.client.secret:}")
-    private String clientSecret;
-    
-    @Value("${paypal.mode:sandbox}")
-    private String mode; // sandbox or live
-    
-    private String accessToken;
-    private String baseUrl;
-    private final RestTemplate restTemplate = new RestTemplate();
-    
-    @PostConstruct
-    public void init() {
-        baseUrl = "sandbox".equals(mode) 
-            ? "https://api.sandbox.paypal.com" 
-            : "https://api.paypal.com";
-        
-        if (!clientId.isEmpty() && !clientSecret.isEmpty()) {
-            refreshAccessToken();
-        }
-    }
-    
-    /**
-     * Get PayPal Access Token
-     */
-    private void refreshAccessToken() {
-        String tokenUrl = baseUrl + "/v1/oauth2/token";
-        
-        String auth = clientId + ":" + clientSecret;
-        String encodedAuth = Base64.getEncoder().encodeToString(auth.getBytes());
-        
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-        headers.setBasicAuth(clientId, clientSecret);
-        
-        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
-        params.add("grant_type", "client_credentials");
-        
-        HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(params, headers);
-        
-        try {
-            ResponseEntity<Map> response = restTemplate.postForEntity(tokenUrl, request, Map.class);
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                accessToken = (String) response.getBody().get("access_token");
-            }
-        } catch (Exception e) {
-            System.err.println("Failed to get PayPal access token: " + e.getMessage());
-        }
-    }
+    @Autowired
+    @Qualifier("paymentProviderRestTemplate")
+    private RestTemplate restTemplate;
     
     /**
      * Create PayPal Order
      */
     public Map<String, Object> createOrder(BigDecimal amount, String currency, String description) {
-        if (clientId.isEmpty() || clientSecret.isEmpty()) {
+        if (!tokenProvider.isConfigured()) {
             return createSimulatedOrder(amount, currency);
         }
         
-        if (accessToken == null) {
-            refreshAccessToken();
-        }
-        
-        String orderUrl = baseUrl + "/v2/checkout/orders";
+        String orderUrl = tokenProvider.getBaseUrl() + "/v2/checkout/orders";
         
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setBearerAuth(accessToken);
         headers.set("PayPal-Request-Id", java.util.UUID.randomUUID().toString());
         
         Map<String, Object> orderRequest = new HashMap<>();
@@ -115,7 +63,7 @@ public class PayPalPaymentService {
         HttpEntity<Map<String, Object>> request = new HttpEntity<>(orderRequest, headers);
         
         try {
-            ResponseEntity<Map> response = restTemplate.postForEntity(orderUrl, request, Map.class);
+            ResponseEntity<Map> response = send(orderUrl, HttpMethod.POST, request);
             if (response.getStatusCode() == HttpStatus.CREATED && response.getBody() != null) {
                 Map<String, Object> order = (Map<String, Object>) response.getBody();
                 Map<String, Object> result = new HashMap<>();
@@ -146,24 +94,19 @@ public class PayPalPaymentService {
      * Capture PayPal Order
      */
     public Map<String, Object> captureOrder(String orderId) {
-        if (clientId.isEmpty() || clientSecret.isEmpty()) {
+        if (!tokenProvider.isConfigured()) {
             return createSimulatedCapture(orderId);
         }
         
-        if (accessToken == null) {
-            refreshAccessToken();
-        }
-        
-        String captureUrl = baseUrl + "/v2/checkout/orders/" + orderId + "/capture";
+        String captureUrl = tokenProvider.getBaseUrl() + "/v2/checkout/orders/" + orderId + "/capture";
         
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setBearerAuth(accessToken);
         
         HttpEntity<String> request = new HttpEntity<>(headers);
         
         try {
-            ResponseEntity<Map> response = restTemplate.postForEntity(captureUrl, request, Map.class);
+            ResponseEntity<Map> response = send(captureUrl, HttpMethod.POST, request);
             if (response.getStatusCode() == HttpStatus.CREATED && response.getBody() != null) {
                 Map<String, Object> order = (Map<String, Object>) response.getBody();
                 Map<String, Object> result = new HashMap<>();
@@ -202,28 +145,16 @@ public class PayPalPaymentService {
      * Get Order Status
      */
     public Map<String, Object> getOrderStatus(String orderId) {
-        if (clientId.isEmpty() || clientSecret.isEmpty()) {
+        if (!tokenProvider.isConfigured()) {
             return Map.of("status", "COMPLETED", "orderId", orderId);
         }
         
-        if (accessToken == null) {
-            refreshAccessToken();
-        }
-        
-        String orderUrl = baseUrl + "/v2/checkout/orders/" + orderId;
+        String orderUrl = tokenProvider.getBaseUrl() + "/v2/checkout/orders/" + orderId;
         
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBearerAuth(accessToken);
-        
-        HttpEntity<String> entity = new HttpEntity<>(headers);
+        HttpEntity<String> entity = new HttpEntity<>(new HttpHeaders());
         
         try {
-            ResponseEntity<Map> response = restTemplate.exchange(
-                orderUrl,
-                HttpMethod.GET,
-                entity,
-                Map.class
-            );
+            ResponseEntity<Map> response = send(orderUrl, HttpMethod.GET, entity);
             
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 Map<String, Object> order = response.getBody();
@@ -243,19 +174,14 @@ public class PayPalPaymentService {
      * Process Refund
      */
     public Map<String, Object> processRefund(String captureId, BigDecimal amount) {
-        if (clientId.isEmpty() || clientSecret.isEmpty()) {
+        if (!tokenProvider.isConfigured()) {
             return createSimulatedRefund(captureId);
         }
         
-        if (accessToken == null) {
-            refreshAccessToken();
-        }
-        
-        String refundUrl = baseUrl + "/v2/payments/captures/" + captureId + "/refund";
+        String refundUrl = tokenProvider.getBaseUrl() + "/v2/payments/captures/" + captureId + "/refund";
         
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setBearerAuth(accessToken);
         
         Map<String, Object> refundRequest = new HashMap<>();
         if (amount != null) {
@@ -268,7 +194,7 @@ public class PayPalPaymentService {
         HttpEntity<Map<String, Object>> request = new HttpEntity<>(refundRequest, headers);
         
         try {
-            ResponseEntity<Map> response = restTemplate.postForEntity(refundUrl, request, Map.class);
+            ResponseEntity<Map> response = send(refundUrl, HttpMethod.POST, request);
             if (response.getStatusCode() == HttpStatus.CREATED && response.getBody() != null) {
                 Map<String, Object> refund = response.getBody();
                 Map<String, Object> result = new HashMap<>();
@@ -283,6 +209,27 @@ public class PayPalPaymentService {
         throw new RuntimeException("Failed to process PayPal refund");
     }
     
+    /**
+     * Send with the cached access token; if PayPal rejects it (revoked or expired
+     * early), fetch a fresh one and retry once.
+     */
+    private ResponseEntity<Map> send(String url, HttpMethod method, HttpEntity<?> request) {
+        String token = tokenProvider.getAccessToken();
+        try {
+            return restTemplate.exchange(url, method, withBearer(request, token), Map.class);
+        } catch (HttpClientErrorException.Unauthorized e) {
+            tokenProvider.invalidate(token);
+            return restTemplate.exchange(url, method, withBearer(request, tokenProvider.getAccessToken()), Map.class);
+        }
+    }
+    
+    private static HttpEntity<?> withBearer(HttpEntity<?> request, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(request.getHeaders());
+        headers.setBearerAuth(token);
+        return new HttpEntity<>(request.getBody(), headers);
+    }
+    
     // Simulation methods for testing
     private Map<String, Object> createSimulatedOrder(BigDecimal amount, String currency) {
         Map<String, Object> result = new HashMap<>();
@@ -0,0 +1,238 @@
+package com.healthtourism.paymentservice.integration;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * PayPal OAuth access tokens (client credentials), cached for their lifetime.
+ *
+ * The token is refreshed in the background {@code paypal.oauth.refresh-ahead}
+ * before it expires, so payments normally never wait for the token endpoint.
+ * If a caller does find it missing or expired, concurrent callers share a single
+ * refresh instead of each requesting a token.
+ */
+@Component
+public class PayPalTokenProvider implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PayPalTokenProvider.class);
+
+    /** A token this close to expiry is not handed out; it could expire in flight. */
+    private static final Duration EXPIRY_SKEW = Duration.ofSeconds(30);
+
+    @Value("${paypal.client.id:}")
+    private String clientId;
+
+    @Value("${paypal.client.secret:}")
+    private String clientSecret;
+
+    @Value("${paypal.mode:sandbox}")
+    private String mode; // sandbox or live
+
+    @Value("${paypal.base-url:}")
+    private String baseUrlOverride;
+
+    @Value("${paypal.oauth.refresh-ahead:5m}")
+    private Duration refreshAhead;
+
+    @Value("${paypal.oauth.retry-interval:30s}")
+    private Duration retryInterval;
+
+    @Autowired
+    @Qualifier("paymentProviderRestTemplate")
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicReference<CompletableFuture<AccessToken>> inFlight = new AtomicReference<>();
+    private volatile AccessToken current;
+    private volatile ScheduledFuture<?> nextRefresh;
+    private String baseUrl;
+    private ScheduledExecutorService scheduler;
+
+    private record AccessToken(String value, Instant expiresAt) {
+        boolean usable(Instant now) {
+            return now.isBefore(expiresAt.minus(EXPIRY_SKEW));
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        baseUrl = !baseUrlOverride.isEmpty() ? baseUrlOverride
+                : "sandbox".equals(mode) ? "https://api.sandbox.paypal.com" : "https://api.paypal.com";
+
+        Gauge.builder("payment.provider.oauth.token.ttl", this, PayPalTokenProvider::secondsToExpiry)
+                .description("Seconds until the cached PayPal access token expires")
+                .tag("provider", "paypal")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "paypal-token-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        scheduler = executor;
+
+        if (isConfigured()) {
+            // Warm the cache without holding up startup if PayPal is unreachable
+            scheduler.execute(() -> refreshInBackground("startup"));
+        }
+    }
+
+    public boolean isConfigured() {
+        return !clientId.isEmpty() && !clientSecret.isEmpty();
+    }
+
+    /**
+     * PayPal API base URL for the configured mode, shared so tokens and API calls
+     * always target the same environment.
+     */
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public String getAccessToken() {
+        AccessToken token = current;
+        if (token != null && token.usable(Instant.now())) {
+            return token.value();
+        }
+        try {
+            return refresh("on-demand").join().value();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Drop a token PayPal rejected (e.g. revoked early); the next caller fetches a new one.
+     */
+    public void invalidate(String rejectedToken) {
+        AccessToken token = current;
+        if (token != null && token.value().equals(rejectedToken)) {
+            current = null;
+        }
+    }
+
+    private CompletableFuture<AccessToken> refresh(String trigger) {
+        CompletableFuture<AccessToken> mine = new CompletableFuture<>();
+        CompletableFuture<AccessToken> running = inFlight.compareAndExchange(null, mine);
+        if (running != null) {
+            counter("payment.provider.oauth.refresh.coalesced", null).increment();
+            return running;
+        }
+        try {
+            // Another caller may have finished a refresh between our cache check and the CAS;
+            // only the scheduled pre-expiry refresh replaces a token that is still usable
+            AccessToken token = current;
+            if (!"scheduled".equals(trigger) && token != null && token.usable(Instant.now())) {
+                mine.complete(token);
+                return mine;
+            }
+            token = fetchToken();
+            current = token;
+            counter("payment.provider.oauth.refresh", trigger).increment();
+            mine.complete(token);
+            scheduleRefresh(token);
+        } catch (RuntimeException e) {
+            counter("payment.provider.oauth.refresh.failed", trigger).increment();
+            mine.completeExceptionally(e);
+        } finally {
+            inFlight.set(null);
+        }
+        return mine;
+    }
+
+    private void refreshInBackground(String trigger) {
+        try {
+            refresh(trigger).join();
+        } catch (CompletionException e) {
+            log.warn("PayPal token refresh failed, retrying in {}: {}", retryInterval, e.getCause().getMessage());
+            if (!scheduler.isShutdown()) {
+                nextRefresh = scheduler.schedule(() -> refreshInBackground(trigger),
+                        retryInterval.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void scheduleRefresh(AccessToken token) {
+        Duration lifetime = Duration.between(Instant.now(), token.expiresAt());
+        // Tokens living less than twice refresh-ahead are refreshed at half-life
+        Duration delay = lifetime.compareTo(refreshAhead.multipliedBy(2)) > 0
+                ? lifetime.minus(refreshAhead)
+                : lifetime.dividedBy(2);
+        ScheduledFuture<?> previous = nextRefresh;
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        if (!scheduler.isShutdown()) {
+            nextRefresh = scheduler.schedule(() -> refreshInBackground("scheduled"),
+                    delay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private AccessToken fetchToken() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+        headers.setBasicAuth(clientId, clientSecret);
+
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        params.add("grant_type", "client_credentials");
+
+        Map<String, Object> body = restTemplate.postForObject(baseUrl + "/v1/oauth2/token",
+                new HttpEntity<>(params, headers), Map.class);
+        if (body == null || body.get("access_token") == null) {
+            throw new IllegalStateException("PayPal token response had no access_token");
+        }
+        long expiresIn = body.get("expires_in") instanceof Number seconds ? seconds.longValue() : 3600L;
+        return new AccessToken((String) body.get("access_token"), Instant.now().plusSeconds(expiresIn));
+    }
+
+    private Counter counter(String name, String trigger) {
+        Counter.Builder builder = Counter.builder(name).tag("provider", "paypal");
+        if (trigger != null) {
+            builder.tag("trigger", trigger);
+        }
+        return builder.register(meterRegistry);
+    }
+
+    private static double secondsToExpiry(PayPalTokenProvider provider) {
+        AccessToken token = provider.current;
+        return token == null ? 0 : Math.max(0, Duration.between(Instant.now(), token.expiresAt()).getSeconds());
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
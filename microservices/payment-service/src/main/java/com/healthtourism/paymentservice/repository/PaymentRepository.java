@@ -1,11 +1,14 @@
 package com.healthtourism.paymentservice.repository;
 
 import com.healthtourism.paymentservice.entity.Payment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,5 +22,22 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     
     @Query("SELECT p FROM Payment p WHERE p.userId = :userId ORDER BY p.createdAt DESC")
     List<Payment> findByUserIdOrderByCreatedAtDesc(@Param("userId") Long userId);
+    
+    /**
+     * Apply a provider outcome, but only to a payment whose provider call is still
+     * outstanding; returns 0 if it was already resolved (e.g. by the stale sweep).
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Payment p SET p.status = :status, p.transactionId = :transactionId, p.notes = :notes, " +
+           "p.paymentDate = :paymentDate WHERE p.id = :id AND p.status = 'PENDING' AND p.transactionId IS NULL")
+    int completePending(@Param("id") Long id,
+                        @Param("status") String status,
+                        @Param("transactionId") String transactionId,
+                        @Param("notes") String notes,
+                        @Param("paymentDate") LocalDateTime paymentDate);
+    
+    @Query("SELECT p.id FROM Payment p WHERE p.status = 'PENDING' AND p.transactionId IS NULL " +
+           "AND p.createdAt < :cutoff ORDER BY p.id")
+    List<Long> findStalePendingIds(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
 }
 
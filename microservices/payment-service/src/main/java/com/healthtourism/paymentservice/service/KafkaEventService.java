@@ -1,24 +1,25 @@
 package com.healthtourism.paymentservice.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthtourism.common.outbox.OutboxWriter;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Payment events for Kafka, written to the outbox in the caller's transaction
+ * and published by the outbox relay (keyed by payment id).
+ */
 @Service
 public class KafkaEventService {
     
     @Autowired
-    private KafkaTemplate<String, String> kafkaTemplate;
-    
-    @Autowired
-    private ObjectMapper objectMapper;
+    private OutboxWriter outboxWriter;
     
     private static final String PAYMENT_TOPIC = "payment-events";
+    private static final String AGGREGATE_TYPE = "PAYMENT";
     
     public void publishPaymentCreated(Long paymentId, Long reservationId, String status, BigDecimal amount) {
         Map<String, Object> event = new HashMap<>();
@@ -29,7 +30,7 @@ public class KafkaEventService {
         event.put("amount", amount);
         event.put("timestamp", System.currentTimeMillis());
         
-        publishEvent(PAYMENT_TOPIC, event);
+        publishEvent(paymentId, event);
     }
     
     public void publishPaymentCompleted(Long paymentId, String transactionId) {
@@ -39,7 +40,7 @@ public class KafkaEventService {
         event.put("transactionId", transactionId);
         event.put("timestamp", System.currentTimeMillis());
         
-        publishEvent(PAYMENT_TOPIC, event);
+        publishEvent(paymentId, event);
     }
     
     public void publishPaymentFailed(Long paymentId, String reason) {
@@ -49,7 +50,7 @@ public class KafkaEventService {
         event.put("reason", reason);
         event.put("timestamp", System.currentTimeMillis());
         
-        publishEvent(PAYMENT_TOPIC, event);
+        publishEvent(paymentId, event);
     }
     
     public void publishPaymentRefunded(Long paymentId) {
@@ -58,16 +59,11 @@ public class KafkaEventService {
         event.put("paymentId", paymentId);
         event.put("timestamp", System.currentTimeMillis());
         
-        publishEvent(PAYMENT_TOPIC, event);
+        publishEvent(paymentId, event);
     }
     
-    private void publishEvent(String topic, Map<String, Object> event) {
-        try {
-            String message = objectMapper.writeValueAsString(event);
-            kafkaTemplate.send(topic, message);
-        } catch (Exception e) {
-            System.err.println("Failed to publish event: " + e.getMessage());
-        }
+    private void publishEvent(Long paymentId, Map<String, Object> event) {
+        // Rolls back with the payment if the transaction fails; never lost if Kafka is down
+        outboxWriter.append(AGGREGATE_TYPE, paymentId, PAYMENT_TOPIC, (String) event.get("eventType"), event);
     }
 }
-
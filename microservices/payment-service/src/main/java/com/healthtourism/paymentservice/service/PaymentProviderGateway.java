@@ -0,0 +1,322 @@
+package com.healthtourism.paymentservice.service;
+
+import com.healthtourism.paymentservice.entity.Payment;
+import com.healthtourism.paymentservice.integration.PayPalPaymentService;
+import com.stripe.model.PaymentIntent;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Calls Stripe / PayPal outside of any database transaction.
+ *
+ * Calls run on a dedicated, bounded pool ({@code payment.provider.max-concurrency}
+ * threads, {@code payment.provider.queue-capacity} waiting calls) so a slow provider
+ * can neither exhaust request threads nor hold JDBC connections. Each provider has
+ * its own resilience4j circuit breaker ({@code resilience4j.circuitbreaker.instances.<provider>}).
+ *
+ * {@code payment.provider.timeout} applies twice, separately: a call still queued
+ * after it is dropped without reaching the provider, and a running call that
+ * exceeds it counts as a circuit breaker failure. A running call is never
+ * abandoned, because the provider may still charge the customer; its outcome is
+ * applied whenever it arrives, and the payment stays PENDING until then.
+ *
+ * The returned future completes normally: an open circuit, a full or expired queue
+ * or a provider error become a FAILED {@link PaymentProviderResult} (for
+ * {@link #reconcile}, an unresolved one, since the provider may have been reached).
+ * It completes on a separate pool of {@code payment.provider.completion-threads}
+ * threads, which is where callers run their completion transaction; that caps the
+ * JDBC connections taken by completions regardless of provider concurrency.
+ */
+@Component
+public class PaymentProviderGateway implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentProviderGateway.class);
+
+    static final String STRIPE = "stripe";
+    static final String PAYPAL = "paypal";
+    static final String SIMULATED = "simulated";
+
+    @Autowired(required = false)
+    private StripePaymentService stripePaymentService;
+
+    @Autowired(required = false)
+    private PayPalPaymentService payPalPaymentService;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${payment.provider.max-concurrency:32}")
+    private int maxConcurrency;
+
+    @Value("${payment.provider.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${payment.provider.timeout:10s}")
+    private Duration timeout;
+
+    @Value("${payment.provider.completion-threads:4}")
+    private int completionThreads;
+
+    private ThreadPoolExecutor executor;
+    private ScheduledExecutorService deadlines;
+    private ExecutorService completions;
+    private Counter rejected;
+
+    @Override
+    public void afterPropertiesSet() {
+        executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemonThreads("payment-provider-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        ScheduledThreadPoolExecutor deadlineTimer = new ScheduledThreadPoolExecutor(1, daemonThreads("payment-provider-deadline-"));
+        deadlineTimer.setRemoveOnCancelPolicy(true);
+        deadlines = deadlineTimer;
+        completions = Executors.newFixedThreadPool(completionThreads, daemonThreads("payment-completion-"));
+
+        Gauge.builder("payment.provider.executor.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Provider calls in progress")
+                .register(meterRegistry);
+        Gauge.builder("payment.provider.executor.queued", executor, e -> e.getQueue().size())
+                .description("Provider calls waiting for a free thread")
+                .register(meterRegistry);
+        rejected = Counter.builder("payment.provider.rejected")
+                .description("Payments failed without calling the provider (circuit open or pool full)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Start the provider call for a persisted PENDING payment.
+     *
+     * @param paymentMethodId Stripe payment method, only used for card payments; never persisted
+     */
+    public CompletableFuture<PaymentProviderResult> authorize(Payment payment, String paymentMethodId) {
+        if (stripePaymentService != null && "CREDIT_CARD".equals(payment.getPaymentMethod())) {
+            return execute(STRIPE, () -> createStripeIntent(payment, paymentMethodId));
+        }
+        if (payPalPaymentService != null && "PAYPAL".equals(payment.getPaymentMethod())) {
+            return execute(PAYPAL, () -> createPayPalOrder(payment));
+        }
+        return execute(SIMULATED, () -> new PaymentProviderResult("COMPLETED",
+                "TXN-" + UUID.randomUUID().toString().substring(0, 16).toUpperCase(), null));
+    }
+
+    /**
+     * Look up the outcome of a payment whose provider call never reported back, by
+     * the payment number it was created with. Returns an unresolved result while
+     * the provider cannot be asked, so the payment is only failed once the provider
+     * confirms it has no record of it.
+     */
+    public CompletableFuture<PaymentProviderResult> reconcile(Payment payment) {
+        if (stripePaymentService != null && "CREDIT_CARD".equals(payment.getPaymentMethod())) {
+            return execute(STRIPE, () -> stripePaymentService.findPaymentIntent(payment.getPaymentNumber())
+                    .map(intent -> new PaymentProviderResult(mapStripeStatus(intent.getStatus()), intent.getId(),
+                            "Reconciled with Stripe"))
+                    .orElseGet(() -> PaymentProviderResult.failed("Stripe has no payment for this payment number")),
+                    PaymentProviderResult::unresolved);
+        }
+        // PayPal orders and simulated payments charge nothing until a later step, so an unfinished call is safe to fail
+        return CompletableFuture.completedFuture(PaymentProviderResult.failed(
+                "Provider call did not complete; no charge was made"));
+    }
+
+    CompletableFuture<PaymentProviderResult> execute(String provider, Supplier<PaymentProviderResult> call) {
+        return execute(provider, call, PaymentProviderResult::failed);
+    }
+
+    /**
+     * @param onFailure builds the result for a call that failed or never reached the provider
+     */
+    CompletableFuture<PaymentProviderResult> execute(String provider, Supplier<PaymentProviderResult> call,
+                                                     Function<String, PaymentProviderResult> onFailure) {
+        CompletableFuture<PaymentProviderResult> result = new CompletableFuture<>();
+        CircuitBreaker breaker = circuitBreakerRegistry.circuitBreaker(provider);
+        if (!breaker.tryAcquirePermission()) {
+            rejected.increment();
+            result.complete(onFailure.apply("Payment provider temporarily unavailable, please retry"));
+            return result.thenApplyAsync(Function.identity(), completions);
+        }
+
+        // Set by whichever runs first: the call starting, or the queue deadline dropping it
+        AtomicBoolean dequeued = new AtomicBoolean();
+        Future<?> task;
+        try {
+            task = executor.submit(() -> {
+                if (dequeued.compareAndSet(false, true)) {
+                    call(provider, call, onFailure, breaker, result);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            breaker.releasePermission();
+            rejected.increment();
+            result.complete(onFailure.apply("Payment provider busy, please retry"));
+            return result.thenApplyAsync(Function.identity(), completions);
+        }
+
+        ScheduledFuture<?> queueDeadline = deadlines.schedule(() -> {
+            if (dequeued.compareAndSet(false, true)) {
+                task.cancel(false);
+                breaker.releasePermission();
+                rejected.increment();
+                result.complete(onFailure.apply("Payment provider busy, please retry"));
+                log.warn("Payment provider {} call dropped after waiting {} in the queue", provider, timeout);
+            }
+        }, timeout.toNanos(), TimeUnit.NANOSECONDS);
+        result.whenComplete((outcome, error) -> queueDeadline.cancel(false));
+        return result.thenApplyAsync(Function.identity(), completions);
+    }
+
+    /**
+     * Run the provider call on a pool thread. The deadline only reports the call as slow;
+     * the result is delivered whenever the provider answers.
+     */
+    private void call(String provider, Supplier<PaymentProviderResult> call,
+                      Function<String, PaymentProviderResult> onFailure, CircuitBreaker breaker,
+                      CompletableFuture<PaymentProviderResult> result) {
+        long started = System.nanoTime();
+        // Set by whichever runs first: the call returning, or its deadline
+        AtomicBoolean settled = new AtomicBoolean();
+        ScheduledFuture<?> deadline = deadlines.schedule(() -> {
+            if (settled.compareAndSet(false, true)) {
+                breaker.onError(System.nanoTime() - started, TimeUnit.NANOSECONDS,
+                        new TimeoutException("Payment provider " + provider + " timed out"));
+                record(provider, "timeout", started);
+                log.warn("Payment provider {} did not respond within {}; payment stays PENDING until it does",
+                        provider, timeout);
+            }
+        }, timeout.toNanos(), TimeUnit.NANOSECONDS);
+
+        PaymentProviderResult outcome;
+        RuntimeException error = null;
+        try {
+            outcome = call.get();
+        } catch (RuntimeException e) {
+            error = e;
+            outcome = onFailure.apply("Payment processing failed: " + e.getMessage());
+        } finally {
+            deadline.cancel(false);
+        }
+        if (settled.compareAndSet(false, true)) {
+            if (error != null) {
+                breaker.onError(System.nanoTime() - started, TimeUnit.NANOSECONDS, error);
+                record(provider, "error", started);
+            } else {
+                breaker.onSuccess(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                record(provider, "success", started);
+            }
+        } else {
+            record(provider, "late", started);
+            log.warn("Payment provider {} answered after {} (deadline {}): {} {}", provider,
+                    Duration.ofNanos(System.nanoTime() - started), timeout, outcome.status(), outcome.transactionId());
+        }
+        result.complete(outcome);
+    }
+
+    private PaymentProviderResult createStripeIntent(Payment payment, String paymentMethodId) {
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put("paymentNumber", payment.getPaymentNumber());
+        metadata.put("userId", String.valueOf(payment.getUserId()));
+        metadata.put("reservationId", String.valueOf(payment.getReservationId()));
+        metadata.put("reservationType", payment.getReservationType());
+
+        // Keyed by payment number so a retried create can never charge twice
+        PaymentIntent paymentIntent = stripePaymentService.createPaymentIntent(
+                payment.getAmount(), payment.getCurrency(), paymentMethodId, metadata,
+                "payment-" + payment.getPaymentNumber());
+        return new PaymentProviderResult(mapStripeStatus(paymentIntent.getStatus()), paymentIntent.getId(), null);
+    }
+
+    private PaymentProviderResult createPayPalOrder(Payment payment) {
+        Map<String, Object> orderResult = payPalPaymentService.createOrder(
+                payment.getAmount(),
+                payment.getCurrency(),
+                "Health Tourism Payment - Reservation #" + payment.getReservationId());
+        // PayPal requires user approval, so the payment stays PENDING with the order attached
+        return new PaymentProviderResult("PENDING", (String) orderResult.get("orderId"),
+                "PayPal order created. Approval URL: " + orderResult.get("approvalUrl"));
+    }
+
+    private String mapStripeStatus(String stripeStatus) {
+        switch (stripeStatus) {
+            case "succeeded":
+                return "COMPLETED";
+            case "requires_payment_method":
+            case "requires_confirmation":
+            case "requires_action":
+                return "PENDING";
+            case "canceled":
+                return "CANCELLED";
+            default:
+                return "FAILED";
+        }
+    }
+
+    private void record(String provider, String outcome, long started) {
+        Timer.builder("payment.provider.call")
+                .description("Payment provider call latency")
+                .tag("provider", provider)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        if (deadlines != null) {
+            deadlines.shutdownNow();
+        }
+        if (completions != null) {
+            completions.shutdown();
+            completions.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.healthtourism.paymentservice.service;
+
+/**
+ * Outcome of a single payment-provider call, applied to the payment by
+ * {@link PaymentStateService#complete}.
+ *
+ * @param status        PENDING (e.g. waiting for PayPal approval), COMPLETED, FAILED or CANCELLED
+ * @param transactionId provider reference, null if the provider was never reached
+ * @param notes         human-readable detail stored on the payment
+ */
+public record PaymentProviderResult(String status, String transactionId, String notes) {
+
+    public static PaymentProviderResult failed(String reason) {
+        return new PaymentProviderResult("FAILED", null, reason);
+    }
+
+    /**
+     * The provider could not be asked; the payment stays as it is.
+     */
+    public static PaymentProviderResult unresolved(String reason) {
+        return new PaymentProviderResult("PENDING", null, reason);
+    }
+
+    /**
+     * False for {@link #unresolved} results, which carry no outcome to apply.
+     */
+    public boolean resolved() {
+        return !"PENDING".equals(status) || transactionId != null;
+    }
+}
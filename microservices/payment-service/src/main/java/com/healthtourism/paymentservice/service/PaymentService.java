@@ -4,21 +4,26 @@ import com.healthtourism.paymentservice.dto.PaymentDTO;
 import com.healthtourism.paymentservice.dto.PaymentRequestDTO;
 import com.healthtourism.paymentservice.entity.Payment;
 import com.healthtourism.paymentservice.repository.PaymentRepository;
-import com.stripe.model.PaymentIntent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
 public class PaymentService {
     
+    private static final Logger log = LoggerFactory.getLogger(PaymentService.class);
+    
     @Autowired
     private PaymentRepository paymentRepository;
     
@@ -28,108 +33,76 @@ public class PaymentService {
     @Autowired
     private EventStoreService eventStoreService;
     
-    @Autowired(required = false)
-    private StripePaymentService stripePaymentService;
+    @Autowired
+    private PaymentStateService paymentStateService;
     
-    @Autowired(required = false)
-    private com.healthtourism.paymentservice.integration.PayPalPaymentService payPalPaymentService;
+    @Autowired
+    private PaymentProviderGateway paymentProviderGateway;
     
-    @Transactional
+    @Autowired
+    private PaymentStatusStream paymentStatusStream;
+    
+    @Value("${payment.provider.stale-after:5m}")
+    private Duration staleAfter;
+    
+    /**
+     * Persist the payment as PENDING and return it right away; the provider call runs
+     * on {@link PaymentProviderGateway}'s pool and its outcome is applied in a second
+     * short transaction, then pushed to {@link #streamStatus} subscribers.
+     */
     public PaymentDTO processPayment(PaymentRequestDTO request) {
-        Payment payment = new Payment();
-        payment.setPaymentNumber(UUID.randomUUID().toString().substring(0, 12).toUpperCase());
-        payment.setUserId(request.getUserId());
-        payment.setReservationId(request.getReservationId());
-        payment.setReservationType(request.getReservationType());
-        payment.setAmount(request.getAmount());
-        payment.setCurrency(request.getCurrency() != null ? request.getCurrency() : "TRY");
-        payment.setPaymentMethod(request.getPaymentMethod());
-        payment.setCreatedAt(LocalDateTime.now());
+        Payment pending = paymentStateService.createPending(request);
         
-        String status = "PENDING";
-        String transactionId = null;
+        // In real app, cardNumber would be a payment method ID
+        paymentProviderGateway.authorize(pending, request.getCardNumber())
+            .thenAccept(result -> complete(pending.getId(), result))
+            .exceptionally(error -> {
+                // Stays PENDING; the stale sweep reconciles it with the provider
+                log.error("Could not record provider outcome for payment {}: {}",
+                    pending.getPaymentNumber(), error.getMessage());
+                return null;
+            });
         
-        // Process payment with Stripe if available
-        if (stripePaymentService != null && "CREDIT_CARD".equals(request.getPaymentMethod())) {
-            try {
-                Map<String, String> metadata = new HashMap<>();
-                metadata.put("userId", String.valueOf(request.getUserId()));
-                metadata.put("reservationId", String.valueOf(request.getReservationId()));
-                metadata.put("reservationType", request.getReservationType());
-                
-                PaymentIntent paymentIntent = stripePaymentService.createPaymentIntent(
-                    request.getAmount(),
-                    payment.getCurrency(),
-                    request.getCardNumber(), // In real app, this would be payment method ID
-                    metadata
-                );
-                
-                transactionId = paymentIntent.getId();
-                status = mapStripeStatus(paymentIntent.getStatus());
-                
-            } catch (Exception e) {
-                status = "FAILED";
-                payment.setNotes("Payment processing failed: " + e.getMessage());
-            }
-        } 
-        // Process payment with PayPal if available
-        else if (payPalPaymentService != null && "PAYPAL".equals(request.getPaymentMethod())) {
-            try {
-                Map<String, Object> orderResult = payPalPaymentService.createOrder(
-                    request.getAmount(),
-                    payment.getCurrency(),
-                    "Health Tourism Payment - Reservation #" + request.getReservationId()
-                );
-                
-                transactionId = (String) orderResult.get("orderId");
-                status = "PENDING"; // PayPal requires user approval, so status is PENDING
-                payment.setNotes("PayPal order created. Approval URL: " + orderResult.get("approvalUrl"));
-                
-            } catch (Exception e) {
-                status = "FAILED";
-                payment.setNotes("PayPal payment processing failed: " + e.getMessage());
-            }
-        } 
-        else {
-            // Fallback to simulation
-            status = "COMPLETED";
-            transactionId = "TXN-" + UUID.randomUUID().toString().substring(0, 16).toUpperCase();
+        return convertToDTO(pending);
+    }
+    
+    public SseEmitter streamStatus(String paymentNumber) {
+        return paymentStatusStream.subscribe(paymentNumber, () -> getPaymentByNumber(paymentNumber));
+    }
+    
+    /**
+     * Settle payments whose provider call never reported back (e.g. the instance died
+     * mid-call) with whatever the provider recorded for them; they stay PENDING while
+     * the provider cannot be reached. {@code payment.provider.stale-after} must be well
+     * above the provider timeout.
+     */
+    @Scheduled(fixedDelayString = "${payment.provider.stale-sweep-interval-ms:60000}")
+    public void reconcileStalePayments() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(staleAfter);
+        List<Long> staleIds = paymentRepository.findStalePendingIds(cutoff, PageRequest.of(0, 100));
+        if (staleIds.isEmpty()) {
+            return;
         }
-        
-        payment.setStatus(status);
-        payment.setTransactionId(transactionId);
-        payment.setPaymentDate(LocalDateTime.now());
-        
-        Payment saved = paymentRepository.save(payment);
-        
-        // Save event to event store
-        com.healthtourism.paymentservice.event.PaymentEvent event = 
-            new com.healthtourism.paymentservice.event.PaymentEvent();
-        event.setEventType("PAYMENT_" + saved.getStatus());
-        event.setPaymentId(saved.getId());
-        event.setPaymentNumber(saved.getPaymentNumber());
-        event.setUserId(saved.getUserId());
-        event.setReservationId(saved.getReservationId());
-        event.setReservationType(saved.getReservationType());
-        event.setAmount(saved.getAmount());
-        event.setCurrency(saved.getCurrency());
-        event.setPaymentMethod(saved.getPaymentMethod());
-        event.setStatus(saved.getStatus());
-        event.setTransactionId(saved.getTransactionId());
-        event.setPaymentDate(saved.getPaymentDate());
-        event.setEventTimestamp(java.time.LocalDateTime.now());
-        event.setEventId(java.util.UUID.randomUUID().toString());
-        
-        eventStoreService.saveEvent("PAYMENT_" + saved.getStatus(), saved.getId(), event, 1L);
-        
-        // Publish event to Kafka
-        if ("COMPLETED".equals(saved.getStatus())) {
-            kafkaEventService.publishPaymentCompleted(saved.getId(), saved.getTransactionId());
-        } else {
-            kafkaEventService.publishPaymentCreated(saved.getId(), saved.getReservationId(), saved.getStatus(), saved.getAmount());
+        log.warn("Reconciling {} payments whose provider call did not complete before {}", staleIds.size(), cutoff);
+        for (Payment payment : paymentRepository.findAllById(staleIds)) {
+            paymentProviderGateway.reconcile(payment)
+                .thenAccept(result -> {
+                    if (!result.resolved()) {
+                        log.warn("Payment {} still unresolved: {}", payment.getPaymentNumber(), result.notes());
+                    }
+                    complete(payment.getId(), result);
+                })
+                .exceptionally(error -> {
+                    log.error("Could not reconcile payment {}: {}", payment.getPaymentNumber(), error.getMessage());
+                    return null;
+                });
         }
-        
-        return convertToDTO(saved);
+    }
+    
+    private void complete(Long paymentId, PaymentProviderResult result) {
+        paymentStateService.complete(paymentId, result)
+            .map(this::convertToDTO)
+            .ifPresent(paymentStatusStream::publish);
     }
     
     public List<PaymentDTO> getPaymentsByUser(Long userId) {
@@ -182,21 +155,6 @@ public class PaymentService {
         return convertToDTO(saved);
     }
     
-    private String mapStripeStatus(String stripeStatus) {
-        switch (stripeStatus) {
-            case "succeeded":
-                return "COMPLETED";
-            case "requires_payment_method":
-            case "requires_confirmation":
-            case "requires_action":
-                return "PENDING";
-            case "canceled":
-                return "CANCELLED";
-            default:
-                return "FAILED";
-        }
-    }
-    
     private PaymentDTO convertToDTO(Payment payment) {
         PaymentDTO dto = new PaymentDTO();
         dto.setId(payment.getId());
@@ -0,0 +1,97 @@
+package com.healthtourism.paymentservice.service;
+
+import com.healthtourism.paymentservice.dto.PaymentRequestDTO;
+import com.healthtourism.paymentservice.entity.Payment;
+import com.healthtourism.paymentservice.event.PaymentEvent;
+import com.healthtourism.paymentservice.repository.PaymentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * The two short transactions around a provider call: persist the PENDING payment,
+ * then apply the provider's outcome. Neither does any network I/O, so a JDBC
+ * connection is only held for the inserts/updates themselves.
+ */
+@Service
+public class PaymentStateService {
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private KafkaEventService kafkaEventService;
+
+    @Autowired
+    private EventStoreService eventStoreService;
+
+    @Transactional
+    public Payment createPending(PaymentRequestDTO request) {
+        Payment payment = new Payment();
+        payment.setPaymentNumber(UUID.randomUUID().toString().substring(0, 12).toUpperCase());
+        payment.setUserId(request.getUserId());
+        payment.setReservationId(request.getReservationId());
+        payment.setReservationType(request.getReservationType());
+        payment.setAmount(request.getAmount());
+        payment.setCurrency(request.getCurrency() != null ? request.getCurrency() : "TRY");
+        payment.setPaymentMethod(request.getPaymentMethod());
+        payment.setStatus("PENDING");
+        payment.setCreatedAt(LocalDateTime.now());
+        payment.setPaymentDate(payment.getCreatedAt());
+
+        Payment saved = paymentRepository.save(payment);
+
+        eventStoreService.saveEvent("PAYMENT_PENDING", saved.getId(), toEvent(saved), 1L);
+        kafkaEventService.publishPaymentCreated(saved.getId(), saved.getReservationId(), saved.getStatus(), saved.getAmount());
+        return saved;
+    }
+
+    /**
+     * @return the updated payment, or empty if its provider call had already been resolved
+     *         or the result carries no outcome
+     */
+    @Transactional
+    public Optional<Payment> complete(Long paymentId, PaymentProviderResult result) {
+        if (!result.resolved()) {
+            return Optional.empty();
+        }
+        int updated = paymentRepository.completePending(paymentId, result.status(), result.transactionId(),
+                result.notes(), LocalDateTime.now());
+        if (updated == 0) {
+            return Optional.empty();
+        }
+        Payment saved = paymentRepository.findById(paymentId)
+                .orElseThrow(() -> new IllegalStateException("Payment " + paymentId + " disappeared during completion"));
+
+        eventStoreService.saveEvent("PAYMENT_" + saved.getStatus(), saved.getId(), toEvent(saved), 2L);
+        if ("COMPLETED".equals(saved.getStatus())) {
+            kafkaEventService.publishPaymentCompleted(saved.getId(), saved.getTransactionId());
+        } else if ("FAILED".equals(saved.getStatus()) || "CANCELLED".equals(saved.getStatus())) {
+            kafkaEventService.publishPaymentFailed(saved.getId(), saved.getNotes());
+        }
+        return Optional.of(saved);
+    }
+
+    private PaymentEvent toEvent(Payment payment) {
+        PaymentEvent event = new PaymentEvent();
+        event.setEventType("PAYMENT_" + payment.getStatus());
+        event.setPaymentId(payment.getId());
+        event.setPaymentNumber(payment.getPaymentNumber());
+        event.setUserId(payment.getUserId());
+        event.setReservationId(payment.getReservationId());
+        event.setReservationType(payment.getReservationType());
+        event.setAmount(payment.getAmount());
+        event.setCurrency(payment.getCurrency());
+        event.setPaymentMethod(payment.getPaymentMethod());
+        event.setStatus(payment.getStatus());
+        event.setTransactionId(payment.getTransactionId());
+        event.setPaymentDate(payment.getPaymentDate());
+        event.setEventTimestamp(LocalDateTime.now());
+        event.setEventId(UUID.randomUUID().toString());
+        return event;
+    }
+}
@@ -0,0 +1,91 @@
+package com.healthtourism.paymentservice.service;
+
+import com.healthtourism.paymentservice.dto.PaymentDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Server-sent status updates for payments whose provider call is still running.
+ *
+ * A subscriber receives the current status immediately and one more event when
+ * the payment settles, after which the stream is closed. Subscriptions are local
+ * to this instance; a client whose stream times out (or lands on another
+ * instance) just gets the current status again on reconnect.
+ */
+@Component
+public class PaymentStatusStream {
+
+    private static final String EVENT_NAME = "status";
+
+    private final ConcurrentMap<String, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    @Value("${payment.status.stream-timeout-ms:30000}")
+    private long streamTimeoutMs;
+
+    /**
+     * True once the provider call is done; PENDING with a transaction id means the
+     * provider accepted the payment and is waiting for the customer (PayPal approval).
+     */
+    public static boolean isSettled(PaymentDTO payment) {
+        return !"PENDING".equals(payment.getStatus()) || payment.getTransactionId() != null;
+    }
+
+    public SseEmitter subscribe(String paymentNumber, Supplier<PaymentDTO> currentStatus) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        // Register before reading the status so a completion in between is not missed
+        subscribers.compute(paymentNumber, (key, emitters) -> {
+            Set<SseEmitter> registered = emitters != null ? emitters : ConcurrentHashMap.newKeySet();
+            registered.add(emitter);
+            return registered;
+        });
+        emitter.onCompletion(() -> unsubscribe(paymentNumber, emitter));
+        emitter.onTimeout(() -> unsubscribe(paymentNumber, emitter));
+        emitter.onError(error -> unsubscribe(paymentNumber, emitter));
+
+        PaymentDTO current;
+        try {
+            current = currentStatus.get();
+        } catch (RuntimeException e) {
+            unsubscribe(paymentNumber, emitter);
+            throw e;
+        }
+        send(emitter, current);
+        return emitter;
+    }
+
+    public void publish(PaymentDTO payment) {
+        Set<SseEmitter> emitters = subscribers.get(payment.getPaymentNumber());
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            send(emitter, payment);
+        }
+    }
+
+    private void send(SseEmitter emitter, PaymentDTO payment) {
+        try {
+            emitter.send(SseEmitter.event().name(EVENT_NAME).data(payment));
+            if (isSettled(payment)) {
+                emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away or the stream was already completed
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void unsubscribe(String paymentNumber, SseEmitter emitter) {
+        subscribers.computeIfPresent(paymentNumber, (key, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
@@ -4,7 +4,9 @@ import com.stripe.Stripe;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
 import com.stripe.model.Refund;
+import com.stripe.net.RequestOptions;
 import com.stripe.param.PaymentIntentCreateParams;
+import com.stripe.param.PaymentIntentSearchParams;
 import com.stripe.param.RefundCreateParams;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -13,6 +15,7 @@ import jakarta.annotation.PostConstruct;
 import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Stripe Payment Gateway Integration Service
@@ -26,6 +29,12 @@ public class StripePaymentService {
     @Value("${stripe.public.key:pk_test_your_public_key}")
     private String publicKey;
 
+    @Value("${stripe.connect-timeout-ms:3000}")
+    private int connectTimeoutMs;
+
+    @Value("${stripe.read-timeout-ms:8000}")
+    private int readTimeoutMs;
+
     @PostConstruct
     public void init() {
         if (!secretKey.equals("sk_test_your_secret_key")) {
@@ -37,6 +46,14 @@ public class StripePaymentService {
      * Create Payment Intent
      */
     public PaymentIntent createPaymentIntent(BigDecimal amount, String currency, String paymentMethodId, Map<String, String> metadata) {
+        return createPaymentIntent(amount, currency, paymentMethodId, metadata, null);
+    }
+
+    /**
+     * Create Payment Intent; Stripe replays the original response for a repeated idempotency key
+     */
+    public PaymentIntent createPaymentIntent(BigDecimal amount, String currency, String paymentMethodId,
+                                             Map<String, String> metadata, String idempotencyKey) {
         if (secretKey.equals("sk_test_your_secret_key")) {
             // Simulation mode
             return createSimulatedPaymentIntent(amount, currency);
@@ -57,7 +74,13 @@ public class StripePaymentService {
 
             PaymentIntentCreateParams params = builder.build();
 
-            return PaymentIntent.create(params);
+            RequestOptions options = RequestOptions.builder()
+                    .setConnectTimeout(connectTimeoutMs)
+                    .setReadTimeout(readTimeoutMs)
+                    .setIdempotencyKey(idempotencyKey)
+                    .build();
+
+            return PaymentIntent.create(params, options);
         } catch (StripeException e) {
             throw new RuntimeException("Failed to create payment intent: " + e.getMessage(), e);
         }
@@ -116,6 +139,33 @@ public class StripePaymentService {
         }
     }
 
+    /**
+     * Find the Payment Intent created for one of our payments by its paymentNumber metadata.
+     * Stripe's search index lags writes by up to a minute.
+     */
+    public Optional<PaymentIntent> findPaymentIntent(String paymentNumber) {
+        if (secretKey.equals("sk_test_your_secret_key")) {
+            // Simulated intents are never stored
+            return Optional.empty();
+        }
+
+        try {
+            PaymentIntentSearchParams params = PaymentIntentSearchParams.builder()
+                    .setQuery("metadata['paymentNumber']:'" + paymentNumber + "'")
+                    .setLimit(1L)
+                    .build();
+
+            RequestOptions options = RequestOptions.builder()
+                    .setConnectTimeout(connectTimeoutMs)
+                    .setReadTimeout(readTimeoutMs)
+                    .build();
+
+            return PaymentIntent.search(params, options).getData().stream().findFirst();
+        } catch (StripeException e) {
+            throw new RuntimeException("Failed to search payment intents: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Handle Webhook Event
      */
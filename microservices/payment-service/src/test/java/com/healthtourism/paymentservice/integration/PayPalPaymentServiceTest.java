@@ -0,0 +1,185 @@
+package com.healthtourism.paymentservice.integration;
+
+import com.healthtourism.paymentservice.config.PaymentProviderHttpConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the PayPal integration against a local stub of the PayPal API to count
+ * the token requests and TCP connections each payment costs.
+ */
+class PayPalPaymentServiceTest {
+
+    private HttpServer server;
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+    private final AtomicInteger orderRequests = new AtomicInteger();
+    private final AtomicInteger rejectNextOrders = new AtomicInteger();
+    private volatile long tokenDelayMs;
+
+    private MeterRegistry meterRegistry;
+    private CloseableHttpClient httpClient;
+    private PayPalTokenProvider tokenProvider;
+    private PayPalPaymentService payPalPaymentService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/oauth2/token", exchange -> {
+            int n = tokenRequests.incrementAndGet();
+            sleep(tokenDelayMs);
+            respond(exchange, 200, "{\"access_token\":\"token-" + n + "\",\"token_type\":\"Bearer\",\"expires_in\":32400}");
+        });
+        server.createContext("/v2/checkout/orders", exchange -> {
+            orderRequests.incrementAndGet();
+            if (rejectNextOrders.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                respond(exchange, 401, "{\"error\":\"invalid_token\"}");
+                return;
+            }
+            respond(exchange, 201, "{\"id\":\"ORDER-" + orderRequests.get() + "\",\"status\":\"CREATED\","
+                    + "\"links\":[{\"rel\":\"approve\",\"href\":\"https://paypal.test/approve\"}]}");
+        });
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.start();
+
+        meterRegistry = new SimpleMeterRegistry();
+        PaymentProviderHttpConfig config = new PaymentProviderHttpConfig();
+        ReflectionTestUtils.setField(config, "maxConnections", 8);
+        ReflectionTestUtils.setField(config, "maxConnectionsPerRoute", 8);
+        ReflectionTestUtils.setField(config, "connectTimeout", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(config, "readTimeout", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(config, "poolWaitTimeout", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(config, "idleTimeout", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(config, "connectionTtl", Duration.ofMinutes(5));
+        httpClient = config.paymentProviderHttpClient(meterRegistry);
+        RestTemplate restTemplate = config.paymentProviderRestTemplate(httpClient, meterRegistry);
+
+        tokenProvider = new PayPalTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "clientId", "client");
+        ReflectionTestUtils.setField(tokenProvider, "clientSecret", "secret");
+        ReflectionTestUtils.setField(tokenProvider, "mode", "sandbox");
+        ReflectionTestUtils.setField(tokenProvider, "baseUrlOverride", "http://127.0.0.1:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(tokenProvider, "refreshAhead", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(tokenProvider, "retryInterval", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(tokenProvider, "restTemplate", restTemplate);
+        ReflectionTestUtils.setField(tokenProvider, "meterRegistry", meterRegistry);
+
+        payPalPaymentService = new PayPalPaymentService();
+        ReflectionTestUtils.setField(payPalPaymentService, "tokenProvider", tokenProvider);
+        ReflectionTestUtils.setField(payPalPaymentService, "restTemplate", restTemplate);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        tokenProvider.destroy();
+        httpClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    void testCreateOrder_ReusesTokenAndConnection() {
+        // Given
+        tokenProvider.afterPropertiesSet();
+        int payments = 50;
+
+        // When
+        for (int i = 0; i < payments; i++) {
+            Map<String, Object> order = payPalPaymentService.createOrder(new BigDecimal("100.00"), "USD", "Test");
+            assertEquals("CREATED", order.get("status"));
+        }
+
+        // Then
+        double connections = meterRegistry.get("payment.provider.http.connections.opened").counter().count();
+        System.out.printf("%d payments: %d token requests, %d HTTP requests over %.0f connection(s)"
+                        + " (previously a token request and a new connection per call)%n",
+                payments, tokenRequests.get(), tokenRequests.get() + orderRequests.get(), connections);
+        assertEquals(1, tokenRequests.get());
+        assertEquals(payments, orderRequests.get());
+        assertEquals(1.0, connections);
+    }
+
+    @Test
+    void testGetAccessToken_ConcurrentCallersShareOneRefresh() throws Exception {
+        // Given - no warm-up, every caller finds the cache empty
+        ReflectionTestUtils.setField(tokenProvider, "baseUrl", "http://127.0.0.1:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(tokenProvider, "scheduler", Executors.newSingleThreadScheduledExecutor());
+        tokenDelayMs = 200;
+        int callers = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> tokens = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < callers; i++) {
+            tokens.add(pool.submit(() -> {
+                start.await();
+                return tokenProvider.getAccessToken();
+            }));
+        }
+        start.countDown();
+
+        // Then
+        for (Future<String> token : tokens) {
+            assertEquals("token-1", token.get());
+        }
+        assertEquals(1, tokenRequests.get());
+        pool.shutdown();
+    }
+
+    @Test
+    void testCreateOrder_RejectedToken_RefreshesAndRetriesOnce() {
+        // Given
+        tokenProvider.afterPropertiesSet();
+        rejectNextOrders.set(1);
+
+        // When
+        Map<String, Object> order = payPalPaymentService.createOrder(new BigDecimal("100.00"), "USD", "Test");
+
+        // Then
+        assertEquals("CREATED", order.get("status"));
+        assertEquals(2, tokenRequests.get());
+        assertEquals(2, orderRequests.get());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getRequestBody().readAllBytes();
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.healthtourism.paymentservice.service;
+
+import com.healthtourism.paymentservice.dto.PaymentRequestDTO;
+import com.healthtourism.paymentservice.entity.Payment;
+import com.stripe.model.PaymentIntent;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Slow-PSP load test: compares the old flow (provider call inside the
+ * transaction) with the PENDING -> provider -> completion flow against a
+ * simulated 10-connection pool. Reports pool utilisation (connection-time held
+ * over the run) and p99 latency of the payment request and of an unrelated
+ * query running alongside.
+ * Run with -Dbenchmark=true.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PaymentLoadTest {
+
+    private static final int POOL_SIZE = 10;
+    private static final int CLIENTS = 64;
+    private static final int PAYMENTS = 500;
+    private static final long PSP_LATENCY_MS = 250;
+    private static final long STATEMENT_MS = 2;
+
+    @Test
+    void slowProviderDoesNotExhaustConnectionPool() throws Exception {
+        Result inline = run(false);
+        Result async = run(true);
+
+        for (Result result : List.of(inline, async)) {
+            System.out.printf("%-6s run %5d ms | request p99 %7.1f ms | unrelated query p99 %7.1f ms | pool busy %3.0f%%%n",
+                    result.name, result.elapsedMs, result.requestP99Ms, result.probeP99Ms, result.poolUtilisation * 100);
+        }
+
+        assertTrue(async.probeP99Ms < inline.probeP99Ms);
+        assertTrue(async.requestP99Ms < PSP_LATENCY_MS);
+    }
+
+    private Result run(boolean async) throws Exception {
+        SimulatedPool pool = new SimulatedPool(POOL_SIZE);
+        long runStarted = System.nanoTime();
+        PaymentService paymentService = async ? asyncPaymentService(pool) : null;
+        AtomicInteger settled = new AtomicInteger();
+        if (async) {
+            PaymentStatusStream stream = new PaymentStatusStream() {
+                @Override
+                public void publish(com.healthtourism.paymentservice.dto.PaymentDTO payment) {
+                    settled.incrementAndGet();
+                }
+            };
+            ReflectionTestUtils.setField(paymentService, "paymentStatusStream", stream);
+        }
+
+        List<Long> requestNanos = Collections.synchronizedList(new ArrayList<>());
+        List<Long> probeNanos = Collections.synchronizedList(new ArrayList<>());
+        AtomicLong remaining = new AtomicLong(PAYMENTS);
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        CountDownLatch done = new CountDownLatch(CLIENTS);
+        for (int c = 0; c < CLIENTS; c++) {
+            clients.execute(() -> {
+                while (remaining.getAndDecrement() > 0) {
+                    long started = System.nanoTime();
+                    if (async) {
+                        paymentService.processPayment(request());
+                    } else {
+                        pool.inTransaction(() -> {
+                            sleep(STATEMENT_MS);
+                            sleep(PSP_LATENCY_MS);
+                            sleep(STATEMENT_MS);
+                        });
+                    }
+                    requestNanos.add(System.nanoTime() - started);
+                }
+                done.countDown();
+            });
+        }
+
+        // Unrelated read query competing for the same pool
+        Thread probe = new Thread(() -> {
+            while (done.getCount() > 0) {
+                long started = System.nanoTime();
+                pool.inTransaction(() -> sleep(1));
+                probeNanos.add(System.nanoTime() - started);
+                sleep(5);
+            }
+        });
+        probe.start();
+        done.await();
+        probe.join();
+        clients.shutdown();
+        if (async) {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (settled.get() < PAYMENTS && System.nanoTime() < deadline) {
+                sleep(10);
+            }
+            ((PaymentProviderGateway) ReflectionTestUtils.getField(paymentService, "paymentProviderGateway")).destroy();
+        }
+        long elapsed = System.nanoTime() - runStarted;
+        return new Result(async ? "async" : "inline", TimeUnit.NANOSECONDS.toMillis(elapsed),
+                p99(requestNanos), p99(probeNanos), pool.heldNanos.get() / (double) (elapsed * POOL_SIZE));
+    }
+
+    private PaymentService asyncPaymentService(SimulatedPool pool) {
+        AtomicLong ids = new AtomicLong();
+        PaymentStateService stateService = new PaymentStateService() {
+            @Override
+            public Payment createPending(PaymentRequestDTO request) {
+                Payment payment = new Payment();
+                payment.setId(ids.incrementAndGet());
+                payment.setPaymentNumber("PAY" + payment.getId());
+                payment.setAmount(request.getAmount());
+                payment.setCurrency(request.getCurrency());
+                payment.setPaymentMethod(request.getPaymentMethod());
+                payment.setStatus("PENDING");
+                pool.inTransaction(() -> sleep(STATEMENT_MS));
+                return payment;
+            }
+
+            @Override
+            public Optional<Payment> complete(Long paymentId, PaymentProviderResult result) {
+                Payment payment = new Payment();
+                payment.setId(paymentId);
+                payment.setStatus(result.status());
+                payment.setTransactionId(result.transactionId());
+                pool.inTransaction(() -> sleep(STATEMENT_MS));
+                return Optional.of(payment);
+            }
+        };
+        StripePaymentService slowStripe = new StripePaymentService() {
+            @Override
+            public PaymentIntent createPaymentIntent(BigDecimal amount, String currency, String paymentMethodId,
+                                                     Map<String, String> metadata, String idempotencyKey) {
+                sleep(PSP_LATENCY_MS);
+                PaymentIntent intent = new PaymentIntent();
+                intent.setId("pi_" + metadata.get("paymentNumber"));
+                intent.setStatus("succeeded");
+                return intent;
+            }
+        };
+
+        PaymentProviderGateway gateway = new PaymentProviderGateway();
+        ReflectionTestUtils.setField(gateway, "stripePaymentService", slowStripe);
+        ReflectionTestUtils.setField(gateway, "circuitBreakerRegistry", CircuitBreakerRegistry.ofDefaults());
+        ReflectionTestUtils.setField(gateway, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(gateway, "maxConcurrency", 256);
+        ReflectionTestUtils.setField(gateway, "queueCapacity", PAYMENTS);
+        ReflectionTestUtils.setField(gateway, "timeout", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(gateway, "completionThreads", 4);
+        gateway.afterPropertiesSet();
+
+        PaymentService paymentService = new PaymentService();
+        ReflectionTestUtils.setField(paymentService, "paymentStateService", stateService);
+        ReflectionTestUtils.setField(paymentService, "paymentProviderGateway", gateway);
+        return paymentService;
+    }
+
+    private static PaymentRequestDTO request() {
+        PaymentRequestDTO request = new PaymentRequestDTO();
+        request.setUserId(1L);
+        request.setReservationId(1L);
+        request.setReservationType("HOSPITAL");
+        request.setAmount(new BigDecimal("1000.00"));
+        request.setCurrency("TRY");
+        request.setPaymentMethod("CREDIT_CARD");
+        request.setCardNumber("pm_card_visa");
+        return request;
+    }
+
+    private static double p99(List<Long> nanos) {
+        List<Long> sorted = new ArrayList<>(nanos);
+        Collections.sort(sorted);
+        return sorted.get((int) Math.ceil(sorted.size() * 0.99) - 1) / 1_000_000.0;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Result(String name, long elapsedMs, double requestP99Ms, double probeP99Ms, double poolUtilisation) {
+    }
+
+    /** Stands in for Hikari: a fixed number of connections, callers wait for a free one. */
+    private static final class SimulatedPool {
+        private final Semaphore connections;
+        private final AtomicLong heldNanos = new AtomicLong();
+
+        SimulatedPool(int size) {
+            connections = new Semaphore(size, true);
+        }
+
+        void inTransaction(Runnable work) {
+            connections.acquireUninterruptibly();
+            long acquired = System.nanoTime();
+            try {
+                work.run();
+            } finally {
+                heldNanos.addAndGet(System.nanoTime() - acquired);
+                connections.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.healthtourism.paymentservice.service;
+
+import com.healthtourism.paymentservice.entity.Payment;
+import com.stripe.model.PaymentIntent;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentProviderGatewayTest {
+
+    private PaymentProviderGateway gateway;
+    private CircuitBreakerRegistry registry;
+    private CountDownLatch release;
+
+    @BeforeEach
+    void setUp() {
+        registry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMinutes(1))
+                .build());
+        gateway = new PaymentProviderGateway();
+        ReflectionTestUtils.setField(gateway, "circuitBreakerRegistry", registry);
+        ReflectionTestUtils.setField(gateway, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(gateway, "maxConcurrency", 2);
+        ReflectionTestUtils.setField(gateway, "queueCapacity", 1);
+        ReflectionTestUtils.setField(gateway, "timeout", Duration.ofMillis(300));
+        ReflectionTestUtils.setField(gateway, "completionThreads", 1);
+        gateway.afterPropertiesSet();
+        release = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        release.countDown();
+        gateway.destroy();
+    }
+
+    @Test
+    void testAuthorize_NoProviderConfigured_CompletesSimulated() throws Exception {
+        // Given
+        Payment payment = new Payment();
+        payment.setPaymentMethod("BANK_TRANSFER");
+        payment.setAmount(new BigDecimal("100.00"));
+
+        // When
+        PaymentProviderResult result = gateway.authorize(payment, null).get(1, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals("COMPLETED", result.status());
+        assertTrue(result.transactionId().startsWith("TXN-"));
+    }
+
+    @Test
+    void testExecute_ProviderError_Failed() throws Exception {
+        // When
+        PaymentProviderResult result = gateway.execute("stripe", () -> {
+            throw new RuntimeException("card declined");
+        }).get(1, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals("FAILED", result.status());
+        assertNull(result.transactionId());
+        assertTrue(result.notes().contains("card declined"));
+    }
+
+    @Test
+    void testExecute_SlowProvider_StaysPendingAndDeliversLateResult() throws Exception {
+        // Given
+        CompletableFuture<PaymentProviderResult> future = gateway.execute("stripe", this::blockUntilReleased);
+
+        // When - the provider answers after the deadline
+        Thread.sleep(500);
+        boolean doneAtDeadline = future.isDone();
+        release.countDown();
+        PaymentProviderResult result = future.get(1, TimeUnit.SECONDS);
+
+        // Then - the call was not abandoned and its outcome is not lost
+        assertFalse(doneAtDeadline);
+        assertEquals("COMPLETED", result.status());
+        assertEquals("late", result.transactionId());
+        assertEquals(1, registry.circuitBreaker("stripe").getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    void testExecute_QueuedPastTimeout_FailsWithoutCallingProvider() throws Exception {
+        // Given - both threads busy, so the next call waits in the queue
+        for (int i = 0; i < 2; i++) {
+            gateway.execute("paypal", this::blockUntilReleased);
+        }
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        PaymentProviderResult result = gateway.execute("paypal", () -> {
+            calls.incrementAndGet();
+            return new PaymentProviderResult("COMPLETED", "never", null);
+        }).get(2, TimeUnit.SECONDS);
+        release.countDown();
+        Thread.sleep(100);
+
+        // Then
+        assertEquals("FAILED", result.status());
+        assertTrue(result.notes().contains("busy"));
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void testReconcile_SimulatedPayment_FailsWithoutCharge() throws Exception {
+        // Given
+        Payment payment = new Payment();
+        payment.setPaymentMethod("BANK_TRANSFER");
+
+        // When
+        PaymentProviderResult result = gateway.reconcile(payment).get(1, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals("FAILED", result.status());
+        assertTrue(result.resolved());
+    }
+
+    @Test
+    void testReconcile_StripeUnreachable_StaysUnresolved() throws Exception {
+        // Given
+        StripePaymentService stripe = new StripePaymentService() {
+            @Override
+            public Optional<PaymentIntent> findPaymentIntent(String paymentNumber) {
+                throw new RuntimeException("connect timed out");
+            }
+        };
+        ReflectionTestUtils.setField(gateway, "stripePaymentService", stripe);
+        Payment payment = new Payment();
+        payment.setPaymentMethod("CREDIT_CARD");
+        payment.setPaymentNumber("PAY1");
+
+        // When
+        PaymentProviderResult result = gateway.reconcile(payment).get(1, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals("PENDING", result.status());
+        assertFalse(result.resolved());
+    }
+
+    @Test
+    void testReconcile_StripeFoundIntent_AppliesItsOutcome() throws Exception {
+        // Given
+        StripePaymentService stripe = new StripePaymentService() {
+            @Override
+            public Optional<PaymentIntent> findPaymentIntent(String paymentNumber) {
+                PaymentIntent intent = new PaymentIntent();
+                intent.setId("pi_" + paymentNumber);
+                intent.setStatus("succeeded");
+                return Optional.of(intent);
+            }
+        };
+        ReflectionTestUtils.setField(gateway, "stripePaymentService", stripe);
+        Payment payment = new Payment();
+        payment.setPaymentMethod("CREDIT_CARD");
+        payment.setPaymentNumber("PAY1");
+
+        // When
+        PaymentProviderResult result = gateway.reconcile(payment).get(1, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals("COMPLETED", result.status());
+        assertEquals("pi_PAY1", result.transactionId());
+    }
+
+    @Test
+    void testExecute_PoolAndQueueFull_RejectsWithoutCallingProvider() throws Exception {
+        // Given - two running calls and one queued fill the pool
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            gateway.execute("paypal", () -> {
+                calls.incrementAndGet();
+                return blockUntilReleased();
+            });
+        }
+
+        // When
+        PaymentProviderResult result = gateway.execute("paypal", () -> {
+            calls.incrementAndGet();
+            return new PaymentProviderResult("COMPLETED", "never", null);
+        }).get(1, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals("FAILED", result.status());
+        assertTrue(result.notes().contains("busy"));
+        assertTrue(calls.get() <= 2);
+    }
+
+    @Test
+    void testExecute_CircuitOpen_ShortCircuits() throws Exception {
+        // Given
+        for (int i = 0; i < 4; i++) {
+            gateway.execute("stripe", () -> {
+                throw new RuntimeException("503 from provider");
+            }).get(1, TimeUnit.SECONDS);
+        }
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        PaymentProviderResult result = gateway.execute("stripe", () -> {
+            calls.incrementAndGet();
+            return new PaymentProviderResult("COMPLETED", "pi_1", null);
+        }).get(1, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals("FAILED", result.status());
+        assertTrue(result.notes().contains("temporarily unavailable"));
+        assertEquals(0, calls.get());
+    }
+
+    private PaymentProviderResult blockUntilReleased() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return new PaymentProviderResult("COMPLETED", "late", null);
+    }
+}
@@ -10,14 +10,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,7 +38,13 @@ class PaymentServiceTest {
     private EventStoreService eventStoreService;
 
     @Mock
-    private StripePaymentService stripePaymentService;
+    private PaymentStateService paymentStateService;
+
+    @Mock
+    private PaymentProviderGateway paymentProviderGateway;
+
+    @Mock
+    private PaymentStatusStream paymentStatusStream;
 
     @InjectMocks
     private PaymentService paymentService;
@@ -65,15 +76,67 @@ class PaymentServiceTest {
     @Test
     void testProcessPayment_Success() {
         // Given
-        when(paymentRepository.save(any(Payment.class))).thenReturn(payment);
+        Payment pending = new Payment();
+        pending.setId(1L);
+        pending.setPaymentNumber("PAY123456789");
+        pending.setAmount(new BigDecimal("1000.00"));
+        pending.setStatus("PENDING");
+        PaymentProviderResult result = new PaymentProviderResult("COMPLETED", "TXN123456789", null);
+        when(paymentStateService.createPending(paymentRequest)).thenReturn(pending);
+        when(paymentProviderGateway.authorize(pending, paymentRequest.getCardNumber()))
+            .thenReturn(CompletableFuture.completedFuture(result));
+        when(paymentStateService.complete(1L, result)).thenReturn(Optional.of(payment));
 
         // When
-        PaymentDTO result = paymentService.processPayment(paymentRequest);
+        PaymentDTO dto = paymentService.processPayment(paymentRequest);
 
         // Then
-        assertNotNull(result);
-        assertEquals(paymentRequest.getAmount(), result.getAmount());
-        verify(paymentRepository, times(1)).save(any(Payment.class));
+        assertNotNull(dto);
+        assertEquals("PENDING", dto.getStatus());
+        assertEquals(paymentRequest.getAmount(), dto.getAmount());
+        verify(paymentStateService).complete(1L, result);
+        verify(paymentStatusStream).publish(argThat(published -> "COMPLETED".equals(published.getStatus())));
+    }
+
+    @Test
+    void testProcessPayment_AlreadyResolved_NotPublished() {
+        // Given
+        Payment pending = new Payment();
+        pending.setId(1L);
+        pending.setStatus("PENDING");
+        PaymentProviderResult result = PaymentProviderResult.failed("Payment provider busy, please retry");
+        when(paymentStateService.createPending(paymentRequest)).thenReturn(pending);
+        when(paymentProviderGateway.authorize(pending, paymentRequest.getCardNumber()))
+            .thenReturn(CompletableFuture.completedFuture(result));
+        when(paymentStateService.complete(1L, result)).thenReturn(Optional.empty());
+
+        // When
+        paymentService.processPayment(paymentRequest);
+
+        // Then
+        verify(paymentStatusStream, never()).publish(any());
+    }
+
+    @Test
+    void testReconcileStalePayments_AppliesProviderOutcome() {
+        // Given
+        Payment stale = new Payment();
+        stale.setId(2L);
+        stale.setPaymentNumber("PAY2");
+        stale.setStatus("PENDING");
+        PaymentProviderResult result = new PaymentProviderResult("COMPLETED", "pi_2", "Reconciled with Stripe");
+        ReflectionTestUtils.setField(paymentService, "staleAfter", Duration.ofMinutes(5));
+        when(paymentRepository.findStalePendingIds(any(LocalDateTime.class), any())).thenReturn(List.of(2L));
+        when(paymentRepository.findAllById(List.of(2L))).thenReturn(List.of(stale));
+        when(paymentProviderGateway.reconcile(stale)).thenReturn(CompletableFuture.completedFuture(result));
+        when(paymentStateService.complete(2L, result)).thenReturn(Optional.of(payment));
+
+        // When
+        paymentService.reconcileStalePayments();
+
+        // Then
+        verify(paymentStateService).complete(2L, result);
+        verify(paymentStatusStream).publish(any());
     }
 
     @Test
@@ -2,11 +2,9 @@ package com.healthtourism.reminder;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.cloud.netflix.eureka.EnableEurekaClient;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EnableEurekaClient
 @EnableScheduling
 public class ReminderServiceApplication {
     public static void main(String[] args) {
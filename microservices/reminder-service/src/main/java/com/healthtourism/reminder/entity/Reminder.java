@@ -15,7 +15,8 @@ import java.time.LocalDateTime;
 @Table(name = "reminders", indexes = {
     @Index(name = "idx_reminder_type", columnList = "reminderType"),
     @Index(name = "idx_scheduled_at", columnList = "scheduledAt"),
-    @Index(name = "idx_status", columnList = "status")
+    @Index(name = "idx_status", columnList = "status"),
+    @Index(name = "idx_reminder_due", columnList = "status, scheduledAt")
 })
 @Data
 @NoArgsConstructor
@@ -82,6 +83,14 @@ public class Reminder {
     @Column(length = 10)
     private String language; // User's preferred language (tr, en, ar, de)
     
+    @Column(length = 2000)
+    private String notes; // A/B test response tracking
+    
+    @Column(length = 64)
+    private String leaseOwner; // Claim token of the dispatcher node currently sending it
+    
+    private LocalDateTime leaseExpiresAt; // Other nodes may claim it again after this
+    
     public enum ReminderType {
         QUOTE_PENDING,          // Teklif bekliyor
         QUOTE_EXPIRING,         // Teklif süresi doluyor
@@ -2,8 +2,11 @@ package com.healthtourism.reminder.repository;
 
 import com.healthtourism.reminder.entity.Reminder;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -17,4 +20,30 @@ public interface ReminderRepository extends JpaRepository<Reminder, Long> {
     
     @Query("SELECT r FROM Reminder r WHERE r.status = 'PENDING' AND r.scheduledAt <= :now")
     List<Reminder> findPendingRemindersToSend(LocalDateTime now);
+    
+    /**
+     * Leases up to {@code limit} pending reminders due by {@code dueBefore} to {@code token}.
+     * SKIP LOCKED lets several dispatcher nodes claim concurrently without blocking
+     * each other or claiming the same rows; expired leases are claimable again.
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query(value = "UPDATE reminders SET lease_owner = :token, lease_expires_at = :leaseUntil " +
+            "WHERE id IN (SELECT id FROM reminders " +
+            "WHERE status = 'PENDING' AND scheduled_at <= :dueBefore " +
+            "AND (lease_expires_at IS NULL OR lease_expires_at < :now) " +
+            "ORDER BY scheduled_at LIMIT :limit FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+    int claimDue(@Param("token") String token,
+                 @Param("dueBefore") LocalDateTime dueBefore,
+                 @Param("now") LocalDateTime now,
+                 @Param("leaseUntil") LocalDateTime leaseUntil,
+                 @Param("limit") int limit);
+    
+    List<Reminder> findByLeaseOwner(String leaseOwner);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE Reminder r SET r.leaseOwner = null, r.leaseExpiresAt = null " +
+           "WHERE r.leaseOwner LIKE :ownerPrefix AND r.status = 'PENDING'")
+    int releaseLeases(@Param("ownerPrefix") String ownerPrefix);
 }
@@ -1,6 +1,7 @@
 package com.healthtourism.reminder.service;
 
 import com.healthtourism.reminder.entity.Reminder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
@@ -15,7 +16,7 @@ import java.util.Map;
 public class MessagePersonalizationService {
     
     @Value("${reminder.default.language:tr}")
-    private String defaultLanguage;
+    private String defaultLanguage = "tr";
     
     /**
      * Generate personalized message based on reminder type and user data
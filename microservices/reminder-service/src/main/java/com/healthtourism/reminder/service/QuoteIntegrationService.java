@@ -1,5 +1,6 @@
 package com.healthtourism.reminder.service;
 
+import com.healthtourism.reminder.entity.Reminder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -52,11 +53,14 @@ public class QuoteIntegrationService {
                     LocalDateTime sentAt = LocalDateTime.parse(quote.get("updatedAt").toString());
                     
                     // Create reminder for 2 days later
-                    reminderService.createQuoteReminder(quoteId, userId, userEmail, userPhone, sentAt);
+                    String quoteNumber = quote.get("quoteNumber") != null ? quote.get("quoteNumber").toString() : null;
+                    reminderService.createQuoteReminder(quoteId, userId, userEmail, userPhone, sentAt,
+                            null, null, null, quoteNumber, null);
                     
                     // Also create expiring reminder
                     LocalDateTime validUntil = LocalDateTime.parse(quote.get("validUntil").toString());
-                    reminderService.createQuoteExpiringReminder(quoteId, userId, userEmail, userPhone, validUntil);
+                    reminderService.createQuoteExpiringReminder(quoteId, userId, userEmail, userPhone, validUntil,
+                            null, null, null, quoteNumber, null);
                 }
             }
         } catch (Exception e) {
@@ -0,0 +1,342 @@
+package com.healthtourism.reminder.service;
+
+import com.healthtourism.reminder.entity.Reminder;
+import com.healthtourism.reminder.repository.ReminderRepository;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Reminder Dispatcher
+ * Sends due reminders continuously instead of in a 5-minute, single-transaction loop.
+ *
+ * Every {@code reminder.dispatch.poll-interval} the node leases the pending reminders
+ * due within {@code reminder.dispatch.horizon} in batches (SKIP LOCKED, so nodes
+ * share the work) and parks them in a {@link ReminderTimingWheel}, which releases
+ * each one on the tick it falls due. Sends fan out in parallel on one bounded pool
+ * per channel, each behind its own rate limit, and outcomes are written back as
+ * JDBC batches. A node that dies leaves only leases behind; they expire after
+ * {@code reminder.dispatch.lease} and another node picks the reminders up.
+ */
+@Component
+public class ReminderDispatcher implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReminderDispatcher.class);
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final Duration RETRY_DELAY = Duration.ofHours(1);
+
+    @Autowired
+    private ReminderRepository reminderRepository;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private TimezoneService timezoneService;
+
+    @Autowired
+    private ReminderStatusWriter statusWriter;
+
+    @Value("${scheduling.enabled:true}")
+    private boolean enabled;
+
+    @Value("${reminder.dispatch.node-id:}")
+    private String nodeId;
+
+    @Value("${reminder.dispatch.tick:1s}")
+    private Duration tick;
+
+    @Value("${reminder.dispatch.poll-interval:5s}")
+    private Duration pollInterval;
+
+    @Value("${reminder.dispatch.horizon:60s}")
+    private Duration horizon;
+
+    @Value("${reminder.dispatch.lease:5m}")
+    private Duration lease;
+
+    @Value("${reminder.dispatch.batch-size:500}")
+    private int batchSize;
+
+    @Value("${reminder.dispatch.max-in-flight:5000}")
+    private int maxInFlight;
+
+    @Value("${reminder.dispatch.email.concurrency:16}")
+    private int emailConcurrency;
+
+    @Value("${reminder.dispatch.email.rate-per-second:100}")
+    private int emailRatePerSecond;
+
+    @Value("${reminder.dispatch.sms.concurrency:8}")
+    private int smsConcurrency;
+
+    @Value("${reminder.dispatch.sms.rate-per-second:30}")
+    private int smsRatePerSecond;
+
+    @Value("${reminder.dispatch.push.concurrency:16}")
+    private int pushConcurrency;
+
+    @Value("${reminder.dispatch.push.rate-per-second:200}")
+    private int pushRatePerSecond;
+
+    private final Map<Reminder.NotificationChannel, ChannelLane> lanes = new EnumMap<>(Reminder.NotificationChannel.class);
+    private final Queue<ReminderStatusWriter.Outcome> outcomes = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong claimSequence = new AtomicLong();
+    private ReminderTimingWheel wheel;
+    private ScheduledExecutorService ticker;
+    private long nextClaimAt;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (nodeId == null || nodeId.isEmpty()) {
+            nodeId = UUID.randomUUID().toString();
+        }
+        lanes.put(Reminder.NotificationChannel.EMAIL,
+                new ChannelLane("email", emailConcurrency, emailRatePerSecond, lease.minus(horizon), notificationService::sendEmailReminder));
+        lanes.put(Reminder.NotificationChannel.SMS,
+                new ChannelLane("sms", smsConcurrency, smsRatePerSecond, lease.minus(horizon), notificationService::sendSMSReminder));
+        lanes.put(Reminder.NotificationChannel.PUSH,
+                new ChannelLane("push", pushConcurrency, pushRatePerSecond, lease.minus(horizon), notificationService::sendPushReminder));
+
+        if (enabled) {
+            int slots = (int) Math.max(1, horizon.toMillis() / tick.toMillis()) + 1;
+            wheel = new ReminderTimingWheel(tick, slots, System.currentTimeMillis());
+            ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "reminder-dispatch");
+                thread.setDaemon(true);
+                return thread;
+            });
+            ticker.scheduleWithFixedDelay(this::tick, 0, tick.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Claims and sends everything already due, waits for the sends and writes the
+     * outcomes; the background dispatcher normally does this continuously.
+     *
+     * @return number of reminders claimed
+     */
+    public int dispatchDueNow() {
+        int claimedTotal = 0;
+        List<Reminder> claimed;
+        do {
+            claimed = claim(LocalDateTime.now(), batchSize);
+            List<CompletableFuture<Void>> sends = new ArrayList<>(claimed.size());
+            for (Reminder reminder : claimed) {
+                sends.add(dispatch(reminder));
+            }
+            CompletableFuture.allOf(sends.toArray(new CompletableFuture<?>[0])).join();
+            flushOutcomes();
+            claimedTotal += claimed.size();
+        } while (claimed.size() == batchSize);
+        return claimedTotal;
+    }
+
+    private void tick() {
+        try {
+            long now = System.currentTimeMillis();
+            if (now >= nextClaimAt) {
+                claimUpcoming();
+                nextClaimAt = now + pollInterval.toMillis();
+            }
+            for (Reminder reminder : wheel.advance(now)) {
+                dispatch(reminder);
+            }
+            flushOutcomes();
+        } catch (RuntimeException e) {
+            log.warn("Reminder dispatch tick failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void claimUpcoming() {
+        int capacity = maxInFlight - inFlight.get() - wheel.size();
+        while (capacity > 0) {
+            int limit = Math.min(batchSize, capacity);
+            List<Reminder> claimed = claim(LocalDateTime.now().plus(horizon), limit);
+            for (Reminder reminder : claimed) {
+                wheel.schedule(reminder, reminder.getScheduledAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            }
+            capacity -= claimed.size();
+            if (claimed.size() < limit) {
+                break;
+            }
+        }
+    }
+
+    private List<Reminder> claim(LocalDateTime dueBefore, int limit) {
+        // A token per claim lets us load exactly the rows this claim leased
+        String token = nodeId + ":" + claimSequence.incrementAndGet();
+        LocalDateTime now = LocalDateTime.now();
+        if (reminderRepository.claimDue(token, dueBefore, now, now.plus(lease), limit) == 0) {
+            return List.of();
+        }
+        return reminderRepository.findByLeaseOwner(token);
+    }
+
+    CompletableFuture<Void> dispatch(Reminder reminder) {
+        // Check if it's appropriate time in user's timezone
+        String timezone = reminder.getTimezone();
+        if (timezone != null && !timezone.isEmpty() && !timezoneService.isAppropriateTime(timezone)) {
+            outcomes.add(ReminderStatusWriter.Outcome.rescheduled(reminder, nextAppropriateTime(timezone)));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<ChannelLane> targets = lanesFor(reminder.getChannel());
+        CompletableFuture<?>[] sends = new CompletableFuture<?>[targets.size()];
+        for (int i = 0; i < sends.length; i++) {
+            sends[i] = targets.get(i).submit(reminder);
+        }
+        inFlight.incrementAndGet();
+        return CompletableFuture.allOf(sends).handle((ignored, error) -> {
+            inFlight.decrementAndGet();
+            outcomes.add(error == null
+                    ? ReminderStatusWriter.Outcome.sent(reminder, LocalDateTime.now())
+                    : failed(reminder, error instanceof CompletionException && error.getCause() != null ? error.getCause() : error));
+            return null;
+        });
+    }
+
+    private List<ChannelLane> lanesFor(Reminder.NotificationChannel channel) {
+        if (channel == null || channel == Reminder.NotificationChannel.ALL) {
+            return List.of(lanes.get(Reminder.NotificationChannel.EMAIL),
+                    lanes.get(Reminder.NotificationChannel.SMS),
+                    lanes.get(Reminder.NotificationChannel.PUSH));
+        }
+        return List.of(lanes.get(channel));
+    }
+
+    private LocalDateTime nextAppropriateTime(String timezone) {
+        // Today's optimal time may already be past (e.g. it is 23:00 there); then use tomorrow's
+        LocalDateTime today = timezoneService.getOptimalSendingTime(timezone, 0);
+        return today.isAfter(LocalDateTime.now()) ? today : timezoneService.getOptimalSendingTime(timezone, 1);
+    }
+
+    /**
+     * Retry up to 3 times, 1 hour apart, then mark as failed.
+     */
+    private ReminderStatusWriter.Outcome failed(Reminder reminder, Throwable error) {
+        int retryCount = (reminder.getRetryCount() != null ? reminder.getRetryCount() : 0) + 1;
+        if (retryCount < MAX_ATTEMPTS) {
+            return new ReminderStatusWriter.Outcome(reminder.getId(), reminder.getLeaseOwner(), Reminder.ReminderStatus.PENDING,
+                    LocalDateTime.now().plus(RETRY_DELAY), null, retryCount, error.getMessage());
+        }
+        return new ReminderStatusWriter.Outcome(reminder.getId(), reminder.getLeaseOwner(), Reminder.ReminderStatus.FAILED,
+                reminder.getScheduledAt(), null, retryCount, error.getMessage());
+    }
+
+    private synchronized void flushOutcomes() {
+        List<ReminderStatusWriter.Outcome> batch = new ArrayList<>();
+        ReminderStatusWriter.Outcome outcome;
+        while ((outcome = outcomes.poll()) != null) {
+            batch.add(outcome);
+            if (batch.size() == batchSize) {
+                write(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        write(batch);
+    }
+
+    private void write(List<ReminderStatusWriter.Outcome> batch) {
+        try {
+            statusWriter.write(batch);
+        } catch (RuntimeException e) {
+            // Keep them for the next tick; dropping them would re-send once the leases expire
+            log.warn("Writing {} reminder outcomes failed, retrying: {}", batch.size(), e.getMessage());
+            outcomes.addAll(batch);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        for (ChannelLane lane : lanes.values()) {
+            lane.executor.shutdown();
+        }
+        for (ChannelLane lane : lanes.values()) {
+            if (!lane.executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                lane.executor.shutdownNow();
+            }
+        }
+        try {
+            flushOutcomes();
+            // Whatever is still leased here was never sent; let other nodes take it now
+            int released = reminderRepository.releaseLeases(nodeId + ":%");
+            if (released > 0) {
+                log.info("Released {} unsent reminder leases", released);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Releasing reminder leases failed, they expire after {}: {}", lease, e.getMessage());
+        }
+    }
+
+    /**
+     * One notification channel: a bounded sender pool behind a rate limit.
+     */
+    private static final class ChannelLane {
+        private final ExecutorService executor;
+        private final RateLimiter rateLimiter;
+        private final Consumer<Reminder> sender;
+
+        ChannelLane(String name, int concurrency, int ratePerSecond, Duration maxWait, Consumer<Reminder> sender) {
+            AtomicInteger threads = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, "reminder-" + name + "-" + threads.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            // Senders queue for permits; a send that cannot go out within the lease fails and is retried
+            this.rateLimiter = RateLimiter.of("reminder-" + name, RateLimiterConfig.custom()
+                    .limitForPeriod(ratePerSecond)
+                    .limitRefreshPeriod(Duration.ofSeconds(1))
+                    .timeoutDuration(maxWait)
+                    .build());
+            this.sender = sender;
+        }
+
+        CompletableFuture<Void> submit(Reminder reminder) {
+            try {
+                return CompletableFuture.runAsync(() -> {
+                    RateLimiter.waitForPermission(rateLimiter);
+                    sender.accept(reminder);
+                }, executor);
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+    }
+}
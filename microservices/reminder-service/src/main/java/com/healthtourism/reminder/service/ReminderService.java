@@ -4,7 +4,6 @@ import com.healthtourism.reminder.entity.Reminder;
 import com.healthtourism.reminder.repository.ReminderRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
@@ -23,7 +22,7 @@ public class ReminderService {
     private ReminderRepository reminderRepository;
     
     @Autowired
-    private NotificationService notificationService;
+    private ReminderDispatcher reminderDispatcher;
     
     @Autowired
     private ABTestingService abTestingService;
@@ -217,77 +216,12 @@ public class ReminderService {
     }
     
     /**
-     * Scheduled job - runs every 5 minutes to check for pending reminders
-     * Includes timezone-aware sending
+     * Sends every reminder that is due now and waits for the outcome.
+     * The ReminderDispatcher does this continuously in the background;
+     * this is for manual triggering and tests.
      */
-    @Scheduled(fixedRate = 300000) // 5 minutes
-    @Transactional
     public void processPendingReminders() {
-        LocalDateTime now = LocalDateTime.now();
-        List<Reminder> pendingReminders = reminderRepository.findPendingRemindersToSend(now);
-        
-        for (Reminder reminder : pendingReminders) {
-            try {
-                // Check if it's appropriate time in user's timezone
-                if (reminder.getTimezone() != null && !reminder.getTimezone().isEmpty()) {
-                    if (!timezoneService.isAppropriateTime(reminder.getTimezone())) {
-                        // Reschedule for next appropriate time
-                        LocalDateTime nextAppropriate = timezoneService.getOptimalSendingTime(
-                            reminder.getTimezone(), 0
-                        );
-                        reminder.setScheduledAt(nextAppropriate);
-                        reminderRepository.save(reminder);
-                        continue;
-                    }
-                }
-                
-                sendReminder(reminder);
-                reminder.setStatus(Reminder.ReminderStatus.SENT);
-                reminder.setSentAt(LocalDateTime.now());
-                reminderRepository.save(reminder);
-            } catch (Exception e) {
-                handleReminderFailure(reminder, e);
-            }
-        }
-    }
-    
-    /**
-     * Send reminder notification
-     */
-    private void sendReminder(Reminder reminder) {
-        if (reminder.getChannel() == Reminder.NotificationChannel.EMAIL || 
-            reminder.getChannel() == Reminder.NotificationChannel.ALL) {
-            notificationService.sendEmailReminder(reminder);
-        }
-        
-        if (reminder.getChannel() == Reminder.NotificationChannel.SMS || 
-            reminder.getChannel() == Reminder.NotificationChannel.ALL) {
-            notificationService.sendSMSReminder(reminder);
-        }
-        
-        if (reminder.getChannel() == Reminder.NotificationChannel.PUSH || 
-            reminder.getChannel() == Reminder.NotificationChannel.ALL) {
-            notificationService.sendPushReminder(reminder);
-        }
-    }
-    
-    /**
-     * Handle reminder failure with retry logic
-     */
-    private void handleReminderFailure(Reminder reminder, Exception e) {
-        reminder.setRetryCount(reminder.getRetryCount() != null ? reminder.getRetryCount() + 1 : 1);
-        reminder.setErrorMessage(e.getMessage());
-        
-        // Retry up to 3 times
-        if (reminder.getRetryCount() < 3) {
-            // Reschedule for 1 hour later
-            reminder.setScheduledAt(LocalDateTime.now().plusHours(1));
-            reminderRepository.save(reminder);
-        } else {
-            // Mark as failed after 3 retries
-            reminder.setStatus(Reminder.ReminderStatus.FAILED);
-            reminderRepository.save(reminder);
-        }
+        reminderDispatcher.dispatchDueNow();
     }
     
     /**
@@ -0,0 +1,99 @@
+package com.healthtourism.reminder.service;
+
+import com.healthtourism.reminder.entity.Reminder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes dispatch outcomes back to the reminders table as one JDBC batch per
+ * flush, releasing each reminder's lease in the same statement.
+ *
+ * An outcome is only applied while the reminder is still leased under the claim
+ * that produced it. If the lease expired and another node re-claimed the
+ * reminder, the row is left to that node and the outcome is counted as stale.
+ */
+@Component
+public class ReminderStatusWriter {
+
+    private static final String UPDATE_OUTCOME = "UPDATE reminders SET status = ?, scheduled_at = ?, sent_at = ?, " +
+            "retry_count = ?, error_message = ?, lease_owner = NULL, lease_expires_at = NULL WHERE id = ? AND lease_owner = ?";
+
+    private static final Logger log = LoggerFactory.getLogger(ReminderStatusWriter.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final AtomicLong staleOutcomes = new AtomicLong();
+
+    /**
+     * Final state of one dispatch attempt: sent, rescheduled (quiet hours or retry) or failed.
+     */
+    public record Outcome(Long reminderId, String leaseOwner, Reminder.ReminderStatus status, LocalDateTime scheduledAt,
+                          LocalDateTime sentAt, Integer retryCount, String errorMessage) {
+
+        static Outcome sent(Reminder reminder, LocalDateTime sentAt) {
+            return new Outcome(reminder.getId(), reminder.getLeaseOwner(), Reminder.ReminderStatus.SENT,
+                    reminder.getScheduledAt(), sentAt, reminder.getRetryCount(), reminder.getErrorMessage());
+        }
+
+        static Outcome rescheduled(Reminder reminder, LocalDateTime scheduledAt) {
+            return new Outcome(reminder.getId(), reminder.getLeaseOwner(), Reminder.ReminderStatus.PENDING,
+                    scheduledAt, null, reminder.getRetryCount(), reminder.getErrorMessage());
+        }
+    }
+
+    /**
+     * @return number of outcomes applied; the rest had lost their lease
+     */
+    @Transactional
+    public int write(List<Outcome> outcomes) {
+        if (outcomes.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> rows = new ArrayList<>(outcomes.size());
+        for (Outcome outcome : outcomes) {
+            rows.add(new Object[]{
+                    outcome.status().name(),
+                    toTimestamp(outcome.scheduledAt()),
+                    toTimestamp(outcome.sentAt()),
+                    outcome.retryCount(),
+                    truncate(outcome.errorMessage()),
+                    outcome.reminderId(),
+                    outcome.leaseOwner()
+            });
+        }
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_OUTCOME, rows);
+        int applied = 0;
+        for (int count : updated) {
+            // Drivers may report SUCCESS_NO_INFO (-2) for batched statements; only 0 means the guard failed
+            if (count != 0) {
+                applied++;
+            }
+        }
+        int stale = rows.size() - applied;
+        if (stale > 0) {
+            log.warn("{} of {} reminder outcomes not written: lease expired or taken by another node ({} so far)",
+                    stale, rows.size(), staleOutcomes.addAndGet(stale));
+        }
+        return applied;
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime time) {
+        return time != null ? Timestamp.valueOf(time) : null;
+    }
+
+    private static String truncate(String message) {
+        // error_message is VARCHAR(1000)
+        return message != null && message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
@@ -0,0 +1,86 @@
+package com.healthtourism.reminder.service;
+
+import com.healthtourism.reminder.entity.Reminder;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hashed timing wheel holding reminders that were claimed ahead of their due time.
+ *
+ * The reminders table (indexed on status, scheduled_at) is the coarse level: only
+ * reminders due within the claim horizon are loaded, and the wheel releases each
+ * one on the tick it falls due. Scheduling and advancing a tick are O(1) per
+ * reminder, however many are waiting. Entries more than one revolution ahead stay
+ * in their slot until their tick comes round.
+ *
+ * Not thread-safe; only the dispatcher's tick thread uses it.
+ */
+public class ReminderTimingWheel {
+
+    private final long tickMillis;
+    private final List<ArrayDeque<Entry>> slots;
+    private final List<Reminder> overdue = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    private record Entry(long dueTick, Reminder reminder) {
+    }
+
+    public ReminderTimingWheel(Duration tick, int slotCount, long startMillis) {
+        if (tick.toMillis() <= 0 || slotCount <= 0) {
+            throw new IllegalArgumentException("Tick and slot count must be positive");
+        }
+        this.tickMillis = tick.toMillis();
+        this.slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new ArrayDeque<>());
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    public void schedule(Reminder reminder, long dueMillis) {
+        // Round up so a reminder is never released before it is due
+        long dueTick = (dueMillis + tickMillis - 1) / tickMillis;
+        if (dueTick <= currentTick) {
+            overdue.add(reminder);
+        } else {
+            slots.get((int) (dueTick % slots.size())).add(new Entry(dueTick, reminder));
+        }
+        size++;
+    }
+
+    /**
+     * Moves the wheel to {@code nowMillis} and returns every reminder due by then,
+     * in due order within each tick.
+     */
+    public List<Reminder> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<Reminder> due = new ArrayList<>(overdue);
+        overdue.clear();
+        if (targetTick > currentTick) {
+            // After a long pause, one pass over every slot is enough
+            long passes = Math.min(targetTick - currentTick, slots.size());
+            for (long tick = targetTick - passes + 1; tick <= targetTick; tick++) {
+                Iterator<Entry> entries = slots.get((int) (tick % slots.size())).iterator();
+                while (entries.hasNext()) {
+                    Entry entry = entries.next();
+                    if (entry.dueTick() <= targetTick) {
+                        due.add(entry.reminder());
+                        entries.remove();
+                    }
+                }
+            }
+            currentTick = targetTick;
+        }
+        size -= due.size();
+        return due;
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,179 @@
+package com.healthtourism.reminder.service;
+
+import com.healthtourism.reminder.entity.Reminder;
+import com.healthtourism.reminder.repository.ReminderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ReminderDispatcherTest {
+
+    @Mock
+    private ReminderRepository reminderRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private TimezoneService timezoneService;
+
+    @Mock
+    private ReminderStatusWriter statusWriter;
+
+    private ReminderDispatcher dispatcher;
+    private final List<ReminderStatusWriter.Outcome> written = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new ReminderDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "reminderRepository", reminderRepository);
+        ReflectionTestUtils.setField(dispatcher, "notificationService", notificationService);
+        ReflectionTestUtils.setField(dispatcher, "timezoneService", timezoneService);
+        ReflectionTestUtils.setField(dispatcher, "statusWriter", statusWriter);
+        ReflectionTestUtils.setField(dispatcher, "enabled", false);
+        ReflectionTestUtils.setField(dispatcher, "nodeId", "node-1");
+        ReflectionTestUtils.setField(dispatcher, "horizon", Duration.ofSeconds(60));
+        ReflectionTestUtils.setField(dispatcher, "lease", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 100);
+        ReflectionTestUtils.setField(dispatcher, "emailConcurrency", 4);
+        ReflectionTestUtils.setField(dispatcher, "emailRatePerSecond", 1000);
+        ReflectionTestUtils.setField(dispatcher, "smsConcurrency", 4);
+        ReflectionTestUtils.setField(dispatcher, "smsRatePerSecond", 5);
+        ReflectionTestUtils.setField(dispatcher, "pushConcurrency", 4);
+        ReflectionTestUtils.setField(dispatcher, "pushRatePerSecond", 1000);
+        dispatcher.afterPropertiesSet();
+
+        when(statusWriter.write(anyList())).thenAnswer(invocation -> {
+            List<ReminderStatusWriter.Outcome> batch = invocation.getArgument(0);
+            written.addAll(batch);
+            return batch.size();
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        dispatcher.destroy();
+    }
+
+    private void givenClaimable(List<Reminder> reminders) {
+        when(reminderRepository.claimDue(anyString(), any(), any(), any(), anyInt()))
+                .thenReturn(reminders.size(), 0);
+        when(reminderRepository.findByLeaseOwner(startsWith("node-1:"))).thenReturn(reminders);
+    }
+
+    private static Reminder reminder(long id, Reminder.NotificationChannel channel) {
+        Reminder reminder = new Reminder();
+        reminder.setId(id);
+        reminder.setChannel(channel);
+        reminder.setRetryCount(0);
+        reminder.setScheduledAt(LocalDateTime.now().minusMinutes(1));
+        reminder.setMessage("Test message");
+        return reminder;
+    }
+
+    private Map<Long, ReminderStatusWriter.Outcome> outcomesById() {
+        return written.stream().collect(Collectors.toMap(ReminderStatusWriter.Outcome::reminderId, Function.identity()));
+    }
+
+    @Test
+    void testDispatchDueNow_SendsAllChannelsAndWritesOneBatch() {
+        // Given
+        givenClaimable(List.of(reminder(1L, Reminder.NotificationChannel.ALL),
+                reminder(2L, Reminder.NotificationChannel.EMAIL)));
+
+        // When
+        int claimed = dispatcher.dispatchDueNow();
+
+        // Then
+        assertEquals(2, claimed);
+        verify(notificationService, times(2)).sendEmailReminder(any(Reminder.class));
+        verify(notificationService, times(1)).sendSMSReminder(any(Reminder.class));
+        verify(notificationService, times(1)).sendPushReminder(any(Reminder.class));
+        verify(statusWriter, times(1)).write(anyList());
+        assertEquals(Reminder.ReminderStatus.SENT, outcomesById().get(1L).status());
+        assertNotNull(outcomesById().get(2L).sentAt());
+    }
+
+    @Test
+    void testDispatchDueNow_FailedChannelSchedulesRetry() {
+        // Given
+        Reminder lastAttempt = reminder(2L, Reminder.NotificationChannel.SMS);
+        lastAttempt.setRetryCount(2);
+        givenClaimable(List.of(reminder(1L, Reminder.NotificationChannel.ALL), lastAttempt));
+        doThrow(new RuntimeException("Failed to send SMS reminder"))
+                .when(notificationService).sendSMSReminder(any(Reminder.class));
+
+        // When
+        dispatcher.dispatchDueNow();
+
+        // Then
+        ReminderStatusWriter.Outcome retry = outcomesById().get(1L);
+        assertEquals(Reminder.ReminderStatus.PENDING, retry.status());
+        assertEquals(1, retry.retryCount());
+        assertEquals("Failed to send SMS reminder", retry.errorMessage());
+        assertTrue(retry.scheduledAt().isAfter(LocalDateTime.now().plusMinutes(59)));
+        assertEquals(Reminder.ReminderStatus.FAILED, outcomesById().get(2L).status());
+    }
+
+    @Test
+    void testDispatchDueNow_QuietHoursReschedulesWithoutSending() {
+        // Given
+        Reminder reminder = reminder(1L, Reminder.NotificationChannel.ALL);
+        reminder.setTimezone("Asia/Tokyo");
+        givenClaimable(List.of(reminder));
+        LocalDateTime tomorrowMorning = LocalDateTime.now().plusHours(10);
+        when(timezoneService.isAppropriateTime("Asia/Tokyo")).thenReturn(false);
+        when(timezoneService.getOptimalSendingTime("Asia/Tokyo", 0)).thenReturn(LocalDateTime.now().minusHours(14));
+        when(timezoneService.getOptimalSendingTime("Asia/Tokyo", 1)).thenReturn(tomorrowMorning);
+
+        // When
+        dispatcher.dispatchDueNow();
+
+        // Then - today's 10:00 has passed, so it moves to tomorrow rather than being re-claimed at once
+        verifyNoInteractions(notificationService);
+        ReminderStatusWriter.Outcome outcome = outcomesById().get(1L);
+        assertEquals(Reminder.ReminderStatus.PENDING, outcome.status());
+        assertEquals(tomorrowMorning, outcome.scheduledAt());
+    }
+
+    @Test
+    void testDispatchDueNow_SmsLaneIsRateLimited() {
+        // Given - 15 SMS at 5 per second need at least two more refresh periods
+        List<Reminder> reminders = new ArrayList<>();
+        for (long id = 1; id <= 15; id++) {
+            reminders.add(reminder(id, Reminder.NotificationChannel.SMS));
+        }
+        givenClaimable(reminders);
+
+        // When
+        long started = System.nanoTime();
+        dispatcher.dispatchDueNow();
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+        // Then
+        verify(notificationService, times(15)).sendSMSReminder(any(Reminder.class));
+        assertTrue(elapsedMs >= 1_000, "15 SMS at 5/s finished in " + elapsedMs + " ms");
+        assertEquals(15, written.size());
+    }
+}
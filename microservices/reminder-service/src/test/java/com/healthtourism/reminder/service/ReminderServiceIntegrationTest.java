@@ -2,26 +2,31 @@ package com.healthtourism.reminder.service;
 
 import com.healthtourism.reminder.entity.Reminder;
 import com.healthtourism.reminder.repository.ReminderRepository;
-import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.test.context.ActiveProfiles;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
 
 /**
  * Integration Tests for ReminderService
  * Tests timezone-aware scheduling, especially night hours control
+ *
+ * Not @Transactional: reminders are claimed with a native UPDATE and sent on the
+ * channel pools, so each step has to commit for the next one to see it.
  */
 @SpringBootTest
 @ActiveProfiles("test")
-@Transactional
 class ReminderServiceIntegrationTest {
 
     @Autowired
@@ -30,18 +35,18 @@ class ReminderServiceIntegrationTest {
     @Autowired
     private ReminderRepository reminderRepository;
 
-    @Autowired
+    @SpyBean
     private TimezoneService timezoneService;
 
-    @Test
-    void testNightHoursRescheduling() {
-        // Given - Create reminder scheduled for 3 AM in Istanbul timezone
-        LocalDateTime nightTime = LocalDateTime.now()
-            .atZone(ZoneId.of("Europe/Istanbul"))
-            .withHour(3)
-            .withMinute(0)
-            .toLocalDateTime();
+    @MockBean
+    private NotificationService notificationService;
+
+    @AfterEach
+    void tearDown() {
+        reminderRepository.deleteAll();
+    }
 
+    private Reminder dueReminder(String timezone, Reminder.NotificationChannel channel) {
         Reminder reminder = new Reminder();
         reminder.setReminderType(Reminder.ReminderType.QUOTE_PENDING);
         reminder.setEntityId(1L);
@@ -49,36 +54,78 @@ class ReminderServiceIntegrationTest {
         reminder.setUserEmail("test@example.com");
         reminder.setUserPhone("+905551234567");
         reminder.setStatus(Reminder.ReminderStatus.PENDING);
-        reminder.setScheduledAt(nightTime);
-        reminder.setTimezone("Europe/Istanbul");
-        reminder.setChannel(Reminder.NotificationChannel.ALL);
+        reminder.setScheduledAt(LocalDateTime.now().minusMinutes(1));
+        reminder.setTimezone(timezone);
+        reminder.setChannel(channel);
         reminder.setRetryCount(0);
+        reminder.setIsPersonalized(false);
         reminder.setMessage("Test message");
         reminder.setCreatedAt(LocalDateTime.now());
+        return reminderRepository.save(reminder);
+    }
 
-        reminder = reminderRepository.save(reminder);
+    @Test
+    void testNightHoursRescheduling() {
+        // Given - a due reminder while it is night in Istanbul
+        doReturn(false).when(timezoneService).isAppropriateTime("Europe/Istanbul");
+        Reminder reminder = dueReminder("Europe/Istanbul", Reminder.NotificationChannel.ALL);
 
-        // When - Process pending reminders (should reschedule if night time)
+        // When
         reminderService.processPendingReminders();
 
-        // Then - Check if reminder was rescheduled (if it was night time)
+        // Then - nothing is sent and it is moved to appropriate hours, lease released
         Reminder updatedReminder = reminderRepository.findById(reminder.getId()).orElseThrow();
-        
-        // If it was night time, it should be rescheduled to optimal time (9 AM)
-        if (!timezoneService.isAppropriateTime("Europe/Istanbul")) {
-            // Verify it's rescheduled to optimal time
-            ZonedDateTime scheduledZoned = updatedReminder.getScheduledAt()
-                .atZone(ZoneId.of("Europe/Istanbul"));
-            int hour = scheduledZoned.getHour();
-            assertTrue(hour >= 8 && hour < 22, "Reminder should be rescheduled to appropriate hours (8-22)");
-        }
+        assertEquals(Reminder.ReminderStatus.PENDING, updatedReminder.getStatus());
+        assertNull(updatedReminder.getLeaseOwner());
+        assertTrue(updatedReminder.getScheduledAt().isAfter(LocalDateTime.now()));
+        ZonedDateTime scheduledZoned = updatedReminder.getScheduledAt()
+            .atZone(ZoneId.systemDefault())
+            .withZoneSameInstant(ZoneId.of("Europe/Istanbul"));
+        int hour = scheduledZoned.getHour();
+        assertTrue(hour >= 8 && hour < 22, "Reminder should be rescheduled to appropriate hours (8-22)");
+        verifyNoInteractions(notificationService);
     }
 
     @Test
-    void testTimezoneFallbackToUTC() {
-        // Given - Invalid timezone
-        String invalidTimezone = "INVALID_TIMEZONE";
+    void testDueReminderIsSentOnEveryChannel() {
+        // Given
+        doReturn(true).when(timezoneService).isAppropriateTime("Europe/Istanbul");
+        Reminder reminder = dueReminder("Europe/Istanbul", Reminder.NotificationChannel.ALL);
+
+        // When
+        reminderService.processPendingReminders();
 
+        // Then
+        Reminder updatedReminder = reminderRepository.findById(reminder.getId()).orElseThrow();
+        assertEquals(Reminder.ReminderStatus.SENT, updatedReminder.getStatus());
+        assertNotNull(updatedReminder.getSentAt());
+        assertNull(updatedReminder.getLeaseOwner());
+        verify(notificationService).sendEmailReminder(any(Reminder.class));
+        verify(notificationService).sendSMSReminder(any(Reminder.class));
+        verify(notificationService).sendPushReminder(any(Reminder.class));
+    }
+
+    @Test
+    void testFailedSendIsRetriedLater() {
+        // Given
+        doThrow(new RuntimeException("Failed to send email reminder"))
+            .when(notificationService).sendEmailReminder(any(Reminder.class));
+        Reminder reminder = dueReminder(null, Reminder.NotificationChannel.EMAIL);
+
+        // When
+        reminderService.processPendingReminders();
+
+        // Then - back to pending an hour later, not picked up again by the same run
+        Reminder updatedReminder = reminderRepository.findById(reminder.getId()).orElseThrow();
+        assertEquals(Reminder.ReminderStatus.PENDING, updatedReminder.getStatus());
+        assertEquals(1, updatedReminder.getRetryCount());
+        assertEquals("Failed to send email reminder", updatedReminder.getErrorMessage());
+        assertTrue(updatedReminder.getScheduledAt().isAfter(LocalDateTime.now().plusMinutes(50)));
+        assertNull(updatedReminder.getLeaseOwner());
+    }
+
+    @Test
+    void testTimezoneFallbackToUTC() {
         // When - Get timezone from invalid country code
         String timezone = timezoneService.getTimezoneFromCountry("XX");
 
@@ -22,7 +22,13 @@ class ReminderServiceTest {
     private ReminderRepository reminderRepository;
 
     @Mock
-    private NotificationService notificationService;
+    private ABTestingService abTestingService;
+
+    @Mock
+    private TimezoneService timezoneService;
+
+    @Mock
+    private MessagePersonalizationService personalizationService;
 
     @InjectMocks
     private ReminderService reminderService;
@@ -30,13 +36,12 @@ class ReminderServiceTest {
     @Test
     void testCreateQuoteReminder() {
         // Given
-        Reminder reminder = new Reminder();
-        reminder.setId(1L);
-        when(reminderRepository.save(any(Reminder.class))).thenReturn(reminder);
+        when(reminderRepository.save(any(Reminder.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // When
         Reminder result = reminderService.createQuoteReminder(
-            1L, 100L, "user@example.com", "+905551234567", LocalDateTime.now()
+            1L, 100L, "user@example.com", "+905551234567", LocalDateTime.now(),
+            null, "Ayşe", "Dental", "Q-1", "tr"
         );
 
         // Then
@@ -50,13 +55,12 @@ class ReminderServiceTest {
     @Test
     void testCreateQuoteExpiringReminder() {
         // Given
-        Reminder reminder = new Reminder();
-        reminder.setId(1L);
-        when(reminderRepository.save(any(Reminder.class))).thenReturn(reminder);
+        when(reminderRepository.save(any(Reminder.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // When
         Reminder result = reminderService.createQuoteExpiringReminder(
-            1L, 100L, "user@example.com", "+905551234567", LocalDateTime.now().plusDays(30)
+            1L, 100L, "user@example.com", "+905551234567", LocalDateTime.now().plusDays(30),
+            null, "Ayşe", "Dental", "Q-1", "tr"
         );
 
         // Then
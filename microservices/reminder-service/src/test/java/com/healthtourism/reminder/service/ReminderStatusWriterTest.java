@@ -0,0 +1,58 @@
+package com.healthtourism.reminder.service;
+
+import com.healthtourism.reminder.entity.Reminder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReminderStatusWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private ReminderStatusWriter statusWriter;
+
+    @Test
+    void testWrite_OnlyUpdatesRowsStillLeasedByTheClaim() {
+        // Given - reminder 2's lease expired and another node re-claimed it
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 0, -2});
+
+        // When
+        int applied = statusWriter.write(List.of(
+                outcome(1L, "node-1:7"), outcome(2L, "node-1:7"), outcome(3L, "node-1:8")));
+
+        // Then
+        assertEquals(2, applied);
+        verify(jdbcTemplate).batchUpdate(argThat((String sql) -> sql.endsWith("WHERE id = ? AND lease_owner = ?")),
+                argThat((List<Object[]> rows) -> rows.size() == 3
+                        && rows.get(1)[5].equals(2L) && rows.get(1)[6].equals("node-1:7")));
+    }
+
+    @Test
+    void testWrite_Empty_NoStatement() {
+        // When
+        int applied = statusWriter.write(List.of());
+
+        // Then
+        assertEquals(0, applied);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private static ReminderStatusWriter.Outcome outcome(Long id, String leaseOwner) {
+        return new ReminderStatusWriter.Outcome(id, leaseOwner, Reminder.ReminderStatus.SENT,
+                LocalDateTime.now(), LocalDateTime.now(), 0, null);
+    }
+}
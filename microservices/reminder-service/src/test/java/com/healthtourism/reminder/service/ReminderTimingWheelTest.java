@@ -0,0 +1,78 @@
+package com.healthtourism.reminder.service;
+
+import com.healthtourism.reminder.entity.Reminder;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReminderTimingWheelTest {
+
+    private static Reminder reminder(long id) {
+        Reminder reminder = new Reminder();
+        reminder.setId(id);
+        return reminder;
+    }
+
+    @Test
+    void testAdvance_ReleasesRemindersOnTheirTick() {
+        // Given
+        ReminderTimingWheel wheel = new ReminderTimingWheel(Duration.ofSeconds(1), 10, 0);
+        wheel.schedule(reminder(1), 2_500);
+        wheel.schedule(reminder(2), 5_000);
+
+        // When
+        List<Reminder> early = wheel.advance(2_499);
+        List<Reminder> first = wheel.advance(3_000);
+        List<Reminder> second = wheel.advance(5_000);
+
+        // Then
+        assertTrue(early.isEmpty());
+        assertEquals(List.of(1L), first.stream().map(Reminder::getId).toList());
+        assertEquals(List.of(2L), second.stream().map(Reminder::getId).toList());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testSchedule_OverdueReminderIsReleasedOnNextAdvance() {
+        // Given
+        ReminderTimingWheel wheel = new ReminderTimingWheel(Duration.ofSeconds(1), 10, 10_000);
+
+        // When
+        wheel.schedule(reminder(1), 3_000);
+
+        // Then
+        assertEquals(1, wheel.advance(10_000).size());
+    }
+
+    @Test
+    void testAdvance_KeepsRemindersMoreThanOneRevolutionAhead() {
+        // Given - 10 one-second slots, reminder 25s out shares a slot with ticks 5 and 15
+        ReminderTimingWheel wheel = new ReminderTimingWheel(Duration.ofSeconds(1), 10, 0);
+        wheel.schedule(reminder(1), 25_000);
+
+        // When / Then
+        assertTrue(wheel.advance(5_000).isEmpty());
+        assertTrue(wheel.advance(15_000).isEmpty());
+        assertEquals(1, wheel.advance(25_000).size());
+    }
+
+    @Test
+    void testAdvance_LongPauseReleasesEverythingDue() {
+        // Given
+        ReminderTimingWheel wheel = new ReminderTimingWheel(Duration.ofSeconds(1), 10, 0);
+        for (int i = 1; i <= 30; i++) {
+            wheel.schedule(reminder(i), i * 1_000L);
+        }
+
+        // When - the tick thread was stalled for 20 seconds
+        List<Reminder> due = wheel.advance(20_000);
+
+        // Then
+        assertEquals(20, due.size());
+        assertEquals(10, wheel.size());
+        assertEquals(10, wheel.advance(30_000).size());
+    }
+}
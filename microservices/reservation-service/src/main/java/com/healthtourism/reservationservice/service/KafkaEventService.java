@@ -1,23 +1,24 @@
 package com.healthtourism.reservationservice.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthtourism.common.outbox.OutboxWriter;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Reservation events for Kafka, written to the outbox in the caller's transaction
+ * and published by the outbox relay (keyed by reservation id).
+ */
 @Service
 public class KafkaEventService {
     
     @Autowired
-    private KafkaTemplate<String, String> kafkaTemplate;
-    
-    @Autowired
-    private ObjectMapper objectMapper;
+    private OutboxWriter outboxWriter;
     
     private static final String RESERVATION_TOPIC = "reservation-events";
+    private static final String AGGREGATE_TYPE = "RESERVATION";
     
     public void publishReservationCreated(Long reservationId, Long userId, Long hospitalId) {
         Map<String, Object> event = new HashMap<>();
@@ -27,7 +28,7 @@ public class KafkaEventService {
         event.put("hospitalId", hospitalId);
         event.put("timestamp", System.currentTimeMillis());
         
-        publishEvent(RESERVATION_TOPIC, event);
+        publishEvent(reservationId, event);
     }
     
     public void publishReservationUpdated(Long reservationId, String status) {
@@ -37,7 +38,7 @@ public class KafkaEventService {
         event.put("status", status);
         event.put("timestamp", System.currentTimeMillis());
         
-        publishEvent(RESERVATION_TOPIC, event);
+        publishEvent(reservationId, event);
     }
     
     public void publishReservationCancelled(Long reservationId) {
@@ -46,18 +47,11 @@ public class KafkaEventService {
         event.put("reservationId", reservationId);
         event.put("timestamp", System.currentTimeMillis());
         
-        publishEvent(RESERVATION_TOPIC, event);
+        publishEvent(reservationId, event);
     }
     
-    private void publishEvent(String topic, Map<String, Object> event) {
-        try {
-            String message = objectMapper.writeValueAsString(event);
-            kafkaTemplate.send(topic, message);
-        } catch (Exception e) {
-            // Log error but don't fail the main operation
-            System.err.println("Failed to publish event: " + e.getMessage());
-        }
+    private void publishEvent(Long reservationId, Map<String, Object> event) {
+        // Part of the reservation transaction: no event without the change, no change without the event
+        outboxWriter.append(AGGREGATE_TYPE, reservationId, RESERVATION_TOPIC, (String) event.get("eventType"), event);
     }
 }
-
-
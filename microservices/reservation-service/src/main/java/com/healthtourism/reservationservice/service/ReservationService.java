@@ -46,6 +46,7 @@ public class ReservationService {
     private final ReservationStateMachine stateMachine;
     private final NotificationService notificationService;
     private final IdempotencyService idempotencyService;
+    private final KafkaEventService kafkaEventService;
     
     /**
      * Create a new reservation with idempotency support
@@ -86,6 +87,7 @@ public class ReservationService {
         reservation.setStatus(ReservationStatus.PENDING);
         
         Reservation savedReservation = reservationRepository.save(reservation);
+        kafkaEventService.publishReservationCreated(savedReservation.getId(), savedReservation.getUserId(), savedReservation.getHospitalId());
         
         // Store idempotency key with result
         if (idempotencyKey != null && !idempotencyKey.trim().isEmpty()) {
@@ -160,6 +162,7 @@ public class ReservationService {
         
         reservation.cancel();
         Reservation savedReservation = reservationRepository.save(reservation);
+        kafkaEventService.publishReservationCancelled(savedReservation.getId());
         
         log.info("Reservation cancelled successfully: {}", savedReservation.getReservationNumber());
         
@@ -181,6 +184,7 @@ public class ReservationService {
         
         reservation.confirm();
         Reservation savedReservation = reservationRepository.save(reservation);
+        kafkaEventService.publishReservationUpdated(savedReservation.getId(), savedReservation.getStatus().name());
         
         log.info("Reservation confirmed successfully: {}", savedReservation.getReservationNumber());
         
@@ -205,6 +209,7 @@ public class ReservationService {
         reservation.setStatus(status);
         
         Reservation savedReservation = reservationRepository.save(reservation);
+        kafkaEventService.publishReservationUpdated(savedReservation.getId(), savedReservation.getStatus().name());
         
         log.info("Reservation status updated successfully: {}", savedReservation.getReservationNumber());
         